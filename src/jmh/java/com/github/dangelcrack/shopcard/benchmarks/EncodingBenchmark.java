@@ -0,0 +1,129 @@
+package com.github.dangelcrack.shopcard.benchmarks;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.dangelcrack.shopcard.encoding.CatalogoProtobufEncoder;
+import com.github.dangelcrack.shopcard.models.Producto;
+import com.google.protobuf.CodedOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de codificar un listado de productos en cada formato de respuesta ({@code Accept}) y
+ * tamaño del resultado.
+ *
+ * <p>El tiempo por operación es el de la codificación. Al preparar cada tamaño de listado se
+ * imprime una línea {@code [bytes]} con el tamaño del cuerpo en cada formato. JSON, CBOR y Smile
+ * usan la misma configuración de Jackson que la aplicación; Protobuf usa
+ * {@link CatalogoProtobufEncoder}, como el conversor {@code application/x-protobuf}.</p>
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="EncodingBenchmark -prof gc"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EncodingBenchmark {
+
+    private static final Type LISTA_PRODUCTOS = listaProductos();
+
+    @Param({"20", "1000"})
+    public int listSize;
+
+    private ObjectMapper json;
+    private ObjectMapper cbor;
+    private ObjectMapper smile;
+    private List<Producto> lista;
+    private ByteArrayOutputStream buffer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        json = mapper(new JsonFactory());
+        cbor = mapper(new CBORFactory());
+        smile = mapper(new SmileFactory());
+        lista = List.copyOf(SyntheticCatalog.productos(10_000).subList(0, listSize));
+        buffer = new ByteArrayOutputStream(1 << 20);
+        try {
+            int base = json();
+            int cborBytes = cbor();
+            int smileBytes = smile();
+            int protobufBytes = protobuf();
+            System.out.printf("%n[bytes] %d productos: json=%d cbor=%d (%.0f %%) smile=%d (%.0f %%) protobuf=%d (%.0f %%)%n",
+                    listSize, base, cborBytes, 100.0 * cborBytes / base, smileBytes, 100.0 * smileBytes / base,
+                    protobufBytes, 100.0 * protobufBytes / base);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Benchmark
+    public int json() throws IOException {
+        return jackson(json);
+    }
+
+    @Benchmark
+    public int cbor() throws IOException {
+        return jackson(cbor);
+    }
+
+    @Benchmark
+    public int smile() throws IOException {
+        return jackson(smile);
+    }
+
+    @Benchmark
+    public int protobuf() throws IOException {
+        buffer.reset();
+        CodedOutputStream out = CodedOutputStream.newInstance(buffer, 8192);
+        CatalogoProtobufEncoder.escribirLista(lista, LISTA_PRODUCTOS, out);
+        out.flush();
+        return buffer.size();
+    }
+
+    private int jackson(ObjectMapper mapper) throws IOException {
+        buffer.reset();
+        mapper.writeValue(buffer, lista);
+        return buffer.size();
+    }
+
+    private static ObjectMapper mapper(JsonFactory factory) {
+        return Jackson2ObjectMapperBuilder.json()
+                .factory(factory)
+                .featuresToDisable(SerializationFeature.FAIL_ON_EMPTY_BEANS, SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .build();
+    }
+
+    private static Type listaProductos() {
+        try {
+            return EncodingBenchmark.class.getDeclaredField("lista").getGenericType();
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
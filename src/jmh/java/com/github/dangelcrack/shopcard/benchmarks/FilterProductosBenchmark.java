@@ -0,0 +1,85 @@
+package com.github.dangelcrack.shopcard.benchmarks;
+
+import com.github.dangelcrack.shopcard.models.Producto;
+import com.github.dangelcrack.shopcard.repositories.ProductoRepository;
+import com.github.dangelcrack.shopcard.services.ProductoService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de {@link ProductoService#filterProductos} sobre catálogos de distinto tamaño y con filtros
+ * de distinta selectividad. El repositorio devuelve el catálogo en memoria, así que se mide solo
+ * el filtrado en Java, no la consulta.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class FilterProductosBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    /**
+     * Selectividad del filtro:
+     * <ul>
+     *     <li>{@code ninguno}: sin filtros, devuelve todo el catálogo</li>
+     *     <li>{@code coleccion}: una colección (~200 cartas)</li>
+     *     <li>{@code rareza}: la rareza más común (~45 %)</li>
+     *     <li>{@code precio}: rango de precio (~30 %)</li>
+     *     <li>{@code rating}: media redondeada de 4 o 5 (recorre las valoraciones)</li>
+     *     <li>{@code nombre}: subcadena del nombre (~7 %)</li>
+     *     <li>{@code combinado}: categoría, rareza, precio y rating a la vez</li>
+     * </ul>
+     */
+    @Param({"ninguno", "coleccion", "rareza", "precio", "rating", "nombre", "combinado"})
+    public String filtro;
+
+    private ProductoService service;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<Producto> catalogo = SyntheticCatalog.productos(size);
+        ProductoRepository repository = (ProductoRepository) Proxy.newProxyInstance(
+                ProductoRepository.class.getClassLoader(), new Class<?>[]{ProductoRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findAll") && method.getParameterCount() == 0) {
+                        return catalogo;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        service = new ProductoService(repository, null, event -> { }, new SimpleMeterRegistry(), Tracer.NOOP);
+    }
+
+    @Benchmark
+    public List<Producto> filterProductos() {
+        return switch (filtro) {
+            case "ninguno" -> service.filterProductos(null, null, null, null, null, null, null, null);
+            case "coleccion" -> service.filterProductos(null, List.of(size / 400 + 1), null, null, null, null, null, null);
+            case "rareza" -> service.filterProductos(null, null, List.of(1), null, null, null, null, null);
+            case "precio" -> service.filterProductos(null, null, null, null, null, 1.0, 10.0, null);
+            case "rating" -> service.filterProductos(null, null, null, null, List.of(4, 5), null, null, null);
+            case "nombre" -> service.filterProductos(null, null, null, null, null, null, null, "pikachu");
+            case "combinado" -> service.filterProductos(List.of(1, 2), null, List.of(3, 4, 5), null, List.of(4, 5), 2.0, 200.0, null);
+            default -> throw new IllegalArgumentException(filtro);
+        };
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.dangelcrack.shopcard.benchmarks;
+
+import com.github.dangelcrack.shopcard.ShopCardApplication;
+import com.github.dangelcrack.shopcard.datagen.CatalogGenerator;
+import com.github.dangelcrack.shopcard.datagen.CatalogSpec;
+import com.github.dangelcrack.shopcard.models.Categoria;
+import com.github.dangelcrack.shopcard.models.Colecciones;
+import com.github.dangelcrack.shopcard.models.EstadosProducto;
+import com.github.dangelcrack.shopcard.models.Producto;
+import com.github.dangelcrack.shopcard.models.Rareza;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserción masiva de productos en una transacción: ids reservados por bloques en
+ * {@code secuencias}, que permiten los lotes JDBC, frente a IDENTITY, que obliga a lanzar cada
+ * INSERT en el momento para leer la clave ({@link ProductoIdentidad}).
+ *
+ * <p>Lo que ahorran los lotes son viajes a la base de datos, y con la H2 embebida de los demás
+ * benchmarks una sentencia no sale del proceso. Por eso la aplicación se conecta a la H2 a través
+ * de su servidor TCP local: cada sentencia o lote paga un viaje por la red, como con MySQL.</p>
+ *
+ * <p>Cada operación inserta {@code filas} productos; al terminar cada iteración se borran. El
+ * calentamiento es más largo que en el resto porque cada operación dura decenas de milisegundos
+ * y el JIT tarda varias iteraciones en estabilizarse.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 10, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InsertBenchmark {
+
+    @Param({"1000"})
+    public int filas;
+
+    @Param({"secuencia", "identidad"})
+    public String ids;
+
+    private Server servidor;
+    private ConfigurableApplicationContext context;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbc;
+    private int ultimoId;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        // El servidor TCP no crea bases de datos nuevas: se crea antes desde dentro del proceso
+        String opciones = ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        DriverManager.getConnection("jdbc:h2:mem:insercion" + opciones, "sa", "").close();
+        servidor = Server.createTcpServer("-tcpPort", "0").start();
+        String url = "jdbc:h2:tcp://localhost:" + servidor.getPort() + "/mem:insercion" + opciones;
+        context = new SpringApplicationBuilder(ShopCardApplication.class)
+                .properties(Map.of("server.port", "0", "logging.level.root", "WARN"))
+                .run("--spring.datasource.url=" + url);
+        DataSource dataSource = context.getBean(DataSource.class);
+        new CatalogGenerator(dataSource).generate(CatalogSpec.of(100));
+        jdbc = new JdbcTemplate(dataSource);
+        ultimoId = jdbc.queryForObject("SELECT MAX(id) FROM productos", Integer.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void borrar() {
+        jdbc.update("DELETE FROM productos WHERE id > ?", ultimoId);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        servidor.stop();
+    }
+
+    @Benchmark
+    public int insertar() {
+        return transactionTemplate.execute(status -> {
+            boolean identidad = "identidad".equals(ids);
+            for (int i = 0; i < filas; i++) {
+                BigDecimal precio = BigDecimal.valueOf(100 + i % 900, 2);
+                entityManager.persist(identidad
+                        ? new ProductoIdentidad("Carta " + i, precio, i, 1)
+                        : producto("Carta " + i, precio, i));
+            }
+            return filas;
+        });
+    }
+
+    private Producto producto(String nombre, BigDecimal precio, int numero) {
+        Producto producto = new Producto();
+        producto.setNombre(nombre);
+        producto.setPrecio(precio);
+        producto.setPrecioOriginal(precio);
+        producto.setStock(1);
+        producto.setNumeroCarta(numero);
+        producto.setFechaCreacion(LocalDate.now());
+        producto.setCategoria(entityManager.getReference(Categoria.class, 1));
+        producto.setColeccion(entityManager.getReference(Colecciones.class, 1));
+        producto.setRareza(entityManager.getReference(Rareza.class, 1));
+        producto.setEstado(entityManager.getReference(EstadosProducto.class, 1));
+        return producto;
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.dangelcrack.shopcard.benchmarks;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * La tabla {@code productos} con el id por IDENTITY, como estaba mapeado {@code Producto} antes
+ * de reservar los ids por bloques. Solo la usa {@link InsertBenchmark} como referencia; las
+ * relaciones van como columnas sueltas porque el INSERT es el mismo.
+ */
+@Entity
+@Table(name = "productos")
+public class ProductoIdentidad {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    private String nombre;
+
+    private BigDecimal precio;
+
+    @Column(name = "precio_original")
+    private BigDecimal precioOriginal;
+
+    private Integer stock;
+
+    @Column(name = "numero_carta")
+    private Integer numeroCarta;
+
+    @Column(name = "categoria_id")
+    private Integer categoriaId;
+
+    @Column(name = "coleccion_id")
+    private Integer coleccionId;
+
+    @Column(name = "rareza_id")
+    private Integer rarezaId;
+
+    @Column(name = "estado_id")
+    private Integer estadoId;
+
+    @Column(name = "fecha_creacion")
+    private LocalDate fechaCreacion;
+
+    public ProductoIdentidad() {}
+
+    public ProductoIdentidad(String nombre, BigDecimal precio, int numeroCarta, int relacionId) {
+        this.nombre = nombre;
+        this.precio = precio;
+        this.precioOriginal = precio;
+        this.stock = 1;
+        this.numeroCarta = numeroCarta;
+        this.categoriaId = relacionId;
+        this.coleccionId = relacionId;
+        this.rarezaId = relacionId;
+        this.estadoId = relacionId;
+        this.fechaCreacion = LocalDate.now();
+    }
+
+    public Integer getId() { return id; }
+}
@@ -0,0 +1,108 @@
+package com.github.dangelcrack.shopcard.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dangelcrack.shopcard.ShopCardApplication;
+import com.github.dangelcrack.shopcard.datagen.CatalogGenerator;
+import com.github.dangelcrack.shopcard.datagen.CatalogSpec;
+import com.github.dangelcrack.shopcard.services.ProductoService;
+import com.github.dangelcrack.shopcard.services.ProductoStreamService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listado de productos por categoría o colección en JSON: entidades más {@code ObjectMapper}
+ * (el camino de CBOR, Smile y Protobuf) frente a {@link ProductoStreamService}, que escribe las
+ * filas directamente en el generador.
+ *
+ * <p>Arranca la aplicación en un puerto libre sobre la H2 de los tests y la rellena con
+ * {@link CatalogGenerator}; el listado medido es el de la categoría o colección con más
+ * productos. Al preparar el estado comprueba que los dos caminos producen los mismos bytes.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductoStreamBenchmark {
+
+    @Param({"10000"})
+    public int productos;
+
+    @Param({"categoria", "coleccion"})
+    public String filtro;
+
+    private ConfigurableApplicationContext context;
+    private ProductoService productoService;
+    private ProductoStreamService streamService;
+    private ObjectMapper mapper;
+    private int id;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        context = new SpringApplicationBuilder(ShopCardApplication.class)
+                .properties(Map.of("server.port", "0", "logging.level.root", "WARN"))
+                .run();
+        DataSource dataSource = context.getBean(DataSource.class);
+        new CatalogGenerator(dataSource).generate(CatalogSpec.of(productos));
+        id = new JdbcTemplate(dataSource).queryForObject("SELECT " + filtro + "_id FROM productos GROUP BY " + filtro
+                + "_id ORDER BY COUNT(*) DESC LIMIT 1", Integer.class);
+        productoService = context.getBean(ProductoService.class);
+        streamService = context.getBean(ProductoStreamService.class);
+        mapper = context.getBean(ObjectMapper.class);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        if (!Arrays.equals(entidades(), streaming(buffer))) {
+            throw new IllegalStateException("El JSON de los dos caminos no coincide");
+        }
+        System.out.printf("%n%s %d: %d bytes%n", filtro, id, buffer.size());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] entidades() throws IOException {
+        return mapper.writeValueAsBytes("categoria".equals(filtro)
+                ? productoService.findByCategoriaId(id)
+                : productoService.findByColeccionId(id));
+    }
+
+    @Benchmark
+    public byte[] streaming() throws IOException {
+        return streaming(new ByteArrayOutputStream(1 << 16));
+    }
+
+    private byte[] streaming(ByteArrayOutputStream buffer) throws IOException {
+        if ("categoria".equals(filtro)) {
+            streamService.escribirPorCategoria(id, buffer);
+        } else {
+            streamService.escribirPorColeccion(id, buffer);
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.dangelcrack.shopcard.benchmarks;
+
+import com.github.dangelcrack.shopcard.models.Producto;
+import com.github.dangelcrack.shopcard.services.ProductoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste por producto de los cálculos que se repiten en cada listado: la media de valoraciones
+ * ({@link Producto#getRatingPromedio()} y {@link ProductoService#hasMatchingRating}) y el
+ * porcentaje de descuento ({@link Producto#calcularDescuento()}).
+ *
+ * <p>Cada operación procesa un producto distinto del catálogo, en orden, para que la mezcla de
+ * productos sin valoraciones y con muchas sea la del catálogo sintético.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RatingBenchmark {
+
+    private static final List<Integer> RATINGS = List.of(4, 5);
+
+    private Producto[] productos;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        productos = SyntheticCatalog.productos(10_000).toArray(new Producto[0]);
+    }
+
+    private Producto nextProducto() {
+        Producto p = productos[next];
+        next = next + 1 == productos.length ? 0 : next + 1;
+        return p;
+    }
+
+    @Benchmark
+    public Double getRatingPromedio() {
+        return nextProducto().getRatingPromedio();
+    }
+
+    @Benchmark
+    public boolean hasMatchingRating() {
+        return ProductoService.hasMatchingRating(nextProducto().getValoraciones(), RATINGS);
+    }
+
+    @Benchmark
+    public BigDecimal calcularDescuento() {
+        return nextProducto().calcularDescuento();
+    }
+}
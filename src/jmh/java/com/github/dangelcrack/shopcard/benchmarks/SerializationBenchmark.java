@@ -0,0 +1,77 @@
+package com.github.dangelcrack.shopcard.benchmarks;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.dangelcrack.shopcard.models.Producto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de serializar a JSON las respuestas de producto con la misma configuración de Jackson
+ * que la aplicación ({@code spring.jackson.*} de {@code application.properties}).
+ *
+ * <ul>
+ *     <li>{@code lista}: un listado de {@code listSize} productos, como los de búsqueda y filtro.</li>
+ *     <li>{@code detalle}: el producto con más valoraciones del catálogo, como {@code GET /api/productos/{id}}.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    @Param({"20", "100", "1000"})
+    public int listSize;
+
+    private ObjectMapper mapper;
+    private List<Producto> lista;
+    private Producto detalle;
+    private ByteArrayOutputStream buffer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        mapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.FAIL_ON_EMPTY_BEANS, SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .build();
+        List<Producto> catalogo = SyntheticCatalog.productos(10_000);
+        lista = List.copyOf(catalogo.subList(0, listSize));
+        detalle = catalogo.stream().max(Comparator.comparingInt(p -> p.getValoraciones().size())).orElseThrow();
+        buffer = new ByteArrayOutputStream(1 << 20);
+    }
+
+    @Benchmark
+    public int lista() throws IOException {
+        buffer.reset();
+        mapper.writeValue(buffer, lista);
+        return buffer.size();
+    }
+
+    @Benchmark
+    public int detalle() throws IOException {
+        buffer.reset();
+        mapper.writeValue(buffer, detalle);
+        return buffer.size();
+    }
+}
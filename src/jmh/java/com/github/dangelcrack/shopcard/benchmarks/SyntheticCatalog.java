@@ -0,0 +1,145 @@
+package com.github.dangelcrack.shopcard.benchmarks;
+
+import com.github.dangelcrack.shopcard.models.Categoria;
+import com.github.dangelcrack.shopcard.models.Colecciones;
+import com.github.dangelcrack.shopcard.models.EstadosProducto;
+import com.github.dangelcrack.shopcard.models.Producto;
+import com.github.dangelcrack.shopcard.models.Rareza;
+import com.github.dangelcrack.shopcard.models.Valoracione;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Catálogo sintético en memoria para los benchmarks, generado a partir de una semilla fija para
+ * que dos ejecuciones comparen exactamente los mismos datos.
+ *
+ * <p>Reproduce la forma del catálogo real: unas 200 cartas por colección, rarezas con precios de
+ * órdenes de magnitud distintos y un número de valoraciones por carta con cola larga (la mayoría
+ * tienen 0-2 y unas pocas cientos).</p>
+ */
+final class SyntheticCatalog {
+
+    static final String[] RAREZAS = {"Común", "Infrecuente", "Rara", "Holo rara", "Ultra rara", "Secreta"};
+    /** Proporción de cartas de cada rareza. */
+    private static final double[] PESO_RAREZA = {0.45, 0.30, 0.13, 0.07, 0.04, 0.01};
+    /** Precio mediano de cada rareza. */
+    private static final double[] PRECIO_RAREZA = {0.25, 0.60, 2.5, 9.0, 35.0, 180.0};
+    private static final String[] CATEGORIAS = {"Pokémon", "Entrenador", "Energía", "Accesorio"};
+    private static final String[] ESTADOS = {"NM", "EX", "GD", "LP", "PL"};
+    private static final String[] NOMBRES = {"Pikachu", "Charizard", "Mewtwo", "Eevee", "Gengar", "Snorlax",
+            "Lucario", "Gardevoir", "Rayquaza", "Umbreon", "Bulbasaur", "Squirtle", "Dragonite", "Mew"};
+    private static final String[] CLIENTES = {"ana", "bob", "carla", "david", "elena", "fran", "gema", "hugo"};
+
+    static final long SEED = 20240611L;
+
+    private SyntheticCatalog() {
+    }
+
+    /**
+     * @param size Número de productos
+     * @return Productos con sus relaciones y valoraciones, con ids consecutivos desde 1
+     */
+    static List<Producto> productos(int size) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        List<Categoria> categorias = new ArrayList<>();
+        for (int i = 0; i < CATEGORIAS.length; i++) {
+            Categoria c = new Categoria();
+            c.setId(i + 1);
+            c.setNombre(CATEGORIAS[i]);
+            categorias.add(c);
+        }
+        List<Rareza> rarezas = new ArrayList<>();
+        for (int i = 0; i < RAREZAS.length; i++) {
+            Rareza r = new Rareza();
+            r.setId(i + 1);
+            r.setNombre(RAREZAS[i]);
+            rarezas.add(r);
+        }
+        List<EstadosProducto> estados = new ArrayList<>();
+        for (int i = 0; i < ESTADOS.length; i++) {
+            EstadosProducto e = new EstadosProducto();
+            e.setId(i + 1);
+            e.setCodigo(ESTADOS[i]);
+            estados.add(e);
+        }
+        int numColecciones = Math.max(10, size / 200);
+        List<Colecciones> colecciones = new ArrayList<>(numColecciones);
+        LocalDate inicio = LocalDate.of(1999, 1, 9);
+        for (int i = 0; i < numColecciones; i++) {
+            Colecciones c = new Colecciones();
+            c.setId(i + 1);
+            c.setNombre("Colección " + (i + 1));
+            c.setCodigo("C" + (i + 1));
+            c.setFechaLanzamiento(inicio.plusDays(i * 9125L / numColecciones));
+            colecciones.add(c);
+        }
+
+        List<Producto> productos = new ArrayList<>(size);
+        int valoracionId = 1;
+        for (int i = 0; i < size; i++) {
+            int rareza = pickRareza(random.nextDouble());
+            Producto p = new Producto();
+            p.setId(i + 1);
+            p.setNombre(NOMBRES[random.nextInt(NOMBRES.length)] + " " + (i + 1));
+            p.setDescripcion("Carta sintética " + (i + 1));
+            BigDecimal precio = precio(random, rareza);
+            p.setPrecio(precio);
+            p.setPrecioOriginal(random.nextInt(4) == 0
+                    ? precio.multiply(BigDecimal.valueOf(1.25)).setScale(2, RoundingMode.HALF_UP)
+                    : precio);
+            p.setStock(random.nextInt(20));
+            p.setNumeroCarta(i % 200 + 1);
+            p.setCategoria(categorias.get(random.nextInt(categorias.size())));
+            p.setColeccion(colecciones.get(Math.min(numColecciones - 1, i / 200)));
+            p.setRareza(rarezas.get(rareza));
+            p.setEstado(estados.get(random.nextInt(estados.size())));
+
+            int numValoraciones = valoraciones(random);
+            List<Valoracione> valoraciones = new ArrayList<>(numValoraciones);
+            for (int v = 0; v < numValoraciones; v++) {
+                Valoracione val = new Valoracione();
+                val.setId(valoracionId++);
+                val.setNombreCliente(CLIENTES[random.nextInt(CLIENTES.length)]);
+                val.setPuntuacion((byte) (1 + Math.min(4, (int) (random.nextDouble() * random.nextDouble() * 5 + random.nextInt(3)))));
+                val.setProducto(p);
+                valoraciones.add(val);
+            }
+            p.setValoraciones(valoraciones);
+            productos.add(p);
+        }
+        return productos;
+    }
+
+    private static int pickRareza(double u) {
+        double acumulado = 0;
+        for (int i = 0; i < PESO_RAREZA.length; i++) {
+            acumulado += PESO_RAREZA[i];
+            if (u < acumulado) {
+                return i;
+            }
+        }
+        return PESO_RAREZA.length - 1;
+    }
+
+    /**
+     * Precio log-normal alrededor de la mediana de la rareza.
+     */
+    private static BigDecimal precio(SplittableRandom random, int rareza) {
+        double gauss = random.nextDouble() + random.nextDouble() + random.nextDouble() - 1.5;
+        double precio = Math.max(0.05, PRECIO_RAREZA[rareza] * Math.exp(gauss * 0.8));
+        return BigDecimal.valueOf(precio).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Número de valoraciones con distribución de Pareto (alfa 1.2), acotado a 300.
+     */
+    private static int valoraciones(SplittableRandom random) {
+        double u = 1.0 - random.nextDouble();
+        return (int) Math.min(300, Math.pow(u, -1.0 / 1.2) - 1);
+    }
+}
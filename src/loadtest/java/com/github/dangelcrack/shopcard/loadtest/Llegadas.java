@@ -0,0 +1,48 @@
+package com.github.dangelcrack.shopcard.loadtest;
+
+import java.util.SplittableRandom;
+
+/**
+ * Calendario de llegadas de un proceso de Poisson: los intervalos entre peticiones siguen una
+ * distribución exponencial de media {@code 1 / rps}.
+ *
+ * <p>Cada instante se calcula a partir del anterior, nunca del reloj: si el generador se
+ * retrasa, las peticiones pendientes salen seguidas al recuperarse, en lugar de desplazar el
+ * resto del calendario y dejar de enviar las que tocaban durante el retraso.</p>
+ */
+final class Llegadas {
+
+    private final SplittableRandom random;
+    private final double mediaNanos;
+    private long siguiente;
+
+    /**
+     * @param rps Peticiones por segundo
+     * @param random Generador de los intervalos
+     * @param inicio Instante de la primera llegada, en nanosegundos
+     */
+    Llegadas(double rps, SplittableRandom random, long inicio) {
+        if (!(rps > 0)) {
+            throw new IllegalArgumentException("La tasa de llegadas debe ser positiva: " + rps);
+        }
+        this.random = random;
+        this.mediaNanos = 1e9 / rps;
+        this.siguiente = inicio;
+    }
+
+    /**
+     * @return Instante previsto de la próxima petición; avanza el calendario
+     */
+    long siguiente() {
+        long previsto = siguiente;
+        siguiente += (long) (-Math.log(1 - random.nextDouble()) * mediaNanos);
+        return previsto;
+    }
+
+    /**
+     * @return Instante previsto de la próxima petición, sin avanzar el calendario
+     */
+    long proxima() {
+        return siguiente;
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.dangelcrack.shopcard.loadtest;
+
+import com.github.dangelcrack.shopcard.ShopCardApplication;
+import com.github.dangelcrack.shopcard.datagen.CatalogGenerator;
+import com.github.dangelcrack.shopcard.datagen.CatalogSpec;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Prueba de carga HTTP de extremo a extremo.
+ *
+ * <p>Arranca la aplicación en un puerto libre con la base de datos H2 de los tests, la rellena
+ * con {@link CatalogGenerator}, lanza la mezcla de peticiones configurada con un modelo abierto
+ * ({@link OpenModelDriver}) y escribe el informe ({@link LoadTestReport}). El limitador de
+ * peticiones por cliente se desactiva, porque todo el tráfico sale de la misma IP; el resto de
+ * la configuración es la de la aplicación y se puede cambiar con {@code --spring.*} o
+ * {@code --shopcard.*}.</p>
+ *
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--rps=300 --duracion=120 --comparar=anterior.json"
+ * </pre>
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        // DevTools volvería a lanzar este main en otro class loader, sin los argumentos
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ShopCardApplication.class)
+                .properties(Map.of(
+                        "server.port", "0",
+                        "shopcard.load-shedding.rate-limit.enabled", "false",
+                        "logging.level.root", "WARN"))
+                .run(config.spring().toArray(String[]::new));
+        try {
+            CatalogGenerator.Result catalogo = new CatalogGenerator(context.getBean(DataSource.class))
+                    .generate(CatalogSpec.of(config.productos()).withSemilla(config.semilla()));
+            System.out.printf("Catálogo: %d productos, %d colecciones, %d valoraciones (%d ms)%n",
+                    catalogo.productos(), catalogo.colecciones(), catalogo.valoraciones(), catalogo.millis());
+
+            int puerto = ((WebServerApplicationContext) context).getWebServer().getPort();
+            System.out.printf("Carga: %.0f peticiones/s, %d s de calentamiento y %d s de medición%n",
+                    config.rps(), config.calentamiento().toSeconds(), config.duracion().toSeconds());
+            Map<Operacion, OpenModelDriver.Resultado> resultados = new OpenModelDriver(
+                    "http://localhost:" + puerto, config, catalogo.productos(), catalogo.colecciones()).run();
+
+            LoadTestReport report = new LoadTestReport();
+            Path informe = report.write(config, resultados);
+            report.print(informe, config.comparar(), System.out);
+            System.out.println("Informe: " + informe.toAbsolutePath());
+        } finally {
+            context.close();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.dangelcrack.shopcard.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parámetros de la prueba de carga.
+ *
+ * @param rps Peticiones por segundo (tasa media de llegadas)
+ * @param duracion Duración de la fase de medición
+ * @param calentamiento Duración del calentamiento, cuyas peticiones no se miden
+ * @param productos Tamaño del catálogo sintético
+ * @param semilla Semilla del catálogo y de la secuencia de peticiones
+ * @param mezcla Peso de cada operación
+ * @param salida Directorio donde se escribe el informe
+ * @param comparar Informe anterior con el que comparar, o null
+ * @param spring Argumentos adicionales para la aplicación ({@code --spring.x=y})
+ */
+record LoadTestConfig(double rps,
+                      Duration duracion,
+                      Duration calentamiento,
+                      int productos,
+                      long semilla,
+                      Map<Operacion, Double> mezcla,
+                      Path salida,
+                      Path comparar,
+                      List<String> spring) {
+
+    static final String MEZCLA_POR_DEFECTO = "detalle:50,listado:20,busqueda:15,filtro:10,valoracion:5";
+
+    /**
+     * Opciones: {@code --rps}, {@code --duracion} y {@code --calentamiento} (segundos),
+     * {@code --productos}, {@code --semilla}, {@code --mezcla=detalle:50,filtro:10,...},
+     * {@code --salida} y {@code --comparar}. Las que empiezan por {@code --spring.} o
+     * {@code --shopcard.} se pasan a la aplicación.
+     */
+    static LoadTestConfig parse(String[] args) {
+        Map<String, String> opciones = new LinkedHashMap<>();
+        List<String> spring = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--spring.") || arg.startsWith("--shopcard.") || arg.startsWith("--logging.")) {
+                spring.add(arg);
+                continue;
+            }
+            int igual = arg.indexOf('=');
+            if (!arg.startsWith("--") || igual < 0) {
+                throw new IllegalArgumentException("Argumento no reconocido: " + arg);
+            }
+            opciones.put(arg.substring(2, igual), arg.substring(igual + 1));
+        }
+
+        Map<Operacion, Double> mezcla = new EnumMap<>(Operacion.class);
+        for (String parte : opciones.getOrDefault("mezcla", MEZCLA_POR_DEFECTO).split(",")) {
+            String[] kv = parte.split(":");
+            mezcla.put(Operacion.porNombre(kv[0].trim()), Double.parseDouble(kv[1]));
+        }
+        double total = mezcla.values().stream().mapToDouble(Double::doubleValue).sum();
+        if (total <= 0) {
+            throw new IllegalArgumentException("La mezcla debe tener algún peso positivo");
+        }
+        mezcla.replaceAll((o, peso) -> peso / total);
+
+        String comparar = opciones.get("comparar");
+        return new LoadTestConfig(
+                Double.parseDouble(opciones.getOrDefault("rps", "100")),
+                Duration.ofSeconds(Long.parseLong(opciones.getOrDefault("duracion", "60"))),
+                Duration.ofSeconds(Long.parseLong(opciones.getOrDefault("calentamiento", "15"))),
+                Integer.parseInt(opciones.getOrDefault("productos", "20000")),
+                Long.parseLong(opciones.getOrDefault("semilla", "20240611")),
+                mezcla,
+                Path.of(opciones.getOrDefault("salida", "target/loadtest")),
+                comparar == null ? null : Path.of(comparar),
+                spring);
+    }
+
+    /**
+     * @param u Número uniforme en [0, 1)
+     * @return Operación elegida según los pesos de la mezcla
+     */
+    Operacion elegir(double u) {
+        double acumulado = 0;
+        Operacion ultima = null;
+        for (Map.Entry<Operacion, Double> e : mezcla.entrySet()) {
+            acumulado += e.getValue();
+            ultima = e.getKey();
+            if (u < acumulado) {
+                return ultima;
+            }
+        }
+        return ultima;
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.dangelcrack.shopcard.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Informe de la prueba de carga.
+ *
+ * <p>Se escribe {@code report.json} con la configuración y, por operación, el número de
+ * peticiones, los errores, las respuestas por código HTTP, el rendimiento y los percentiles de
+ * latencia en milisegundos. Cada operación incluye además su histograma HDR completo
+ * codificado en base64 (se puede decodificar con
+ * {@code Histogram.decodeFromCompressedByteBuffer}) y se guarda como {@code <operacion>.hgrm}
+ * para dibujarlo con HdrHistogram Plotter.</p>
+ */
+final class LoadTestReport {
+
+    private static final double NANOS_POR_MS = 1_000_000.0;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] CLAVES = {"p50", "p90", "p99", "p999"};
+
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * @return Ruta del informe JSON escrito
+     */
+    Path write(LoadTestConfig config, Map<Operacion, OpenModelDriver.Resultado> resultados) throws IOException {
+        Files.createDirectories(config.salida());
+
+        Map<String, Object> configuracion = new LinkedHashMap<>();
+        configuracion.put("rps", config.rps());
+        configuracion.put("duracionSegundos", config.duracion().toSeconds());
+        configuracion.put("calentamientoSegundos", config.calentamiento().toSeconds());
+        configuracion.put("productos", config.productos());
+        configuracion.put("semilla", config.semilla());
+        Map<String, Double> mezcla = new LinkedHashMap<>();
+        config.mezcla().forEach((o, peso) -> mezcla.put(o.nombre(), peso));
+        configuracion.put("mezcla", mezcla);
+        configuracion.put("argumentos", config.spring());
+
+        Map<String, Object> operaciones = new LinkedHashMap<>();
+        for (Map.Entry<Operacion, OpenModelDriver.Resultado> e : resultados.entrySet()) {
+            OpenModelDriver.Resultado r = e.getValue();
+            Histogram h = r.histograma();
+            if (h.getTotalCount() == 0) {
+                continue;
+            }
+            Map<String, Object> op = new LinkedHashMap<>();
+            op.put("peticiones", h.getTotalCount());
+            op.put("errores", r.errores());
+            op.put("estados", r.estados());
+            op.put("rps", h.getTotalCount() / r.segundos());
+            Map<String, Double> latencia = new LinkedHashMap<>();
+            latencia.put("media", h.getMean() / NANOS_POR_MS);
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                latencia.put(CLAVES[i], h.getValueAtPercentile(PERCENTILES[i]) / NANOS_POR_MS);
+            }
+            latencia.put("max", h.getMaxValue() / NANOS_POR_MS);
+            op.put("latenciaMs", latencia);
+            op.put("histograma", encode(h));
+            operaciones.put(e.getKey().nombre(), op);
+
+            try (PrintStream out = new PrintStream(config.salida().resolve(e.getKey().nombre() + ".hgrm").toFile())) {
+                h.outputPercentileDistribution(out, NANOS_POR_MS);
+            }
+        }
+
+        Map<String, Object> informe = new LinkedHashMap<>();
+        informe.put("fecha", Instant.now().toString());
+        informe.put("configuracion", configuracion);
+        informe.put("operaciones", operaciones);
+        Path destino = config.salida().resolve("report.json");
+        mapper.writeValue(destino.toFile(), informe);
+        return destino;
+    }
+
+    /**
+     * Imprime una tabla con los percentiles de cada operación y, si se indica un informe
+     * anterior, la variación respecto a él.
+     */
+    void print(Path informe, Path anterior, PrintStream out) throws IOException {
+        JsonNode actual = mapper.readTree(informe.toFile()).path("operaciones");
+        JsonNode base = anterior == null ? null : mapper.readTree(anterior.toFile()).path("operaciones");
+
+        out.printf("%-12s %9s %8s %9s %9s %9s %9s %9s%n", "operacion", "peticiones", "errores", "p50", "p90", "p99", "p999", "max");
+        actual.fields().forEachRemaining(e -> {
+            JsonNode op = e.getValue();
+            JsonNode lat = op.path("latenciaMs");
+            out.printf("%-12s %9d %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n", e.getKey(),
+                    op.path("peticiones").asLong(), op.path("errores").asLong(),
+                    lat.path("p50").asDouble(), lat.path("p90").asDouble(), lat.path("p99").asDouble(),
+                    lat.path("p999").asDouble(), lat.path("max").asDouble());
+            if (base != null && base.has(e.getKey())) {
+                JsonNode prev = base.path(e.getKey()).path("latenciaMs");
+                out.printf("%-12s %9s %8s %9s %9s %9s %9s %9s%n", "  vs. base", "", "",
+                        delta(lat, prev, "p50"), delta(lat, prev, "p90"), delta(lat, prev, "p99"),
+                        delta(lat, prev, "p999"), delta(lat, prev, "max"));
+            }
+        });
+    }
+
+    private static String delta(JsonNode actual, JsonNode anterior, String clave) {
+        double antes = anterior.path(clave).asDouble();
+        if (antes == 0) {
+            return "-";
+        }
+        return String.format("%+.1f%%", (actual.path(clave).asDouble() - antes) * 100 / antes);
+    }
+
+    private static String encode(Histogram h) {
+        ByteBuffer buffer = ByteBuffer.allocate(h.getNeededByteBufferCapacity());
+        int longitud = h.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), longitud));
+    }
+}
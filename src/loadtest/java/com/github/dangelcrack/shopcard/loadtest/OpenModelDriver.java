@@ -0,0 +1,186 @@
+package com.github.dangelcrack.shopcard.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Generador de carga de modelo abierto: las llegadas siguen un proceso de Poisson con la tasa
+ * configurada, independientemente de lo que tarde el servidor en responder. Cada petición se
+ * envía desde su propio hilo virtual, así que una respuesta lenta no retrasa las siguientes.
+ *
+ * <p>La latencia se mide desde el instante en que la petición <em>debía</em> salir según el
+ * calendario de llegadas, no desde que salió, para no ocultar las esperas cuando el propio
+ * generador se retrasa (omisión coordinada).</p>
+ */
+final class OpenModelDriver {
+
+    /** Latencia máxima registrable: 60 s en nanosegundos. */
+    private static final long MAX_LATENCIA = TimeUnit.SECONDS.toNanos(60);
+
+    private final String base;
+    private final LoadTestConfig config;
+    private final int productos;
+    private final int colecciones;
+    private final Envio envio;
+    private final LongSupplier reloj;
+    private final Map<Operacion, Recorder> recorders = new EnumMap<>(Operacion.class);
+    private final Map<Operacion, Map<Integer, LongAdder>> estados = new EnumMap<>(Operacion.class);
+    private final Map<Operacion, LongAdder> fallos = new EnumMap<>(Operacion.class);
+
+    OpenModelDriver(String base, LoadTestConfig config, int productos, int colecciones) {
+        this(base, config, productos, colecciones, clienteHttp(), System::nanoTime);
+    }
+
+    /**
+     * @param envio Envía una petición y devuelve el código HTTP de la respuesta
+     * @param reloj Instante actual en nanosegundos
+     */
+    OpenModelDriver(String base, LoadTestConfig config, int productos, int colecciones,
+                    Envio envio, LongSupplier reloj) {
+        this.base = base;
+        this.config = config;
+        this.productos = productos;
+        this.colecciones = colecciones;
+        this.envio = envio;
+        this.reloj = reloj;
+        for (Operacion o : Operacion.values()) {
+            recorders.put(o, new Recorder(MAX_LATENCIA, 3));
+            estados.put(o, new ConcurrentHashMap<>());
+            fallos.put(o, new LongAdder());
+        }
+    }
+
+    /**
+     * Lanza el calentamiento y la medición, y espera a que terminen las peticiones pendientes.
+     *
+     * @return Resultado de la fase de medición por operación
+     */
+    Map<Operacion, Resultado> run() throws InterruptedException {
+        SplittableRandom random = new SplittableRandom(config.semilla());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            fase(executor, random, config.calentamiento(), false);
+            long inicio = reloj.getAsLong();
+            fase(executor, random, config.duracion(), true);
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+            return resultados((reloj.getAsLong() - inicio) / 1e9);
+        }
+    }
+
+    /**
+     * Vacía lo registrado desde la última llamada.
+     *
+     * @param segundos Duración real de la medición
+     * @return Resultado por operación
+     */
+    Map<Operacion, Resultado> resultados(double segundos) {
+        Map<Operacion, Resultado> resultado = new EnumMap<>(Operacion.class);
+        for (Operacion o : Operacion.values()) {
+            Histogram h = recorders.get(o).getIntervalHistogram();
+            Map<Integer, Long> porEstado = new TreeMap<>();
+            estados.get(o).forEach((codigo, n) -> porEstado.put(codigo, n.sum()));
+            resultado.put(o, new Resultado(h, porEstado, fallos.get(o).sum(), segundos));
+        }
+        return resultado;
+    }
+
+    private void fase(ExecutorService executor, SplittableRandom random, Duration duracion, boolean medir) {
+        if (duracion.isZero()) {
+            return;
+        }
+        long inicio = reloj.getAsLong();
+        long fin = inicio + duracion.toNanos();
+        // Mismo generador que las peticiones y en el mismo orden, para que una semilla dé siempre
+        // la misma secuencia y los informes sigan siendo comparables
+        Llegadas llegadas = new Llegadas(config.rps(), random, inicio);
+        while (llegadas.proxima() < fin) {
+            long espera = llegadas.proxima() - reloj.getAsLong();
+            if (espera > 0) {
+                LockSupport.parkNanos(espera);
+            }
+            Operacion operacion = config.elegir(random.nextDouble());
+            HttpRequest peticion = operacion.peticion(base, random.split(), productos, colecciones);
+            long previsto = llegadas.siguiente();
+            executor.execute(() -> enviar(operacion, peticion, previsto, medir));
+        }
+    }
+
+    /**
+     * Envía una petición y, si {@code medir}, registra su latencia desde {@code previsto}: el
+     * retraso del propio generador en enviarla cuenta como parte de la espera.
+     *
+     * @param previsto Instante en que la petición debía salir según el calendario de llegadas
+     */
+    void enviar(Operacion operacion, HttpRequest peticion, long previsto, boolean medir) {
+        int estado;
+        try {
+            estado = envio.enviar(peticion);
+        } catch (Exception e) {
+            estado = -1;
+        }
+        if (!medir) {
+            return;
+        }
+        recorders.get(operacion).recordValue(Math.min(MAX_LATENCIA, reloj.getAsLong() - previsto));
+        if (estado < 0) {
+            fallos.get(operacion).increment();
+        } else {
+            estados.get(operacion).computeIfAbsent(estado, k -> new LongAdder()).increment();
+        }
+    }
+
+    private static Envio clienteHttp() {
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        return peticion -> client.send(peticion, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * Envío de una petición HTTP.
+     */
+    @FunctionalInterface
+    interface Envio {
+
+        /**
+         * @return Código HTTP de la respuesta
+         * @throws Exception Si no hay respuesta (timeout o error de conexión)
+         */
+        int enviar(HttpRequest peticion) throws Exception;
+    }
+
+    /**
+     * Resultado de una operación en la fase de medición.
+     *
+     * @param histograma Latencias en nanosegundos
+     * @param estados Respuestas por código HTTP
+     * @param fallos Peticiones sin respuesta (timeout o error de conexión)
+     * @param segundos Duración real de la medición
+     */
+    record Resultado(Histogram histograma, Map<Integer, Long> estados, long fallos, double segundos) {
+
+        long errores() {
+            return fallos + estados.entrySet().stream()
+                    .filter(e -> e.getKey() >= 400)
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+        }
+    }
+}
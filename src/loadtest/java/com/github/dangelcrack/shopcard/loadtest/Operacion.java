@@ -0,0 +1,84 @@
+package com.github.dangelcrack.shopcard.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+/**
+ * Tipos de petición de la mezcla de tráfico. Los ids se eligen con sesgo hacia los primeros
+ * productos y colecciones para que, como en producción, una parte pequeña del catálogo reciba
+ * la mayoría de las visitas.
+ */
+enum Operacion {
+
+    /** {@code GET /api/productos/{id}} */
+    DETALLE("detalle"),
+    /** {@code GET /api/productos/filter} con rareza y rango de precio */
+    FILTRO("filtro"),
+    /** {@code GET /api/productos/search?nombre=} */
+    BUSQUEDA("busqueda"),
+    /** {@code GET /api/productos/coleccion/{id}} */
+    LISTADO("listado"),
+    /** {@code POST /valoraciones} */
+    VALORACION("valoracion");
+
+    private static final String[] BUSQUEDAS = {"pika", "char", "mew", "eevee", "gengar", "snor", "luca", "ray", "ex", "vmax"};
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final String nombre;
+
+    Operacion(String nombre) {
+        this.nombre = nombre;
+    }
+
+    String nombre() {
+        return nombre;
+    }
+
+    static Operacion porNombre(String nombre) {
+        for (Operacion o : values()) {
+            if (o.nombre.equals(nombre)) {
+                return o;
+            }
+        }
+        throw new IllegalArgumentException("Operación desconocida: " + nombre);
+    }
+
+    /**
+     * @param base URL base de la aplicación, sin barra final
+     * @param random Generador de la petición
+     * @param productos Número de productos del catálogo
+     * @param colecciones Número de colecciones del catálogo
+     */
+    HttpRequest peticion(String base, SplittableRandom random, int productos, int colecciones) {
+        HttpRequest.Builder builder = switch (this) {
+            case DETALLE -> HttpRequest.newBuilder(URI.create(base + "/api/productos/" + sesgado(random, productos)));
+            case FILTRO -> {
+                double min = Math.round(random.nextDouble() * 20 * 100) / 100.0;
+                yield HttpRequest.newBuilder(URI.create(base + "/api/productos/filter?rarezas=" + (1 + random.nextInt(6))
+                        + "&minPrice=" + min + "&maxPrice=" + (min + 5 + random.nextInt(50))));
+            }
+            case BUSQUEDA -> HttpRequest.newBuilder(URI.create(base + "/api/productos/search?nombre="
+                    + URLEncoder.encode(BUSQUEDAS[random.nextInt(BUSQUEDAS.length)], StandardCharsets.UTF_8)));
+            case LISTADO -> HttpRequest.newBuilder(URI.create(base + "/api/productos/coleccion/" + sesgado(random, colecciones)));
+            case VALORACION -> HttpRequest.newBuilder(URI.create(base + "/valoraciones"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"nombreCliente\":\"carga" + random.nextInt(5000)
+                            + "\",\"puntuacion\":" + (1 + random.nextInt(5))
+                            + ",\"comentario\":\"Valoración de la prueba de carga\""
+                            + ",\"producto\":{\"id\":" + sesgado(random, productos) + "}}"));
+        };
+        return builder.timeout(TIMEOUT).build();
+    }
+
+    /**
+     * Id entre 1 y {@code n} con densidad decreciente: el primer 10 % recibe algo más de
+     * la mitad de las peticiones.
+     */
+    private static int sesgado(SplittableRandom random, int n) {
+        return 1 + (int) (n * Math.pow(random.nextDouble(), 3.5));
+    }
+}
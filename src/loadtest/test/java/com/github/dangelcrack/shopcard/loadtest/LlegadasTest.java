@@ -0,0 +1,64 @@
+package com.github.dangelcrack.shopcard.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Comprueba que el calendario de llegadas es un proceso de Poisson a la tasa pedida y que solo
+ * depende de la semilla.
+ */
+class LlegadasTest {
+
+    private static final int MUESTRAS = 200_000;
+
+    @Test
+    void interArrivalTimesAreExponentialWithTheRequestedRate() {
+        Llegadas llegadas = new Llegadas(250, new SplittableRandom(42), 1_000);
+        assertThat(llegadas.siguiente()).isEqualTo(1_000);
+
+        long anterior = 1_000;
+        double suma = 0;
+        double cuadrados = 0;
+        for (int i = 0; i < MUESTRAS; i++) {
+            long instante = llegadas.siguiente();
+            assertThat(instante).isGreaterThanOrEqualTo(anterior);
+            double intervalo = instante - anterior;
+            suma += intervalo;
+            cuadrados += intervalo * intervalo;
+            anterior = instante;
+        }
+        double media = suma / MUESTRAS;
+        double desviacion = Math.sqrt(cuadrados / MUESTRAS - media * media);
+
+        // Exponencial de media 4 ms: la desviación típica es igual a la media
+        assertThat(media).isCloseTo(4_000_000, within(4_000_000 * 0.01));
+        assertThat(desviacion / media).isCloseTo(1, within(0.02));
+    }
+
+    @Test
+    void sameSeedGivesTheSameSchedule() {
+        Llegadas a = new Llegadas(100, new SplittableRandom(7), 0);
+        Llegadas b = new Llegadas(100, new SplittableRandom(7), 0);
+        Llegadas c = new Llegadas(100, new SplittableRandom(8), 0);
+        long[] instantes = new long[1_000];
+        boolean distinto = false;
+        for (int i = 0; i < instantes.length; i++) {
+            instantes[i] = a.siguiente();
+            assertThat(b.proxima()).isEqualTo(instantes[i]);
+            assertThat(b.siguiente()).isEqualTo(instantes[i]);
+            distinto |= c.siguiente() != instantes[i];
+        }
+        assertThat(distinto).isTrue();
+    }
+
+    @Test
+    void rateMustBePositive() {
+        assertThatThrownBy(() -> new Llegadas(0, new SplittableRandom(1), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.dangelcrack.shopcard.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comprueba con un reloj manual que la latencia se mide desde el instante previsto por el
+ * calendario de llegadas y no desde el envío (corrección de la omisión coordinada).
+ */
+class OpenModelDriverTest {
+
+    private static final HttpRequest PETICION = HttpRequest.newBuilder(URI.create("http://localhost/")).build();
+
+    private final AtomicLong reloj = new AtomicLong();
+
+    @Test
+    void latencyIncludesTheTimeTheSendWasLate() {
+        OpenModelDriver driver = driver(peticion -> {
+            reloj.addAndGet(ms(30));
+            return 200;
+        });
+
+        // Debía salir en 0 pero sale en 70 ms, y el servidor tarda 30 ms
+        reloj.set(ms(70));
+        driver.enviar(Operacion.DETALLE, PETICION, 0, true);
+        // A su hora: solo cuenta el servidor
+        reloj.set(ms(200));
+        driver.enviar(Operacion.DETALLE, PETICION, ms(200), true);
+
+        Map<Operacion, OpenModelDriver.Resultado> resultados = driver.resultados(1);
+        Histogram h = resultados.get(Operacion.DETALLE).histograma();
+        assertThat(h.getTotalCount()).isEqualTo(2);
+        assertThat(h.getMaxValue()).isEqualTo(h.highestEquivalentValue(ms(100)));
+        assertThat(h.getMinValue()).isEqualTo(h.lowestEquivalentValue(ms(30)));
+        assertThat(resultados.get(Operacion.DETALLE).estados()).containsExactly(Map.entry(200, 2L));
+    }
+
+    @Test
+    void failuresAreTimedAndWarmUpIsNotRecorded() {
+        OpenModelDriver driver = driver(peticion -> {
+            reloj.addAndGet(ms(5_000));
+            throw new HttpTimeoutException("timeout");
+        });
+
+        driver.enviar(Operacion.FILTRO, PETICION, 0, false);
+        driver.enviar(Operacion.FILTRO, PETICION, reloj.get() - ms(1_000), true);
+
+        OpenModelDriver.Resultado filtro = driver.resultados(1).get(Operacion.FILTRO);
+        assertThat(filtro.histograma().getTotalCount()).isEqualTo(1);
+        assertThat(filtro.histograma().getMaxValue()).isEqualTo(filtro.histograma().highestEquivalentValue(ms(6_000)));
+        assertThat(filtro.fallos()).isEqualTo(1);
+        assertThat(filtro.errores()).isEqualTo(1);
+    }
+
+    private OpenModelDriver driver(OpenModelDriver.Envio envio) {
+        LoadTestConfig config = new LoadTestConfig(100, Duration.ZERO, Duration.ZERO, 10, 1,
+                Map.of(Operacion.DETALLE, 1.0), Path.of("target/loadtest"), null, List.of());
+        return new OpenModelDriver("http://localhost", config, 10, 1, envio, reloj::get);
+    }
+
+    private static long ms(long milisegundos) {
+        return TimeUnit.MILLISECONDS.toNanos(milisegundos);
+    }
+}
@@ -0,0 +1,251 @@
+package com.github.dangelcrack.shopcard.compression;
+
+import com.github.dangelcrack.shopcard.events.CatalogChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Caché de cuerpos de respuesta con sus variantes comprimidas.
+ *
+ * <p>Cada entrada guarda el cuerpo original de una respuesta {@code 200} y, la primera vez que un
+ * cliente la pide con una codificación, el cuerpo comprimido con ella. A partir de ahí servirla
+ * es copiar bytes: no se vuelve a consultar la base de datos, ni a serializar, ni a comprimir.</p>
+ *
+ * <p>Las entradas se agrupan por {@link Grupo} para invalidarlas junto con los datos de los que
+ * salen:</p>
+ * <ul>
+ *     <li>Un {@link CatalogChangedEvent} (productos creados, modificados, eliminados o con
+ *     valoraciones nuevas, incluidos los cambios de precio masivos) elimina el detalle de esos
+ *     productos, igual que refresca el índice de cartas relacionadas.</li>
+ *     <li>Una escritura en los datos de referencia o en las colecciones vacía su grupo y el de
+ *     productos, porque el detalle de un producto los incluye.</li>
+ * </ul>
+ *
+ * <p>Además, cada entrada caduca {@code max-age} después de guardarse, para acotar lo que dura
+ * un dato que ha cambiado sin pasar por la aplicación.</p>
+ *
+ * <p>Cada invalidación incrementa una generación. Una respuesta solo se guarda si no ha habido
+ * invalidaciones desde que empezó la petición, así que una lectura que se cruza con una
+ * escritura nunca deja en la caché datos anteriores al cambio.</p>
+ *
+ * <p>Métricas: {@code shopcard.compression.cache} (etiqueta {@code resultado}: {@code acierto},
+ * {@code fallo}) y {@code shopcard.compression.cache.bytes}.</p>
+ */
+public class CompressedResponseCache {
+
+    /**
+     * Familia de respuestas que se invalida en bloque.
+     */
+    public enum Grupo {
+        REFERENCIA,
+        COLECCIONES,
+        PRODUCTO
+    }
+
+    /**
+     * Respuesta guardada.
+     */
+    public static final class Entrada {
+        private final Grupo grupo;
+        private final Integer productoId;
+        private final String contentType;
+        private final byte[] cuerpo;
+        private final long caduca;
+        private final Map<ResponseCodec, byte[]> variantes = new EnumMap<>(ResponseCodec.class);
+
+        Entrada(Grupo grupo, Integer productoId, String contentType, byte[] cuerpo, long caduca) {
+            this.grupo = grupo;
+            this.productoId = productoId;
+            this.contentType = contentType;
+            this.cuerpo = cuerpo;
+            this.caduca = caduca;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public byte[] getCuerpo() {
+            return cuerpo;
+        }
+    }
+
+    private final long maxBytes;
+    private final long maxAgeNanos;
+    private final LongSupplier reloj;
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+    private volatile long generacion;
+    private final Counter aciertos;
+    private final Counter fallos;
+
+    /**
+     * @param properties Propiedades {@code shopcard.compression-cache}
+     * @param registry Registro de métricas
+     */
+    public CompressedResponseCache(CompressionCacheProperties properties, MeterRegistry registry) {
+        this(properties, registry, System::nanoTime);
+    }
+
+    /**
+     * @param reloj Reloj en nanosegundos; en los tests, uno manual para comprobar la caducidad
+     */
+    CompressedResponseCache(CompressionCacheProperties properties, MeterRegistry registry, LongSupplier reloj) {
+        this.maxBytes = properties.getMaxBytes();
+        this.maxAgeNanos = properties.getMaxAge().toNanos();
+        this.reloj = reloj;
+        this.aciertos = Counter.builder("shopcard.compression.cache")
+                .description("Respuestas servidas desde la caché de respuestas comprimidas")
+                .tag("resultado", "acierto").register(registry);
+        this.fallos = Counter.builder("shopcard.compression.cache")
+                .description("Respuestas servidas desde la caché de respuestas comprimidas")
+                .tag("resultado", "fallo").register(registry);
+        Gauge.builder("shopcard.compression.cache.bytes", this, CompressedResponseCache::getBytes)
+                .description("Memoria ocupada por los cuerpos guardados y sus variantes comprimidas")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * @return Generación actual; se pasa a {@link #guardar} para descartar respuestas obsoletas
+     */
+    public long generacion() {
+        return generacion;
+    }
+
+    /**
+     * @param clave Petición (ruta, parámetros y formato pedido)
+     * @return Entrada guardada y vigente, o {@code null}
+     */
+    public Entrada buscar(String clave) {
+        Entrada entrada;
+        synchronized (this) {
+            entrada = entradas.get(clave);
+            if (entrada != null && reloj.getAsLong() - entrada.caduca >= 0) {
+                entradas.remove(clave);
+                bytes -= tamano(entrada);
+                entrada = null;
+            }
+        }
+        (entrada != null ? aciertos : fallos).increment();
+        return entrada;
+    }
+
+    /**
+     * Guarda una respuesta si no ha habido invalidaciones desde {@code generacionInicial}.
+     *
+     * @return La entrada guardada, o {@code null} si se ha descartado
+     */
+    public Entrada guardar(String clave, Grupo grupo, Integer productoId, String contentType, byte[] cuerpo,
+                           long generacionInicial) {
+        if (cuerpo.length > maxBytes / 4) {
+            return null;
+        }
+        Entrada entrada = new Entrada(grupo, productoId, contentType, cuerpo, reloj.getAsLong() + maxAgeNanos);
+        synchronized (this) {
+            if (generacion != generacionInicial) {
+                return null;
+            }
+            Entrada anterior = entradas.put(clave, entrada);
+            if (anterior != null) {
+                bytes -= tamano(anterior);
+            }
+            bytes += cuerpo.length;
+            ajustar();
+        }
+        return entrada;
+    }
+
+    /**
+     * Devuelve el cuerpo comprimido con {@code codec}, comprimiéndolo la primera vez.
+     */
+    public byte[] variante(Entrada entrada, ResponseCodec codec) {
+        synchronized (this) {
+            byte[] guardada = entrada.variantes.get(codec);
+            if (guardada != null) {
+                return guardada;
+            }
+        }
+        byte[] comprimida = codec.comprimir(entrada.cuerpo);
+        synchronized (this) {
+            byte[] guardada = entrada.variantes.putIfAbsent(codec, comprimida);
+            if (guardada != null) {
+                return guardada;
+            }
+            if (entradas.containsValue(entrada)) {
+                bytes += comprimida.length;
+                ajustar();
+            }
+        }
+        return comprimida;
+    }
+
+    /**
+     * Elimina el detalle de los productos afectados por un cambio en el catálogo. Se ejecuta
+     * tras el commit, como el resto de oyentes del evento.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        Set<Integer> ids = event.productoIds();
+        eliminarSi(e -> e.grupo == Grupo.PRODUCTO && ids.contains(e.productoId));
+    }
+
+    /**
+     * Vacía un grupo y, si es de referencia o de colecciones, también el de productos.
+     */
+    public void invalidar(Grupo grupo) {
+        eliminarSi(e -> e.grupo == grupo || e.grupo == Grupo.PRODUCTO);
+    }
+
+    /**
+     * Vacía la caché.
+     */
+    public void invalidarTodo() {
+        eliminarSi(e -> true);
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized int size() {
+        return entradas.size();
+    }
+
+    private synchronized void eliminarSi(java.util.function.Predicate<Entrada> condicion) {
+        generacion++;
+        Iterator<Entrada> it = entradas.values().iterator();
+        while (it.hasNext()) {
+            Entrada entrada = it.next();
+            if (condicion.test(entrada)) {
+                bytes -= tamano(entrada);
+                it.remove();
+            }
+        }
+    }
+
+    private void ajustar() {
+        Iterator<Entrada> it = entradas.values().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            bytes -= tamano(it.next());
+            it.remove();
+        }
+    }
+
+    private static long tamano(Entrada entrada) {
+        long total = entrada.cuerpo.length;
+        for (byte[] variante : entrada.variantes.values()) {
+            total += variante.length;
+        }
+        return total;
+    }
+}
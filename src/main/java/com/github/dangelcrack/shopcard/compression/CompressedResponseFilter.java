@@ -0,0 +1,305 @@
+package com.github.dangelcrack.shopcard.compression;
+
+import com.github.dangelcrack.shopcard.compression.CompressedResponseCache.Entrada;
+import com.github.dangelcrack.shopcard.compression.CompressedResponseCache.Grupo;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.CorsConfigurationSource;
+import org.springframework.web.cors.CorsProcessor;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.cors.DefaultCorsProcessor;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sirve desde {@link CompressedResponseCache} los datos de referencia (categorías, rarezas y
+ * estados), los listados de colecciones y el detalle de producto.
+ *
+ * <p>En un fallo la petición sigue su camino normal y, si la respuesta es un {@code 200} de al
+ * menos {@code min-size-bytes}, se guarda. En un acierto se escribe el cuerpo guardado sin pasar
+ * por Spring MVC. En ambos casos, si el cliente acepta alguna de las codificaciones configuradas
+ * ({@code Accept-Encoding}, con sus pesos {@code q}), se envía la variante comprimida con
+ * {@code Content-Encoding}; si no, el cuerpo sin comprimir.</p>
+ *
+ * <p>La clave es la ruta, el formato negociado a partir de {@code Accept} y los parámetros que
+ * entiende cada ruta, ordenados. Así {@code Accept: *}{@code /*}, {@code application/json} o
+ * ninguna cabecera comparten la entrada JSON, y un parámetro desconocido (por ejemplo, uno que
+ * añade el cliente para saltarse cachés intermedias) no crea entradas nuevas. Si {@code Accept} no
+ * admite ningún formato conocido, o la respuesta sale en otro formato distinto del negociado, la
+ * petición no pasa por la caché.</p>
+ *
+ * <p>Las escrituras correctas en categorías, rarezas, estados o colecciones vacían su grupo; los
+ * cambios de productos y valoraciones llegan a la caché por {@code CatalogChangedEvent}.</p>
+ *
+ * <p>Se registra después de Spring Security. Como un acierto no llega al {@code DispatcherServlet},
+ * aplica aquí la configuración CORS de Spring MVC.</p>
+ */
+public class CompressedResponseFilter extends OncePerRequestFilter {
+
+    private static final PathPatternParser PARSER = PathPatternParser.defaultInstance;
+
+    private static final List<Ruta> RUTAS = List.of(
+            new Ruta(PARSER.parse("/categorias/**"), Grupo.REFERENCIA, List.of()),
+            new Ruta(PARSER.parse("/rarezas/**"), Grupo.REFERENCIA, List.of()),
+            new Ruta(PARSER.parse("/estados-producto/**"), Grupo.REFERENCIA, List.of()),
+            new Ruta(PARSER.parse("/api/colecciones/**"), Grupo.COLECCIONES, List.of("nombre")),
+            new Ruta(PARSER.parse("/api/productos/{id:\\d+}"), Grupo.PRODUCTO, List.of("fields")));
+
+    // Formatos que sirve la aplicación, en orden de preferencia cuando el cliente acepta varios
+    // con el mismo peso; el primero es el de Spring MVC cuando no hay cabecera Accept
+    private static final List<MediaType> FORMATOS = List.of(
+            MediaType.APPLICATION_JSON,
+            MediaType.APPLICATION_CBOR,
+            MediaType.parseMediaType("application/x-jackson-smile"),
+            MediaType.parseMediaType("application/x-protobuf"),
+            MediaType.parseMediaType("application/protobuf"));
+
+    // Las estadísticas ya se sirven desde memoria y cambian con cada escritura de productos, que
+    // no invalida los grupos de referencia ni de colecciones
+    private static final List<PathPattern> EXCLUIDAS = List.of(
+            PARSER.parse("/categorias/{id}/stats"),
+            PARSER.parse("/api/colecciones/{id}/stats"));
+
+    private static final String VARY = HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING;
+
+    /**
+     * @param parametros Parámetros de consulta que cambian la respuesta; el resto no forma parte de la clave
+     */
+    private record Ruta(PathPattern patron, Grupo grupo, List<String> parametros) {
+    }
+
+    private final CompressedResponseCache cache;
+    private final CompressionCacheProperties properties;
+    private final CorsConfigurationSource corsConfigurationSource;
+    private final CorsProcessor corsProcessor = new DefaultCorsProcessor();
+
+    /**
+     * @param cache Caché de respuestas
+     * @param properties Propiedades {@code shopcard.compression-cache}
+     * @param corsConfigurationSource Configuración CORS de Spring MVC
+     */
+    public CompressedResponseFilter(CompressedResponseCache cache, CompressionCacheProperties properties,
+                                    CorsConfigurationSource corsConfigurationSource) {
+        this.cache = cache;
+        this.properties = properties;
+        this.corsConfigurationSource = corsConfigurationSource;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        Ruta ruta = buscarRuta(path);
+        if (ruta == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String metodo = request.getMethod();
+        if (!"GET".equals(metodo)) {
+            chain.doFilter(request, response);
+            if (!"HEAD".equals(metodo) && !"OPTIONS".equals(metodo) && response.getStatus() < 400
+                    && ruta.grupo() != Grupo.PRODUCTO) {
+                cache.invalidar(ruta.grupo());
+            }
+            return;
+        }
+
+        MediaType formato = negociar(request.getHeader(HttpHeaders.ACCEPT));
+        if (formato == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String clave = clave(request, path, ruta, formato);
+        ResponseCodec codec = elegirCodec(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        Entrada entrada = cache.buscar(clave);
+        if (entrada != null) {
+            servir(request, response, entrada, codec);
+            return;
+        }
+
+        long generacion = cache.generacion();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+
+        byte[] cuerpo = wrapper.getContentAsByteArray();
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK && esFormato(wrapper.getContentType(), formato)
+                && !wrapper.containsHeader(HttpHeaders.CONTENT_ENCODING) && cuerpo.length >= properties.getMinSizeBytes()) {
+            Integer productoId = ruta.grupo() == Grupo.PRODUCTO
+                    ? Integer.valueOf(ruta.patron().matchAndExtract(path).getUriVariables().get("id")) : null;
+            entrada = cache.guardar(clave, ruta.grupo(), productoId, wrapper.getContentType(), cuerpo, generacion);
+        }
+        if (entrada != null) {
+            wrapper.resetBuffer();
+            escribir(response, entrada, codec);
+        } else {
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private void servir(HttpServletRequest request, HttpServletResponse response, Entrada entrada, ResponseCodec codec)
+            throws IOException {
+        if (CorsUtils.isCorsRequest(request)) {
+            CorsConfiguration config = corsConfigurationSource.getCorsConfiguration(request);
+            if (!corsProcessor.processRequest(config, request, response)) {
+                return;
+            }
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(entrada.getContentType());
+        escribir(response, entrada, codec);
+    }
+
+    private void escribir(HttpServletResponse response, Entrada entrada, ResponseCodec codec) throws IOException {
+        response.addHeader(HttpHeaders.VARY, VARY);
+        byte[] cuerpo = entrada.getCuerpo();
+        if (codec != null) {
+            cuerpo = cache.variante(entrada, codec);
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, codec.token());
+        }
+        response.setContentLength(cuerpo.length);
+        response.getOutputStream().write(cuerpo);
+        response.flushBuffer();
+    }
+
+    private static Ruta buscarRuta(PathContainer path) {
+        for (PathPattern excluida : EXCLUIDAS) {
+            if (excluida.matches(path)) {
+                return null;
+            }
+        }
+        for (Ruta ruta : RUTAS) {
+            if (ruta.patron().matches(path)) {
+                return ruta;
+            }
+        }
+        return null;
+    }
+
+    private static String clave(HttpServletRequest request, PathContainer path, Ruta ruta, MediaType formato) {
+        StringBuilder clave = new StringBuilder(path.value()).append(' ').append(formato);
+        Map<String, String[]> parametros = new TreeMap<>();
+        for (String nombre : ruta.parametros()) {
+            String[] valores = request.getParameterValues(nombre);
+            if (valores != null) {
+                parametros.put(nombre, valores);
+            }
+        }
+        parametros.forEach((nombre, valores) -> {
+            for (String valor : valores) {
+                clave.append(' ').append(nombre).append('=').append(valor);
+            }
+        });
+        return clave.toString();
+    }
+
+    /**
+     * Elige el formato de {@link #FORMATOS} con mayor peso en {@code Accept}; a igual peso, el
+     * primero de la lista, como {@link #elegirCodec} con las codificaciones.
+     *
+     * @return Formato negociado, o {@code null} si no se acepta ninguno o la cabecera no es válida
+     */
+    static MediaType negociar(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return FORMATOS.get(0);
+        }
+        List<MediaType> aceptados;
+        try {
+            aceptados = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        MediaType mejor = null;
+        double mejorPeso = 0;
+        for (MediaType formato : FORMATOS) {
+            // Manda el rango más específico que lo incluye: application/json;q=0 excluye JSON aunque haya */*
+            double peso = 0;
+            int especificidad = -1;
+            for (MediaType aceptado : aceptados) {
+                int e = aceptado.isWildcardType() ? 0 : aceptado.isWildcardSubtype() ? 1 : 2;
+                if (aceptado.includes(formato) && e > especificidad) {
+                    peso = aceptado.getQualityValue();
+                    especificidad = e;
+                }
+            }
+            if (peso > mejorPeso) {
+                mejor = formato;
+                mejorPeso = peso;
+            }
+        }
+        return mejor;
+    }
+
+    private static boolean esFormato(String contentType, MediaType formato) {
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            return formato.equalsTypeAndSubtype(MediaType.parseMediaType(contentType));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Elige la codificación configurada con mayor peso en {@code Accept-Encoding}; a igual peso,
+     * la primera de la configuración. {@code *} da su peso a las que no aparecen expresamente.
+     *
+     * @return Codificación elegida, o {@code null} para enviar el cuerpo sin comprimir
+     */
+    ResponseCodec elegirCodec(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return null;
+        }
+        ResponseCodec mejor = null;
+        double mejorPeso = 0;
+        for (ResponseCodec codec : properties.getCodecs()) {
+            double peso = peso(acceptEncoding, codec.token());
+            if (peso > mejorPeso) {
+                mejor = codec;
+                mejorPeso = peso;
+            }
+        }
+        return mejor;
+    }
+
+    private static double peso(String acceptEncoding, String token) {
+        double comodin = 0;
+        for (String parte : acceptEncoding.split(",")) {
+            String[] campos = parte.split(";");
+            String nombre = campos[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < campos.length; i++) {
+                String parametro = campos[i].trim();
+                if (parametro.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(parametro.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (nombre.equals(token)) {
+                return q;
+            }
+            if (nombre.equals("*")) {
+                comodin = q;
+            }
+        }
+        return comodin;
+    }
+}
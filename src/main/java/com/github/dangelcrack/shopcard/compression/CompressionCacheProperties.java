@@ -0,0 +1,54 @@
+package com.github.dangelcrack.shopcard.compression;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Caché de respuestas precomprimidas (prefijo {@code shopcard.compression-cache}).
+ */
+@ConfigurationProperties(prefix = "shopcard.compression-cache")
+public class CompressionCacheProperties {
+
+    /**
+     * Si es false no se registra el filtro y las respuestas se sirven sin comprimir.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Tamaño mínimo del cuerpo para guardarlo y comprimirlo; por debajo no compensa.
+     */
+    private int minSizeBytes = 1024;
+
+    /**
+     * Memoria máxima de la caché, contando el cuerpo original y sus variantes comprimidas. Al
+     * superarse se descartan las entradas usadas hace más tiempo.
+     */
+    private long maxBytes = 32L * 1024 * 1024;
+
+    /**
+     * Tiempo máximo que se sirve una entrada desde que se guarda. Acota lo que puede durar un dato
+     * obsoleto si una escritura no pasa por la aplicación (por ejemplo, un cambio directo en la
+     * base de datos).
+     */
+    private Duration maxAge = Duration.ofMinutes(10);
+
+    /**
+     * Codificaciones que se ofrecen, en orden de preferencia cuando el cliente acepta varias con
+     * el mismo peso ({@code gzip}, {@code deflate}).
+     */
+    private List<ResponseCodec> codecs = new ArrayList<>(List.of(ResponseCodec.GZIP));
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public int getMinSizeBytes() { return minSizeBytes; }
+    public void setMinSizeBytes(int minSizeBytes) { this.minSizeBytes = minSizeBytes; }
+    public long getMaxBytes() { return maxBytes; }
+    public void setMaxBytes(long maxBytes) { this.maxBytes = maxBytes; }
+    public Duration getMaxAge() { return maxAge; }
+    public void setMaxAge(Duration maxAge) { this.maxAge = maxAge; }
+    public List<ResponseCodec> getCodecs() { return codecs; }
+    public void setCodecs(List<ResponseCodec> codecs) { this.codecs = codecs; }
+}
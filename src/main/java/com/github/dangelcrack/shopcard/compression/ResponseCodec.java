@@ -0,0 +1,69 @@
+package com.github.dangelcrack.shopcard.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Codificaciones de contenido ({@code Content-Encoding}) disponibles en la JDK. Como cada cuerpo
+ * se comprime una sola vez y se sirve muchas, se usa el nivel de compresión máximo.
+ */
+public enum ResponseCodec {
+
+    GZIP("gzip") {
+        @Override
+        OutputStream abrir(OutputStream destino) throws IOException {
+            return new GZIPOutputStream(destino, 8192) {
+                {
+                    def.setLevel(Deflater.BEST_COMPRESSION);
+                }
+            };
+        }
+    },
+
+    DEFLATE("deflate") {
+        @Override
+        OutputStream abrir(OutputStream destino) {
+            return new DeflaterOutputStream(destino, new Deflater(Deflater.BEST_COMPRESSION), 8192) {
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    def.end();
+                }
+            };
+        }
+    };
+
+    private final String token;
+
+    ResponseCodec(String token) {
+        this.token = token;
+    }
+
+    /**
+     * @return Valor de {@code Content-Encoding}
+     */
+    public String token() {
+        return token;
+    }
+
+    /**
+     * @param cuerpo Cuerpo sin comprimir
+     * @return Cuerpo comprimido
+     */
+    public byte[] comprimir(byte[] cuerpo) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(Math.max(64, cuerpo.length / 4));
+        try (OutputStream out = abrir(salida)) {
+            out.write(cuerpo);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return salida.toByteArray();
+    }
+
+    abstract OutputStream abrir(OutputStream destino) throws IOException;
+}
@@ -0,0 +1,58 @@
+package com.github.dangelcrack.shopcard.config;
+
+import com.github.dangelcrack.shopcard.datasource.ReplicaSelectingDataSource;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Comprueba al arrancar con código AOT ({@code -Dspring.aot.enabled=true}, perfil de Maven
+ * {@code startup}) que las condiciones fijadas al compilar siguen de acuerdo con la configuración.
+ *
+ * <p>Con AOT las condiciones {@code @ConditionalOnProperty} se evalúan en {@code process-aot} con
+ * el perfil {@code startup}, y al arrancar ya no se vuelven a mirar. Si
+ * {@code shopcard.datasource.routing.enabled} cambia después, {@link DataSourceRoutingConfig}
+ * quedaría activo o inactivo en silencio en contra de lo configurado; en su lugar, el arranque se
+ * detiene indicando que hay que volver a compilar.</p>
+ */
+@Configuration
+public class AotConditionsConfig implements SmartInitializingSingleton {
+
+    static final String ROUTING_ENABLED = "shopcard.datasource.routing.enabled";
+
+    private final Environment environment;
+    private final ObjectProvider<ReplicaSelectingDataSource> replicaSelectingDataSource;
+
+    /**
+     * @param environment Configuración con la que arranca la aplicación
+     * @param replicaSelectingDataSource Selector de réplicas, presente solo si el enrutado está activo
+     */
+    public AotConditionsConfig(Environment environment,
+                               ObjectProvider<ReplicaSelectingDataSource> replicaSelectingDataSource) {
+        this.environment = environment;
+        this.replicaSelectingDataSource = replicaSelectingDataSource;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (AotDetector.useGeneratedArtifacts()) {
+            comprobar(environment.getProperty(ROUTING_ENABLED, Boolean.class, false),
+                    replicaSelectingDataSource.getIfAvailable() != null);
+        }
+    }
+
+    /**
+     * @param configurado Valor de {@code shopcard.datasource.routing.enabled} al arrancar
+     * @param compilado Si el código AOT incluye la configuración del enrutado
+     * @throws IllegalStateException Si no coinciden
+     */
+    static void comprobar(boolean configurado, boolean compilado) {
+        if (configurado != compilado) {
+            throw new IllegalStateException(ROUTING_ENABLED + "=" + configurado + " no tiene efecto con AOT: "
+                    + "el código se generó con el enrutado " + (compilado ? "activado" : "desactivado")
+                    + ". Cambia el valor en application-startup.properties y vuelve a ejecutar mvn -Pstartup package.");
+        }
+    }
+}
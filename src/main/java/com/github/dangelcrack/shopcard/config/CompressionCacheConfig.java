@@ -0,0 +1,50 @@
+package com.github.dangelcrack.shopcard.config;
+
+import com.github.dangelcrack.shopcard.compression.CompressedResponseCache;
+import com.github.dangelcrack.shopcard.compression.CompressedResponseFilter;
+import com.github.dangelcrack.shopcard.compression.CompressionCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.handler.HandlerMappingIntrospector;
+
+/**
+ * Configuración de la caché de respuestas precomprimidas.
+ * Registra el filtro justo después de Spring Security, para que las peticiones servidas desde la
+ * caché sigan pasando por la protección frente a sobrecarga, las trazas y la seguridad.
+ */
+@Configuration
+@EnableConfigurationProperties(CompressionCacheProperties.class)
+public class CompressionCacheConfig {
+
+    /**
+     * @param properties Propiedades {@code shopcard.compression-cache}
+     * @param registry Registro de métricas
+     * @return Caché de respuestas
+     */
+    @Bean
+    public CompressedResponseCache compressedResponseCache(CompressionCacheProperties properties, MeterRegistry registry) {
+        return new CompressedResponseCache(properties, registry);
+    }
+
+    /**
+     * @param cache Caché de respuestas
+     * @param properties Propiedades {@code shopcard.compression-cache}
+     * @param introspector Resuelve la configuración CORS de Spring MVC para las respuestas servidas desde la caché
+     * @return Registro del filtro
+     */
+    @Bean
+    public FilterRegistrationBean<CompressedResponseFilter> compressedResponseFilterRegistration(
+            CompressedResponseCache cache, CompressionCacheProperties properties,
+            @Qualifier("mvcHandlerMappingIntrospector") HandlerMappingIntrospector introspector) {
+        FilterRegistrationBean<CompressedResponseFilter> registration =
+                new FilterRegistrationBean<>(new CompressedResponseFilter(cache, properties, introspector));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        registration.setEnabled(properties.isEnabled());
+        return registration;
+    }
+}
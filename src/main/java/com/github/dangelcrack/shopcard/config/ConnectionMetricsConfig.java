@@ -0,0 +1,68 @@
+package com.github.dangelcrack.shopcard.config;
+
+import com.github.dangelcrack.shopcard.datasource.ConnectionHoldTimeFilter;
+import com.github.dangelcrack.shopcard.datasource.ConnectionHoldTimeRecorder;
+import com.github.dangelcrack.shopcard.datasource.HoldTimeTrackingDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Configuración de la medida del tiempo de retención de conexiones.
+ *
+ * <p>Envuelve el DataSource de la aplicación (el bean {@code dataSource}, sea el pool de Spring Boot
+ * o el proxy de enrutado a réplicas) en un {@link HoldTimeTrackingDataSource} y registra el filtro
+ * que agrupa los tiempos por petición. Los resultados se consultan en {@code /api/admin/connections}.</p>
+ */
+@Configuration
+public class ConnectionMetricsConfig {
+
+    /**
+     * @return Registro de tiempos de retención de conexiones
+     */
+    @Bean
+    public ConnectionHoldTimeRecorder connectionHoldTimeRecorder() {
+        return new ConnectionHoldTimeRecorder();
+    }
+
+    /**
+     * Envuelve el DataSource de la aplicación al crearse. Es estático para que se registre
+     * antes que el resto de beans de la configuración.
+     *
+     * @param recorder Registro de tiempos, resuelto de forma perezosa
+     * @return Post-procesador que envuelve el bean {@code dataSource}
+     */
+    @Bean
+    public static BeanPostProcessor holdTimeTrackingDataSourcePostProcessor(ObjectProvider<ConnectionHoldTimeRecorder> recorder) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource
+                        && !(bean instanceof HoldTimeTrackingDataSource)) {
+                    return new HoldTimeTrackingDataSource(dataSource, recorder.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Registra el filtro justo después del de protección frente a sobrecarga, de modo que abarque
+     * toda la petición incluida la escritura de la respuesta.
+     *
+     * @param recorder Registro de tiempos de retención
+     * @return Registro del filtro
+     */
+    @Bean
+    public FilterRegistrationBean<ConnectionHoldTimeFilter> connectionHoldTimeFilterRegistration(ConnectionHoldTimeRecorder recorder) {
+        FilterRegistrationBean<ConnectionHoldTimeFilter> registration =
+                new FilterRegistrationBean<>(new ConnectionHoldTimeFilter(recorder));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.dangelcrack.shopcard.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.dangelcrack.shopcard.encoding.CatalogoProtobufHttpMessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Formatos binarios de respuesta, elegidos por la cabecera {@code Accept}:
+ *
+ * <ul>
+ *     <li>{@code application/cbor} y {@code application/x-jackson-smile}: el mismo árbol que el
+ *     JSON, con la configuración {@code spring.jackson.*} de la aplicación.</li>
+ *     <li>{@code application/x-protobuf}: los listados de productos, resúmenes, colecciones y
+ *     valoraciones según {@code src/main/proto/catalogo.proto}.</li>
+ * </ul>
+ *
+ * <p>Los conversores CBOR y Smile sustituyen a los predeterminados de Spring MVC, que no usan
+ * {@code spring.jackson.*}. JSON sigue siendo el formato cuando el cliente no pide otro.</p>
+ */
+@Configuration
+public class ContentNegotiationConfig {
+
+    /**
+     * @param builder Constructor de ObjectMapper de Spring Boot (uno nuevo por inyección)
+     * @return Conversor CBOR
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * @param builder Constructor de ObjectMapper de Spring Boot (uno nuevo por inyección)
+     * @return Conversor Smile
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    /**
+     * El conversor Protobuf se añade al final de la lista y no como bean: Spring Boot pone los
+     * conversores que no sustituyen a uno predeterminado al principio, y entonces un cliente que
+     * acepta cualquier tipo recibiría Protobuf en lugar de JSON.
+     *
+     * @return Configuración de Spring MVC con el conversor Protobuf de los listados del catálogo
+     */
+    @Bean
+    public WebMvcConfigurer protobufMessageConverterConfigurer() {
+        return new WebMvcConfigurer() {
+            @Override
+            public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+                converters.add(new CatalogoProtobufHttpMessageConverter());
+            }
+        };
+    }
+}
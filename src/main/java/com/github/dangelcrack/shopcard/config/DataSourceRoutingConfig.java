@@ -0,0 +1,122 @@
+package com.github.dangelcrack.shopcard.config;
+
+import com.github.dangelcrack.shopcard.datasource.ReadYourWritesTracker;
+import com.github.dangelcrack.shopcard.datasource.ReplicaSelectingDataSource;
+import com.github.dangelcrack.shopcard.datasource.RoutingDataSourceProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuración del enrutado lectura/escritura entre la base de datos principal y sus réplicas.
+ * Solo se activa con {@code shopcard.datasource.routing.enabled=true}.
+ *
+ * <p>El DataSource que usan JPA y JdbcTemplate es un {@link LazyConnectionDataSourceProxy}: la
+ * conexión física se pide al ejecutar la primera sentencia, cuando ya se sabe si la transacción es
+ * {@code readOnly}. Las de solo lectura van al {@link ReplicaSelectingDataSource}; el resto, a la principal.</p>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "shopcard.datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties({DataSourceProperties.class, RoutingDataSourceProperties.class})
+public class DataSourceRoutingConfig {
+
+    private ReplicaSelectingDataSource replicaSelectingDataSource;
+
+    /**
+     * Pool de la base de datos principal, configurado con {@code spring.datasource.*}.
+     *
+     * @param properties Propiedades {@code spring.datasource}
+     * @return Pool de conexiones de la principal
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * @param properties Propiedades {@code shopcard.datasource}
+     * @return Control de lectura de las propias escrituras, registrado como listener de transacciones
+     */
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(RoutingDataSourceProperties properties) {
+        return new ReadYourWritesTracker(properties.getStickyWindowMs());
+    }
+
+    /**
+     * Selector de réplicas con un pool por réplica.
+     *
+     * @param primaryDataSource Pool de la principal, usado como respaldo
+     * @param properties Propiedades {@code shopcard.datasource}
+     * @param tracker Control de lectura de las propias escrituras
+     * @param meterRegistry Registro de métricas; los pools de réplica no son beans, así que Spring Boot
+     *                      no los instrumenta y se les asigna aquí el registro de {@code hikaricp.*}
+     * @return DataSource de solo lectura
+     */
+    @Bean
+    public ReplicaSelectingDataSource replicaSelectingDataSource(HikariDataSource primaryDataSource,
+                                                                 RoutingDataSourceProperties properties,
+                                                                 ReadYourWritesTracker tracker,
+                                                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        List<ReplicaSelectingDataSource.Replica> replicas = new ArrayList<>();
+        int i = 0;
+        for (RoutingDataSourceProperties.Replica r : properties.getReplicas()) {
+            String name = r.getName() != null ? r.getName() : "replica-" + i;
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName(name);
+            pool.setJdbcUrl(r.getUrl());
+            pool.setUsername(r.getUsername());
+            pool.setPassword(r.getPassword());
+            pool.setMaximumPoolSize(r.getMaximumPoolSize());
+            pool.setReadOnly(true);
+            // No impedir el arranque si una réplica no está disponible: se marcará como caída
+            pool.setInitializationFailTimeout(-1);
+            meterRegistry.ifAvailable(registry -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            replicas.add(new ReplicaSelectingDataSource.Replica(name, pool));
+            i++;
+        }
+        this.replicaSelectingDataSource = new ReplicaSelectingDataSource(primaryDataSource, replicas, tracker);
+        return replicaSelectingDataSource;
+    }
+
+    /**
+     * DataSource principal de la aplicación.
+     *
+     * @param primaryDataSource Pool de la principal
+     * @param replicaSelectingDataSource Selector de réplicas para las transacciones de solo lectura
+     * @return Proxy que enruta según el carácter de la transacción
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaSelectingDataSource replicaSelectingDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primaryDataSource);
+        proxy.setReadOnlyDataSource(replicaSelectingDataSource);
+        return proxy;
+    }
+
+    /**
+     * Comprueba periódicamente la salud de las réplicas para reincorporar las que se recuperan.
+     */
+    @Scheduled(fixedDelayString = "${shopcard.datasource.health-check-interval-ms:5000}")
+    public void checkReplicaHealth() {
+        if (replicaSelectingDataSource != null) {
+            replicaSelectingDataSource.checkHealth();
+        }
+    }
+}
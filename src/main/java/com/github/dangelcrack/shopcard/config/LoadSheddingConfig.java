@@ -0,0 +1,46 @@
+package com.github.dangelcrack.shopcard.config;
+
+import com.github.dangelcrack.shopcard.loadshedding.LoadSheddingFilter;
+import com.github.dangelcrack.shopcard.loadshedding.LoadSheddingProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Configuración de la protección frente a sobrecarga.
+ * Registra el filtro de limitación lo antes posible en la cadena, antes incluso que Spring Security,
+ * para que las peticiones rechazadas no consuman recursos del resto de la aplicación.
+ */
+@Configuration
+@EnableConfigurationProperties(LoadSheddingProperties.class)
+public class LoadSheddingConfig {
+
+    /**
+     * Crea el filtro de limitación a partir de la configuración.
+     *
+     * @param properties Propiedades {@code shopcard.load-shedding}
+     * @return Filtro de limitación
+     */
+    @Bean
+    public LoadSheddingFilter loadSheddingFilter(LoadSheddingProperties properties) {
+        return new LoadSheddingFilter(properties);
+    }
+
+    /**
+     * Registra el filtro en el contenedor de servlets con prioridad alta.
+     *
+     * @param filter Filtro de limitación
+     * @param properties Propiedades {@code shopcard.load-shedding}
+     * @return Registro del filtro
+     */
+    @Bean
+    public FilterRegistrationBean<LoadSheddingFilter> loadSheddingFilterRegistration(LoadSheddingFilter filter,
+                                                                                  LoadSheddingProperties properties) {
+        FilterRegistrationBean<LoadSheddingFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        registration.setEnabled(properties.isEnabled());
+        return registration;
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.dangelcrack.shopcard.config;
+
+import com.github.dangelcrack.shopcard.datasource.ConnectionHoldTimeRecorder;
+import com.github.dangelcrack.shopcard.datasource.ReplicaSelectingDataSource;
+import com.github.dangelcrack.shopcard.loadshedding.AdaptiveConcurrencyLimiter;
+import com.github.dangelcrack.shopcard.loadshedding.ClientRateLimiter;
+import com.github.dangelcrack.shopcard.loadshedding.LoadSheddingFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Publica en Micrometer el estado interno que hasta ahora solo se veía en los endpoints
+ * {@code /api/admin/*}: limitadores de sobrecarga, tiempo de retención de conexiones y reparto
+ * de lecturas entre réplicas.
+ *
+ * <p>Los medidores leen los contadores existentes al hacer el scrape ({@link FunctionCounter} y
+ * {@link Gauge}), así que no añaden trabajo a las peticiones. Las métricas de los pools de
+ * Hikari ({@code hikaricp.connections.*}) y las de Hibernate ({@code hibernate.*}) las registra
+ * Spring Boot.</p>
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * @param filter Filtro de limitación
+     * @return Métricas {@code shopcard.load.shedding.*}, por grupo
+     */
+    @Bean
+    public MeterBinder loadSheddingMetrics(LoadSheddingFilter filter) {
+        return registry -> {
+            ClientRateLimiter rateLimiter = filter.getRateLimiter();
+            if (rateLimiter != null) {
+                FunctionCounter.builder("shopcard.load.shedding.rate.limit", rateLimiter, ClientRateLimiter::getAccepted)
+                        .tag("resultado", "aceptada").register(registry);
+                FunctionCounter.builder("shopcard.load.shedding.rate.limit", rateLimiter, ClientRateLimiter::getRejected)
+                        .tag("resultado", "rechazada").register(registry);
+                Gauge.builder("shopcard.load.shedding.clients", rateLimiter, ClientRateLimiter::getTrackedClients)
+                        .register(registry);
+            }
+            for (AdaptiveConcurrencyLimiter limiter : filter.getLimiters().values()) {
+                String grupo = limiter.getName();
+                Gauge.builder("shopcard.load.shedding.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                        .tag("grupo", grupo).register(registry);
+                Gauge.builder("shopcard.load.shedding.inflight", limiter, AdaptiveConcurrencyLimiter::getInflight)
+                        .tag("grupo", grupo).register(registry);
+                FunctionCounter.builder("shopcard.load.shedding.requests", limiter, AdaptiveConcurrencyLimiter::getAccepted)
+                        .tag("grupo", grupo).tag("resultado", "aceptada").register(registry);
+                FunctionCounter.builder("shopcard.load.shedding.requests", limiter, AdaptiveConcurrencyLimiter::getRejected)
+                        .tag("grupo", grupo).tag("resultado", "rechazada").register(registry);
+            }
+        };
+    }
+
+    /**
+     * @param recorder Registro de tiempos de retención de conexiones
+     * @return Métricas {@code shopcard.connection.hold.*}, por conexión y por petición
+     */
+    @Bean
+    public MeterBinder connectionHoldTimeMetrics(ConnectionHoldTimeRecorder recorder) {
+        return registry -> {
+            bindHoldTime(registry, "conexion", recorder.getPorConexion());
+            bindHoldTime(registry, "peticion", recorder.getPorPeticion());
+        };
+    }
+
+    private static void bindHoldTime(MeterRegistry registry, String ambito,
+                                     ConnectionHoldTimeRecorder.Stats stats) {
+        FunctionCounter.builder("shopcard.connection.hold.count", stats, ConnectionHoldTimeRecorder.Stats::getCount)
+                .tag("ambito", ambito).register(registry);
+        Gauge.builder("shopcard.connection.hold.mean", stats, ConnectionHoldTimeRecorder.Stats::getMeanMillis)
+                .tag("ambito", ambito).baseUnit("milliseconds").register(registry);
+        Gauge.builder("shopcard.connection.hold.p99", stats, s -> s.getPercentileMillis(0.99))
+                .tag("ambito", ambito).baseUnit("milliseconds").register(registry);
+        Gauge.builder("shopcard.connection.hold.max", stats, ConnectionHoldTimeRecorder.Stats::getMaxMillis)
+                .tag("ambito", ambito).baseUnit("milliseconds").register(registry);
+    }
+
+    /**
+     * Solo existe con el enrutado a réplicas activo.
+     *
+     * @param replicas Selector de réplicas
+     * @return Métricas {@code shopcard.datasource.reads} y {@code shopcard.datasource.replica.up}
+     */
+    @Bean
+    public MeterBinder replicaRoutingMetrics(ObjectProvider<ReplicaSelectingDataSource> replicas) {
+        return registry -> replicas.ifAvailable(selector -> {
+            FunctionCounter.builder("shopcard.datasource.reads", selector, ReplicaSelectingDataSource::getLecturasReplica)
+                    .tag("destino", "replica").register(registry);
+            FunctionCounter.builder("shopcard.datasource.reads", selector, ReplicaSelectingDataSource::getLecturasPrincipal)
+                    .tag("destino", "principal").register(registry);
+            for (ReplicaSelectingDataSource.Replica replica : selector.getReplicas()) {
+                Gauge.builder("shopcard.datasource.replica.up", replica, r -> r.isHealthy() ? 1 : 0)
+                        .tag("replica", replica.name()).register(registry);
+            }
+        });
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.dangelcrack.shopcard.config;
+
+import com.github.dangelcrack.shopcard.profiling.JfrProfiler;
+import com.github.dangelcrack.shopcard.profiling.ProfilingProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de las grabaciones JFR bajo demanda ({@code /api/admin/profiling}).
+ */
+@Configuration
+@EnableConfigurationProperties(ProfilingProperties.class)
+public class ProfilingConfig {
+
+    /**
+     * @param properties Propiedades {@code shopcard.profiling}
+     * @return Gestor de grabaciones; al cerrarse el contexto detiene la que esté en curso
+     */
+    @Bean
+    public JfrProfiler jfrProfiler(ProfilingProperties properties) {
+        return new JfrProfiler(properties);
+    }
+}
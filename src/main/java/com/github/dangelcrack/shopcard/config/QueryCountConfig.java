@@ -0,0 +1,54 @@
+package com.github.dangelcrack.shopcard.config;
+
+import com.github.dangelcrack.shopcard.querycount.QueryCountFilter;
+import com.github.dangelcrack.shopcard.querycount.QueryCountProperties;
+import com.github.dangelcrack.shopcard.querycount.QueryCountingInspector;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Configuración del recuento de sentencias SQL por petición.
+ *
+ * <p>Registra {@link QueryCountingInspector} en Hibernate siempre, para que los tests puedan
+ * contar sentencias aunque el filtro esté desactivado, y el {@link QueryCountFilter} según
+ * {@code shopcard.query-count.enabled}.</p>
+ */
+@Configuration
+@EnableConfigurationProperties(QueryCountProperties.class)
+public class QueryCountConfig {
+
+    /**
+     * @return Ajustes de Hibernate que instalan el contador de sentencias y de cargas
+     */
+    @Bean
+    public HibernatePropertiesCustomizer queryCountingHibernateCustomizer() {
+        QueryCountingInspector inspector = new QueryCountingInspector();
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+            properties.put(AvailableSettings.INTERCEPTOR, inspector);
+        };
+    }
+
+    /**
+     * Registra el filtro después del de retención de conexiones.
+     *
+     * @param properties Propiedades {@code shopcard.query-count}
+     * @param registry Registro de métricas
+     * @return Registro del filtro
+     */
+    @Bean
+    public FilterRegistrationBean<QueryCountFilter> queryCountFilterRegistration(QueryCountProperties properties,
+                                                                                 MeterRegistry registry) {
+        FilterRegistrationBean<QueryCountFilter> registration =
+                new FilterRegistrationBean<>(new QueryCountFilter(properties, registry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 30);
+        registration.setEnabled(properties.isEnabled());
+        return registration;
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.dangelcrack.shopcard.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita las tareas programadas ({@code @Scheduled}) de la aplicación,
+ * como la reconstrucción periódica de índices en memoria.
+ *
+ * <p>Todas comparten el planificador de Spring Boot, que por defecto tiene un solo hilo: una
+ * reconstrucción completa del índice de relacionados retrasaría los refrescos de estadísticas y
+ * la comprobación de las réplicas. {@code spring.task.scheduling.pool.size} le da un hilo a cada
+ * grupo de tareas.</p>
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,7 +1,10 @@
 package com.github.dangelcrack.shopcard.config;
 
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.web.SecurityFilterChain;
@@ -9,6 +12,14 @@ import org.springframework.security.web.SecurityFilterChain;
 /**
  * Configuración de seguridad para la aplicación.
  * Define las reglas de autenticación y autorización, así como la protección contra CSRF.
+ *
+ * <p>Los endpoints de administración ({@code /api/admin/**}: consultas lentas, grabaciones JFR,
+ * cambios de precio masivos, limitadores de sobrecarga, conexiones) exponen SQL con sus
+ * parámetros y permiten cambiar el comportamiento de la aplicación o el catálogo entero, así que
+ * piden el rol {@code ADMIN} con autenticación HTTP Basic. Lo mismo los de Actuator salvo
+ * {@code health}: las métricas incluyen sentencias por URI, saturación del pool y consultas
+ * lentas. El usuario es el de {@code spring.security.user.*}; si no se configura la contraseña,
+ * Spring Boot genera una al arrancar y la escribe en el log.</p>
  */
 @Configuration
 @EnableWebSecurity // Habilita la seguridad web de Spring Security
@@ -25,12 +36,16 @@ public class SecurityConfig {
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
                 .authorizeHttpRequests(auth -> auth
-                        // Permite todas las solicitudes sin requerir autenticación
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()
+                        .requestMatchers(EndpointRequest.toAnyEndpoint()).hasRole("ADMIN")
+                        // El resto de la API es pública
                         .anyRequest().permitAll()
                 )
+                .httpBasic(Customizer.withDefaults())
                 // Deshabilita la protección CSRF (útil para APIs stateless, pero requiere consideraciones de seguridad)
                 .csrf(csrf -> csrf.disable());
 
         return http.build();
     }
-}
\ No newline at end of file
+}
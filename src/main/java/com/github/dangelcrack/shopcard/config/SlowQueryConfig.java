@@ -0,0 +1,112 @@
+package com.github.dangelcrack.shopcard.config;
+
+import com.github.dangelcrack.shopcard.slowquery.RepositoryCallInterceptor;
+import com.github.dangelcrack.shopcard.slowquery.SlowQueryDataSource;
+import com.github.dangelcrack.shopcard.slowquery.SlowQueryLog;
+import com.github.dangelcrack.shopcard.slowquery.SlowQueryProperties;
+import com.github.dangelcrack.shopcard.slowquery.SlowQueryRouteFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.data.repository.Repository;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.util.function.SingletonSupplier;
+
+import javax.sql.DataSource;
+
+/**
+ * Configuración del registro de consultas lentas.
+ *
+ * <p>Envuelve el bean {@code dataSource} en un {@link SlowQueryDataSource}, añade a cada
+ * repositorio de Spring Data un {@link RepositoryCallInterceptor} y registra el filtro que anota
+ * la ruta de la petición. Las consultas se consultan en {@code /api/admin/slow-queries}. Con
+ * {@code shopcard.slow-query.enabled=false} no se instala nada de lo anterior.</p>
+ */
+@Configuration
+@EnableConfigurationProperties(SlowQueryProperties.class)
+public class SlowQueryConfig {
+
+    private static final String ENABLED = "shopcard.slow-query.enabled";
+
+    /**
+     * Los {@code EXPLAIN} van por una conexión propia a la base de datos principal, abierta sin
+     * pasar por el pool.
+     *
+     * @param properties Propiedades {@code shopcard.slow-query}
+     * @param registry Registro de métricas
+     * @param dataSourceProperties Propiedades {@code spring.datasource}
+     * @return Registro de consultas lentas
+     */
+    @Bean
+    public SlowQueryLog slowQueryLog(SlowQueryProperties properties, MeterRegistry registry,
+                                     ObjectProvider<DataSourceProperties> dataSourceProperties) {
+        SlowQueryLog slowQueryLog = new SlowQueryLog(properties, registry);
+        DataSourceProperties ds = dataSourceProperties.getIfAvailable();
+        if (ds != null) {
+            slowQueryLog.setExplainDataSource(
+                    new DriverManagerDataSource(ds.determineUrl(), ds.determineUsername(), ds.determinePassword()));
+        }
+        return slowQueryLog;
+    }
+
+    /**
+     * Envuelve el DataSource y los repositorios al crearse. Es estático para que se registre
+     * antes que el resto de beans de la configuración; por eso lee la propiedad del entorno y no
+     * de {@link SlowQueryProperties}.
+     *
+     * @param environment Entorno de la aplicación
+     * @param slowQueryLog Registro de consultas lentas, resuelto de forma perezosa
+     * @param tracer Trazador, resuelto de forma perezosa para anotar las sentencias en las trazas
+     * @return Post-procesador que envuelve el bean {@code dataSource} y los repositorios
+     */
+    @Bean
+    public static BeanPostProcessor slowQueryPostProcessor(Environment environment, ObjectProvider<SlowQueryLog> slowQueryLog,
+                                                           ObjectProvider<Tracer> tracer) {
+        boolean enabled = environment.getProperty(ENABLED, Boolean.class, true);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!enabled) {
+                    return bean;
+                }
+                if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource
+                        && !(bean instanceof SlowQueryDataSource)) {
+                    return new SlowQueryDataSource(dataSource, slowQueryLog.getObject(),
+                            SingletonSupplier.of(() -> tracer.getIfAvailable(() -> Tracer.NOOP)));
+                }
+                if (bean instanceof Repository<?, ?> && bean instanceof Advised advised && !advised.isFrozen()) {
+                    for (Class<?> tipo : advised.getProxiedInterfaces()) {
+                        if (Repository.class.isAssignableFrom(tipo) && tipo.getName().startsWith("com.github.dangelcrack")) {
+                            advised.addAdvice(0, new RepositoryCallInterceptor(tipo.getSimpleName()));
+                            break;
+                        }
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Registra el filtro entre el de retención de conexiones y el de recuento de sentencias.
+     *
+     * @param properties Propiedades {@code shopcard.slow-query}
+     * @return Registro del filtro
+     */
+    @Bean
+    public FilterRegistrationBean<SlowQueryRouteFilter> slowQueryRouteFilterRegistration(SlowQueryProperties properties) {
+        FilterRegistrationBean<SlowQueryRouteFilter> registration = new FilterRegistrationBean<>(new SlowQueryRouteFilter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 25);
+        registration.setEnabled(properties.isEnabled());
+        return registration;
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.dangelcrack.shopcard.config;
+
+import com.github.dangelcrack.shopcard.thumbnails.HttpImageOrigin;
+import com.github.dangelcrack.shopcard.thumbnails.ImageOrigin;
+import com.github.dangelcrack.shopcard.thumbnails.LocalDirectoryImageOrigin;
+import com.github.dangelcrack.shopcard.thumbnails.ThumbnailCache;
+import com.github.dangelcrack.shopcard.thumbnails.ThumbnailProperties;
+import com.github.dangelcrack.shopcard.thumbnails.ThumbnailRenderer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Configuración de las miniaturas ({@code /api/imagenes}): origen de las imágenes, generación y
+ * caché en disco.
+ */
+@Configuration
+@EnableConfigurationProperties(ThumbnailProperties.class)
+public class ThumbnailConfig {
+
+    /**
+     * @param properties Propiedades {@code shopcard.thumbnails}
+     * @return Origen elegido por {@code shopcard.thumbnails.origin}, salvo que se defina otro
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ImageOrigin imageOrigin(ThumbnailProperties properties) {
+        return switch (properties.getOrigin()) {
+            case HTTP -> new HttpImageOrigin(properties.getOriginTimeoutMs(), properties.getMaxSourceBytes(),
+                    properties.getOriginAllowedHosts());
+            case LOCAL -> new LocalDirectoryImageOrigin(Path.of(properties.getOriginDirectory()), properties.getMaxSourceBytes());
+        };
+    }
+
+    /**
+     * @param properties Propiedades {@code shopcard.thumbnails}
+     * @return Generador de miniaturas
+     */
+    @Bean
+    public ThumbnailRenderer thumbnailRenderer(ThumbnailProperties properties) {
+        return new ThumbnailRenderer(properties.getJpegQuality(), properties.getMaxSourcePixels());
+    }
+
+    /**
+     * @param properties Propiedades {@code shopcard.thumbnails}
+     * @param registry Registro de métricas
+     * @return Caché en disco; al crearse recupera las miniaturas del directorio
+     */
+    @Bean
+    public ThumbnailCache thumbnailCache(ThumbnailProperties properties, MeterRegistry registry) {
+        return new ThumbnailCache(Path.of(properties.getCacheDirectory()), properties.getMaxCacheBytes(), registry);
+    }
+}
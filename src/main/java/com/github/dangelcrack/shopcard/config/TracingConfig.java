@@ -0,0 +1,180 @@
+package com.github.dangelcrack.shopcard.config;
+
+import com.github.dangelcrack.shopcard.tracing.TracingFilter;
+import com.github.dangelcrack.shopcard.tracing.TracingInterceptor;
+import com.github.dangelcrack.shopcard.tracing.TracingJacksonConverter;
+import com.github.dangelcrack.shopcard.tracing.TracingProperties;
+import io.micrometer.tracing.Tracer;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.aopalliance.aop.Advice;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.data.repository.Repository;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.function.SingletonSupplier;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Configuración de las trazas de peticiones.
+ *
+ * <p>Las trazas son las de Micrometer Tracing con el puente de OpenTelemetry: Spring Boot abre el
+ * span de cada petición HTTP, propaga {@code traceparent} y exporta por OTLP a
+ * {@code management.otlp.tracing.endpoint} con un procesador por lotes de cola acotada, que
+ * descarta spans si se llena. Esta configuración añade un {@link TracingInterceptor} a los
+ * controladores, servicios y repositorios de la aplicación, sustituye el conversor JSON por
+ * {@link TracingJacksonConverter} y devuelve el contexto en la respuesta. Las sentencias SQL las
+ * anota {@code SlowQueryDataSource}.</p>
+ */
+@Configuration
+@EnableConfigurationProperties(TracingProperties.class)
+public class TracingConfig {
+
+    private static final String ENABLED = "shopcard.tracing.enabled";
+    private static final String PAQUETE = "com.github.dangelcrack.shopcard.";
+
+    /**
+     * Sustituye el muestreador de Spring Boot, que respeta siempre el indicador de muestreo de un
+     * padre remoto.
+     *
+     * @param properties Propiedades {@code shopcard.tracing}
+     * @param probability Fracción de trazas que se muestrean
+     * @return Muestreador de OpenTelemetry
+     */
+    @Bean
+    public Sampler otelSampler(TracingProperties properties,
+                               @Value("${management.tracing.sampling.probability:0.1}") double probability) {
+        return sampler(probability, properties.isTrustRemoteSampling());
+    }
+
+    /**
+     * Los spans locales heredan siempre la decisión de su padre. Con un padre remoto (la cabecera
+     * {@code traceparent}) solo se hereda si {@code trustRemote}; si no, decide la probabilidad
+     * local sobre el mismo trace id, así que la traza del llamante se continúa igualmente.
+     *
+     * @param probability Fracción de trazas que se muestrean
+     * @param trustRemote Si se respeta el muestreo del llamante
+     * @return Muestreador
+     */
+    public static Sampler sampler(double probability, boolean trustRemote) {
+        Sampler local = Sampler.traceIdRatioBased(probability);
+        if (trustRemote) {
+            return Sampler.parentBased(local);
+        }
+        return Sampler.parentBasedBuilder(local)
+                .setRemoteParentSampled(local)
+                .setRemoteParentNotSampled(local)
+                .build();
+    }
+
+    /**
+     * Añade un span a cada llamada a controladores, servicios y repositorios. Es estático para
+     * que se registre antes que el resto de beans; no implementa {@link Ordered}, así que se
+     * aplica después del proxy transaccional y el span incluye la apertura y el commit de la
+     * transacción.
+     *
+     * @param environment Entorno de la aplicación
+     * @param tracer Trazador, resuelto de forma perezosa
+     * @return Post-procesador que añade el interceptor
+     */
+    @Bean
+    public static BeanPostProcessor tracingPostProcessor(Environment environment, ObjectProvider<Tracer> tracer) {
+        boolean enabled = environment.getProperty(ENABLED, Boolean.class, true);
+        Supplier<Tracer> lazyTracer = SingletonSupplier.of(() -> tracer.getIfAvailable(() -> Tracer.NOOP));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!enabled) {
+                    return bean;
+                }
+                if (bean instanceof Repository<?, ?> && bean instanceof Advised advised) {
+                    for (Class<?> tipo : advised.getProxiedInterfaces()) {
+                        if (Repository.class.isAssignableFrom(tipo) && tipo.getName().startsWith(PAQUETE)) {
+                            return advise(bean, new TracingInterceptor(lazyTracer, tipo.getSimpleName(), "repository"));
+                        }
+                    }
+                    return bean;
+                }
+                Class<?> clase = ClassUtils.getUserClass(bean);
+                if (!clase.getName().startsWith(PAQUETE)) {
+                    return bean;
+                }
+                if (AnnotatedElementUtils.hasAnnotation(clase, RestController.class)) {
+                    return advise(bean, new TracingInterceptor(lazyTracer, clase.getSimpleName(), "controller"));
+                }
+                if (AnnotatedElementUtils.hasAnnotation(clase, Service.class)) {
+                    return advise(bean, new TracingInterceptor(lazyTracer, clase.getSimpleName(), "service"));
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static Object advise(Object bean, Advice advice) {
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvice(0, advice);
+            return bean;
+        }
+        ProxyFactory factory = new ProxyFactory(bean);
+        factory.setProxyTargetClass(true);
+        factory.addAdvice(advice);
+        return factory.getProxy(ClassUtils.getUserClass(bean).getClassLoader());
+    }
+
+    /**
+     * Registra el filtro justo después del de observación de Spring Boot, que abre el span de la
+     * petición antes de la protección frente a sobrecarga.
+     *
+     * @param properties Propiedades {@code shopcard.tracing}
+     * @param tracer Trazador de la aplicación
+     * @return Registro del filtro
+     */
+    @Bean
+    public FilterRegistrationBean<TracingFilter> tracingFilterRegistration(TracingProperties properties, Tracer tracer) {
+        FilterRegistrationBean<TracingFilter> registration = new FilterRegistrationBean<>(new TracingFilter(tracer));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 5);
+        registration.setEnabled(properties.isEnabled());
+        return registration;
+    }
+
+    /**
+     * @param properties Propiedades {@code shopcard.tracing}
+     * @param tracer Trazador de la aplicación
+     * @return Configuración de Spring MVC que mide la serialización de las respuestas JSON
+     */
+    @Bean
+    public WebMvcConfigurer tracingMessageConverterConfigurer(TracingProperties properties, Tracer tracer) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+                if (!properties.isEnabled()) {
+                    return;
+                }
+                for (int i = 0; i < converters.size(); i++) {
+                    if (converters.get(i).getClass() == MappingJackson2HttpMessageConverter.class) {
+                        MappingJackson2HttpMessageConverter original = (MappingJackson2HttpMessageConverter) converters.get(i);
+                        TracingJacksonConverter converter = new TracingJacksonConverter(original.getObjectMapper(), tracer);
+                        converter.setSupportedMediaTypes(original.getSupportedMediaTypes());
+                        converters.set(i, converter);
+                    }
+                }
+            }
+        };
+    }
+}
@@ -1,5 +1,6 @@
 package com.github.dangelcrack.shopcard.controllers;
 
+import com.github.dangelcrack.shopcard.dto.CatalogStats;
 import com.github.dangelcrack.shopcard.exceptions.RecordNotFoundException;
 import com.github.dangelcrack.shopcard.models.Categoria;
 import com.github.dangelcrack.shopcard.services.CategoriasService;
@@ -46,6 +47,18 @@ public class CategoriasController {
         return ResponseEntity.ok(categoria);
     }
 
+    /**
+     * Obtiene las estadísticas de los productos de una categoría.
+     *
+     * @param id ID de la categoría
+     * @return ResponseEntity con las estadísticas y código HTTP 200 (OK)
+     * @throws RecordNotFoundException si no se encuentra la categoría con el ID especificado
+     */
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<CatalogStats> getEstadisticas(@PathVariable Long id) throws RecordNotFoundException {
+        return ResponseEntity.ok(service.getEstadisticas(id));
+    }
+
     /**
      * Crea una nueva categoría.
      *
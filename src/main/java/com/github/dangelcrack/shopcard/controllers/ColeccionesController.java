@@ -1,5 +1,6 @@
 package com.github.dangelcrack.shopcard.controllers;
 
+import com.github.dangelcrack.shopcard.dto.CatalogStats;
 import com.github.dangelcrack.shopcard.exceptions.RecordNotFoundException;
 import com.github.dangelcrack.shopcard.models.Colecciones;
 import com.github.dangelcrack.shopcard.services.ColeccionesService;
@@ -57,6 +58,19 @@ public class ColeccionesController {
         return new ResponseEntity<>(coleccion, HttpStatus.OK);
     }
 
+    /**
+     * Obtiene las estadísticas de una colección: número de cartas, cartas y unidades en stock,
+     * valor del stock, rango de precios y puntuación media.
+     * @param id ID de la colección.
+     * @return ResponseEntity con las estadísticas y estado HTTP 200 (OK).
+     * @throws RecordNotFoundException Si no se encuentra la colección con el ID especificado.
+     */
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<CatalogStats> getEstadisticas(@PathVariable("id") Long id) throws RecordNotFoundException {
+        CatalogStats stats = service.getEstadisticas(id);
+        return new ResponseEntity<>(stats, HttpStatus.OK);
+    }
+
     /**
      * Crea una nueva colección.
      * @param coleccion Objeto Colecciones con los datos a crear.
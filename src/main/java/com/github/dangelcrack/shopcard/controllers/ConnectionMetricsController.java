@@ -0,0 +1,41 @@
+package com.github.dangelcrack.shopcard.controllers;
+
+import com.github.dangelcrack.shopcard.datasource.ConnectionHoldTimeRecorder;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Controlador REST de administración que expone cuánto tiempo se retienen las conexiones
+ * a la base de datos, por conexión y por petición.
+ */
+@RestController
+@RequestMapping("/api/admin/connections")
+public class ConnectionMetricsController {
+
+    private final ConnectionHoldTimeRecorder recorder;
+
+    /**
+     * Constructor para inyección de dependencias.
+     * @param recorder Registro de tiempos de retención
+     */
+    public ConnectionMetricsController(ConnectionHoldTimeRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Obtiene una instantánea de los tiempos de retención de conexiones.
+     * @return Distribuciones por conexión y por petición con código HTTP 200 (OK)
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("porConexion", recorder.getPorConexion().toMap());
+        body.put("porPeticion", recorder.getPorPeticion().toMap());
+        return ResponseEntity.ok(body);
+    }
+}
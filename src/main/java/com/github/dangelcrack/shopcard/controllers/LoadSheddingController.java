@@ -0,0 +1,65 @@
+package com.github.dangelcrack.shopcard.controllers;
+
+import com.github.dangelcrack.shopcard.loadshedding.AdaptiveConcurrencyLimiter;
+import com.github.dangelcrack.shopcard.loadshedding.ClientRateLimiter;
+import com.github.dangelcrack.shopcard.loadshedding.LoadSheddingFilter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Controlador REST de administración que expone el estado de la protección frente a sobrecarga:
+ * límites actuales, peticiones en vuelo y contadores de aceptadas/rechazadas.
+ */
+@RestController
+@RequestMapping("/api/admin/load-shedding")
+public class LoadSheddingController {
+
+    private final LoadSheddingFilter filter;
+
+    /**
+     * Constructor para inyección de dependencias.
+     * @param filter Filtro de limitación cuyo estado se expone
+     */
+    public LoadSheddingController(LoadSheddingFilter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Obtiene una instantánea de las métricas de limitación.
+     * @return Métricas del limitador por cliente y de cada grupo con código HTTP 200 (OK)
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        Map<String, Object> body = new LinkedHashMap<>();
+
+        ClientRateLimiter rateLimiter = filter.getRateLimiter();
+        if (rateLimiter != null) {
+            Map<String, Object> rl = new LinkedHashMap<>();
+            rl.put("capacity", rateLimiter.getCapacity());
+            rl.put("refillPerSecond", rateLimiter.getRefillPerSecond());
+            rl.put("trackedClients", rateLimiter.getTrackedClients());
+            rl.put("accepted", rateLimiter.getAccepted());
+            rl.put("rejected", rateLimiter.getRejected());
+            body.put("rateLimit", rl);
+        }
+
+        Map<String, Object> groups = new LinkedHashMap<>();
+        for (AdaptiveConcurrencyLimiter limiter : filter.getLimiters().values()) {
+            Map<String, Object> g = new LinkedHashMap<>();
+            g.put("limit", limiter.getLimit());
+            g.put("inflight", limiter.getInflight());
+            g.put("accepted", limiter.getAccepted());
+            g.put("rejected", limiter.getRejected());
+            g.put("longRttMillis", limiter.getLongRttMillis());
+            g.put("lastRttMillis", limiter.getLastRttMillis());
+            groups.put(limiter.getName(), g);
+        }
+        body.put("groups", groups);
+        return ResponseEntity.ok(body);
+    }
+}
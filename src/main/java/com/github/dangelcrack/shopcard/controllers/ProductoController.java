@@ -1,11 +1,22 @@
 package com.github.dangelcrack.shopcard.controllers;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.dangelcrack.shopcard.dto.ProductoBatch;
+import com.github.dangelcrack.shopcard.dto.ProductoPage;
+import com.github.dangelcrack.shopcard.dto.ProductoResumen;
 import com.github.dangelcrack.shopcard.models.Producto;
+import com.github.dangelcrack.shopcard.services.ProductoPageService;
+import com.github.dangelcrack.shopcard.services.ProductoPatchService;
 import com.github.dangelcrack.shopcard.services.ProductoService;
+import com.github.dangelcrack.shopcard.services.ProductoStreamService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controlador REST para gestionar operaciones relacionadas con productos.
@@ -15,14 +26,30 @@ import java.util.List;
 @RequestMapping("/api/productos") // Ruta base para todos los endpoints de productos
 public class ProductoController {
 
+    // Formatos binarios de ContentNegotiationConfig, atendidos con las entidades
+    private static final String SMILE = "application/x-jackson-smile";
+    private static final String PROTOBUF = "application/x-protobuf";
+    private static final String PROTOBUF_ALT = "application/protobuf";
+    private static final String MERGE_PATCH = "application/merge-patch+json";
+
     private final ProductoService productoService; // Servicio para la lógica de negocio de productos
+    private final ProductoPageService productoPageService; // Composición de la página de detalle
+    private final ProductoStreamService productoStreamService; // Listados JSON escritos desde la consulta
+    private final ProductoPatchService productoPatchService; // Actualizaciones parciales
 
     /**
      * Constructor para inyección de dependencias.
      * @param productoService Servicio de productos inyectado
+     * @param productoPageService Servicio de la página de detalle inyectado
+     * @param productoStreamService Servicio de listados JSON en streaming inyectado
+     * @param productoPatchService Servicio de actualizaciones parciales inyectado
      */
-    public ProductoController(ProductoService productoService) {
+    public ProductoController(ProductoService productoService, ProductoPageService productoPageService,
+                              ProductoStreamService productoStreamService, ProductoPatchService productoPatchService) {
         this.productoService = productoService;
+        this.productoPageService = productoPageService;
+        this.productoStreamService = productoStreamService;
+        this.productoPatchService = productoPatchService;
     }
 
     /**
@@ -44,6 +71,60 @@ public class ProductoController {
         return ResponseEntity.ok(productoService.getProductoById(id));
     }
 
+    /**
+     * Obtiene varios productos por su ID en una sola llamada, para el carrito, la lista de deseos
+     * o los vistos recientemente. Los productos llegan en el orden de {@code ids}, sin repetidos,
+     * y los ids que no existen se devuelven en {@code noEncontrados}.
+     * @param ids IDs de los productos ({@code ids=3,1,7} o {@code ids=3&ids=1})
+     * @return Productos encontrados e IDs inexistentes con código HTTP 200 (OK)
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<ProductoBatch> getProductosByIds(@RequestParam List<Integer> ids) {
+        return ResponseEntity.ok(productoService.getProductosByIds(ids));
+    }
+
+    /**
+     * Variante de {@link #getProductosByIds(List)} con los ids en el cuerpo, para listas que no
+     * caben en la URL.
+     * @param ids Array JSON con los IDs de los productos
+     * @return Productos encontrados e IDs inexistentes con código HTTP 200 (OK)
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<ProductoBatch> postProductosByIds(@RequestBody List<Integer> ids) {
+        return ResponseEntity.ok(productoService.getProductosByIds(ids));
+    }
+
+    /**
+     * Obtiene en una sola llamada todo lo que necesita la página de un producto: el producto,
+     * el resumen y una página de sus valoraciones, cartas relacionadas y datos de referencia.
+     * Las partes se consultan en paralelo; las que no llegan a tiempo se omiten.
+     *
+     * @param id ID del producto
+     * @param valoracionesPage Página de valoraciones (desde 0)
+     * @param valoracionesSize Tamaño de la página de valoraciones (de 1 a 50)
+     * @return Página compuesta del producto con código HTTP 200 (OK), o 400 si la página o el
+     *         tamaño de las valoraciones no son válidos
+     */
+    @GetMapping("/{id}/page")
+    public ResponseEntity<ProductoPage> getProductoPage(
+            @PathVariable Integer id,
+            @RequestParam(defaultValue = "0") int valoracionesPage,
+            @RequestParam(defaultValue = "10") int valoracionesSize) {
+        return ResponseEntity.ok(productoPageService.getProductoPage(id, valoracionesPage, valoracionesSize));
+    }
+
+    /**
+     * Obtiene las cartas relacionadas con un producto (misma colección, rareza o categoría,
+     * precio parecido y valoradas por los mismos clientes), precalculadas en memoria.
+     *
+     * @param id ID del producto
+     * @return Lista de cartas relacionadas con código HTTP 200 (OK)
+     */
+    @GetMapping("/{id}/related")
+    public ResponseEntity<List<ProductoResumen>> getRelacionados(@PathVariable Integer id) {
+        return ResponseEntity.ok(productoService.findRelacionados(id));
+    }
+
     /**
      * Crea un nuevo producto.
      * @param producto Datos del producto a crear
@@ -65,6 +146,20 @@ public class ProductoController {
         return ResponseEntity.ok(productoService.updateProducto(id, producto));
     }
 
+    /**
+     * Actualiza solo los campos que trae el cuerpo (JSON Merge Patch, RFC 7396). Un {@code null}
+     * borra el valor, las relaciones se cambian con su id y el array {@code valoraciones}, si
+     * viene, sustituye al actual: se actualizan las que traen id, se crean las que no y se
+     * eliminan las que faltan.
+     * @param id ID del producto a actualizar
+     * @param patch Parche con los campos que cambian
+     * @return Producto actualizado con código HTTP 200 (OK)
+     */
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Producto> patchProducto(@PathVariable Integer id, @RequestBody JsonNode patch) {
+        return ResponseEntity.ok(productoPatchService.patchProducto(id, patch));
+    }
+
     /**
      * Elimina un producto existente.
      * @param id ID del producto a eliminar
@@ -87,25 +182,53 @@ public class ProductoController {
     }
 
     /**
-     * Obtiene productos pertenecientes a una categoría específica.
+     * Obtiene productos pertenecientes a una categoría específica en CBOR, Smile o Protobuf.
+     * En JSON responde {@link #streamByCategoriaId(Integer, HttpServletResponse)}.
      * @param categoriaId ID de la categoría
      * @return Lista de productos de la categoría con código HTTP 200 (OK)
      */
-    @GetMapping("/categoria/{categoriaId}")
+    @GetMapping(value = "/categoria/{categoriaId}", produces = {MediaType.APPLICATION_CBOR_VALUE, SMILE, PROTOBUF, PROTOBUF_ALT})
     public ResponseEntity<List<Producto>> getByCategoriaId(@PathVariable Integer categoriaId) {
         return ResponseEntity.ok(productoService.findByCategoriaId(categoriaId));
     }
 
     /**
-     * Obtiene productos pertenecientes a una colección específica.
+     * Obtiene en JSON los productos de una categoría. Se escriben en la respuesta según se leen
+     * de la base de datos, sin cargar entidades, con el mismo JSON que la serialización de
+     * {@link #getByCategoriaId(Integer)}. Sin {@code produces} para atender también
+     * {@code Accept: *}{@code /*} y las peticiones sin {@code Accept}.
+     * @param categoriaId ID de la categoría
+     * @param response Respuesta en la que se escribe la lista
+     */
+    @GetMapping("/categoria/{categoriaId}")
+    public void streamByCategoriaId(@PathVariable Integer categoriaId, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        productoStreamService.escribirPorCategoria(categoriaId, response.getOutputStream());
+    }
+
+    /**
+     * Obtiene productos pertenecientes a una colección específica en CBOR, Smile o Protobuf.
+     * En JSON responde {@link #streamByColeccionId(Integer, HttpServletResponse)}.
      * @param coleccionId ID de la colección
      * @return Lista de productos de la colección con código HTTP 200 (OK)
      */
-    @GetMapping("/coleccion/{coleccionId}")
+    @GetMapping(value = "/coleccion/{coleccionId}", produces = {MediaType.APPLICATION_CBOR_VALUE, SMILE, PROTOBUF, PROTOBUF_ALT})
     public ResponseEntity<List<Producto>> getByColeccionId(@PathVariable Integer coleccionId) {
         return ResponseEntity.ok(productoService.findByColeccionId(coleccionId));
     }
 
+    /**
+     * Obtiene en JSON los productos de una colección, escritos desde la consulta como en
+     * {@link #streamByCategoriaId(Integer, HttpServletResponse)}.
+     * @param coleccionId ID de la colección
+     * @param response Respuesta en la que se escribe la lista
+     */
+    @GetMapping("/coleccion/{coleccionId}")
+    public void streamByColeccionId(@PathVariable Integer coleccionId, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        productoStreamService.escribirPorColeccion(coleccionId, response.getOutputStream());
+    }
+
     /**
      * Obtiene productos con una rareza específica.
      * @param rarezaId ID de la rareza
@@ -126,6 +249,93 @@ public class ProductoController {
         return ResponseEntity.ok(productoService.findByEstadoId(estadoId));
     }
 
+    /**
+     * Obtiene el resumen de todos los productos (id, nombre, precio, imagen y rareza), pensado
+     * para la rejilla del catálogo.
+     * @return Lista de resúmenes con código HTTP 200 (OK)
+     */
+    @GetMapping("/resumen")
+    public ResponseEntity<List<ProductoResumen>> getResumenProductos() {
+        return ResponseEntity.ok(productoService.getResumenProductos());
+    }
+
+    /**
+     * Variante de {@link #getAllProductos()} con sparse fieldsets: solo se consultan y devuelven
+     * los campos de {@code fields} (por ejemplo {@code fields=nombre,precio,imagenUrl,rareza.nombre}).
+     * @param fields Campos separados por comas; el id se incluye siempre
+     * @return Lista de productos con los campos pedidos y código HTTP 200 (OK)
+     */
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllProductos(@RequestParam String fields) {
+        return ResponseEntity.ok(productoService.getAllProductos(fields));
+    }
+
+    /**
+     * Variante de {@link #getProductoById(Integer)} con sparse fieldsets.
+     * @param id ID del producto a buscar
+     * @param fields Campos separados por comas
+     * @return Producto con los campos pedidos y código HTTP 200 (OK)
+     */
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getProductoById(@PathVariable Integer id, @RequestParam String fields) {
+        return ResponseEntity.ok(productoService.getProductoById(id, fields));
+    }
+
+    /**
+     * Variante de {@link #searchByNombre(String)} con sparse fieldsets.
+     * @param nombre Texto a buscar en los nombres de productos
+     * @param fields Campos separados por comas
+     * @return Lista de productos coincidentes con los campos pedidos
+     */
+    @GetMapping(value = "/search", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> searchByNombre(@RequestParam String nombre, @RequestParam String fields) {
+        return ResponseEntity.ok(productoService.findByNombreContaining(nombre, fields));
+    }
+
+    /**
+     * Variante de {@link #getByCategoriaId(Integer)} con sparse fieldsets.
+     * @param categoriaId ID de la categoría
+     * @param fields Campos separados por comas
+     * @return Lista de productos de la categoría con los campos pedidos
+     */
+    @GetMapping(value = "/categoria/{categoriaId}", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getByCategoriaId(@PathVariable Integer categoriaId, @RequestParam String fields) {
+        return ResponseEntity.ok(productoService.findByRelacion("categoria", categoriaId, fields));
+    }
+
+    /**
+     * Variante de {@link #getByColeccionId(Integer)} con sparse fieldsets.
+     * @param coleccionId ID de la colección
+     * @param fields Campos separados por comas
+     * @return Lista de productos de la colección con los campos pedidos
+     */
+    @GetMapping(value = "/coleccion/{coleccionId}", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getByColeccionId(@PathVariable Integer coleccionId, @RequestParam String fields) {
+        return ResponseEntity.ok(productoService.findByRelacion("coleccion", coleccionId, fields));
+    }
+
+    /**
+     * Variante de {@link #getByRarezaId(Integer)} con sparse fieldsets.
+     * @param rarezaId ID de la rareza
+     * @param fields Campos separados por comas
+     * @return Lista de productos con la rareza especificada y los campos pedidos
+     */
+    @GetMapping(value = "/rareza/{rarezaId}", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getByRarezaId(@PathVariable Integer rarezaId, @RequestParam String fields) {
+        return ResponseEntity.ok(productoService.findByRelacion("rareza", rarezaId, fields));
+    }
+
+    /**
+     * Variante de {@link #getByEstadoId(Integer)} con sparse fieldsets.
+     * @param estadoId ID del estado
+     * @param fields Campos separados por comas
+     * @return Lista de productos con el estado especificado y los campos pedidos
+     */
+    @GetMapping(value = "/estado/{estadoId}", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getByEstadoId(@PathVariable Integer estadoId, @RequestParam String fields) {
+        return ResponseEntity.ok(productoService.findByRelacion("estado", estadoId, fields));
+    }
+
     /**
      * Filtra productos según múltiples criterios.
      * Todos los parámetros son opcionales.
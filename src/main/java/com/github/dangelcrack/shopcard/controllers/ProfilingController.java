@@ -0,0 +1,106 @@
+package com.github.dangelcrack.shopcard.controllers;
+
+import com.github.dangelcrack.shopcard.profiling.JfrProfiler;
+import com.github.dangelcrack.shopcard.profiling.ProfilingSession;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Controlador REST de administración para grabar la aplicación con Java Flight Recorder:
+ * iniciar y detener una grabación, descargar el fichero {@code .jfr} y obtener un resumen en
+ * texto de los marcos y sitios de asignación más costosos del código de la aplicación.
+ */
+@RestController
+@RequestMapping("/api/admin/profiling")
+public class ProfilingController {
+
+    private final JfrProfiler profiler;
+
+    /**
+     * Constructor para inyección de dependencias.
+     * @param profiler Gestor de grabaciones JFR
+     */
+    public ProfilingController(JfrProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Inicia una grabación que termina sola al cumplirse la duración.
+     * @param profile Perfil: cpu, alloc, locks o jdbc
+     * @param duration Duración en segundos (opcional)
+     * @return Grabación iniciada con código HTTP 202 (ACCEPTED)
+     */
+    @PostMapping
+    public ResponseEntity<ProfilingSession> start(@RequestParam String profile,
+                                                  @RequestParam(required = false) Integer duration) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(profiler.start(profile, duration));
+    }
+
+    /**
+     * Detiene la grabación en curso antes de su plazo.
+     * @return Grabación detenida con código HTTP 200 (OK)
+     */
+    @PostMapping("/stop")
+    public ResponseEntity<ProfilingSession> stop() {
+        return ResponseEntity.ok(profiler.stop());
+    }
+
+    /**
+     * Obtiene las grabaciones conservadas.
+     * @return Grabaciones de la más reciente a la más antigua con código HTTP 200 (OK)
+     */
+    @GetMapping
+    public ResponseEntity<List<ProfilingSession>> list() {
+        return ResponseEntity.ok(profiler.list());
+    }
+
+    /**
+     * Obtiene una grabación.
+     * @param id Identificador de la grabación
+     * @return Grabación con código HTTP 200 (OK)
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<ProfilingSession> get(@PathVariable long id) {
+        return ResponseEntity.ok(profiler.get(id));
+    }
+
+    /**
+     * Obtiene el resumen en texto de una grabación terminada.
+     * @param id Identificador de la grabación
+     * @return Resumen con código HTTP 200 (OK)
+     */
+    @GetMapping(value = "/{id}/summary", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> summary(@PathVariable long id) {
+        return ResponseEntity.ok(profiler.summary(id));
+    }
+
+    /**
+     * Descarga el fichero de una grabación terminada, para abrirlo con JDK Mission Control o
+     * {@code jfr print}.
+     * @param id Identificador de la grabación
+     * @return Fichero {@code .jfr} con código HTTP 200 (OK)
+     */
+    @GetMapping("/{id}/recording")
+    public ResponseEntity<Resource> recording(@PathVariable long id) {
+        Path fichero = profiler.file(id);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fichero.getFileName().toString()).build().toString())
+                .body(new FileSystemResource(fichero));
+    }
+}
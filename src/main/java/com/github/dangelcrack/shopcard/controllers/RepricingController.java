@@ -0,0 +1,50 @@
+package com.github.dangelcrack.shopcard.controllers;
+
+import com.github.dangelcrack.shopcard.dto.RepricingResult;
+import com.github.dangelcrack.shopcard.dto.RepricingRule;
+import com.github.dangelcrack.shopcard.services.RepricingService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controlador REST de administración para los cambios de precio masivos. Una sola petición puede
+ * cambiar el precio de todo el catálogo, así que va bajo {@code /api/admin} con el rol
+ * {@code ADMIN}.
+ */
+@RestController
+@RequestMapping("/api/admin/repricing")
+public class RepricingController {
+
+    private final RepricingService repricingService;
+
+    /**
+     * Constructor para inyección de dependencias.
+     * @param repricingService Servicio de cambios de precio masivos
+     */
+    public RepricingController(RepricingService repricingService) {
+        this.repricingService = repricingService;
+    }
+
+    /**
+     * Cambia el precio de todos los productos de una colección, rareza, categoría o estado
+     * según una regla porcentual o absoluta.
+     *
+     * @param rule Regla de cambio de precio
+     * @param simulacion Si es true solo se calcula el resultado, sin modificar nada
+     * @param trabajo Identificador del trabajo, obligatorio si no es una simulación. Si la
+     *                petición falla se repite con el mismo identificador para continuar donde
+     *                se quedó
+     * @return Número de productos afectados y una muestra de los cambios con código HTTP 200 (OK),
+     *         400 sin identificador de trabajo o 409 si el identificador se usó con otra regla
+     */
+    @PostMapping
+    public ResponseEntity<RepricingResult> reprice(@RequestBody RepricingRule rule,
+                                                   @RequestParam(defaultValue = "false") boolean simulacion,
+                                                   @RequestParam(required = false) String trabajo) {
+        return ResponseEntity.ok(repricingService.reprice(rule, simulacion, trabajo));
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.dangelcrack.shopcard.controllers;
+
+import com.github.dangelcrack.shopcard.slowquery.SlowQueryLog;
+import com.github.dangelcrack.shopcard.slowquery.SlowQueryProperties;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Controlador REST de administración que expone las últimas consultas SQL lentas, con sus
+ * parámetros, el método de repositorio y la ruta que las lanzaron y su plan de ejecución.
+ */
+@RestController
+@RequestMapping("/api/admin/slow-queries")
+public class SlowQueryController {
+
+    private final SlowQueryLog slowQueryLog;
+    private final SlowQueryProperties properties;
+
+    /**
+     * Constructor para inyección de dependencias.
+     * @param slowQueryLog Registro de consultas lentas
+     * @param properties Propiedades {@code shopcard.slow-query}
+     */
+    public SlowQueryController(SlowQueryLog slowQueryLog, SlowQueryProperties properties) {
+        this.slowQueryLog = slowQueryLog;
+        this.properties = properties;
+    }
+
+    /**
+     * Obtiene las consultas lentas conservadas, de la más reciente a la más antigua.
+     * @return Total registrado, umbral y consultas con código HTTP 200 (OK)
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getSlowQueries() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("enabled", properties.isEnabled());
+        body.put("thresholdMs", properties.getThresholdMs());
+        body.put("total", slowQueryLog.getTotal());
+        body.put("consultas", slowQueryLog.getRecientes());
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Vacía el registro de consultas lentas.
+     * @return Código HTTP 204 (No Content)
+     */
+    @DeleteMapping
+    public ResponseEntity<Void> clear() {
+        slowQueryLog.clear();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.dangelcrack.shopcard.controllers;
+
+import com.github.dangelcrack.shopcard.exceptions.RecordNotFoundException;
+import com.github.dangelcrack.shopcard.services.ThumbnailService;
+import com.github.dangelcrack.shopcard.thumbnails.FileTransfer;
+import com.github.dangelcrack.shopcard.thumbnails.ThumbnailCache;
+import com.github.dangelcrack.shopcard.thumbnails.ThumbnailProperties;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Controlador REST de miniaturas de las imágenes de productos, categorías y colecciones.
+ * Permite al listado del catálogo descargar las imágenes al tamaño en que las muestra en lugar
+ * de los escaneos originales.
+ */
+@RestController
+@RequestMapping("/api/imagenes")
+public class ThumbnailController {
+
+    private final ThumbnailService service;
+    private final String cacheControl;
+
+    /**
+     * Constructor para inyección de dependencias.
+     * @param service Servicio de miniaturas
+     * @param properties Propiedades {@code shopcard.thumbnails}
+     */
+    public ThumbnailController(ThumbnailService service, ThumbnailProperties properties) {
+        this.service = service;
+        this.cacheControl = CacheControl.maxAge(Duration.ofSeconds(properties.getMaxAgeSeconds()))
+                .cachePublic().getHeaderValue();
+    }
+
+    /**
+     * Obtiene la miniatura de la imagen de un producto, categoría o colección. El ancho se
+     * redondea al tamaño configurado inmediatamente superior y la imagen nunca se amplía.
+     * Responde 304 (NOT MODIFIED) si el {@code ETag} coincide con {@code If-None-Match}.
+     * @param tipo productos, categorias o colecciones
+     * @param id ID de la entidad
+     * @param w Ancho deseado en píxeles (opcional; por defecto el mayor configurado)
+     * @throws RecordNotFoundException si la entidad no existe, no tiene imagen o el origen no la encuentra
+     */
+    @GetMapping("/{tipo:productos|categorias|colecciones}/{id}")
+    public void getMiniatura(@PathVariable String tipo, @PathVariable Integer id,
+                             @RequestParam(required = false) Integer w,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String imagenUrl = service.getImagenUrl(ThumbnailService.Tipo.valueOf(tipo.toUpperCase(Locale.ROOT)), id);
+        ThumbnailCache.Miniatura miniatura = service.getMiniatura(imagenUrl, w);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        if (new ServletWebRequest(request, response).checkNotModified(miniatura.etag())) {
+            return;
+        }
+        response.setContentType(miniatura.tipo().toString());
+        FileTransfer.enviar(miniatura.fichero(), miniatura.tamano(), request, response);
+    }
+}
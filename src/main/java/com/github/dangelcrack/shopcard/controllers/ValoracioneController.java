@@ -9,6 +9,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controlador REST para gestionar las valoraciones de productos.
@@ -113,4 +114,38 @@ public class ValoracioneController {
         List<Valoracione> valoraciones = service.findByNombreCliente(nombreCliente);
         return ResponseEntity.ok(valoraciones);
     }
-}
\ No newline at end of file
+
+    /**
+     * Variante de los listados con sparse fieldsets: solo se consultan y devuelven los campos de
+     * {@code fields} (por ejemplo {@code fields=nombreCliente,puntuacion,fecha}). Sirve para
+     * {@code /valoraciones}, {@code /producto/{productoId}}, {@code /puntuacion/{puntuacion}} y
+     * {@code /cliente/{nombreCliente}}.
+     * @param fields Campos separados por comas; el id se incluye siempre
+     * @param productoId ID del producto, si la ruta lo indica
+     * @param puntuacion Puntuación, si la ruta la indica
+     * @param nombreCliente Nombre o parte del nombre del cliente, si la ruta lo indica
+     * @return ResponseEntity con la lista de valoraciones con los campos pedidos
+     */
+    @GetMapping(value = {"", "/producto/{productoId}", "/puntuacion/{puntuacion}", "/cliente/{nombreCliente}"},
+            params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getValoraciones(
+            @RequestParam String fields,
+            @PathVariable(required = false) Integer productoId,
+            @PathVariable(required = false) Byte puntuacion,
+            @PathVariable(required = false) String nombreCliente) {
+        return ResponseEntity.ok(service.findCampos(fields, productoId, puntuacion, nombreCliente));
+    }
+
+    /**
+     * Variante de {@link #getValoracionById(Integer)} con sparse fieldsets.
+     * @param id ID de la valoración
+     * @param fields Campos separados por comas
+     * @return ResponseEntity con la valoración con los campos pedidos
+     * @throws RecordNotFoundException si no se encuentra la valoración
+     */
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getValoracionById(@PathVariable Integer id, @RequestParam String fields)
+            throws RecordNotFoundException {
+        return ResponseEntity.ok(service.getValoracionById(id, fields));
+    }
+}
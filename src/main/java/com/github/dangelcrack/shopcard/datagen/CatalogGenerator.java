@@ -0,0 +1,401 @@
+package com.github.dangelcrack.shopcard.datagen;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.SplittableRandom;
+
+/**
+ * Generador determinista de catálogos sintéticos para pruebas de carga y benchmarks.
+ *
+ * <p>Rellena {@code categorias}, {@code colecciones}, {@code rarezas}, {@code estados_producto},
+ * {@code productos} y {@code valoraciones} con inserciones JDBC por lotes y con ids explícitos
+ * desde 1. Los datos imitan la forma del catálogo real:</p>
+ * <ul>
+ *     <li>colecciones de 100 a 260 cartas, lanzadas a intervalos regulares desde 1999;</li>
+ *     <li>rareza con pesos muy desiguales y precio log-normal alrededor de la mediana de cada
+ *     rareza, corregido por estado de conservación y antigüedad de la colección;</li>
+ *     <li>valoraciones repartidas entre cartas según una ley de Zipf (unas pocas cartas
+ *     concentran la mayoría) y clientes con actividad también muy sesgada.</li>
+ * </ul>
+ *
+ * <p>El esquema debe existir. Todo, incluido el borrado previo, va en una única transacción: si la
+ * carga falla, la base de datos queda como estaba. Las valoraciones de cada carta se generan con
+ * un generador aleatorio derivado de la semilla y del id de la carta, de modo que el resultado no
+ * depende del tamaño de lote.</p>
+ */
+public class CatalogGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogGenerator.class);
+
+    private static final String[][] CATEGORIAS = {
+            {"Pokémon", "Cartas de Pokémon básicos y evoluciones"},
+            {"Entrenador", "Cartas de objeto, partidario y estadio"},
+            {"Energía", "Energías básicas y especiales"},
+            {"Accesorio", "Fundas, carpetas y otros accesorios"}};
+    private static final double[] PESO_CATEGORIA = {0.72, 0.18, 0.08, 0.02};
+
+    private static final String[][] RAREZAS = {
+            {"Común", "negro"}, {"Infrecuente", "plata"}, {"Rara", "oro"},
+            {"Holo rara", "arcoíris"}, {"Ultra rara", "platino"}, {"Secreta", "dorado"}};
+    private static final double[] PESO_RAREZA = {0.45, 0.30, 0.13, 0.07, 0.04, 0.01};
+    private static final double[] MEDIANA_PRECIO_RAREZA = {0.25, 0.60, 2.50, 9.00, 35.00, 180.00};
+    private static final double[] SIGMA_PRECIO_RAREZA = {0.45, 0.50, 0.60, 0.70, 0.80, 0.95};
+
+    private static final String[][] ESTADOS = {
+            {"NM", "Near mint"}, {"EX", "Excelente"}, {"GD", "Bueno"}, {"LP", "Ligeramente jugada"}, {"PL", "Jugada"}};
+    private static final double[] PESO_ESTADO = {0.55, 0.20, 0.12, 0.08, 0.05};
+    private static final double[] FACTOR_PRECIO_ESTADO = {1.00, 0.85, 0.70, 0.55, 0.40};
+
+    private static final String[] ESPECIES = {"Pikachu", "Charizard", "Mewtwo", "Eevee", "Gengar", "Snorlax",
+            "Lucario", "Gardevoir", "Rayquaza", "Umbreon", "Bulbasaur", "Squirtle", "Dragonite", "Mew",
+            "Greninja", "Sylveon", "Tyranitar", "Blastoise", "Venusaur", "Lugia", "Ho-Oh", "Garchomp"};
+    private static final String[] VARIANTES = {"", "", "", " ex", " V", " VMAX", " GX", " δ"};
+    private static final String[] SERIES = {"Base", "Jungla", "Fósil", "Neo", "Legendaria", "Expedición",
+            "Rubí", "Diamante", "Platino", "Negro", "XY", "Sol", "Espada", "Escarlata"};
+    private static final String[] COMENTARIOS = {"Llegó en perfecto estado", "Tal y como se describía",
+            "El envío tardó bastante", "Mejor de lo esperado", "Los bordes tenían algún defecto",
+            "Imprescindible para la colección", "Buen precio", "Embalaje muy cuidado"};
+
+    /** Tablas que rellena o de las que dependen, en orden de borrado. */
+    private static final String[] TABLAS = {"estadisticas_colecciones", "estadisticas_categorias",
+            "valoraciones", "productos", "colecciones", "categorias", "rarezas", "estados_producto"};
+
+    private static final LocalDate PRIMER_LANZAMIENTO = LocalDate.of(1999, 1, 9);
+    private static final LocalDate FIN = LocalDate.of(2025, 6, 30);
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private final DataSource dataSource;
+
+    /**
+     * @param dataSource Base de datos a rellenar
+     */
+    public CatalogGenerator(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Genera el catálogo descrito por la especificación.
+     *
+     * @param spec Parámetros del catálogo
+     * @return Número de filas insertadas por tabla
+     * @throws IllegalStateException Si hay datos y la especificación no pide limpiar, o si la carga
+     *                               falla (en ese caso no queda nada de ella)
+     */
+    public Result generate(CatalogSpec spec) {
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                prepare(connection, spec);
+                insertReference(connection);
+                int[] inicioColeccion = insertColecciones(connection, spec);
+                int numColecciones = inicioColeccion.length - 1;
+                insertProductos(connection, spec, inicioColeccion);
+                long valoraciones = insertValoraciones(connection, spec, inicioColeccion);
+                advanceSequences(connection);
+                // Último paso: en H2 el ALTER TABLE confirma la transacción
+                restartIdentities(connection);
+                connection.commit();
+
+                Result result = new Result(CATEGORIAS.length, numColecciones, RAREZAS.length, ESTADOS.length,
+                        spec.productos(), valoraciones, (System.nanoTime() - start) / 1_000_000);
+                log.info("Catálogo sintético generado: {}", result);
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("No se pudo generar el catálogo sintético", e);
+        }
+    }
+
+    private void prepare(Connection connection, CatalogSpec spec) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            for (String tabla : TABLAS) {
+                if (spec.limpiar()) {
+                    st.executeUpdate("DELETE FROM " + tabla);
+                    continue;
+                }
+                try (var rs = st.executeQuery("SELECT COUNT(*) FROM " + tabla)) {
+                    rs.next();
+                    if (rs.getLong(1) > 0) {
+                        throw new IllegalStateException("La tabla " + tabla + " no está vacía; use limpiar=true");
+                    }
+                }
+            }
+        }
+    }
+
+    private void insertReference(Connection connection) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO categorias (id, nombre, descripcion) VALUES (?, ?, ?)")) {
+            for (int i = 0; i < CATEGORIAS.length; i++) {
+                ps.setInt(1, i + 1);
+                ps.setString(2, CATEGORIAS[i][0]);
+                ps.setString(3, CATEGORIAS[i][1]);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO rarezas (id, nombre, color) VALUES (?, ?, ?)")) {
+            for (int i = 0; i < RAREZAS.length; i++) {
+                ps.setInt(1, i + 1);
+                ps.setString(2, RAREZAS[i][0]);
+                ps.setString(3, RAREZAS[i][1]);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO estados_producto (id, codigo, descripcion) VALUES (?, ?, ?)")) {
+            for (int i = 0; i < ESTADOS.length; i++) {
+                ps.setInt(1, i + 1);
+                ps.setString(2, ESTADOS[i][0]);
+                ps.setString(3, ESTADOS[i][1]);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Inserta las colecciones y reparte las cartas entre ellas en bloques consecutivos de ids.
+     *
+     * @return Id de la primera carta de cada colección (posición 0 = colección 1), con un
+     *         elemento final igual a {@code productos + 1}
+     */
+    private int[] insertColecciones(Connection connection, CatalogSpec spec) throws SQLException {
+        SplittableRandom random = new SplittableRandom(spec.semilla());
+        int numColecciones = Math.max(1, Math.round(spec.productos() / 180f));
+        double[] tamanos = new double[numColecciones];
+        double total = 0;
+        for (int i = 0; i < numColecciones; i++) {
+            tamanos[i] = 100 + random.nextInt(161);
+            total += tamanos[i];
+        }
+        int[] inicio = new int[numColecciones + 1];
+        inicio[0] = 1;
+        double acumulado = 0;
+        for (int i = 0; i < numColecciones; i++) {
+            acumulado += tamanos[i];
+            inicio[i + 1] = 1 + (int) Math.round(acumulado * spec.productos() / total);
+        }
+        inicio[numColecciones] = spec.productos() + 1;
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO colecciones (id, nombre, fecha_lanzamiento, imagen_url, descripcion, codigo) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < numColecciones; i++) {
+                int id = i + 1;
+                ps.setInt(1, id);
+                ps.setString(2, SERIES[i % SERIES.length] + " " + (i / SERIES.length + 1));
+                ps.setDate(3, Date.valueOf(lanzamiento(id, numColecciones)));
+                ps.setString(4, "/img/colecciones/" + id + ".webp");
+                ps.setString(5, "Colección sintética " + id);
+                ps.setString(6, "S" + id);
+                ps.addBatch();
+                if (id % spec.tamanoLote() == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+        return inicio;
+    }
+
+    private void insertProductos(Connection connection, CatalogSpec spec, int[] inicioColeccion) throws SQLException {
+        SplittableRandom random = new SplittableRandom(spec.semilla() * GOLDEN + 1);
+        int numColecciones = inicioColeccion.length - 1;
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO productos (id, nombre, descripcion, precio, precio_original, stock, imagen_url, numero_carta, " +
+                        "categoria_id, coleccion_id, rareza_id, estado_id, fecha_creacion) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            int coleccion = 1;
+            for (int id = 1; id <= spec.productos(); id++) {
+                while (id >= inicioColeccion[coleccion]) {
+                    coleccion++;
+                }
+                LocalDate lanzamiento = lanzamiento(coleccion, numColecciones);
+                int rareza = pick(random, PESO_RAREZA);
+                int estado = pick(random, PESO_ESTADO);
+
+                double anos = Math.max(0, (FIN.toEpochDay() - lanzamiento.toEpochDay()) / 365.0);
+                double precio = MEDIANA_PRECIO_RAREZA[rareza]
+                        * Math.exp(random.nextGaussian() * SIGMA_PRECIO_RAREZA[rareza])
+                        * FACTOR_PRECIO_ESTADO[estado]
+                        * (1 + anos * 0.04);
+                BigDecimal precioActual = money(Math.max(0.05, precio));
+                BigDecimal precioOriginal = random.nextInt(4) == 0
+                        ? money(precioActual.doubleValue() * (1.1 + random.nextDouble() * 0.4))
+                        : precioActual;
+
+                ps.setInt(1, id);
+                ps.setString(2, ESPECIES[random.nextInt(ESPECIES.length)] + VARIANTES[random.nextInt(VARIANTES.length)]);
+                ps.setString(3, "Carta " + (id - inicioColeccion[coleccion - 1] + 1) + " de la colección S" + coleccion);
+                ps.setBigDecimal(4, precioActual);
+                ps.setBigDecimal(5, precioOriginal);
+                ps.setInt(6, (int) Math.min(50, -Math.log(1 - random.nextDouble()) * 4));
+                ps.setString(7, "/img/cartas/" + id + ".webp");
+                ps.setInt(8, id - inicioColeccion[coleccion - 1] + 1);
+                ps.setInt(9, pick(random, PESO_CATEGORIA) + 1);
+                ps.setInt(10, coleccion);
+                ps.setInt(11, rareza + 1);
+                ps.setInt(12, estado + 1);
+                ps.setDate(13, Date.valueOf(lanzamiento.plusDays(random.nextInt(30))));
+                ps.addBatch();
+                if (id % spec.tamanoLote() == 0) {
+                    ps.executeBatch();
+                }
+                if (id % 100_000 == 0) {
+                    log.info("Productos insertados: {}/{}", id, spec.productos());
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Inserta las valoraciones. El número esperado de valoraciones de la carta con popularidad
+     * {@code r} es {@code R * r^-s / H(N, s)}, con {@code R} el total deseado; la parte fraccionaria
+     * se resuelve al azar para que el total se mantenga.
+     */
+    private long insertValoraciones(Connection connection, CatalogSpec spec, int[] inicioColeccion) throws SQLException {
+        int n = spec.productos();
+        double s = spec.exponenteZipf();
+        double totalDeseado = n * spec.valoracionesPorProducto();
+
+        // Popularidad: permutación aleatoria de los rangos 1..n entre las cartas
+        SplittableRandom random = new SplittableRandom(spec.semilla() * GOLDEN + 2);
+        int[] rango = new int[n];
+        for (int i = 0; i < n; i++) {
+            rango[i] = i + 1;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = rango[i];
+            rango[i] = rango[j];
+            rango[j] = t;
+        }
+        double armonico = 0;
+        for (int r = 1; r <= n; r++) {
+            armonico += Math.pow(r, -s);
+        }
+        int numClientes = (int) Math.max(500, totalDeseado / 15);
+        int numColecciones = inicioColeccion.length - 1;
+        long finSegundos = FIN.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+
+        long id = 0;
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO valoraciones (id, nombre_cliente, producto_id, puntuacion, comentario, fecha) VALUES (?, ?, ?, ?, ?, ?)")) {
+            int coleccion = 1;
+            for (int producto = 1; producto <= n; producto++) {
+                while (producto >= inicioColeccion[coleccion]) {
+                    coleccion++;
+                }
+                SplittableRandom r = new SplittableRandom(spec.semilla() ^ (producto * GOLDEN));
+                double esperado = totalDeseado * Math.pow(rango[producto - 1], -s) / armonico;
+                int cantidad = (int) esperado + (r.nextDouble() < esperado - (int) esperado ? 1 : 0);
+                if (cantidad == 0) {
+                    continue;
+                }
+                double calidad = 2.5 + r.nextDouble() * 2.3;
+                long desde = lanzamiento(coleccion, numColecciones).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+                for (int v = 0; v < cantidad; v++) {
+                    id++;
+                    int cliente = (int) (numClientes * Math.pow(r.nextDouble(), 2.5));
+                    int puntuacion = (int) Math.max(1, Math.min(5, Math.round(calidad + r.nextGaussian() * 0.9)));
+                    ps.setLong(1, id);
+                    ps.setString(2, "cliente" + cliente);
+                    ps.setInt(3, producto);
+                    ps.setInt(4, puntuacion);
+                    ps.setString(5, r.nextInt(10) < 4 ? COMENTARIOS[r.nextInt(COMENTARIOS.length)] : null);
+                    ps.setTimestamp(6, Timestamp.from(Instant.ofEpochSecond(desde + (long) (r.nextDouble() * (finSegundos - desde)))));
+                    ps.addBatch();
+                    if (id % spec.tamanoLote() == 0) {
+                        ps.executeBatch();
+                    }
+                    if (id % 500_000 == 0) {
+                        log.info("Valoraciones insertadas: {}", id);
+                    }
+                }
+            }
+            ps.executeBatch();
+        }
+        return id;
+    }
+
+    /**
+     * Tras insertar con ids explícitos, los contadores de identidad de H2 no avanzan solos.
+     * En MySQL el AUTO_INCREMENT se ajusta automáticamente.
+     */
+    private void restartIdentities(Connection connection) throws SQLException {
+        if (!connection.getMetaData().getDatabaseProductName().equalsIgnoreCase("H2")) {
+            return;
+        }
+        try (Statement st = connection.createStatement()) {
+            for (String tabla : new String[]{"categorias", "colecciones", "rarezas", "estados_producto", "productos", "valoraciones"}) {
+                long siguiente;
+                try (var rs = st.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM " + tabla)) {
+                    rs.next();
+                    siguiente = rs.getLong(1);
+                }
+                st.execute("ALTER TABLE " + tabla + " ALTER COLUMN id RESTART WITH " + siguiente);
+            }
+        }
+    }
+
+    /**
+     * Lleva los contadores de {@code secuencias} más allá de los ids insertados, para que los
+     * bloques que reserve Hibernate después no los repitan. Nunca los hace retroceder: los bloques
+     * ya repartidos siguen siendo válidos.
+     */
+    private void advanceSequences(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            for (String tabla : new String[]{"categorias", "colecciones", "rarezas", "estados_producto", "productos", "valoraciones"}) {
+                st.executeUpdate("UPDATE secuencias SET siguiente = GREATEST(siguiente, (SELECT COALESCE(MAX(id), 0) + 1 FROM "
+                        + tabla + ")) WHERE nombre = '" + tabla + "'");
+            }
+        }
+    }
+
+    private static LocalDate lanzamiento(int coleccion, int numColecciones) {
+        long dias = FIN.toEpochDay() - PRIMER_LANZAMIENTO.toEpochDay();
+        return PRIMER_LANZAMIENTO.plusDays(dias * (coleccion - 1) / Math.max(1, numColecciones));
+    }
+
+    private static int pick(SplittableRandom random, double[] pesos) {
+        double u = random.nextDouble();
+        double acumulado = 0;
+        for (int i = 0; i < pesos.length; i++) {
+            acumulado += pesos[i];
+            if (u < acumulado) {
+                return i;
+            }
+        }
+        return pesos.length - 1;
+    }
+
+    private static BigDecimal money(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Filas insertadas por tabla y duración de la carga.
+     */
+    public record Result(int categorias, int colecciones, int rarezas, int estados, int productos,
+                         long valoraciones, long millis) {
+    }
+}
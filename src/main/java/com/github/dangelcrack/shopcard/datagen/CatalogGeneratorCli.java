@@ -0,0 +1,64 @@
+package com.github.dangelcrack.shopcard.datagen;
+
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Carga un catálogo sintético desde línea de comandos, sin arrancar la aplicación.
+ *
+ * <pre>
+ * mvn compile exec:java -Dexec.mainClass=com.github.dangelcrack.shopcard.datagen.CatalogGeneratorCli \
+ *     -Dexec.args="--productos=1000000 --semilla=42"
+ * </pre>
+ *
+ * <p>Opciones: {@code --url}, {@code --usuario}, {@code --password}, {@code --productos},
+ * {@code --semilla}, {@code --valoraciones-por-producto}, {@code --zipf}, {@code --lote} y
+ * {@code --limpiar}. Por defecto usa la base de datos de {@code application.properties} y se
+ * niega a cargar si las tablas del catálogo tienen datos; con {@code --limpiar} los borra antes,
+ * en la misma transacción que la carga.
+ * En MySQL se añade {@code rewriteBatchedStatements=true} para que cada lote viaje como una
+ * única sentencia {@code INSERT} de varias filas.</p>
+ */
+public final class CatalogGeneratorCli {
+
+    private static final String URL_POR_DEFECTO =
+            "jdbc:mysql://localhost:3306/pokemon_card_shop?useSSL=false&allowPublicKeyRetrieval=true";
+
+    private CatalogGeneratorCli() {
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> opciones = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Argumento no reconocido: " + arg);
+            }
+            int igual = arg.indexOf('=');
+            opciones.put(igual < 0 ? arg.substring(2) : arg.substring(2, igual), igual < 0 ? "true" : arg.substring(igual + 1));
+        }
+
+        CatalogSpec porDefecto = CatalogSpec.of(Integer.parseInt(opciones.getOrDefault("productos", "100000")));
+        CatalogSpec spec = new CatalogSpec(
+                Long.parseLong(opciones.getOrDefault("semilla", String.valueOf(porDefecto.semilla()))),
+                porDefecto.productos(),
+                Double.parseDouble(opciones.getOrDefault("valoraciones-por-producto", String.valueOf(porDefecto.valoracionesPorProducto()))),
+                Double.parseDouble(opciones.getOrDefault("zipf", String.valueOf(porDefecto.exponenteZipf()))),
+                Integer.parseInt(opciones.getOrDefault("lote", String.valueOf(porDefecto.tamanoLote()))),
+                opciones.containsKey("limpiar"));
+
+        String url = opciones.getOrDefault("url", URL_POR_DEFECTO);
+        if (url.startsWith("jdbc:mysql:") && !url.contains("rewriteBatchedStatements")) {
+            url += (url.contains("?") ? "&" : "?") + "rewriteBatchedStatements=true";
+        }
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                url, opciones.getOrDefault("usuario", "root"), opciones.getOrDefault("password", ""), true);
+        try {
+            CatalogGenerator.Result result = new CatalogGenerator(dataSource).generate(spec);
+            System.out.println(result);
+        } finally {
+            dataSource.destroy();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.dangelcrack.shopcard.datagen;
+
+/**
+ * Parámetros de un catálogo sintético. Con la misma especificación el generador produce
+ * exactamente los mismos datos.
+ *
+ * @param semilla Semilla de los generadores aleatorios
+ * @param productos Número de cartas
+ * @param valoracionesPorProducto Media de valoraciones por carta
+ * @param exponenteZipf Exponente de la ley de Zipf que reparte las valoraciones entre cartas
+ *                      (cuanto mayor, más concentradas en las cartas populares)
+ * @param tamanoLote Filas por sentencia batch
+ * @param limpiar Si es true se borran antes los datos existentes
+ */
+public record CatalogSpec(long semilla,
+                          int productos,
+                          double valoracionesPorProducto,
+                          double exponenteZipf,
+                          int tamanoLote,
+                          boolean limpiar) {
+
+    public static final long SEMILLA_POR_DEFECTO = 20240611L;
+
+    public CatalogSpec {
+        if (productos < 1) {
+            throw new IllegalArgumentException("El catálogo debe tener al menos un producto");
+        }
+        if (valoracionesPorProducto < 0 || exponenteZipf <= 0 || tamanoLote < 1) {
+            throw new IllegalArgumentException("Parámetros del catálogo no válidos");
+        }
+    }
+
+    /**
+     * @param productos Número de cartas
+     * @return Especificación con los valores por defecto para ese tamaño
+     */
+    public static CatalogSpec of(int productos) {
+        return new CatalogSpec(SEMILLA_POR_DEFECTO, productos, 4.0, 1.07, 2000, true);
+    }
+
+    /**
+     * @param semilla Nueva semilla
+     * @return Copia de la especificación con otra semilla
+     */
+    public CatalogSpec withSemilla(long semilla) {
+        return new CatalogSpec(semilla, productos, valoracionesPorProducto, exponenteZipf, tamanoLote, limpiar);
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.dangelcrack.shopcard.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Filtro que delimita cada petición para el {@link ConnectionHoldTimeRecorder}: todo el tiempo de
+ * retención de conexiones del hilo de la petición, incluida la escritura de la respuesta, se
+ * suma y se anota como una muestra por petición.
+ */
+public class ConnectionHoldTimeFilter extends OncePerRequestFilter {
+
+    private final ConnectionHoldTimeRecorder recorder;
+
+    /**
+     * @param recorder Registro de tiempos de retención
+     */
+    public ConnectionHoldTimeFilter(ConnectionHoldTimeRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        recorder.beginRequest();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            recorder.endRequest();
+        }
+    }
+}
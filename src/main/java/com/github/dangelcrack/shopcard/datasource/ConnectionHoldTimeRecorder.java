@@ -0,0 +1,125 @@
+package com.github.dangelcrack.shopcard.datasource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registra cuánto tiempo se retienen las conexiones JDBC: por conexión (desde que se pide al pool
+ * hasta que se devuelve) y por petición HTTP (suma de todas las conexiones usadas en el hilo de
+ * la petición).
+ *
+ * <p>Es la medida que importa al desactivar open-session-in-view: con él activo, la conexión se
+ * retiene hasta terminar de escribir la respuesta; sin él, solo lo que dura cada transacción.</p>
+ */
+public class ConnectionHoldTimeRecorder {
+
+    private final Stats porConexion = new Stats();
+    private final Stats porPeticion = new Stats();
+    private final ThreadLocal<long[]> peticionActual = new ThreadLocal<>();
+
+    /**
+     * Anota la devolución de una conexión.
+     *
+     * @param holdNanos Tiempo que se ha retenido la conexión
+     */
+    public void recordConnection(long holdNanos) {
+        porConexion.record(holdNanos);
+        long[] acumulado = peticionActual.get();
+        if (acumulado != null) {
+            acumulado[0] += holdNanos;
+        }
+    }
+
+    /**
+     * Empieza a acumular el tiempo de retención de las conexiones que use el hilo actual.
+     */
+    public void beginRequest() {
+        peticionActual.set(new long[1]);
+    }
+
+    /**
+     * Termina la acumulación del hilo actual y la anota como una petición.
+     *
+     * @return Tiempo total de retención de la petición en nanosegundos
+     */
+    public long endRequest() {
+        long[] acumulado = peticionActual.get();
+        peticionActual.remove();
+        if (acumulado == null) {
+            return 0;
+        }
+        porPeticion.record(acumulado[0]);
+        return acumulado[0];
+    }
+
+    public Stats getPorConexion() { return porConexion; }
+    public Stats getPorPeticion() { return porPeticion; }
+
+    /**
+     * Contadores de una distribución de tiempos, con un histograma por potencias de dos de
+     * microsegundos para estimar percentiles sin guardar las muestras.
+     */
+    public static final class Stats {
+        private static final int BUCKETS = 40;
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+            int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+            buckets.incrementAndGet(bucket);
+        }
+
+        public long getCount() { return count.sum(); }
+
+        public double getMeanMillis() {
+            long n = count.sum();
+            return n == 0 ? 0.0 : totalNanos.sum() / (double) n / 1_000_000.0;
+        }
+
+        public double getMaxMillis() { return maxNanos.get() / 1_000_000.0; }
+
+        /**
+         * @param percentil Percentil entre 0 y 1
+         * @return Límite superior del cubo que contiene el percentil, en milisegundos
+         */
+        public double getPercentileMillis(double percentil) {
+            long n = count.sum();
+            if (n == 0) {
+                return 0.0;
+            }
+            long objetivo = (long) Math.ceil(n * percentil);
+            long acumulado = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                acumulado += buckets.get(i);
+                if (acumulado >= objetivo) {
+                    return Math.min((1L << i) / 1000.0, getMaxMillis());
+                }
+            }
+            return getMaxMillis();
+        }
+
+        /**
+         * @return Resumen de la distribución para exponerlo en JSON
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", getCount());
+            map.put("meanMillis", getMeanMillis());
+            map.put("p50Millis", getPercentileMillis(0.50));
+            map.put("p99Millis", getPercentileMillis(0.99));
+            map.put("maxMillis", getMaxMillis());
+            return map;
+        }
+    }
+}
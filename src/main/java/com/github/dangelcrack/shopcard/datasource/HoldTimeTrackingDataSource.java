@@ -0,0 +1,55 @@
+package com.github.dangelcrack.shopcard.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * DataSource que mide el tiempo que cada conexión pasa fuera del pool y lo anota en un
+ * {@link ConnectionHoldTimeRecorder}. Las conexiones se envuelven en un proxy que solo intercepta
+ * {@code close()}; el resto de llamadas pasan directamente a la conexión real.
+ */
+public class HoldTimeTrackingDataSource extends DelegatingDataSource {
+
+    private final ConnectionHoldTimeRecorder recorder;
+
+    /**
+     * @param targetDataSource DataSource real
+     * @param recorder Registro de tiempos de retención
+     */
+    public HoldTimeTrackingDataSource(DataSource targetDataSource, ConnectionHoldTimeRecorder recorder) {
+        super(targetDataSource);
+        this.recorder = recorder;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return track(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection track(Connection target) {
+        long start = System.nanoTime();
+        boolean[] cerrada = new boolean[1];
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && !cerrada[0]) {
+                        cerrada[0] = true;
+                        recorder.recordConnection(System.nanoTime() - start);
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.dangelcrack.shopcard.datasource;
+
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Garantiza que un cliente vea sus propias escrituras aunque las réplicas vayan con retraso.
+ *
+ * <p>Escucha los commits de las transacciones de escritura y anota el instante para el cliente
+ * de la petición en curso. Mientras no haya pasado la ventana configurada, las lecturas de ese
+ * cliente se sirven desde la base de datos principal.</p>
+ *
+ * <p>El cliente se identifica por su dirección IP, igual que en la limitación de peticiones.
+ * Fuera de una petición HTTP (tareas programadas) no se aplica. Las tareas que atienden una
+ * petición desde otros hilos deben envolverse con {@link #conClienteActual(Callable)}, porque
+ * {@link RequestContextHolder} no pasa a ellos.</p>
+ */
+public class ReadYourWritesTracker implements TransactionExecutionListener {
+
+    /** Cliente capturado por {@link #conClienteActual(Callable)} en los hilos de las subtareas. */
+    private static final ThreadLocal<String> CLIENTE_PROPAGADO = new ThreadLocal<>();
+
+    private final long windowNanos;
+    private final ConcurrentHashMap<String, Long> ultimaEscritura = new ConcurrentHashMap<>();
+    private final AtomicLong ultimaLimpieza = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param windowMs Duración de la ventana de lectura desde la principal tras una escritura
+     */
+    public ReadYourWritesTracker(long windowMs) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure == null && !transaction.isReadOnly()) {
+            String cliente = currentClient();
+            if (cliente != null) {
+                ultimaEscritura.put(cliente, System.nanoTime());
+            }
+        }
+    }
+
+    /**
+     * @return true si el cliente actual ha escrito hace menos de la ventana configurada
+     */
+    public boolean mustReadFromPrimary() {
+        String cliente = currentClient();
+        if (cliente == null) {
+            return false;
+        }
+        long now = System.nanoTime();
+        cleanup(now);
+        Long escritura = ultimaEscritura.get(cliente);
+        return escritura != null && now - escritura < windowNanos;
+    }
+
+    /**
+     * Captura el cliente de la petición en curso para que la tarea, ejecutada en otro hilo, lea y
+     * escriba con la misma ventana que la petición. Funciona aunque el enrutado esté desactivado.
+     *
+     * @param task Tarea que se ejecutará en otro hilo
+     * @return Tarea que se ejecuta con el cliente capturado
+     */
+    public static <T> Callable<T> conClienteActual(Callable<T> task) {
+        String cliente = currentClient();
+        if (cliente == null) {
+            return task;
+        }
+        return () -> {
+            String anterior = CLIENTE_PROPAGADO.get();
+            CLIENTE_PROPAGADO.set(cliente);
+            try {
+                return task.call();
+            } finally {
+                if (anterior == null) {
+                    CLIENTE_PROPAGADO.remove();
+                } else {
+                    CLIENTE_PROPAGADO.set(anterior);
+                }
+            }
+        };
+    }
+
+    private void cleanup(long now) {
+        long last = ultimaLimpieza.get();
+        if (now - last > windowNanos * 10 && ultimaLimpieza.compareAndSet(last, now)) {
+            ultimaEscritura.values().removeIf(t -> now - t >= windowNanos);
+        }
+    }
+
+    private static String currentClient() {
+        String propagado = CLIENTE_PROPAGADO.get();
+        if (propagado != null) {
+            return propagado;
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servlet) {
+            return servlet.getRequest().getRemoteAddr();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,145 @@
+package com.github.dangelcrack.shopcard.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DataSource de solo lectura que reparte las conexiones entre las réplicas sanas.
+ *
+ * <p>Se usa como {@code readOnlyDataSource} de un
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, de modo que solo
+ * recibe las conexiones de transacciones {@code readOnly}. Vuelve a la principal cuando:</p>
+ * <ul>
+ *     <li>el cliente acaba de escribir (ver {@link ReadYourWritesTracker}),</li>
+ *     <li>no hay ninguna réplica sana,</li>
+ *     <li>o la réplica elegida falla al dar conexión (y se marca como caída).</li>
+ * </ul>
+ */
+public class ReplicaSelectingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaSelectingDataSource.class);
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReadYourWritesTracker tracker;
+    private final AtomicInteger siguiente = new AtomicInteger();
+
+    private final LongAdder lecturasReplica = new LongAdder();
+    private final LongAdder lecturasPrincipal = new LongAdder();
+
+    /**
+     * @param primary Base de datos principal
+     * @param replicas Réplicas disponibles
+     * @param tracker Control de lectura de las propias escrituras
+     */
+    public ReplicaSelectingDataSource(DataSource primary, List<Replica> replicas, ReadYourWritesTracker tracker) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.tracker = tracker;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!replicas.isEmpty() && !tracker.mustReadFromPrimary()) {
+            int inicio = Math.floorMod(siguiente.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((inicio + i) % replicas.size());
+                if (!replica.isHealthy()) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.dataSource().getConnection();
+                    lecturasReplica.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    replica.markDown(e);
+                }
+            }
+        }
+        lecturasPrincipal.increment();
+        return primary.getConnection();
+    }
+
+    /**
+     * Las credenciales de las réplicas se configuran por réplica; con credenciales explícitas la
+     * conexión se pide a la principal, como haría un {@code DelegatingDataSource}.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        lecturasPrincipal.increment();
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * Comprueba cada réplica con una conexión de prueba y actualiza su estado.
+     */
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource().getConnection()) {
+                if (connection.isValid(2)) {
+                    replica.markUp();
+                } else {
+                    replica.markDown(null);
+                }
+            } catch (SQLException e) {
+                replica.markDown(e);
+            }
+        }
+    }
+
+    /**
+     * Cierra los pools de las réplicas al parar la aplicación.
+     */
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource() instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    public List<Replica> getReplicas() { return replicas; }
+    public long getLecturasReplica() { return lecturasReplica.sum(); }
+    public long getLecturasPrincipal() { return lecturasPrincipal.sum(); }
+
+    /**
+     * Réplica con su estado de salud.
+     */
+    public static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public String name() { return name; }
+        public DataSource dataSource() { return dataSource; }
+        public boolean isHealthy() { return healthy; }
+
+        void markUp() {
+            if (!healthy) {
+                log.info("Réplica '{}' disponible de nuevo", name);
+            }
+            healthy = true;
+        }
+
+        public void markDown(Exception cause) {
+            if (healthy) {
+                log.warn("Réplica '{}' marcada como caída; las lecturas irán a la principal", name, cause);
+            }
+            healthy = false;
+        }
+    }
+}
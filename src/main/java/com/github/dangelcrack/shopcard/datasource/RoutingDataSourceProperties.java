@@ -0,0 +1,60 @@
+package com.github.dangelcrack.shopcard.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuración del enrutado lectura/escritura entre la base de datos principal y sus réplicas
+ * (prefijo {@code shopcard.datasource}). La base de datos principal sigue configurándose con
+ * {@code spring.datasource.*}.
+ */
+@ConfigurationProperties(prefix = "shopcard.datasource")
+public class RoutingDataSourceProperties {
+
+    /**
+     * Réplicas de solo lectura.
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * Tiempo durante el cual un cliente que acaba de escribir lee de la principal,
+     * para ver sus propios cambios aunque las réplicas vayan con retraso.
+     */
+    private long stickyWindowMs = 3000;
+
+    /**
+     * Intervalo entre comprobaciones de salud de las réplicas.
+     */
+    private long healthCheckIntervalMs = 5000;
+
+    public List<Replica> getReplicas() { return replicas; }
+    public void setReplicas(List<Replica> replicas) { this.replicas = replicas; }
+    public long getStickyWindowMs() { return stickyWindowMs; }
+    public void setStickyWindowMs(long stickyWindowMs) { this.stickyWindowMs = stickyWindowMs; }
+    public long getHealthCheckIntervalMs() { return healthCheckIntervalMs; }
+    public void setHealthCheckIntervalMs(long healthCheckIntervalMs) { this.healthCheckIntervalMs = healthCheckIntervalMs; }
+
+    /**
+     * Conexión a una réplica.
+     */
+    public static class Replica {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+        public String getPassword() { return password; }
+        public void setPassword(String password) { this.password = password; }
+        public int getMaximumPoolSize() { return maximumPoolSize; }
+        public void setMaximumPoolSize(int maximumPoolSize) { this.maximumPoolSize = maximumPoolSize; }
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.dangelcrack.shopcard.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Estadísticas de los productos de una colección o de una categoría.
+ *
+ * @param id ID de la colección o categoría
+ * @param productos Número de productos
+ * @param productosEnStock Productos con al menos una unidad en stock
+ * @param unidadesEnStock Unidades en stock sumando todos los productos
+ * @param valorStock Valor del stock: precio por unidades de cada producto
+ * @param precioMinimo Precio más bajo (null si no hay productos)
+ * @param precioMaximo Precio más alto (null si no hay productos)
+ * @param valoraciones Número de valoraciones de sus productos
+ * @param puntuacionMedia Puntuación media de esas valoraciones (0 si no hay valoraciones)
+ * @param actualizado Momento en que se calcularon
+ */
+public record CatalogStats(Integer id, long productos, long productosEnStock, long unidadesEnStock,
+                           BigDecimal valorStock, BigDecimal precioMinimo, BigDecimal precioMaximo,
+                           long valoraciones, double puntuacionMedia, Instant actualizado) {
+}
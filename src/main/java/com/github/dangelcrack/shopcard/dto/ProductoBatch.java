@@ -0,0 +1,14 @@
+package com.github.dangelcrack.shopcard.dto;
+
+import com.github.dangelcrack.shopcard.models.Producto;
+
+import java.util.List;
+
+/**
+ * Resultado de pedir varios productos por id en una sola llamada.
+ *
+ * @param productos Productos encontrados, en el orden en que se pidieron y sin repetidos
+ * @param noEncontrados IDs pedidos que no existen, también en el orden de la petición
+ */
+public record ProductoBatch(List<Producto> productos, List<Integer> noEncontrados) {
+}
@@ -0,0 +1,47 @@
+package com.github.dangelcrack.shopcard.dto;
+
+import com.github.dangelcrack.shopcard.models.Categoria;
+import com.github.dangelcrack.shopcard.models.Colecciones;
+import com.github.dangelcrack.shopcard.models.EstadosProducto;
+import com.github.dangelcrack.shopcard.models.Producto;
+import com.github.dangelcrack.shopcard.models.Rareza;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Datos de un producto para la página de detalle, sin la lista de valoraciones
+ * (que se sirve paginada aparte).
+ *
+ * <p>Se construye dentro de la transacción que cargó el producto, de modo que puede
+ * serializarse después sin necesitar una sesión de Hibernate abierta.</p>
+ */
+public record ProductoDetalle(
+        Integer id,
+        String nombre,
+        String descripcion,
+        BigDecimal precio,
+        BigDecimal precioOriginal,
+        BigDecimal descuento,
+        Integer stock,
+        String imagenUrl,
+        Integer numeroCarta,
+        Categoria categoria,
+        Colecciones coleccion,
+        Rareza rareza,
+        EstadosProducto estado,
+        LocalDate fechaCreacion) {
+
+    /**
+     * Construye el detalle a partir de una entidad con sus relaciones ya cargadas.
+     *
+     * @param p Producto con categoría, colección, rareza y estado inicializados
+     * @return Detalle del producto
+     */
+    public static ProductoDetalle from(Producto p) {
+        return new ProductoDetalle(p.getId(), p.getNombre(), p.getDescripcion(), p.getPrecio(),
+                p.getPrecioOriginal(), p.calcularDescuento(), p.getStock(), p.getImagenUrl(),
+                p.getNumeroCarta(), p.getCategoria(), p.getColeccion(), p.getRareza(), p.getEstado(),
+                p.getFechaCreacion());
+    }
+}
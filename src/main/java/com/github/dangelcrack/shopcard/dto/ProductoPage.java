@@ -0,0 +1,25 @@
+package com.github.dangelcrack.shopcard.dto;
+
+import java.util.List;
+
+/**
+ * Respuesta compuesta de la página de un producto.
+ *
+ * <p>Cada parte se obtiene de forma independiente; si alguna falla o excede su tiempo
+ * máximo se devuelve como null y su nombre aparece en {@code partesIncompletas}.</p>
+ *
+ * @param producto Detalle del producto
+ * @param resumenValoraciones Resumen de las valoraciones
+ * @param valoraciones Página de valoraciones, las más recientes primero
+ * @param relacionados Cartas relacionadas, de más a menos parecida
+ * @param referencia Datos de referencia del catálogo
+ * @param partesIncompletas Nombres de las partes que no pudieron obtenerse
+ */
+public record ProductoPage(
+        ProductoDetalle producto,
+        RatingSummary resumenValoraciones,
+        List<ValoracionDto> valoraciones,
+        List<ProductoResumen> relacionados,
+        ReferenceData referencia,
+        List<String> partesIncompletas) {
+}
@@ -0,0 +1,15 @@
+package com.github.dangelcrack.shopcard.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Vista reducida de un producto, con lo imprescindible para pintar una tarjeta en un listado.
+ *
+ * @param id Identificador del producto
+ * @param nombre Nombre del producto
+ * @param precio Precio actual
+ * @param imagenUrl URL de la imagen
+ * @param rareza Nombre de la rareza
+ */
+public record ProductoResumen(Integer id, String nombre, BigDecimal precio, String imagenUrl, String rareza) {
+}
@@ -0,0 +1,35 @@
+package com.github.dangelcrack.shopcard.dto;
+
+import java.util.List;
+
+/**
+ * Resumen de las valoraciones de un producto.
+ *
+ * @param total Número de valoraciones
+ * @param promedio Puntuación media (0 si no hay valoraciones)
+ * @param distribucion Número de valoraciones con puntuación 1, 2, 3, 4 y 5 (en ese orden)
+ */
+public record RatingSummary(long total, double promedio, long[] distribucion) {
+
+    /**
+     * Construye el resumen a partir de las filas {@code [puntuacion, cantidad]} de una consulta agrupada.
+     *
+     * @param filas Resultado de la consulta agrupada por puntuación
+     * @return Resumen de valoraciones
+     */
+    public static RatingSummary fromGroupedCounts(List<Object[]> filas) {
+        long[] distribucion = new long[5];
+        long total = 0;
+        long suma = 0;
+        for (Object[] fila : filas) {
+            int puntuacion = ((Number) fila[0]).intValue();
+            long cantidad = ((Number) fila[1]).longValue();
+            if (puntuacion >= 1 && puntuacion <= 5) {
+                distribucion[puntuacion - 1] += cantidad;
+            }
+            total += cantidad;
+            suma += puntuacion * cantidad;
+        }
+        return new RatingSummary(total, total == 0 ? 0.0 : (double) suma / total, distribucion);
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.dangelcrack.shopcard.dto;
+
+import com.github.dangelcrack.shopcard.models.Categoria;
+import com.github.dangelcrack.shopcard.models.EstadosProducto;
+import com.github.dangelcrack.shopcard.models.Rareza;
+
+import java.util.List;
+
+/**
+ * Datos de referencia que el frontend necesita para navegar y filtrar el catálogo.
+ *
+ * @param categorias Todas las categorías
+ * @param rarezas Todas las rarezas
+ * @param estados Todos los estados de producto
+ */
+public record ReferenceData(List<Categoria> categorias, List<Rareza> rarezas, List<EstadosProducto> estados) {
+}
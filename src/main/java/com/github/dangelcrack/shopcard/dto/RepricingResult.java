@@ -0,0 +1,32 @@
+package com.github.dangelcrack.shopcard.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Resultado (o vista previa) de un cambio de precio masivo.
+ *
+ * @param simulacion true si no se ha modificado nada
+ * @param trabajo Identificador del trabajo (null en simulación)
+ * @param afectados En simulación, productos dentro del ámbito de la regla; si no, productos
+ *                  cambiados por el trabajo, contando los de intentos anteriores
+ * @param lotes Número de lotes confirmados por el trabajo (0 en simulación)
+ * @param muestra Primeros cambios por id que quedaban por aplicar, para revisar la regla; vacía
+ *                si el trabajo ya estaba completado
+ */
+public record RepricingResult(boolean simulacion, String trabajo, long afectados, int lotes, List<Cambio> muestra) {
+
+    /**
+     * Cambio de precio de un producto.
+     *
+     * @param id Identificador del producto
+     * @param nombre Nombre del producto
+     * @param precioAnterior Precio antes del cambio
+     * @param precioNuevo Precio después del cambio
+     * @param precioOriginalAnterior Precio original antes del cambio
+     * @param precioOriginalNuevo Precio original después del cambio
+     */
+    public record Cambio(Integer id, String nombre, BigDecimal precioAnterior, BigDecimal precioNuevo,
+                         BigDecimal precioOriginalAnterior, BigDecimal precioOriginalNuevo) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.dangelcrack.shopcard.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Regla de cambio de precio masivo.
+ *
+ * <p>El ámbito es la intersección de los filtros indicados; dentro de cada filtro basta con que
+ * el producto coincida con uno de los ids. Debe indicarse al menos un filtro.</p>
+ *
+ * @param tipo Cómo se aplica {@code valor}
+ * @param valor Porcentaje (p. ej. {@code -15} para rebajar un 15 %) o importe a sumar
+ * @param colecciones Ids de colección, o null para no filtrar
+ * @param rarezas Ids de rareza, o null para no filtrar
+ * @param categorias Ids de categoría, o null para no filtrar
+ * @param estados Ids de estado, o null para no filtrar
+ * @param precioOriginal Qué hacer con el precio original (por defecto se mantiene)
+ */
+public record RepricingRule(Tipo tipo,
+                            BigDecimal valor,
+                            List<Integer> colecciones,
+                            List<Integer> rarezas,
+                            List<Integer> categorias,
+                            List<Integer> estados,
+                            PrecioOriginal precioOriginal) {
+
+    /**
+     * Forma de aplicar el cambio de precio.
+     */
+    public enum Tipo {
+        /** Nuevo precio = precio * (1 + valor / 100). */
+        PORCENTAJE,
+        /** Nuevo precio = precio + valor. */
+        ABSOLUTO
+    }
+
+    /**
+     * Tratamiento del precio original de los productos afectados.
+     */
+    public enum PrecioOriginal {
+        /** No se modifica. */
+        MANTENER,
+        /** Pasa a ser igual al nuevo precio: el producto deja de mostrarse con descuento. */
+        IGUALAR,
+        /** Guarda el precio anterior, de modo que una rebaja se muestra como descuento. */
+        GUARDAR_ANTERIOR
+    }
+}
@@ -0,0 +1,25 @@
+package com.github.dangelcrack.shopcard.dto;
+
+import com.github.dangelcrack.shopcard.models.Valoracione;
+
+import java.time.Instant;
+
+/**
+ * Valoración de un producto sin la referencia al propio producto.
+ *
+ * @param id Identificador de la valoración
+ * @param nombreCliente Nombre del cliente
+ * @param puntuacion Puntuación (1-5)
+ * @param comentario Comentario opcional
+ * @param fecha Fecha de creación
+ */
+public record ValoracionDto(Integer id, String nombreCliente, Byte puntuacion, String comentario, Instant fecha) {
+
+    /**
+     * @param v Entidad valoración
+     * @return DTO equivalente
+     */
+    public static ValoracionDto from(Valoracione v) {
+        return new ValoracionDto(v.getId(), v.getNombreCliente(), v.getPuntuacion(), v.getComentario(), v.getFecha());
+    }
+}
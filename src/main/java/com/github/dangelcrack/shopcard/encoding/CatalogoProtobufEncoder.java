@@ -0,0 +1,296 @@
+package com.github.dangelcrack.shopcard.encoding;
+
+import com.github.dangelcrack.shopcard.dto.ProductoResumen;
+import com.github.dangelcrack.shopcard.models.Categoria;
+import com.github.dangelcrack.shopcard.models.Colecciones;
+import com.github.dangelcrack.shopcard.models.EstadosProducto;
+import com.github.dangelcrack.shopcard.models.Producto;
+import com.github.dangelcrack.shopcard.models.Rareza;
+import com.github.dangelcrack.shopcard.models.Valoracione;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Page;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Codifica los listados del catálogo según el esquema {@code src/main/proto/catalogo.proto}.
+ *
+ * <p>Se escribe el formato de cable directamente con {@link CodedOutputStream}, sin clases
+ * generadas por {@code protoc}: las respuestas ya son entidades y DTOs, y así no hace falta
+ * copiarlas a mensajes intermedios ni añadir el compilador al build. Cualquier cliente puede
+ * generar sus clases a partir del {@code .proto}.</p>
+ *
+ * <p>Cada submensaje va precedido de su longitud, así que la codificación se hace en dos pasadas
+ * sobre el mismo código: la primera solo mide y guarda la longitud de cada submensaje en orden
+ * de aparición, y la segunda escribe usando esas longitudes. Así no se copian bytes entre
+ * búferes intermedios. Los valores nulos se omiten, como hace el JSON de la aplicación.</p>
+ */
+public final class CatalogoProtobufEncoder {
+
+    /**
+     * Tipos de elemento admitidos en los listados y el mensaje que los codifica.
+     */
+    private static final Map<Class<?>, Escritor<Object>> ELEMENTOS = Map.of(
+            Producto.class, (out, o) -> producto(out, (Producto) o, true),
+            ProductoResumen.class, (out, o) -> resumen(out, (ProductoResumen) o),
+            Colecciones.class, (out, o) -> coleccion(out, (Colecciones) o),
+            Valoracione.class, (out, o) -> valoracion(out, (Valoracione) o, true));
+
+    private CatalogoProtobufEncoder() {
+    }
+
+    @FunctionalInterface
+    private interface Escritor<T> {
+        void escribir(Salida out, T valor) throws IOException;
+    }
+
+    /**
+     * @param type Tipo declarado de la respuesta (por ejemplo {@code List<Producto>})
+     * @return Si es un listado o una página de alguno de los tipos del esquema
+     */
+    public static boolean soporta(Type type) {
+        ResolvableType tipo = ResolvableType.forType(type);
+        if (!Collection.class.isAssignableFrom(tipo.toClass()) && !Page.class.isAssignableFrom(tipo.toClass())) {
+            return false;
+        }
+        Class<?> elemento = tipo.as(Iterable.class).getGeneric(0).resolve();
+        return elemento != null && ELEMENTOS.containsKey(elemento);
+    }
+
+    /**
+     * Escribe un listado ({@code *Lista}) con sus elementos y, si es una página, el campo
+     * {@code pagina}.
+     *
+     * @param valor Colección o {@link Page} de un tipo admitido por {@link #soporta(Type)}
+     * @param type Tipo declarado de la respuesta
+     * @param out Flujo de salida
+     * @throws IOException Si falla la escritura
+     */
+    public static void escribirLista(Object valor, Type type, CodedOutputStream out) throws IOException {
+        Class<?> elemento = ResolvableType.forType(type).as(Iterable.class).getGeneric(0).resolve();
+        Escritor<Object> escritor = ELEMENTOS.get(elemento);
+        if (escritor == null) {
+            throw new IllegalArgumentException("Tipo sin esquema Protobuf: " + type);
+        }
+        Medida medida = new Medida();
+        lista(medida, valor, escritor);
+        lista(new Escritura(out, medida.tamanos), valor, escritor);
+    }
+
+    private static void lista(Salida out, Object valor, Escritor<Object> escritor) throws IOException {
+        for (Object item : (Iterable<?>) valor) {
+            out.mensaje(1, item, escritor);
+        }
+        if (valor instanceof Page<?> pagina) {
+            out.mensaje(2, pagina, (o, p) -> {
+                o.entero(1, p.getNumber());
+                o.entero(2, p.getSize());
+                o.largo(3, p.getTotalElements());
+                o.entero(4, p.getTotalPages());
+            });
+        }
+    }
+
+    private static void producto(Salida out, Producto p, boolean conValoraciones) throws IOException {
+        out.entero(1, p.getId());
+        out.texto(2, p.getNombre());
+        out.texto(3, p.getDescripcion());
+        out.decimal(4, p.getPrecio());
+        out.decimal(5, p.getPrecioOriginal());
+        out.entero(6, p.getStock());
+        out.texto(7, p.getImagenUrl());
+        out.entero(8, p.getNumeroCarta());
+        out.mensaje(9, p.getCategoria(), CatalogoProtobufEncoder::categoria);
+        out.mensaje(10, p.getColeccion(), CatalogoProtobufEncoder::coleccion);
+        out.mensaje(11, p.getRareza(), CatalogoProtobufEncoder::rareza);
+        out.mensaje(12, p.getEstado(), CatalogoProtobufEncoder::estado);
+        out.texto(13, p.getFechaCreacion());
+        if (conValoraciones) {
+            if (p.getValoraciones() != null) {
+                for (Valoracione v : p.getValoraciones()) {
+                    out.mensaje(14, v, (o, valoracion) -> valoracion(o, valoracion, false));
+                }
+            }
+            out.doble(15, p.getRatingPromedio());
+        }
+    }
+
+    private static void resumen(Salida out, ProductoResumen r) throws IOException {
+        out.entero(1, r.id());
+        out.texto(2, r.nombre());
+        out.decimal(3, r.precio());
+        out.texto(4, r.imagenUrl());
+        out.texto(5, r.rareza());
+    }
+
+    private static void valoracion(Salida out, Valoracione v, boolean conProducto) throws IOException {
+        out.entero(1, v.getId());
+        out.texto(2, v.getNombreCliente());
+        out.entero(3, v.getPuntuacion() == null ? null : v.getPuntuacion().intValue());
+        out.texto(4, v.getComentario());
+        out.texto(5, v.getFecha());
+        if (conProducto) {
+            out.mensaje(6, v.getProducto(), (o, p) -> producto(o, p, false));
+        }
+    }
+
+    private static void categoria(Salida out, Categoria c) throws IOException {
+        out.entero(1, c.getId());
+        out.texto(2, c.getNombre());
+        out.texto(3, c.getDescripcion());
+        out.texto(4, c.getImagenUrl());
+    }
+
+    private static void coleccion(Salida out, Colecciones c) throws IOException {
+        out.entero(1, c.getId());
+        out.texto(2, c.getNombre());
+        out.texto(3, c.getFechaLanzamiento());
+        out.texto(4, c.getImagenUrl());
+        out.texto(5, c.getDescripcion());
+        out.texto(6, c.getCodigo());
+    }
+
+    private static void rareza(Salida out, Rareza r) throws IOException {
+        out.entero(1, r.getId());
+        out.texto(2, r.getNombre());
+        out.texto(3, r.getColor());
+    }
+
+    private static void estado(Salida out, EstadosProducto e) throws IOException {
+        out.entero(1, e.getId());
+        out.texto(2, e.getCodigo());
+        out.texto(3, e.getDescripcion());
+    }
+
+    /**
+     * Destino de una pasada. Los valores nulos no se escriben.
+     */
+    private abstract static class Salida {
+
+        abstract void entero(int campo, Integer valor) throws IOException;
+
+        abstract void largo(int campo, long valor) throws IOException;
+
+        abstract void doble(int campo, double valor) throws IOException;
+
+        abstract void cadena(int campo, String valor) throws IOException;
+
+        abstract <T> void mensaje(int campo, T valor, Escritor<? super T> escritor) throws IOException;
+
+        final void texto(int campo, Object valor) throws IOException {
+            if (valor != null) {
+                cadena(campo, valor.toString());
+            }
+        }
+
+        final void decimal(int campo, BigDecimal valor) throws IOException {
+            if (valor != null) {
+                cadena(campo, valor.toPlainString());
+            }
+        }
+    }
+
+    /**
+     * Primera pasada: acumula el tamaño de cada mensaje y guarda el de los submensajes en el
+     * orden en que se abren.
+     */
+    private static final class Medida extends Salida {
+
+        private int[] tamanos = new int[64];
+        private int submensajes;
+        private int actual;
+
+        @Override
+        void entero(int campo, Integer valor) {
+            if (valor != null) {
+                actual += CodedOutputStream.computeInt32Size(campo, valor);
+            }
+        }
+
+        @Override
+        void largo(int campo, long valor) {
+            actual += CodedOutputStream.computeInt64Size(campo, valor);
+        }
+
+        @Override
+        void doble(int campo, double valor) {
+            actual += CodedOutputStream.computeDoubleSize(campo, valor);
+        }
+
+        @Override
+        void cadena(int campo, String valor) {
+            actual += CodedOutputStream.computeStringSize(campo, valor);
+        }
+
+        @Override
+        <T> void mensaje(int campo, T valor, Escritor<? super T> escritor) throws IOException {
+            if (valor == null) {
+                return;
+            }
+            int indice = submensajes++;
+            if (indice == tamanos.length) {
+                tamanos = Arrays.copyOf(tamanos, indice * 2);
+            }
+            int padre = actual;
+            actual = 0;
+            escritor.escribir(this, valor);
+            int tamano = actual;
+            tamanos[indice] = tamano;
+            actual = padre + CodedOutputStream.computeTagSize(campo) + CodedOutputStream.computeUInt32SizeNoTag(tamano) + tamano;
+        }
+    }
+
+    /**
+     * Segunda pasada: escribe los campos y, antes de cada submensaje, la longitud medida.
+     */
+    private static final class Escritura extends Salida {
+
+        private final CodedOutputStream out;
+        private final int[] tamanos;
+        private int siguiente;
+
+        Escritura(CodedOutputStream out, int[] tamanos) {
+            this.out = out;
+            this.tamanos = tamanos;
+        }
+
+        @Override
+        void entero(int campo, Integer valor) throws IOException {
+            if (valor != null) {
+                out.writeInt32(campo, valor);
+            }
+        }
+
+        @Override
+        void largo(int campo, long valor) throws IOException {
+            out.writeInt64(campo, valor);
+        }
+
+        @Override
+        void doble(int campo, double valor) throws IOException {
+            out.writeDouble(campo, valor);
+        }
+
+        @Override
+        void cadena(int campo, String valor) throws IOException {
+            out.writeString(campo, valor);
+        }
+
+        @Override
+        <T> void mensaje(int campo, T valor, Escritor<? super T> escritor) throws IOException {
+            if (valor == null) {
+                return;
+            }
+            out.writeTag(campo, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            out.writeUInt32NoTag(tamanos[siguiente++]);
+            escritor.escribir(this, valor);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.dangelcrack.shopcard.encoding;
+
+import com.google.protobuf.CodedOutputStream;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Conversor de solo escritura para {@code Accept: application/x-protobuf} (o
+ * {@code application/protobuf}). Solo acepta los listados descritos en {@code catalogo.proto}
+ * (ver {@link CatalogoProtobufEncoder#soporta(Type)}); para el resto de respuestas Spring MVC
+ * responde 406 si el cliente no admite otro formato.
+ */
+public class CatalogoProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+
+    public CatalogoProtobufHttpMessageConverter() {
+        super(PROTOBUF, new MediaType("application", "protobuf"));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    /**
+     * Spring MVC consulta los tipos producibles por la clase del valor antes de comprobar el tipo
+     * genérico con {@link #canWrite(Type, Class, MediaType)}; la clase sola no basta para decidir.
+     */
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return getSupportedMediaTypes();
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        return type != null && canWrite(mediaType) && CatalogoProtobufEncoder.soporta(type);
+    }
+
+    @Override
+    protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        CodedOutputStream out = CodedOutputStream.newInstance(outputMessage.getBody(), 8192);
+        CatalogoProtobufEncoder.escribirLista(object, type, out);
+        out.flush();
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf solo se admite en las respuestas", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf solo se admite en las respuestas", inputMessage);
+    }
+}
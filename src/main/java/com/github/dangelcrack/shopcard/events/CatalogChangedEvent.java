@@ -0,0 +1,62 @@
+package com.github.dangelcrack.shopcard.events;
+
+import java.util.Set;
+
+/**
+ * Evento publicado cuando cambian productos o sus valoraciones.
+ *
+ * <p>Los componentes que mantienen datos derivados del catálogo (índices, cachés, estadísticas)
+ * lo escuchan para refrescar solo lo afectado en lugar de recalcularlo todo.</p>
+ *
+ * <p>La colección y la categoría actuales de un producto se pueden consultar tras el commit; las
+ * que tenía antes del cambio no. Por eso, cuando un producto se elimina o puede haber cambiado de
+ * colección o categoría, el evento lleva también las anteriores.</p>
+ *
+ * @param tipo Qué ha cambiado
+ * @param productoIds Productos afectados
+ * @param coleccionIds Colecciones a las que pertenecían los productos antes del cambio
+ * @param categoriaIds Categorías a las que pertenecían los productos antes del cambio
+ */
+public record CatalogChangedEvent(Tipo tipo, Set<Integer> productoIds,
+                                 Set<Integer> coleccionIds, Set<Integer> categoriaIds) {
+
+    /**
+     * Tipo de cambio en el catálogo.
+     */
+    public enum Tipo {
+        PRODUCTO_CREADO,
+        PRODUCTO_ACTUALIZADO,
+        PRODUCTO_ELIMINADO,
+        VALORACION_CAMBIADA
+    }
+
+    /**
+     * @param tipo Qué ha cambiado
+     * @param productoIds Productos afectados, que siguen en la misma colección y categoría
+     */
+    public CatalogChangedEvent(Tipo tipo, Set<Integer> productoIds) {
+        this(tipo, productoIds, Set.of(), Set.of());
+    }
+
+    /**
+     * @param tipo Qué ha cambiado
+     * @param productoId Producto afectado
+     * @return Evento para un único producto
+     */
+    public static CatalogChangedEvent of(Tipo tipo, Integer productoId) {
+        return new CatalogChangedEvent(tipo, Set.of(productoId));
+    }
+
+    /**
+     * @param tipo Qué ha cambiado
+     * @param productoId Producto afectado
+     * @param coleccionId Colección del producto antes del cambio
+     * @param categoriaId Categoría del producto antes del cambio
+     * @return Evento para un único producto
+     */
+    public static CatalogChangedEvent of(Tipo tipo, Integer productoId, Integer coleccionId, Integer categoriaId) {
+        return new CatalogChangedEvent(tipo, Set.of(productoId),
+                coleccionId != null ? Set.of(coleccionId) : Set.of(),
+                categoriaId != null ? Set.of(categoriaId) : Set.of());
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.dangelcrack.shopcard.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Excepción lanzada cuando la petición choca con el estado actual del recurso, por ejemplo al
+ * iniciar una grabación mientras otra está en curso.
+ * Automáticamente devuelve una respuesta HTTP 409 (CONFLICT) cuando se produce.
+ */
+@ResponseStatus(value = HttpStatus.CONFLICT)
+public class ConflictException extends RuntimeException {
+
+    /**
+     * Constructor para crear una nueva instancia de la excepción.
+     *
+     * @param message Descripción del conflicto
+     */
+    public ConflictException(String message) {
+        super(message);
+    }
+}
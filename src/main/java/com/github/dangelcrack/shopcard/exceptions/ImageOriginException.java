@@ -0,0 +1,23 @@
+package com.github.dangelcrack.shopcard.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Excepción lanzada cuando no se puede obtener o decodificar la imagen original de la que se
+ * genera una miniatura.
+ * Automáticamente devuelve una respuesta HTTP 502 (BAD GATEWAY) cuando se produce.
+ */
+@ResponseStatus(value = HttpStatus.BAD_GATEWAY)
+public class ImageOriginException extends RuntimeException {
+
+    /**
+     * Constructor para crear una nueva instancia de la excepción.
+     *
+     * @param message Descripción del fallo
+     * @param cause Causa original, o {@code null}
+     */
+    public ImageOriginException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,21 @@
+package com.github.dangelcrack.shopcard.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Excepción lanzada cuando los datos de una petición no son válidos.
+ * Automáticamente devuelve una respuesta HTTP 400 (BAD REQUEST) cuando se produce.
+ */
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class InvalidRequestException extends RuntimeException {
+
+    /**
+     * Constructor para crear una nueva instancia de la excepción.
+     *
+     * @param message Descripción de lo que no es válido
+     */
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,122 @@
+package com.github.dangelcrack.shopcard.loadshedding;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Límite de concurrencia adaptativo para un grupo de endpoints, basado en el gradiente de latencia.
+ *
+ * <p>Se compara la latencia reciente con una latencia de referencia a largo plazo. Mientras
+ * ambas se parecen, el límite crece poco a poco; cuando la latencia reciente se dispara (señal de
+ * que las peticiones empiezan a encolarse en la base de datos o en el pool de hilos) el límite se
+ * reduce de forma multiplicativa. Las peticiones que exceden el límite se rechazan de inmediato
+ * en lugar de esperar.</p>
+ *
+ * <p>La adquisición de un permiso es un CAS sobre el contador de peticiones en vuelo. La
+ * actualización del límite se hace con {@code tryLock}: si otro hilo ya está actualizando,
+ * la muestra simplemente se descarta.</p>
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final ReentrantLock updateLock = new ReentrantLock();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile double limit;
+    private volatile double longRttNanos;
+    private volatile long lastRttNanos;
+
+    /**
+     * @param name Nombre del grupo de endpoints
+     * @param initialLimit Límite inicial de peticiones concurrentes
+     * @param minLimit Límite mínimo
+     * @param maxLimit Límite máximo
+     * @param tolerance Cuánto puede crecer la latencia reciente respecto a la de referencia antes de reducir el límite
+     * @param smoothing Peso (0-1) de cada nueva estimación sobre el límite actual
+     */
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      double tolerance, double smoothing) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Intenta reservar un permiso para ejecutar una petición.
+     *
+     * @return true si la petición puede ejecutarse; en ese caso debe llamarse a {@link #release(long, boolean)}
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                accepted.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libera el permiso y alimenta el algoritmo con la latencia observada.
+     *
+     * @param rttNanos Duración de la petición
+     * @param failed true si la petición terminó con error de servidor (cuenta como señal de sobrecarga)
+     */
+    public void release(long rttNanos, boolean failed) {
+        int inflightAtCompletion = inflight.getAndDecrement();
+        lastRttNanos = rttNanos;
+        if (!updateLock.tryLock()) {
+            return;
+        }
+        try {
+            update(rttNanos, failed, inflightAtCompletion);
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    private void update(long rttNanos, boolean failed, int inflightAtCompletion) {
+        double currentLimit = limit;
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+            return;
+        }
+        // La referencia a largo plazo se mueve despacio para que una racha lenta no la arrastre
+        longRttNanos = longRttNanos * 0.95 + rttNanos * 0.05;
+
+        double newLimit;
+        if (failed) {
+            newLimit = currentLimit * 0.9;
+        } else {
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / rttNanos));
+            // Solo se permite crecer si el límite se está usando de verdad
+            double queue = inflightAtCompletion * 2 >= currentLimit ? Math.sqrt(currentLimit) : 0;
+            newLimit = currentLimit * gradient + queue;
+        }
+        newLimit = currentLimit * (1 - smoothing) + newLimit * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    public String getName() { return name; }
+    public int getLimit() { return (int) limit; }
+    public int getInflight() { return inflight.get(); }
+    public long getAccepted() { return accepted.sum(); }
+    public long getRejected() { return rejected.sum(); }
+    public double getLongRttMillis() { return longRttNanos / 1_000_000.0; }
+    public double getLastRttMillis() { return lastRttNanos / 1_000_000.0; }
+}
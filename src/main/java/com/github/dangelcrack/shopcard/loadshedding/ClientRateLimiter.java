@@ -0,0 +1,91 @@
+package com.github.dangelcrack.shopcard.loadshedding;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Limitador de peticiones por cliente basado en un {@link TokenBucket} por cada cliente.
+ *
+ * <p>Los cubos se crean bajo demanda y se descartan cuando vuelven a estar llenos, de modo que
+ * la memoria usada es proporcional al número de clientes activos y no al histórico.</p>
+ */
+public class ClientRateLimiter {
+
+    private final int capacity;
+    private final double refillPerSecond;
+    private final int maxClients;
+    private final long cleanupIntervalNanos;
+    private final LongSupplier clock;
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastCleanup;
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param capacity Ráfaga máxima de tokens por cliente
+     * @param refillPerSecond Tokens recuperados por segundo
+     * @param maxClients Número de clientes a partir del cual se fuerza una limpieza de cubos inactivos
+     * @param cleanupIntervalMillis Intervalo mínimo entre limpiezas periódicas
+     */
+    public ClientRateLimiter(int capacity, double refillPerSecond, int maxClients, long cleanupIntervalMillis) {
+        this(capacity, refillPerSecond, maxClients, cleanupIntervalMillis, System::nanoTime);
+    }
+
+    /**
+     * @param clock Reloj en nanosegundos; los tests pasan uno manual
+     */
+    ClientRateLimiter(int capacity, double refillPerSecond, int maxClients, long cleanupIntervalMillis,
+                      LongSupplier clock) {
+        this.capacity = capacity;
+        this.refillPerSecond = refillPerSecond;
+        this.maxClients = maxClients;
+        this.cleanupIntervalNanos = TimeUnit.MILLISECONDS.toNanos(cleanupIntervalMillis);
+        this.clock = clock;
+        this.lastCleanup = new AtomicLong(clock.getAsLong());
+    }
+
+    /**
+     * Intenta consumir tokens del cubo del cliente.
+     *
+     * @param clientId Identificador del cliente (normalmente su dirección IP)
+     * @param cost Tokens que cuesta la petición
+     * @return 0 si se acepta, o los nanosegundos que el cliente debe esperar
+     */
+    public long tryAcquire(String clientId, int cost) {
+        long now = clock.getAsLong();
+        maybeCleanup(now);
+        TokenBucket bucket = buckets.get(clientId);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(clientId, k -> new TokenBucket(capacity, refillPerSecond, now));
+        }
+        long wait = bucket.tryConsume(cost, now);
+        if (wait == 0L) {
+            accepted.increment();
+        } else {
+            rejected.increment();
+        }
+        return wait;
+    }
+
+    /**
+     * Elimina los cubos llenos cuando ha pasado el intervalo de limpieza o se ha superado el
+     * número máximo de clientes. Solo un hilo realiza la limpieza gracias al CAS sobre la marca temporal.
+     */
+    private void maybeCleanup(long now) {
+        long last = lastCleanup.get();
+        boolean due = now - last >= cleanupIntervalNanos || buckets.size() > maxClients;
+        if (due && lastCleanup.compareAndSet(last, now)) {
+            buckets.entrySet().removeIf(e -> e.getValue().isFull(now));
+        }
+    }
+
+    public int getTrackedClients() { return buckets.size(); }
+    public long getAccepted() { return accepted.sum(); }
+    public long getRejected() { return rejected.sum(); }
+    public int getCapacity() { return capacity; }
+    public double getRefillPerSecond() { return refillPerSecond; }
+}
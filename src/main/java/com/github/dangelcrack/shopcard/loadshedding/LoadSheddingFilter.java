@@ -0,0 +1,133 @@
+package com.github.dangelcrack.shopcard.loadshedding;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtro que protege la API frente a clientes abusivos y picos de carga.
+ *
+ * <p>Cada petición a {@code /api/**} pasa primero por el limitador por cliente (HTTP 429 si el
+ * cliente ha agotado sus tokens). Las peticiones GET que pertenecen a un grupo de endpoints
+ * pesados pasan además por el límite de concurrencia adaptativo de su grupo (HTTP 503 si está
+ * saturado). En ambos casos se responde de inmediato con la cabecera {@code Retry-After}.</p>
+ *
+ * <p>El cliente se identifica por {@link HttpServletRequest#getRemoteAddr()}; detrás de un proxy
+ * debe configurarse {@code server.forward-headers-strategy} para que refleje la IP real.</p>
+ */
+public class LoadSheddingFilter extends OncePerRequestFilter {
+
+    private final ClientRateLimiter rateLimiter;
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new LinkedHashMap<>();
+    private final List<GroupMatcher> matchers = new ArrayList<>();
+
+    /**
+     * @param properties Configuración de la protección
+     */
+    public LoadSheddingFilter(LoadSheddingProperties properties) {
+        LoadSheddingProperties.RateLimit rl = properties.getRateLimit();
+        this.rateLimiter = rl.isEnabled()
+                ? new ClientRateLimiter(rl.getCapacity(), rl.getRefillPerSecond(), rl.getMaxClients(), rl.getCleanupIntervalMillis())
+                : null;
+
+        PathPatternParser parser = PathPatternParser.defaultInstance;
+        properties.getGroups().forEach((name, group) -> {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(name, group.getInitialLimit(),
+                    group.getMinLimit(), group.getMaxLimit(), group.getTolerance(), group.getSmoothing());
+            limiters.put(name, limiter);
+            for (String pattern : group.getPatterns()) {
+                matchers.add(new GroupMatcher(parser.parse(pattern), limiter, group.getCost()));
+            }
+        });
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !pathWithinApplication(request).startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        GroupMatcher group = "GET".equals(request.getMethod()) ? match(pathWithinApplication(request)) : null;
+
+        if (rateLimiter != null) {
+            long waitNanos = rateLimiter.tryAcquire(request.getRemoteAddr(), group != null ? group.cost() : 1);
+            if (waitNanos > 0) {
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, waitNanos, "Demasiadas peticiones para este cliente");
+                return;
+            }
+        }
+
+        if (group == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        AdaptiveConcurrencyLimiter limiter = group.limiter();
+        if (!limiter.tryAcquire()) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1),
+                    "Servicio saturado, inténtelo de nuevo más tarde");
+            return;
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+        } finally {
+            limiter.release(System.nanoTime() - start, failed);
+        }
+    }
+
+    private GroupMatcher match(String path) {
+        PathContainer container = PathContainer.parsePath(path);
+        for (GroupMatcher matcher : matchers) {
+            if (matcher.pattern().matches(container)) {
+                return matcher;
+            }
+        }
+        return null;
+    }
+
+    private static String pathWithinApplication(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long waitNanos, String message)
+            throws IOException {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setHeader("Retry-After", Long.toString(seconds));
+        response.sendError(status.value(), message);
+    }
+
+    /**
+     * @return Limitador por cliente, o null si está desactivado
+     */
+    public ClientRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * @return Limitadores de concurrencia indexados por nombre de grupo
+     */
+    public Map<String, AdaptiveConcurrencyLimiter> getLimiters() {
+        return limiters;
+    }
+
+    private record GroupMatcher(PathPattern pattern, AdaptiveConcurrencyLimiter limiter, int cost) {
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.dangelcrack.shopcard.loadshedding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuración de la capa de protección frente a sobrecarga (prefijo {@code shopcard.load-shedding}).
+ */
+@ConfigurationProperties(prefix = "shopcard.load-shedding")
+public class LoadSheddingProperties {
+
+    /**
+     * Activa o desactiva el filtro por completo.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Límite de peticiones por cliente.
+     */
+    private RateLimit rateLimit = new RateLimit();
+
+    /**
+     * Grupos de endpoints con límite de concurrencia adaptativo, indexados por nombre.
+     */
+    private Map<String, Group> groups = new LinkedHashMap<>();
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public RateLimit getRateLimit() { return rateLimit; }
+    public void setRateLimit(RateLimit rateLimit) { this.rateLimit = rateLimit; }
+    public Map<String, Group> getGroups() { return groups; }
+    public void setGroups(Map<String, Group> groups) { this.groups = groups; }
+
+    /**
+     * Parámetros del token bucket por cliente.
+     */
+    public static class RateLimit {
+        private boolean enabled = true;
+        private int capacity = 60;
+        private double refillPerSecond = 30;
+        private int maxClients = 100_000;
+        private long cleanupIntervalMillis = 60_000;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public int getCapacity() { return capacity; }
+        public void setCapacity(int capacity) { this.capacity = capacity; }
+        public double getRefillPerSecond() { return refillPerSecond; }
+        public void setRefillPerSecond(double refillPerSecond) { this.refillPerSecond = refillPerSecond; }
+        public int getMaxClients() { return maxClients; }
+        public void setMaxClients(int maxClients) { this.maxClients = maxClients; }
+        public long getCleanupIntervalMillis() { return cleanupIntervalMillis; }
+        public void setCleanupIntervalMillis(long cleanupIntervalMillis) { this.cleanupIntervalMillis = cleanupIntervalMillis; }
+    }
+
+    /**
+     * Grupo de endpoints que comparten un límite de concurrencia.
+     */
+    public static class Group {
+        /**
+         * Patrones de ruta (estilo {@code /api/productos/**}) que pertenecen al grupo.
+         */
+        private List<String> patterns = new ArrayList<>();
+        /**
+         * Tokens que cuesta cada petición del grupo en el limitador por cliente.
+         */
+        private int cost = 1;
+        private int initialLimit = 20;
+        private int minLimit = 2;
+        private int maxLimit = 200;
+        private double tolerance = 2.0;
+        private double smoothing = 0.2;
+
+        public List<String> getPatterns() { return patterns; }
+        public void setPatterns(List<String> patterns) { this.patterns = patterns; }
+        public int getCost() { return cost; }
+        public void setCost(int cost) { this.cost = cost; }
+        public int getInitialLimit() { return initialLimit; }
+        public void setInitialLimit(int initialLimit) { this.initialLimit = initialLimit; }
+        public int getMinLimit() { return minLimit; }
+        public void setMinLimit(int minLimit) { this.minLimit = minLimit; }
+        public int getMaxLimit() { return maxLimit; }
+        public void setMaxLimit(int maxLimit) { this.maxLimit = maxLimit; }
+        public double getTolerance() { return tolerance; }
+        public void setTolerance(double tolerance) { this.tolerance = tolerance; }
+        public double getSmoothing() { return smoothing; }
+        public void setSmoothing(double smoothing) { this.smoothing = smoothing; }
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.dangelcrack.shopcard.loadshedding;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket sin bloqueos implementado con el algoritmo GCRA (Generic Cell Rate Algorithm).
+ *
+ * <p>En lugar de guardar tokens y la hora de la última recarga, el estado completo se reduce
+ * a un único {@code long}: el "instante teórico de llegada" (TAT). Consumir tokens consiste en
+ * avanzar ese instante mediante un CAS, por lo que no hace falta ningún lock y el cubo no
+ * reserva memoria en la ruta caliente.</p>
+ */
+public class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * Crea un cubo con la capacidad y la velocidad de recarga indicadas.
+     *
+     * @param capacity Número máximo de tokens acumulables (ráfaga permitida)
+     * @param refillPerSecond Tokens que se recuperan por segundo
+     * @param nowNanos Instante actual según {@link System#nanoTime()}
+     */
+    public TokenBucket(int capacity, double refillPerSecond, long nowNanos) {
+        if (capacity <= 0 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("La capacidad y la recarga deben ser mayores que cero");
+        }
+        this.emissionIntervalNanos = Math.max(1L, (long) (1_000_000_000L / refillPerSecond));
+        this.burstToleranceNanos = emissionIntervalNanos * capacity;
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Intenta consumir {@code tokens} del cubo.
+     *
+     * @param tokens Número de tokens a consumir
+     * @param nowNanos Instante actual según {@link System#nanoTime()}
+     * @return 0 si se concedieron los tokens, o los nanosegundos que faltan para poder concederlos
+     */
+    public long tryConsume(int tokens, long nowNanos) {
+        long increment = emissionIntervalNanos * tokens;
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long base = Math.max(tat, nowNanos);
+            long newTat = base + increment;
+            long excess = newTat - nowNanos - burstToleranceNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (theoreticalArrival.compareAndSet(tat, newTat)) {
+                return 0L;
+            }
+        }
+    }
+
+    /**
+     * Indica si el cubo está lleno, es decir, si el cliente no ha consumido nada recientemente.
+     * Se usa para decidir qué cubos pueden descartarse sin perder información.
+     *
+     * @param nowNanos Instante actual según {@link System#nanoTime()}
+     * @return true si el cubo tiene todos sus tokens disponibles
+     */
+    public boolean isFull(long nowNanos) {
+        return theoreticalArrival.get() - nowNanos <= 0;
+    }
+}
@@ -1,9 +1,12 @@
 package com.github.dangelcrack.shopcard.models;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
@@ -12,15 +15,18 @@ import java.util.Set;
  * Se mapea a la tabla "categorias" en la base de datos.
  */
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Table(name = "categorias")
 public class Categoria {
 
     /**
      * Identificador único de la categoría.
-     * Se genera automáticamente mediante una estrategia de identidad.
+     * Se reserva en bloques de la tabla {@code secuencias}, como el de {@link Producto}.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "categorias")
+    @TableGenerator(name = "categorias", table = "secuencias", pkColumnName = "nombre", valueColumnName = "siguiente",
+            pkColumnValue = "categorias", allocationSize = 10)
     private Integer id;
 
     /**
@@ -33,9 +39,9 @@ public class Categoria {
 
     /**
      * Descripción detallada de la categoría.
-     * Se almacena como Large Object (LOB) para permitir textos largos.
+     * Columna LONGTEXT (V1) para permitir textos largos; se lee como texto, sin pasar por un CLOB.
      */
-    @Lob
+    @JdbcTypeCode(SqlTypes.LONGVARCHAR)
     private String descripcion;
 
     /**
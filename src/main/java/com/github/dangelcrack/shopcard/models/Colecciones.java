@@ -1,9 +1,12 @@
 package com.github.dangelcrack.shopcard.models;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import java.time.LocalDate;
 import java.util.LinkedHashSet;
 import java.util.Set;
@@ -13,15 +16,18 @@ import java.util.Set;
  * Se mapea a la tabla "colecciones" en la base de datos.
  */
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Table(name = "colecciones")
 public class Colecciones {
 
     /**
      * Identificador único de la colección.
-     * Generado automáticamente mediante estrategia de identidad.
+     * Se reserva en bloques de la tabla {@code secuencias}, como el de {@link Producto}.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "colecciones")
+    @TableGenerator(name = "colecciones", table = "secuencias", pkColumnName = "nombre", valueColumnName = "siguiente",
+            pkColumnValue = "colecciones", allocationSize = 10)
     private Integer id;
 
     /**
@@ -49,9 +55,9 @@ public class Colecciones {
 
     /**
      * Descripción detallada de la colección.
-     * Almacenada como Large Object (LOB) para permitir textos extensos.
+     * Columna LONGTEXT (V1) para permitir textos extensos; se lee como texto, sin pasar por un CLOB.
      */
-    @Lob
+    @JdbcTypeCode(SqlTypes.LONGVARCHAR)
     private String descripcion;
 
     /**
@@ -1,6 +1,7 @@
 package com.github.dangelcrack.shopcard.models;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
@@ -13,15 +14,18 @@ import java.util.Set;
  * Se mapea a la tabla "estados_producto" en la base de datos.
  */
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Table(name = "estados_producto")
 public class EstadosProducto {
 
     /**
      * Identificador único del estado de producto.
-     * Generado automáticamente mediante estrategia de identidad.
+     * Se reserva en bloques de la tabla {@code secuencias}, como el de {@link Producto}.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "estados_producto")
+    @TableGenerator(name = "estados_producto", table = "secuencias", pkColumnName = "nombre", valueColumnName = "siguiente",
+            pkColumnValue = "estados_producto", allocationSize = 10)
     private Integer id;
 
     /**
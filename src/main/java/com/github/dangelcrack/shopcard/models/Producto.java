@@ -1,7 +1,11 @@
 package com.github.dangelcrack.shopcard.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
@@ -9,13 +13,50 @@ import java.util.List;
 /**
  * Entidad que representa un producto en el sistema.
  * Se mapea a la tabla "productos" en la base de datos.
+ * Los {@code UPDATE} solo incluyen las columnas modificadas ({@code @DynamicUpdate}).
  */
 @Entity
+@DynamicUpdate
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Table(name = "productos")
+@NamedEntityGraph(name = Producto.GRAFO_COMPLETO, attributeNodes = {
+        @NamedAttributeNode("categoria"),
+        @NamedAttributeNode("coleccion"),
+        @NamedAttributeNode("rareza"),
+        @NamedAttributeNode("estado"),
+        @NamedAttributeNode("valoraciones")
+})
+@NamedEntityGraph(name = Producto.GRAFO_RELACIONES, attributeNodes = {
+        @NamedAttributeNode("categoria"),
+        @NamedAttributeNode("coleccion"),
+        @NamedAttributeNode("rareza"),
+        @NamedAttributeNode("estado")
+})
 public class Producto {
 
+    /**
+     * Plan de carga con todo lo que se serializa en la respuesta JSON de un producto:
+     * sus relaciones y sus valoraciones.
+     */
+    public static final String GRAFO_COMPLETO = "Producto.completo";
+
+    /**
+     * Plan de carga con las relaciones pero sin las valoraciones, para las consultas sin límite
+     * de filas: unir las valoraciones repetiría cada producto una vez por valoración.
+     */
+    public static final String GRAFO_RELACIONES = "Producto.relaciones";
+
+    /**
+     * Identificador del producto. Hibernate reserva los ids de 50 en 50 en la tabla
+     * {@code secuencias} (optimizador pooled-lo) y los asigna en memoria, así que conoce el id
+     * sin ejecutar el INSERT y puede agrupar las inserciones en lotes JDBC
+     * ({@code hibernate.jdbc.batch_size}). Con IDENTITY cada INSERT se lanzaba en el momento,
+     * de uno en uno, para leer la clave generada.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "productos")
+    @TableGenerator(name = "productos", table = "secuencias", pkColumnName = "nombre", valueColumnName = "siguiente",
+            pkColumnValue = "productos", allocationSize = 50)
     private Integer id;
 
     @NotBlank(message = "El nombre es obligatorio")
@@ -73,7 +114,17 @@ public class Producto {
     @Column(name = "fecha_creacion", nullable = false, updatable = false)
     private LocalDate fechaCreacion = LocalDate.now();
 
+    /**
+     * Valoraciones del producto. Dentro del producto se serializan sin su referencia de vuelta,
+     * que solo repetiría el producto que las contiene.
+     *
+     * <p>Si no se cargan con la consulta ({@link #GRAFO_RELACIONES}), al acceder a las de un
+     * producto se cargan en una sola sentencia las de todos los productos de esa consulta
+     * ({@code SUBSELECT}), en lugar de una sentencia por cada lote de productos.</p>
+     */
     @OneToMany(mappedBy = "producto", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Fetch(FetchMode.SUBSELECT)
+    @JsonIgnoreProperties(value = "producto", allowSetters = true)
     private List<Valoracione> valoraciones;
 
     public Producto() {}
@@ -1,6 +1,7 @@
 package com.github.dangelcrack.shopcard.models;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -15,15 +16,18 @@ import java.util.Set;
  * a características visuales como el color del borde o símbolo en la carta.</p>
  */
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Table(name = "rarezas")
 public class Rareza {
 
     /**
      * Identificador único de la rareza.
-     * Generado automáticamente mediante estrategia de identidad.
+     * Se reserva en bloques de la tabla {@code secuencias}, como el de {@link Producto}.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "rarezas")
+    @TableGenerator(name = "rarezas", table = "secuencias", pkColumnName = "nombre", valueColumnName = "siguiente",
+            pkColumnValue = "rarezas", allocationSize = 10)
     private Integer id;
 
     /**
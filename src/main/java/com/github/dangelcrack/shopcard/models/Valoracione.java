@@ -1,8 +1,12 @@
 package com.github.dangelcrack.shopcard.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import java.time.Instant;
 
 /**
@@ -10,18 +14,34 @@ import java.time.Instant;
  * Se mapea a la tabla "valoraciones" en la base de datos.
  *
  * <p>Cada valoración contiene una puntuación numérica y opcionalmente un comentario,
- * asociados a un producto específico y un cliente.</p>
+ * asociados a un producto específico y un cliente. Como en {@link Producto}, al editarla solo
+ * se escriben las columnas que cambian.</p>
  */
 @Entity
+@DynamicUpdate
 @Table(name = "valoraciones")
+@NamedEntityGraph(name = Valoracione.GRAFO_CON_PRODUCTO, attributeNodes = @NamedAttributeNode(value = "producto", subgraph = "producto"),
+        subgraphs = @NamedSubgraph(name = "producto", attributeNodes = {
+                @NamedAttributeNode("categoria"),
+                @NamedAttributeNode("coleccion"),
+                @NamedAttributeNode("rareza"),
+                @NamedAttributeNode("estado")
+        }))
 public class Valoracione {
 
+    /**
+     * Plan de carga con el producto valorado y sus relaciones, que se serializan junto a la valoración.
+     */
+    public static final String GRAFO_CON_PRODUCTO = "Valoracione.conProducto";
+
     /**
      * Identificador único de la valoración.
-     * Generado automáticamente mediante estrategia de identidad.
+     * Se reserva en bloques de la tabla {@code secuencias}, como el de {@link Producto}.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "valoraciones")
+    @TableGenerator(name = "valoraciones", table = "secuencias", pkColumnName = "nombre", valueColumnName = "siguiente",
+            pkColumnValue = "valoraciones", allocationSize = 50)
     private Integer id;
 
     /**
@@ -35,8 +55,10 @@ public class Valoracione {
     /**
      * Producto asociado a esta valoración.
      * Relación muchos-a-uno con la entidad Producto.
+     * Se serializa sin las valoraciones del producto, que no forman parte de la respuesta de una valoración.
      */
     @NotNull
+    @JsonIgnoreProperties(value = {"valoraciones", "ratingPromedio"}, allowSetters = true)
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "producto_id", nullable = false)
     private Producto producto;
@@ -51,9 +73,9 @@ public class Valoracione {
 
     /**
      * Comentario opcional sobre el producto.
-     * Almacenado como Large Object (LOB) para permitir textos extensos.
+     * Columna TEXT (V1) para permitir textos extensos; se lee como texto, sin pasar por un CLOB.
      */
-    @Lob
+    @JdbcTypeCode(SqlTypes.LONGVARCHAR)
     @Column(length = 2000)
     private String comentario;
 
@@ -0,0 +1,42 @@
+package com.github.dangelcrack.shopcard.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR por sentencia JDBC, que emite {@code SlowQueryDataSource}. JFR no tiene eventos
+ * propios de JDBC; este solo se graba con el perfil {@link ProfilePreset#JDBC} y, mientras no hay
+ * ninguna grabación que lo active, {@code begin}/{@code end} no hacen nada. Lleva el método de
+ * repositorio y la ruta porque la pila de JFR se trunca a 64 marcos y, con Hibernate y los proxies
+ * de por medio, rara vez llega al código de la aplicación.
+ */
+@Name(JdbcStatementEvent.NAME)
+@Label("JDBC Statement")
+@Category({"ShopCard", "JDBC"})
+@Description("Ejecución de una sentencia JDBC")
+@Enabled(false)
+@StackTrace(true)
+public class JdbcStatementEvent extends Event {
+
+    /**
+     * Nombre del tipo de evento en las grabaciones.
+     */
+    public static final String NAME = "shopcard.JdbcStatement";
+
+    @Label("SQL")
+    public String sql;
+
+    @Label("Filas en lote")
+    public int lote;
+
+    @Label("Método de repositorio")
+    public String repositorio;
+
+    @Label("Ruta HTTP")
+    public String ruta;
+}
@@ -0,0 +1,230 @@
+package com.github.dangelcrack.shopcard.profiling;
+
+import com.github.dangelcrack.shopcard.exceptions.ConflictException;
+import com.github.dangelcrack.shopcard.exceptions.InvalidRequestException;
+import com.github.dangelcrack.shopcard.exceptions.RecordNotFoundException;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lanza grabaciones de Java Flight Recorder con un {@link ProfilePreset} y una duración acotada.
+ *
+ * <p>Solo puede haber una grabación en curso. Al terminar (por duración o con {@link #stop()}) JFR
+ * escribe el fichero en {@code shopcard.profiling.directory}; se conservan las últimas
+ * {@code shopcard.profiling.keep} y el resto se borran. El resumen de cada grabación se calcula la
+ * primera vez que se pide y se guarda.</p>
+ *
+ * <p>Con {@code shopcard.profiling.enabled=false} todas las operaciones responden como si el
+ * recurso no existiera (404).</p>
+ */
+public class JfrProfiler implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(JfrProfiler.class);
+
+    private final ProfilingProperties properties;
+    private final Path directorio;
+    private final Map<Long, ProfilingSession> sesiones = new LinkedHashMap<>();
+    private long siguienteId = 1;
+
+    /**
+     * @param properties Propiedades {@code shopcard.profiling}
+     */
+    public JfrProfiler(ProfilingProperties properties) {
+        this.properties = properties;
+        this.directorio = Path.of(properties.getDirectory());
+    }
+
+    /**
+     * Inicia una grabación.
+     *
+     * @param perfil Nombre del perfil: cpu, alloc, locks o jdbc
+     * @param duracionSegundos Duración, o null para la de por defecto
+     * @return Grabación iniciada
+     * @throws InvalidRequestException Si el perfil no existe o la duración está fuera de rango
+     * @throws RecordNotFoundException Si el perfilado está desactivado
+     * @throws ConflictException Si ya hay una grabación en curso
+     */
+    public synchronized ProfilingSession start(String perfil, Integer duracionSegundos) {
+        comprobarActivado();
+        ProfilePreset preset = ProfilePreset.parse(perfil);
+        if (preset == null) {
+            throw new InvalidRequestException("Perfil no válido: " + perfil + ". Valores posibles: cpu, alloc, locks, jdbc");
+        }
+        int duracion = duracionSegundos != null ? duracionSegundos : properties.getDefaultDurationSeconds();
+        if (duracion < 1 || duracion > properties.getMaxDurationSeconds()) {
+            throw new InvalidRequestException("La duración debe estar entre 1 y " + properties.getMaxDurationSeconds() + " segundos");
+        }
+        if (!FlightRecorder.isAvailable()) {
+            throw new ConflictException("Java Flight Recorder no está disponible en esta JVM");
+        }
+        ProfilingSession enCurso = current();
+        if (enCurso != null) {
+            throw new ConflictException("Ya hay una grabación en curso: " + enCurso.getId());
+        }
+        if (preset == ProfilePreset.JDBC) {
+            FlightRecorder.register(JdbcStatementEvent.class);
+        }
+
+        long id = siguienteId++;
+        Path fichero = directorio.resolve("shopcard-" + id + "-" + preset.name().toLowerCase(Locale.ROOT) + ".jfr");
+        Recording recording = new Recording();
+        try {
+            Files.createDirectories(directorio);
+            recording.setName("shopcard-" + id);
+            recording.setSettings(preset.getSettings());
+            recording.setToDisk(true);
+            recording.setDestination(fichero);
+            recording.setDuration(Duration.ofSeconds(duracion));
+            recording.start();
+        } catch (IOException e) {
+            recording.close();
+            throw new UncheckedIOException(e);
+        }
+        ProfilingSession sesion = new ProfilingSession(id, preset, duracion, fichero, recording);
+        sesiones.put(id, sesion);
+        prune();
+        log.info("Grabación JFR {} iniciada: perfil {}, {} s, {}", id, sesion.getPerfil(), duracion, fichero.toAbsolutePath());
+        return sesion;
+    }
+
+    /**
+     * Detiene la grabación en curso antes de su plazo.
+     *
+     * @return Grabación detenida
+     * @throws RecordNotFoundException Si el perfilado está desactivado
+     * @throws ConflictException Si no hay ninguna en curso
+     */
+    public synchronized ProfilingSession stop() {
+        comprobarActivado();
+        ProfilingSession enCurso = current();
+        if (enCurso == null) {
+            throw new ConflictException("No hay ninguna grabación en curso");
+        }
+        enCurso.stop();
+        return enCurso;
+    }
+
+    /**
+     * @return Grabaciones conservadas, de la más reciente a la más antigua
+     * @throws RecordNotFoundException Si el perfilado está desactivado
+     */
+    public synchronized List<ProfilingSession> list() {
+        comprobarActivado();
+        sesiones.values().forEach(ProfilingSession::closeIfStopped);
+        List<ProfilingSession> result = new ArrayList<>(sesiones.values());
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * @param id Identificador de la grabación
+     * @return Grabación
+     * @throws RecordNotFoundException Si no existe, ya se ha borrado o el perfilado está desactivado
+     */
+    public synchronized ProfilingSession get(long id) {
+        comprobarActivado();
+        ProfilingSession sesion = sesiones.get(id);
+        if (sesion == null) {
+            throw new RecordNotFoundException("Grabación no encontrada para el ID", id);
+        }
+        sesion.closeIfStopped();
+        return sesion;
+    }
+
+    /**
+     * @param id Identificador de la grabación
+     * @return Fichero {@code .jfr} de una grabación terminada
+     * @throws ConflictException Si la grabación sigue en curso
+     */
+    public Path file(long id) {
+        ProfilingSession sesion = finished(id);
+        return sesion.fichero();
+    }
+
+    /**
+     * Resume una grabación terminada: marcos de la aplicación con más muestras de CPU, sitios de
+     * asignación, esperas en locks y sentencias JDBC, según el perfil.
+     *
+     * @param id Identificador de la grabación
+     * @return Resumen en texto
+     * @throws ConflictException Si la grabación sigue en curso
+     */
+    public String summary(long id) {
+        ProfilingSession sesion = finished(id);
+        String resumen = sesion.resumen();
+        if (resumen == null) {
+            try {
+                resumen = RecordingSummary.of(sesion.fichero(), sesion.preset(), properties.getTop());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            sesion.resumen(resumen);
+        }
+        return resumen;
+    }
+
+    private ProfilingSession finished(long id) {
+        ProfilingSession sesion = get(id);
+        if (sesion.isRunning()) {
+            throw new ConflictException("La grabación " + id + " sigue en curso");
+        }
+        if (!Files.exists(sesion.fichero())) {
+            throw new RecordNotFoundException("El fichero de la grabación ya no existe", sesion.getFichero());
+        }
+        return sesion;
+    }
+
+    private void comprobarActivado() {
+        if (!properties.isEnabled()) {
+            throw new RecordNotFoundException("El perfilado está desactivado", "shopcard.profiling.enabled=false");
+        }
+    }
+
+    private ProfilingSession current() {
+        for (ProfilingSession sesion : sesiones.values()) {
+            if (sesion.isRunning()) {
+                return sesion;
+            }
+        }
+        return null;
+    }
+
+    private void prune() {
+        Iterator<ProfilingSession> it = sesiones.values().iterator();
+        int sobrantes = sesiones.size() - Math.max(1, properties.getKeep());
+        while (sobrantes > 0 && it.hasNext()) {
+            ProfilingSession sesion = it.next();
+            if (sesion.isRunning()) {
+                continue;
+            }
+            sesion.closeIfStopped();
+            try {
+                Files.deleteIfExists(sesion.fichero());
+            } catch (IOException e) {
+                log.warn("No se ha podido borrar la grabación {}: {}", sesion.fichero(), e.toString());
+            }
+            it.remove();
+            sobrantes--;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        sesiones.values().forEach(ProfilingSession::stop);
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.dangelcrack.shopcard.profiling;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Conjuntos de eventos JFR que se pueden grabar desde el endpoint de administración. Cada uno
+ * activa solo lo necesario para su resumen, de modo que la grabación cueste poco en producción.
+ */
+public enum ProfilePreset {
+
+    /**
+     * Muestreo de pilas de ejecución cada 10 ms.
+     */
+    CPU(Map.of(
+            "jdk.ExecutionSample#enabled", "true",
+            "jdk.ExecutionSample#period", "10 ms")),
+
+    /**
+     * Muestras de asignación de memoria (limitadas a 300 por segundo) y pausas del recolector.
+     */
+    ALLOC(Map.of(
+            "jdk.ObjectAllocationSample#enabled", "true",
+            "jdk.ObjectAllocationSample#throttle", "300/s",
+            "jdk.ObjectAllocationSample#stackTrace", "true",
+            "jdk.GarbageCollection#enabled", "true")),
+
+    /**
+     * Esperas de más de 1 ms en monitores ({@code synchronized}) y en {@code LockSupport.park}.
+     */
+    LOCKS(Map.of(
+            "jdk.JavaMonitorEnter#enabled", "true",
+            "jdk.JavaMonitorEnter#threshold", "1 ms",
+            "jdk.JavaMonitorEnter#stackTrace", "true",
+            "jdk.ThreadPark#enabled", "true",
+            "jdk.ThreadPark#threshold", "1 ms",
+            "jdk.ThreadPark#stackTrace", "true")),
+
+    /**
+     * Sentencias JDBC ({@link JdbcStatementEvent}) y lecturas de socket de más de 1 ms.
+     */
+    JDBC(Map.of(
+            JdbcStatementEvent.NAME + "#enabled", "true",
+            JdbcStatementEvent.NAME + "#stackTrace", "true",
+            "jdk.SocketRead#enabled", "true",
+            "jdk.SocketRead#threshold", "1 ms",
+            "jdk.SocketRead#stackTrace", "true"));
+
+    private final Map<String, String> settings;
+
+    ProfilePreset(Map<String, String> settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * @return Ajustes de JFR ({@code evento#opción} → valor)
+     */
+    public Map<String, String> getSettings() {
+        return new LinkedHashMap<>(settings);
+    }
+
+    /**
+     * @param nombre Nombre del perfil, sin distinguir mayúsculas
+     * @return Perfil, o null si no existe
+     */
+    public static ProfilePreset parse(String nombre) {
+        for (ProfilePreset preset : values()) {
+            if (preset.name().equals(nombre.toUpperCase(Locale.ROOT))) {
+                return preset;
+            }
+        }
+        return null;
+    }
+}
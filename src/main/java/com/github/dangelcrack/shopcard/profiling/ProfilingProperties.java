@@ -0,0 +1,53 @@
+package com.github.dangelcrack.shopcard.profiling;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Grabaciones de Java Flight Recorder bajo demanda (prefijo {@code shopcard.profiling}).
+ */
+@ConfigurationProperties(prefix = "shopcard.profiling")
+public class ProfilingProperties {
+
+    /**
+     * Si es false el endpoint de administración responde 404 a todas las operaciones.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Directorio donde se guardan los ficheros {@code .jfr}.
+     */
+    private String directory = "recordings";
+
+    /**
+     * Duración de una grabación si no se indica otra.
+     */
+    private int defaultDurationSeconds = 30;
+
+    /**
+     * Duración máxima que se puede pedir.
+     */
+    private int maxDurationSeconds = 300;
+
+    /**
+     * Grabaciones que se conservan; al superarse se borran las más antiguas.
+     */
+    private int keep = 10;
+
+    /**
+     * Entradas de cada tabla del resumen.
+     */
+    private int top = 15;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public String getDirectory() { return directory; }
+    public void setDirectory(String directory) { this.directory = directory; }
+    public int getDefaultDurationSeconds() { return defaultDurationSeconds; }
+    public void setDefaultDurationSeconds(int defaultDurationSeconds) { this.defaultDurationSeconds = defaultDurationSeconds; }
+    public int getMaxDurationSeconds() { return maxDurationSeconds; }
+    public void setMaxDurationSeconds(int maxDurationSeconds) { this.maxDurationSeconds = maxDurationSeconds; }
+    public int getKeep() { return keep; }
+    public void setKeep(int keep) { this.keep = keep; }
+    public int getTop() { return top; }
+    public void setTop(int top) { this.top = top; }
+}
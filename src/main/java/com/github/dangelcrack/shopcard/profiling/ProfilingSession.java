@@ -0,0 +1,85 @@
+package com.github.dangelcrack.shopcard.profiling;
+
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Grabación JFR lanzada desde el endpoint de administración.
+ */
+public final class ProfilingSession {
+
+    private final long id;
+    private final ProfilePreset perfil;
+    private final Instant inicio;
+    private final int duracionSegundos;
+    private final Path fichero;
+    private final Recording recording;
+    private volatile RecordingState estadoFinal;
+    private volatile String resumen;
+
+    ProfilingSession(long id, ProfilePreset perfil, int duracionSegundos, Path fichero, Recording recording) {
+        this.id = id;
+        this.perfil = perfil;
+        this.inicio = Instant.now();
+        this.duracionSegundos = duracionSegundos;
+        this.fichero = fichero;
+        this.recording = recording;
+    }
+
+    public long getId() { return id; }
+    public String getPerfil() { return perfil.name().toLowerCase(Locale.ROOT); }
+    public Instant getInicio() { return inicio; }
+    public int getDuracionSegundos() { return duracionSegundos; }
+    public String getFichero() { return fichero.getFileName().toString(); }
+
+    /**
+     * @return Estado de la grabación: RUNNING mientras graba, STOPPED o CLOSED al terminar
+     */
+    public String getEstado() {
+        RecordingState estado = estadoFinal;
+        return (estado != null ? estado : recording.getState()).name();
+    }
+
+    /**
+     * @return Tamaño del fichero en bytes, o 0 si aún no se ha escrito
+     */
+    public long getBytes() {
+        try {
+            return Files.exists(fichero) ? Files.size(fichero) : 0;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    boolean isRunning() {
+        return estadoFinal == null && recording.getState() != RecordingState.STOPPED
+                && recording.getState() != RecordingState.CLOSED;
+    }
+
+    /**
+     * Libera los recursos de JFR de una grabación terminada; el fichero se conserva.
+     */
+    void closeIfStopped() {
+        if (estadoFinal == null && !isRunning()) {
+            recording.close();
+            estadoFinal = RecordingState.CLOSED;
+        }
+    }
+
+    void stop() {
+        if (isRunning()) {
+            recording.stop();
+        }
+        closeIfStopped();
+    }
+
+    ProfilePreset preset() { return perfil; }
+    Path fichero() { return fichero; }
+    String resumen() { return resumen; }
+    void resumen(String resumen) { this.resumen = resumen; }
+}
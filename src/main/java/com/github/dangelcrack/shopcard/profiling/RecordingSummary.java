@@ -0,0 +1,182 @@
+package com.github.dangelcrack.shopcard.profiling;
+
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Resumen en texto de una grabación JFR centrado en el código de la aplicación.
+ *
+ * <p>Cada evento se atribuye al primer marco de su pila que pertenece a
+ * {@code com.github.dangelcrack.shopcard}: la línea de la aplicación desde la que se llegó a la
+ * librería (Hibernate, Jackson, el driver...) que consumió el tiempo o la memoria. Los eventos
+ * sin ningún marco propio se agrupan en {@code (fuera de la aplicación)}, o en
+ * {@code (pila truncada...)} si JFR cortó la pila antes (64 marcos por defecto; se amplía con
+ * {@code -XX:FlightRecorderOptions:stackdepth=256}). Las sentencias JDBC se agrupan además por
+ * método de repositorio y por ruta. El fichero se lee en streaming, sin cargar todos los eventos
+ * a la vez.</p>
+ */
+final class RecordingSummary {
+
+    private static final String PAQUETE = "com.github.dangelcrack.shopcard.";
+    private static final String FUERA = "(fuera de la aplicación)";
+    private static final String TRUNCADA = "(pila truncada antes de llegar a la aplicación)";
+
+    private final Tabla cpu = new Tabla("Muestras de CPU por marco de la aplicación", "muestras");
+    private final Tabla cpuSelf = new Tabla("Muestras de CPU por marco superior (cualquier paquete)", "muestras");
+    private final Tabla asignaciones = new Tabla("Asignaciones por marco de la aplicación", "bytes");
+    private final Tabla tiposAsignados = new Tabla("Asignaciones por tipo", "bytes");
+    private final Tabla bloqueos = new Tabla("Espera en monitores y locks por marco de la aplicación", "µs");
+    private final Tabla monitores = new Tabla("Espera por clase del monitor", "µs");
+    private final Tabla jdbcRuta = new Tabla("Sentencias JDBC por ruta HTTP", "µs");
+    private final Tabla jdbc = new Tabla("Sentencias JDBC por texto", "µs");
+    private final Tabla jdbcOrigen = new Tabla("Sentencias JDBC por método de repositorio", "µs");
+    private final Tabla socket = new Tabla("Lecturas de socket por marco de la aplicación", "µs");
+    private long gcPausas;
+    private Duration gcTotal = Duration.ZERO;
+
+    private RecordingSummary() {
+    }
+
+    /**
+     * @param file Fichero {@code .jfr}
+     * @param preset Perfil con el que se grabó, para la cabecera
+     * @param top Entradas de cada tabla
+     * @return Resumen en texto
+     */
+    static String of(Path file, ProfilePreset preset, int top) throws IOException {
+        RecordingSummary summary = new RecordingSummary();
+        try (RecordingFile recording = new RecordingFile(file)) {
+            while (recording.hasMoreEvents()) {
+                summary.accept(recording.readEvent());
+            }
+        }
+        return summary.format(preset, top);
+    }
+
+    private void accept(RecordedEvent event) {
+        switch (event.getEventType().getName()) {
+            case "jdk.ExecutionSample" -> {
+                cpu.add(appFrame(event.getStackTrace()), 1);
+                cpuSelf.add(topFrame(event.getStackTrace()), 1);
+            }
+            case "jdk.ObjectAllocationSample" -> {
+                long peso = event.getLong("weight");
+                asignaciones.add(appFrame(event.getStackTrace()), peso);
+                RecordedClass tipo = event.getClass("objectClass");
+                tiposAsignados.add(tipo != null ? tipo.getName() : "?", peso);
+            }
+            case "jdk.JavaMonitorEnter", "jdk.ThreadPark" -> {
+                long us = micros(event);
+                bloqueos.add(appFrame(event.getStackTrace()), us);
+                RecordedClass monitor = event.getEventType().getName().equals("jdk.JavaMonitorEnter")
+                        ? event.getClass("monitorClass") : event.getClass("parkedClass");
+                monitores.add(monitor != null ? monitor.getName() : "(park sin objeto)", us);
+            }
+            case JdbcStatementEvent.NAME -> {
+                long us = micros(event);
+                String sql = event.getString("sql");
+                String repositorio = event.getString("repositorio");
+                String ruta = event.getString("ruta");
+                jdbc.add(sql != null && sql.length() > 160 ? sql.substring(0, 160) + "…" : String.valueOf(sql), us);
+                jdbcOrigen.add(repositorio != null ? repositorio : appFrame(event.getStackTrace()), us);
+                jdbcRuta.add(ruta != null ? ruta : FUERA, us);
+            }
+            case "jdk.SocketRead" -> socket.add(appFrame(event.getStackTrace()), micros(event));
+            case "jdk.GarbageCollection" -> {
+                gcPausas++;
+                gcTotal = gcTotal.plus(event.getDuration("sumOfPauses"));
+            }
+            default -> {
+            }
+        }
+    }
+
+    private String format(ProfilePreset preset, int top) {
+        StringBuilder out = new StringBuilder();
+        out.append("Perfil: ").append(preset.name().toLowerCase(Locale.ROOT)).append('\n');
+        for (Tabla tabla : List.of(cpu, cpuSelf, asignaciones, tiposAsignados, bloqueos, monitores, jdbc, jdbcOrigen, jdbcRuta, socket)) {
+            tabla.format(out, top);
+        }
+        if (gcPausas > 0) {
+            out.append("\n== Recolección de basura\n")
+                    .append(gcPausas).append(" recolecciones, ").append(gcTotal.toMillis()).append(" ms en pausas\n");
+        }
+        return out.toString();
+    }
+
+    private static long micros(RecordedEvent event) {
+        return event.getDuration().toNanos() / 1000;
+    }
+
+    private static String appFrame(RecordedStackTrace stack) {
+        if (stack == null) {
+            return FUERA;
+        }
+        for (RecordedFrame frame : stack.getFrames()) {
+            String clase = frame.getMethod().getType().getName();
+            // Los proxies CGLIB y los marcos de este paquete no dicen nada sobre el código de negocio
+            if (clase.startsWith(PAQUETE) && !clase.contains("$$") && !clase.startsWith(PAQUETE + "profiling.")
+                    && !clase.startsWith(PAQUETE + "slowquery.") && !clase.startsWith(PAQUETE + "tracing.")) {
+                return label(frame);
+            }
+        }
+        return stack.isTruncated() ? TRUNCADA : FUERA;
+    }
+
+    private static String topFrame(RecordedStackTrace stack) {
+        return stack == null || stack.getFrames().isEmpty() ? "?" : label(stack.getFrames().get(0));
+    }
+
+    private static String label(RecordedFrame frame) {
+        String clase = frame.getMethod().getType().getName();
+        return clase.substring(clase.lastIndexOf('.') + 1) + "." + frame.getMethod().getName()
+                + (frame.getLineNumber() > 0 ? ":" + frame.getLineNumber() : "");
+    }
+
+    /**
+     * Acumulado por clave con su número de eventos.
+     */
+    private static final class Tabla {
+        private final String titulo;
+        private final String unidad;
+        private final Map<String, long[]> valores = new HashMap<>();
+        private long total;
+
+        Tabla(String titulo, String unidad) {
+            this.titulo = titulo;
+            this.unidad = unidad;
+        }
+
+        void add(String clave, long valor) {
+            long[] v = valores.computeIfAbsent(clave, k -> new long[2]);
+            v[0] += valor;
+            v[1]++;
+            total += valor;
+        }
+
+        void format(StringBuilder out, int top) {
+            if (valores.isEmpty()) {
+                return;
+            }
+            out.append("\n== ").append(titulo).append(" (total ").append(total).append(' ').append(unidad).append(")\n");
+            valores.entrySet().stream()
+                    .sorted(Comparator.comparingLong((Map.Entry<String, long[]> e) -> e.getValue()[0]).reversed())
+                    .limit(top)
+                    .forEach(e -> out.append(String.format(Locale.ROOT, "%6.1f%%  %12d %-8s %7d ev  %s%n",
+                            total > 0 ? 100.0 * e.getValue()[0] / total : 0, e.getValue()[0], unidad,
+                            e.getValue()[1], e.getKey())));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.dangelcrack.shopcard.querycount;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cuenta las sentencias SQL y las entidades cargadas por cada petición HTTP.
+ *
+ * <p>Las peticiones que superan el presupuesto se registran con nivel WARN junto con las
+ * sentencias repetidas (posibles N+1). Los recuentos se publican además como
+ * {@code shopcard.http.sql.statements} y {@code shopcard.http.entity.loads}, por plantilla de URI.</p>
+ */
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryCountFilter.class);
+
+    private final QueryCountProperties properties;
+    private final MeterRegistry registry;
+
+    /**
+     * @param properties Propiedades {@code shopcard.query-count}
+     * @param registry Registro de métricas
+     */
+    public QueryCountFilter(QueryCountProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryCounter.Scope scope = QueryCounter.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            scope.close();
+            report(request, scope);
+        }
+    }
+
+    private void report(HttpServletRequest request, QueryCounter.Scope scope) {
+        QueryCounts counts = scope.counts();
+        Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = patron != null ? patron.toString() : "UNKNOWN";
+        DistributionSummary.builder("shopcard.http.sql.statements")
+                .tag("method", request.getMethod()).tag("uri", uri)
+                .register(registry).record(counts.statements());
+        DistributionSummary.builder("shopcard.http.entity.loads")
+                .tag("method", request.getMethod()).tag("uri", uri)
+                .register(registry).record(counts.entityLoads());
+
+        if (counts.statements() > properties.getBudget()) {
+            List<Map.Entry<String, Long>> repetidas = scope.repetidas(properties.getRepeatedThreshold());
+            StringBuilder detalle = new StringBuilder();
+            for (Map.Entry<String, Long> e : repetidas) {
+                detalle.append("\n  ").append(e.getValue()).append(" x ").append(e.getKey());
+            }
+            log.warn("{} {} ejecutó {} sentencias SQL (presupuesto {}) y cargó {} entidades{}{}",
+                    request.getMethod(), request.getRequestURI(), counts.statements(), properties.getBudget(),
+                    counts.entityLoads(), repetidas.isEmpty() ? "" : "; sentencias repetidas (posible N+1):", detalle);
+        }
+    }
+}
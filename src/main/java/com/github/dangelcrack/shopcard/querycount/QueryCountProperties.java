@@ -0,0 +1,33 @@
+package com.github.dangelcrack.shopcard.querycount;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Presupuesto de sentencias SQL por petición (prefijo {@code shopcard.query-count}).
+ */
+@ConfigurationProperties(prefix = "shopcard.query-count")
+public class QueryCountProperties {
+
+    /**
+     * Si es false no se cuentan las sentencias por petición.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Sentencias a partir de las cuales se registra un aviso con la petición.
+     */
+    private int budget = 20;
+
+    /**
+     * Repeticiones de una misma sentencia en una petición a partir de las cuales se señala como
+     * posible N+1.
+     */
+    private int repeatedThreshold = 5;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public int getBudget() { return budget; }
+    public void setBudget(int budget) { this.budget = budget; }
+    public int getRepeatedThreshold() { return repeatedThreshold; }
+    public void setRepeatedThreshold(int repeatedThreshold) { this.repeatedThreshold = repeatedThreshold; }
+}
@@ -0,0 +1,106 @@
+package com.github.dangelcrack.shopcard.querycount;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cuenta las sentencias SQL y las cargas de entidades que hace Hibernate dentro de un ámbito,
+ * normalmente una petición HTTP ({@link QueryCountFilter}) o un bloque de un test.
+ *
+ * <p>El ámbito activo se guarda en un {@link InheritableThreadLocal}: las subtareas que se lanzan
+ * en hilos virtuales durante la petición (como las de {@code ProductoPageService}) cuentan en la
+ * petición que las creó. Los ámbitos se pueden anidar y cada sentencia cuenta en todos los
+ * ámbitos abiertos.</p>
+ *
+ * <p>Además del total, se agrupan las sentencias por texto SQL: la misma consulta repetida muchas
+ * veces en una petición es el síntoma de un N+1.</p>
+ */
+public final class QueryCounter {
+
+    private static final InheritableThreadLocal<Scope> ACTUAL = new InheritableThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    /**
+     * Abre un ámbito de recuento en el hilo actual.
+     *
+     * @return Ámbito abierto; se debe cerrar en el mismo hilo
+     */
+    public static Scope begin() {
+        Scope scope = new Scope(ACTUAL.get());
+        ACTUAL.set(scope);
+        return scope;
+    }
+
+    static void statement(String sql) {
+        for (Scope s = ACTUAL.get(); s != null; s = s.parent) {
+            if (!s.closed) {
+                s.statements.incrementAndGet();
+                s.porSql.computeIfAbsent(sql, k -> new LongAdder()).increment();
+            }
+        }
+    }
+
+    static void entityLoad() {
+        for (Scope s = ACTUAL.get(); s != null; s = s.parent) {
+            if (!s.closed) {
+                s.entityLoads.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Ámbito de recuento.
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private final AtomicInteger statements = new AtomicInteger();
+        private final AtomicInteger entityLoads = new AtomicInteger();
+        private final Map<String, LongAdder> porSql = new ConcurrentHashMap<>();
+        private volatile boolean closed;
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        /**
+         * @return Recuento hasta el momento
+         */
+        public QueryCounts counts() {
+            return new QueryCounts(statements.get(), entityLoads.get());
+        }
+
+        /**
+         * @param umbral Número mínimo de repeticiones
+         * @return Sentencias ejecutadas al menos {@code umbral} veces, de más a menos repetida
+         */
+        public List<Map.Entry<String, Long>> repetidas(int umbral) {
+            return porSql.entrySet().stream()
+                    .map(e -> Map.entry(e.getKey(), e.getValue().sum()))
+                    .filter(e -> e.getValue() >= umbral)
+                    .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                    .toList();
+        }
+
+        /**
+         * Cierra el ámbito y devuelve el hilo al ámbito exterior.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            if (ACTUAL.get() == this) {
+                if (parent == null) {
+                    ACTUAL.remove();
+                } else {
+                    ACTUAL.set(parent);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.dangelcrack.shopcard.querycount;
+
+import org.hibernate.Interceptor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+
+/**
+ * Engancha {@link QueryCounter} a Hibernate: como {@link StatementInspector} ve cada sentencia SQL
+ * antes de prepararla, y como {@link Interceptor} cada entidad cargada. No modifica ni la sentencia
+ * ni la entidad.
+ *
+ * <p>Las sentencias de {@code JdbcTemplate} no pasan por Hibernate y no se cuentan.</p>
+ */
+public class QueryCountingInspector implements StatementInspector, Interceptor {
+
+    @Override
+    public String inspect(String sql) {
+        QueryCounter.statement(sql);
+        return sql;
+    }
+
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        QueryCounter.entityLoad();
+        return false;
+    }
+}
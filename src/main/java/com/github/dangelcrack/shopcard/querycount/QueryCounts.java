@@ -0,0 +1,10 @@
+package com.github.dangelcrack.shopcard.querycount;
+
+/**
+ * Recuento de un ámbito de {@link QueryCounter}.
+ *
+ * @param statements Sentencias SQL preparadas por Hibernate
+ * @param entityLoads Entidades cargadas (hidratadas) desde resultados de consultas
+ */
+public record QueryCounts(int statements, int entityLoads) {
+}
@@ -0,0 +1,157 @@
+package com.github.dangelcrack.shopcard.recommendations;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fotografía compacta del catálogo usada para calcular cartas relacionadas.
+ *
+ * <p>Todo se guarda en arrays primitivos indexados por posición (no por id) para que un
+ * catálogo de millones de productos quepa en unas decenas de megas y se recorra sin crear
+ * objetos. Contiene:</p>
+ * <ul>
+ *     <li>Los atributos de cada producto (colección, rareza, categoría y precio).</li>
+ *     <li>Dos ordenaciones de las posiciones: por (colección, precio) y por (categoría, rareza, precio),
+ *     con el rango de cada grupo, para encontrar vecinos de precio dentro del mismo grupo.</li>
+ *     <li>La relación producto-cliente de las valoraciones en formato CSR, en ambos sentidos.</li>
+ * </ul>
+ */
+final class CatalogSnapshot {
+
+    final int size;
+    final int[] ids;
+    final int[] coleccion;
+    final int[] rareza;
+    final int[] categoria;
+    final double[] precio;
+
+    /** Posiciones ordenadas por (colección, precio); rank y rango del grupo de cada posición. */
+    final int[] porColeccion;
+    final int[] rankColeccion;
+    final int[] inicioColeccion;
+    final int[] finColeccion;
+
+    /** Posiciones ordenadas por (categoría, rareza, precio); rank y rango del grupo de cada posición. */
+    final int[] porCategoriaRareza;
+    final int[] rankCategoriaRareza;
+    final int[] inicioCategoriaRareza;
+    final int[] finCategoriaRareza;
+
+    /** Clientes que han valorado cada producto (CSR: offsets de tamaño size + 1). */
+    final int[] clientesOffsets;
+    final int[] clientes;
+    /** Productos valorados por cada cliente (CSR). */
+    final int[] productosOffsets;
+    final int[] productos;
+
+    private final Map<Integer, Integer> posicionPorId;
+
+    CatalogSnapshot(int[] ids, int[] coleccion, int[] rareza, int[] categoria, double[] precio,
+                    int[] parProducto, int[] parCliente, int numClientes) {
+        this.size = ids.length;
+        this.ids = ids;
+        this.coleccion = coleccion;
+        this.rareza = rareza;
+        this.categoria = categoria;
+        this.precio = precio;
+
+        this.posicionPorId = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            posicionPorId.put(ids[i], i);
+        }
+
+        this.porColeccion = sortedPositions((a, b) -> {
+            int c = Integer.compare(coleccion[a], coleccion[b]);
+            return c != 0 ? c : Double.compare(precio[a], precio[b]);
+        });
+        this.rankColeccion = new int[size];
+        this.inicioColeccion = new int[size];
+        this.finColeccion = new int[size];
+        computeGroups(porColeccion, rankColeccion, inicioColeccion, finColeccion,
+                (a, b) -> coleccion[a] == coleccion[b]);
+
+        this.porCategoriaRareza = sortedPositions((a, b) -> {
+            int c = Integer.compare(categoria[a], categoria[b]);
+            if (c != 0) return c;
+            c = Integer.compare(rareza[a], rareza[b]);
+            return c != 0 ? c : Double.compare(precio[a], precio[b]);
+        });
+        this.rankCategoriaRareza = new int[size];
+        this.inicioCategoriaRareza = new int[size];
+        this.finCategoriaRareza = new int[size];
+        computeGroups(porCategoriaRareza, rankCategoriaRareza, inicioCategoriaRareza, finCategoriaRareza,
+                (a, b) -> categoria[a] == categoria[b] && rareza[a] == rareza[b]);
+
+        // Pares (producto, cliente) -> CSR en ambos sentidos
+        int pares = 0;
+        int[] productoPos = new int[parProducto.length];
+        for (int i = 0; i < parProducto.length; i++) {
+            Integer pos = posicionPorId.get(parProducto[i]);
+            productoPos[i] = pos == null ? -1 : pos;
+            if (pos != null) pares++;
+        }
+        this.clientesOffsets = new int[size + 1];
+        this.productosOffsets = new int[numClientes + 1];
+        for (int i = 0; i < productoPos.length; i++) {
+            if (productoPos[i] < 0) continue;
+            clientesOffsets[productoPos[i] + 1]++;
+            productosOffsets[parCliente[i] + 1]++;
+        }
+        for (int i = 0; i < size; i++) clientesOffsets[i + 1] += clientesOffsets[i];
+        for (int i = 0; i < numClientes; i++) productosOffsets[i + 1] += productosOffsets[i];
+        this.clientes = new int[pares];
+        this.productos = new int[pares];
+        int[] nextCliente = Arrays.copyOf(clientesOffsets, size);
+        int[] nextProducto = Arrays.copyOf(productosOffsets, numClientes);
+        for (int i = 0; i < productoPos.length; i++) {
+            int p = productoPos[i];
+            if (p < 0) continue;
+            int c = parCliente[i];
+            clientes[nextCliente[p]++] = c;
+            productos[nextProducto[c]++] = p;
+        }
+    }
+
+    /**
+     * @param id Identificador de producto
+     * @return Posición del producto en la fotografía, o -1 si no está
+     */
+    int positionOf(int id) {
+        Integer pos = posicionPorId.get(id);
+        return pos == null ? -1 : pos;
+    }
+
+    private int[] sortedPositions(IntComparator comparator) {
+        Integer[] boxed = new Integer[size];
+        for (int i = 0; i < size; i++) boxed[i] = i;
+        Arrays.parallelSort(boxed, comparator::compare);
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) result[i] = boxed[i];
+        return result;
+    }
+
+    private static void computeGroups(int[] orden, int[] rank, int[] inicio, int[] fin, SameGroup sameGroup) {
+        int start = 0;
+        for (int i = 0; i <= orden.length; i++) {
+            if (i == orden.length || (i > start && !sameGroup.test(orden[start], orden[i]))) {
+                for (int j = start; j < i; j++) {
+                    rank[orden[j]] = j;
+                    inicio[orden[j]] = start;
+                    fin[orden[j]] = i;
+                }
+                start = i;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface IntComparator {
+        int compare(int a, int b);
+    }
+
+    @FunctionalInterface
+    private interface SameGroup {
+        boolean test(int a, int b);
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.dangelcrack.shopcard.recommendations;
+
+import java.util.Arrays;
+
+/**
+ * Lista creciente de {@code double} primitivos.
+ */
+final class DoubleList {
+
+    private double[] data;
+    private int size;
+
+    DoubleList(int initialCapacity) {
+        this.data = new double[Math.max(4, initialCapacity)];
+    }
+
+    void add(double value) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        data[size++] = value;
+    }
+
+    double[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+}
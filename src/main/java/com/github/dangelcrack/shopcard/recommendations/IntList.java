@@ -0,0 +1,39 @@
+package com.github.dangelcrack.shopcard.recommendations;
+
+import java.util.Arrays;
+
+/**
+ * Lista creciente de enteros primitivos, para cargar datos sin pasar por {@code Integer}.
+ */
+final class IntList {
+
+    private int[] data;
+    private int size;
+
+    IntList(int initialCapacity) {
+        this.data = new int[Math.max(4, initialCapacity)];
+    }
+
+    void add(int value) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        data[size++] = value;
+    }
+
+    int get(int index) {
+        return data[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+}
@@ -0,0 +1,159 @@
+package com.github.dangelcrack.shopcard.recommendations;
+
+/**
+ * Calcula la lista de cartas relacionadas de un producto dentro de un {@link CatalogSnapshot}.
+ *
+ * <p>Los candidatos salen de tres fuentes baratas de recorrer: las cartas de la misma colección
+ * con precio parecido, las de la misma categoría y rareza con precio parecido y las valoradas
+ * por los mismos clientes. Cada candidato se puntúa sumando:</p>
+ * <ul>
+ *     <li>misma colección, misma rareza y misma categoría (pesos fijos),</li>
+ *     <li>proximidad de precio en escala logarítmica,</li>
+ *     <li>número de clientes que han valorado ambas cartas (saturado).</li>
+ * </ul>
+ *
+ * <p>Las instancias no son seguras entre hilos: cada hilo debe usar la suya, ya que reutilizan
+ * los arrays de trabajo entre productos para no generar basura.</p>
+ */
+final class RelatedProductsCalculator {
+
+    static final float PESO_COLECCION = 3.0f;
+    static final float PESO_RAREZA = 1.0f;
+    static final float PESO_CATEGORIA = 1.0f;
+    static final float PESO_PRECIO = 2.0f;
+    static final float PESO_CO_VALORACION = 0.75f;
+    static final int MAX_CO_VALORACIONES = 4;
+
+    /** Vecinos de precio a cada lado dentro de la misma colección. */
+    static final int VENTANA_COLECCION = 100;
+    /** Vecinos de precio a cada lado dentro de la misma categoría y rareza. */
+    static final int VENTANA_CATEGORIA_RAREZA = 25;
+    /** Clientes con más valoraciones que esto no aportan señal y se ignoran. */
+    static final int MAX_VALORACIONES_POR_CLIENTE = 200;
+    /** Clientes de un producto que se consideran como máximo. */
+    static final int MAX_CLIENTES_POR_PRODUCTO = 50;
+
+    private final int k;
+    private final CatalogSnapshot snapshot;
+    private final int[] coValoraciones;
+    private final int[] marca;
+    private final IntList tocados = new IntList(512);
+    private int epoca;
+
+    private final int[] topPos;
+    private final float[] topScore;
+
+    RelatedProductsCalculator(CatalogSnapshot snapshot, int k) {
+        this.snapshot = snapshot;
+        this.k = k;
+        this.coValoraciones = new int[snapshot.size];
+        this.marca = new int[snapshot.size];
+        this.topPos = new int[k];
+        this.topScore = new float[k];
+    }
+
+    /**
+     * @param p Posición del producto en la fotografía
+     * @return Ids de las cartas relacionadas, de más a menos parecida
+     */
+    int[] compute(int p) {
+        CatalogSnapshot s = snapshot;
+        epoca++;
+        tocados.clear();
+
+        addWindow(p, s.porColeccion, s.rankColeccion[p], s.inicioColeccion[p], s.finColeccion[p], VENTANA_COLECCION);
+        addWindow(p, s.porCategoriaRareza, s.rankCategoriaRareza[p], s.inicioCategoriaRareza[p],
+                s.finCategoriaRareza[p], VENTANA_CATEGORIA_RAREZA);
+
+        int clientesFin = Math.min(s.clientesOffsets[p + 1], s.clientesOffsets[p] + MAX_CLIENTES_POR_PRODUCTO);
+        for (int i = s.clientesOffsets[p]; i < clientesFin; i++) {
+            int c = s.clientes[i];
+            int desde = s.productosOffsets[c];
+            int hasta = s.productosOffsets[c + 1];
+            if (hasta - desde > MAX_VALORACIONES_POR_CLIENTE) {
+                continue;
+            }
+            for (int j = desde; j < hasta; j++) {
+                int q = s.productos[j];
+                if (q != p) {
+                    touch(q);
+                    coValoraciones[q]++;
+                }
+            }
+        }
+
+        int encontrados = 0;
+        for (int i = 0; i < tocados.size(); i++) {
+            int q = tocados.get(i);
+            float score = score(p, q);
+            encontrados = offer(q, score, encontrados);
+        }
+
+        int[] result = new int[encontrados];
+        for (int i = 0; i < encontrados; i++) {
+            result[i] = s.ids[topPos[i]];
+        }
+        return result;
+    }
+
+    private void addWindow(int p, int[] orden, int rank, int inicio, int fin, int ventana) {
+        int desde = Math.max(inicio, rank - ventana);
+        int hasta = Math.min(fin, rank + ventana + 1);
+        for (int i = desde; i < hasta; i++) {
+            int q = orden[i];
+            if (q != p) {
+                touch(q);
+            }
+        }
+    }
+
+    private void touch(int q) {
+        if (marca[q] != epoca) {
+            marca[q] = epoca;
+            coValoraciones[q] = 0;
+            tocados.add(q);
+        }
+    }
+
+    private float score(int p, int q) {
+        CatalogSnapshot s = snapshot;
+        float score = 0f;
+        if (s.coleccion[p] == s.coleccion[q]) score += PESO_COLECCION;
+        if (s.rareza[p] == s.rareza[q]) score += PESO_RAREZA;
+        if (s.categoria[p] == s.categoria[q]) score += PESO_CATEGORIA;
+        double a = s.precio[p];
+        double b = s.precio[q];
+        if (a > 0 && b > 0) {
+            score += (float) (PESO_PRECIO / (1.0 + Math.abs(Math.log(a / b))));
+        }
+        score += PESO_CO_VALORACION * Math.min(coValoraciones[q], MAX_CO_VALORACIONES);
+        return score;
+    }
+
+    /**
+     * Inserta el candidato en el top-k (ordenado de mayor a menor puntuación) si entra.
+     * A igual puntuación gana el id menor, para que el resultado sea determinista.
+     */
+    private int offer(int q, float score, int encontrados) {
+        int n = encontrados;
+        if (n == k) {
+            if (!better(q, score, topPos[k - 1], topScore[k - 1])) {
+                return n;
+            }
+            n--;
+        }
+        int i = n;
+        while (i > 0 && better(q, score, topPos[i - 1], topScore[i - 1])) {
+            topPos[i] = topPos[i - 1];
+            topScore[i] = topScore[i - 1];
+            i--;
+        }
+        topPos[i] = q;
+        topScore[i] = score;
+        return n + 1;
+    }
+
+    private boolean better(int q, float score, int otro, float otroScore) {
+        return score > otroScore || (score == otroScore && snapshot.ids[q] < snapshot.ids[otro]);
+    }
+}
@@ -0,0 +1,329 @@
+package com.github.dangelcrack.shopcard.recommendations;
+
+import com.github.dangelcrack.shopcard.events.CatalogChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Índice en memoria de cartas relacionadas ("más de esta colección / cartas parecidas").
+ *
+ * <p>Para cada producto se guarda un {@code int[]} con los ids de sus vecinos, calculado en
+ * segundo plano por {@link RelatedProductsCalculator}. Servir la lista es una lectura de un mapa.</p>
+ *
+ * <p>El índice se mantiene de dos formas:</p>
+ * <ul>
+ *     <li><b>Reconstrucción completa</b> al arrancar y periódicamente: se carga el catálogo entero en
+ *     un {@link CatalogSnapshot} y se recalculan todos los productos en paralelo.</li>
+ *     <li><b>Refresco incremental</b>: los productos afectados por un {@link CatalogChangedEvent}
+ *     se marcan como pendientes y se recalculan cada pocos segundos, junto con los productos de su
+ *     colección, a partir de una fotografía pequeña con solo sus candidatos. Si entre pendientes y
+ *     vecinos de colección pasan de {@code shopcard.related.max-pending} productos (una importación,
+ *     un cambio de precio masivo) se hace una reconstrucción completa, más barata que miles de
+ *     cálculos sueltos.</li>
+ * </ul>
+ *
+ * <p>Una petición nunca calcula: si el producto aún no está en el índice se devuelve una lista
+ * vacía y el cálculo queda para el siguiente refresco.</p>
+ */
+@Component
+public class RelatedProductsIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(RelatedProductsIndex.class);
+
+    private static final int[] VACIO = new int[0];
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int k;
+    private final int maxVecinosColeccion;
+    private final int maxPendientes;
+    private final int hilos;
+
+    private final ConcurrentHashMap<Integer, int[]> vecinos = new ConcurrentHashMap<>();
+    private final Set<Integer> pendientes = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock buildLock = new ReentrantLock();
+    private volatile boolean construido;
+
+    public RelatedProductsIndex(JdbcTemplate jdbcTemplate,
+                                @Value("${shopcard.related.size:12}") int k,
+                                @Value("${shopcard.related.incremental-collection-limit:200}") int maxVecinosColeccion,
+                                @Value("${shopcard.related.max-pending:5000}") int maxPendientes,
+                                @Value("${shopcard.related.build-threads:0}") int hilos) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.k = k;
+        this.maxVecinosColeccion = maxVecinosColeccion;
+        this.maxPendientes = maxPendientes;
+        this.hilos = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Obtiene las cartas relacionadas de un producto. Si el producto aún no está en el índice
+     * (recién creado o índice en construcción) devuelve una lista vacía sin consultar la base de
+     * datos; ver {@link #programarSiFalta(Integer)}.
+     *
+     * @param productoId Identificador del producto
+     * @return Ids de las cartas relacionadas, de más a menos parecida
+     */
+    public int[] getRelated(Integer productoId) {
+        int[] result = vecinos.get(productoId);
+        return result != null ? result : VACIO;
+    }
+
+    /**
+     * Programa el cálculo de un producto existente que no está en el índice. Mientras no haya
+     * terminado la primera reconstrucción no hace nada: ya lo incluirá.
+     *
+     * @param productoId Identificador de un producto que existe
+     */
+    public void programarSiFalta(Integer productoId) {
+        if (construido && !vecinos.containsKey(productoId)) {
+            pendientes.add(productoId);
+        }
+    }
+
+    /**
+     * @return true si ya se ha completado al menos una reconstrucción completa
+     */
+    public boolean isConstruido() {
+        return construido;
+    }
+
+    /**
+     * @return Número de productos con lista de relacionados en memoria
+     */
+    public int size() {
+        return vecinos.size();
+    }
+
+    /**
+     * Marca como pendientes los productos afectados por un cambio en el catálogo.
+     * Se ejecuta tras el commit para no recalcular a partir de datos que podrían deshacerse.
+     *
+     * @param event Cambio en el catálogo
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.tipo() == CatalogChangedEvent.Tipo.PRODUCTO_ELIMINADO) {
+            event.productoIds().forEach(vecinos::remove);
+        }
+        pendientes.addAll(event.productoIds());
+    }
+
+    /**
+     * Lanza la primera reconstrucción en segundo plano para no retrasar el arranque.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        Thread.ofPlatform().daemon().name("related-index-build").start(this::rebuildAll);
+    }
+
+    /**
+     * Reconstruye el índice completo a partir de todo el catálogo.
+     */
+    @Scheduled(cron = "${shopcard.related.rebuild-cron:0 30 4 * * *}")
+    public void rebuildAll() {
+        buildLock.lock();
+        try {
+            rebuild();
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    /**
+     * Recalcula los productos pendientes y los de sus colecciones, o todo el índice si entre unos
+     * y otros pasan de {@code shopcard.related.max-pending}.
+     */
+    @Scheduled(fixedDelayString = "${shopcard.related.refresh-delay-ms:10000}")
+    public void refreshPending() {
+        if (pendientes.isEmpty() || !buildLock.tryLock()) {
+            return;
+        }
+        try {
+            Set<Integer> lote = new LinkedHashSet<>(pendientes);
+            pendientes.removeAll(lote);
+
+            // Cada producto afectado cuesta varias consultas: se cuentan también los vecinos de
+            // colección y se deja de buscar en cuanto se pasa del límite
+            Set<Integer> afectados = new LinkedHashSet<>(lote);
+            for (Integer id : lote) {
+                if (afectados.size() > maxPendientes) {
+                    break;
+                }
+                afectados.addAll(jdbcTemplate.queryForList(
+                        "SELECT o.id FROM productos o JOIN productos p ON o.coleccion_id = p.coleccion_id " +
+                                "WHERE p.id = ? AND o.id <> ? ORDER BY ABS(o.precio - p.precio) LIMIT ?",
+                        Integer.class, id, id, maxVecinosColeccion));
+            }
+            if (afectados.size() > maxPendientes) {
+                // Lo que llegue durante la reconstrucción se queda pendiente para el siguiente refresco
+                log.info("Índice de relacionados: más de {} productos afectados, se reconstruye entero", maxPendientes);
+                rebuild();
+                return;
+            }
+            for (Integer id : afectados) {
+                int[] result = computeIncremental(id);
+                if (result == null) {
+                    vecinos.remove(id);
+                } else {
+                    vecinos.put(id, result);
+                }
+            }
+            log.debug("Índice de relacionados: {} productos recalculados", afectados.size());
+        } catch (RuntimeException e) {
+            log.warn("Fallo en el refresco incremental de relacionados", e);
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    /**
+     * Reconstrucción completa; se llama con {@code buildLock} tomado. El cálculo se reparte en
+     * tramos consecutivos de productos entre {@code shopcard.related.build-threads} hilos propios,
+     * sin ocupar el pool común, y cada tramo usa su propio {@link RelatedProductsCalculator}.
+     */
+    private void rebuild() {
+        try {
+            long start = System.nanoTime();
+            CatalogSnapshot snapshot = loadFullSnapshot();
+            int[][] resultados = compute(snapshot);
+
+            Set<Integer> vigentes = ConcurrentHashMap.newKeySet(snapshot.size);
+            for (int p = 0; p < snapshot.size; p++) {
+                vecinos.put(snapshot.ids[p], resultados[p]);
+                vigentes.add(snapshot.ids[p]);
+            }
+            vecinos.keySet().retainAll(vigentes);
+            construido = true;
+            log.info("Índice de relacionados reconstruido: {} productos en {} ms",
+                    snapshot.size, (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.error("No se pudo reconstruir el índice de relacionados", e);
+        }
+    }
+
+    private int[][] compute(CatalogSnapshot snapshot) {
+        int[][] resultados = new int[snapshot.size][];
+        int tramo = Math.max(1, (snapshot.size + hilos - 1) / hilos);
+        List<Callable<Void>> tareas = new ArrayList<>();
+        for (int desde = 0; desde < snapshot.size; desde += tramo) {
+            int inicio = desde;
+            int fin = Math.min(snapshot.size, desde + tramo);
+            tareas.add(() -> {
+                RelatedProductsCalculator calculator = new RelatedProductsCalculator(snapshot, k);
+                for (int p = inicio; p < fin; p++) {
+                    resultados[p] = calculator.compute(p);
+                }
+                return null;
+            });
+        }
+        try (ExecutorService pool = Executors.newFixedThreadPool(hilos,
+                Thread.ofPlatform().daemon().name("related-index-", 0).factory())) {
+            for (Future<Void> tarea : pool.invokeAll(tareas)) {
+                tarea.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reconstrucción del índice de relacionados interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Fallo al calcular el índice de relacionados", e.getCause());
+        }
+        return resultados;
+    }
+
+    /**
+     * Calcula los relacionados de un único producto cargando solo sus candidatos.
+     *
+     * @return Ids relacionados, o null si el producto no existe
+     */
+    private int[] computeIncremental(Integer productoId) {
+        List<Map<String, Object>> base = jdbcTemplate.queryForList(
+                "SELECT coleccion_id, categoria_id, rareza_id, precio FROM productos WHERE id = ?", productoId);
+        if (base.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> p = base.get(0);
+
+        Set<Integer> candidatos = new LinkedHashSet<>();
+        candidatos.add(productoId);
+        candidatos.addAll(jdbcTemplate.queryForList(
+                "SELECT id FROM productos WHERE coleccion_id = ? ORDER BY ABS(precio - ?) LIMIT ?",
+                Integer.class, p.get("coleccion_id"), p.get("precio"), RelatedProductsCalculator.VENTANA_COLECCION * 2 + 1));
+        candidatos.addAll(jdbcTemplate.queryForList(
+                "SELECT id FROM productos WHERE categoria_id = ? AND rareza_id = ? ORDER BY ABS(precio - ?) LIMIT ?",
+                Integer.class, p.get("categoria_id"), p.get("rareza_id"), p.get("precio"),
+                RelatedProductsCalculator.VENTANA_CATEGORIA_RAREZA * 2 + 1));
+
+        // Pares (producto, cliente) de los clientes que valoraron este producto
+        IntList parProducto = new IntList(256);
+        IntList parCliente = new IntList(256);
+        Map<String, Integer> clientes = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT DISTINCT v2.producto_id, v2.nombre_cliente FROM valoraciones v1 " +
+                        "JOIN valoraciones v2 ON v2.nombre_cliente = v1.nombre_cliente " +
+                        "WHERE v1.producto_id = ? LIMIT 5000",
+                rs -> {
+                    int id = rs.getInt(1);
+                    candidatos.add(id);
+                    parProducto.add(id);
+                    parCliente.add(clientes.computeIfAbsent(rs.getString(2), c -> clientes.size()));
+                }, productoId);
+
+        CatalogSnapshot snapshot = loadSnapshot(
+                "SELECT id, coleccion_id, rareza_id, categoria_id, precio FROM productos WHERE id IN (" +
+                        candidatos.stream().map(String::valueOf).collect(Collectors.joining(",")) + ")",
+                parProducto, parCliente, clientes.size());
+        int pos = snapshot.positionOf(productoId);
+        return pos < 0 ? null : new RelatedProductsCalculator(snapshot, k).compute(pos);
+    }
+
+    private CatalogSnapshot loadFullSnapshot() {
+        IntList parProducto = new IntList(1 << 16);
+        IntList parCliente = new IntList(1 << 16);
+        Map<String, Integer> clientes = new HashMap<>();
+        jdbcTemplate.query("SELECT DISTINCT producto_id, nombre_cliente FROM valoraciones", rs -> {
+            parProducto.add(rs.getInt(1));
+            parCliente.add(clientes.computeIfAbsent(rs.getString(2), c -> clientes.size()));
+        });
+        return loadSnapshot("SELECT id, coleccion_id, rareza_id, categoria_id, precio FROM productos",
+                parProducto, parCliente, clientes.size());
+    }
+
+    private CatalogSnapshot loadSnapshot(String sql, IntList parProducto, IntList parCliente, int numClientes) {
+        IntList ids = new IntList(1024);
+        IntList coleccion = new IntList(1024);
+        IntList rareza = new IntList(1024);
+        IntList categoria = new IntList(1024);
+        DoubleList precio = new DoubleList(1024);
+        jdbcTemplate.query(sql, rs -> {
+            ids.add(rs.getInt(1));
+            coleccion.add(rs.getInt(2));
+            rareza.add(rs.getInt(3));
+            categoria.add(rs.getInt(4));
+            precio.add(rs.getDouble(5));
+        });
+        return new CatalogSnapshot(ids.toArray(), coleccion.toArray(), rareza.toArray(), categoria.toArray(),
+                precio.toArray(), parProducto.toArray(), parCliente.toArray(), numClientes);
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface CategoriasRepository extends JpaRepository<Categoria, Long> {
 
@@ -15,4 +16,7 @@ public interface CategoriasRepository extends JpaRepository<Categoria, Long> {
     List<Categoria> findByNombreContaining(String nombre);
 
     List<Categoria> findByNombreStartingWithIgnoreCase(String nombre);
+
+    @Query("SELECT c.imagenUrl FROM Categoria c WHERE c.id = :id")
+    Optional<String> findImagenUrlById(Long id);
 }
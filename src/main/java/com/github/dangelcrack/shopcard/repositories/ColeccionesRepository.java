@@ -4,6 +4,7 @@ import com.github.dangelcrack.shopcard.models.Colecciones;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import java.util.List;
+import java.util.Optional;
 
 public interface ColeccionesRepository extends JpaRepository<Colecciones, Long> {
     @Query(
@@ -13,4 +14,7 @@ public interface ColeccionesRepository extends JpaRepository<Colecciones, Long>
     List<Colecciones> findByNombreContaining(String nombre);
 
     List<Colecciones> findByNombreStartingWithIgnoreCase(String nombre);
-}
\ No newline at end of file
+
+    @Query("SELECT c.imagenUrl FROM Colecciones c WHERE c.id = :id")
+    Optional<String> findImagenUrlById(Long id);
+}
@@ -0,0 +1,278 @@
+package com.github.dangelcrack.shopcard.repositories;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Escribe listados de productos en JSON directamente desde las filas de la consulta, sin crear
+ * entidades.
+ *
+ * <p>Una sola consulta nativa une el producto con sus cuatro relaciones y sus valoraciones,
+ * ordenada por producto y valoración. El listado se lee por páginas de productos consecutivos
+ * ({@link #leerPagina}), cada una en una transacción corta, y las filas se escriben después en el
+ * {@link JsonGenerator} ({@link #escribirPagina}): un producto se abre en su primera fila y se
+ * cierra al cambiar de id, y la media de valoraciones se acumula por el camino. No pasa nada por
+ * el contexto de persistencia: no hay entidades, proxies, colecciones ni instantáneas.</p>
+ *
+ * <p>La consulta se lanza con Hibernate y no con JDBC a mano para que cuente en el recuento de
+ * sentencias y en las trazas, y para que cada columna se lea con el mismo tipo que en la entidad
+ * (en particular {@code fecha}, cuyo tipo de columna depende del dialecto).</p>
+ *
+ * <p>El JSON es idéntico byte a byte al que Jackson genera para las entidades con la
+ * configuración de la aplicación ({@code default-property-inclusion=non_null}): mismo orden de
+ * propiedades que la declaración de los campos, sin los nulos, fechas ISO-8601 y
+ * {@code ratingPromedio} al final. Si cambian los campos de {@code Producto} o de sus relaciones,
+ * hay que cambiar también esta clase; {@code ProductoJsonStreamTest} lo comprueba.</p>
+ */
+@Repository
+public class ProductoJsonStream {
+
+    /**
+     * Relación por la que se filtran los productos.
+     */
+    public enum Filtro {
+        CATEGORIA("p.categoria_id"),
+        COLECCION("p.coleccion_id");
+
+        private final String columna;
+
+        Filtro(String columna) {
+            this.columna = columna;
+        }
+    }
+
+    private static final String SELECT = """
+            SELECT p.id AS p_id, p.nombre AS p_nombre, p.descripcion AS p_descripcion, p.precio AS p_precio,
+                   p.precio_original AS p_precio_original, p.stock AS p_stock, p.imagen_url AS p_imagen_url,
+                   p.numero_carta AS p_numero_carta,
+                   c.id AS c_id, c.nombre AS c_nombre, c.descripcion AS c_descripcion, c.imagen_url AS c_imagen_url,
+                   co.id AS co_id, co.nombre AS co_nombre, co.fecha_lanzamiento AS co_fecha_lanzamiento,
+                   co.imagen_url AS co_imagen_url, co.descripcion AS co_descripcion, co.codigo AS co_codigo,
+                   r.id AS r_id, r.nombre AS r_nombre, r.color AS r_color,
+                   e.id AS e_id, e.codigo AS e_codigo, e.descripcion AS e_descripcion,
+                   p.fecha_creacion AS p_fecha_creacion,
+                   v.id AS v_id, v.nombre_cliente AS v_nombre_cliente, v.puntuacion AS v_puntuacion,
+                   v.comentario AS v_comentario, v.fecha AS v_fecha
+            FROM productos p
+            JOIN categorias c ON c.id = p.categoria_id
+            JOIN colecciones co ON co.id = p.coleccion_id
+            JOIN rarezas r ON r.id = p.rareza_id
+            JOIN estados_producto e ON e.id = p.estado_id
+            LEFT JOIN valoraciones v ON v.producto_id = p.id
+            """;
+
+    private static final int FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Lee las filas de la siguiente página de productos de una categoría o colección, con todas
+     * sus valoraciones. Debe llamarse dentro de una transacción, cuyo tiempo máximo se aplica a
+     * las dos consultas.
+     *
+     * @param filtro Relación por la que se filtra
+     * @param id ID de la categoría o colección
+     * @param despuesDe Id del último producto de la página anterior, o 0 para la primera
+     * @param productos Número máximo de productos de la página
+     * @return Filas de la página ordenadas por producto y valoración; vacía si no quedan productos
+     */
+    public List<Object[]> leerPagina(Filtro filtro, Integer id, int despuesDe, int productos) {
+        Session session = entityManager.unwrap(Session.class);
+        EntityManagerFactory emf = entityManager.getEntityManagerFactory();
+        // Primero el último id de la página: un LIMIT sobre la consulta con valoraciones cortaría productos
+        NativeQuery<Integer> ids = session.createNativeQuery("SELECT p.id FROM productos p WHERE " + filtro.columna
+                        + " = :id AND p.id > :desde ORDER BY p.id", Integer.class)
+                .setParameter("id", id)
+                .setParameter("desde", despuesDe)
+                .setMaxResults(productos);
+        EntityManagerFactoryUtils.applyTransactionTimeout(ids, emf);
+        List<Integer> pagina = ids.getResultList();
+        if (pagina.isEmpty()) {
+            return List.of();
+        }
+
+        NativeQuery<Object[]> query = session
+                .createNativeQuery(SELECT + "WHERE " + filtro.columna + " = :id AND p.id > :desde AND p.id <= :hasta"
+                        + " ORDER BY p.id, v.id", Object[].class)
+                .addScalar("p_id", StandardBasicTypes.INTEGER)
+                .addScalar("p_nombre", StandardBasicTypes.STRING)
+                .addScalar("p_descripcion", StandardBasicTypes.STRING)
+                .addScalar("p_precio", StandardBasicTypes.BIG_DECIMAL)
+                .addScalar("p_precio_original", StandardBasicTypes.BIG_DECIMAL)
+                .addScalar("p_stock", StandardBasicTypes.INTEGER)
+                .addScalar("p_imagen_url", StandardBasicTypes.STRING)
+                .addScalar("p_numero_carta", StandardBasicTypes.INTEGER)
+                .addScalar("c_id", StandardBasicTypes.INTEGER)
+                .addScalar("c_nombre", StandardBasicTypes.STRING)
+                .addScalar("c_descripcion", StandardBasicTypes.STRING)
+                .addScalar("c_imagen_url", StandardBasicTypes.STRING)
+                .addScalar("co_id", StandardBasicTypes.INTEGER)
+                .addScalar("co_nombre", StandardBasicTypes.STRING)
+                .addScalar("co_fecha_lanzamiento", StandardBasicTypes.LOCAL_DATE)
+                .addScalar("co_imagen_url", StandardBasicTypes.STRING)
+                .addScalar("co_descripcion", StandardBasicTypes.STRING)
+                .addScalar("co_codigo", StandardBasicTypes.STRING)
+                .addScalar("r_id", StandardBasicTypes.INTEGER)
+                .addScalar("r_nombre", StandardBasicTypes.STRING)
+                .addScalar("r_color", StandardBasicTypes.STRING)
+                .addScalar("e_id", StandardBasicTypes.INTEGER)
+                .addScalar("e_codigo", StandardBasicTypes.STRING)
+                .addScalar("e_descripcion", StandardBasicTypes.STRING)
+                .addScalar("p_fecha_creacion", StandardBasicTypes.LOCAL_DATE)
+                .addScalar("v_id", StandardBasicTypes.INTEGER)
+                .addScalar("v_nombre_cliente", StandardBasicTypes.STRING)
+                .addScalar("v_puntuacion", StandardBasicTypes.BYTE)
+                // Como Valoracione.comentario (LONGVARCHAR): texto, sin pasar por un CLOB
+                .addScalar("v_comentario", StandardBasicTypes.TEXT)
+                .addScalar("v_fecha", StandardBasicTypes.INSTANT)
+                .setParameter("id", id)
+                .setParameter("desde", despuesDe)
+                .setParameter("hasta", pagina.get(pagina.size() - 1))
+                .setFetchSize(FETCH_SIZE)
+                .setReadOnly(true);
+        EntityManagerFactoryUtils.applyTransactionTimeout(query, emf);
+        return query.getResultList();
+    }
+
+    /**
+     * Escribe los productos de una página leída con {@link #leerPagina} como elementos del array
+     * JSON abierto en el generador. No necesita transacción.
+     *
+     * @param gen Generador sobre la respuesta, con el array ya abierto
+     * @param filas Filas de la página
+     * @return Número de productos escritos
+     * @throws IOException Si falla la escritura
+     */
+    public static int escribirPagina(JsonGenerator gen, List<Object[]> filas) throws IOException {
+        int productos = 0;
+        Object actual = null;
+        long suma = 0;
+        int valoraciones = 0;
+        for (Object[] f : filas) {
+            if (!Objects.equals(f[0], actual)) {
+                if (actual != null) {
+                    cerrarProducto(gen, suma, valoraciones);
+                }
+                actual = f[0];
+                suma = 0;
+                valoraciones = 0;
+                abrirProducto(gen, f);
+                productos++;
+            }
+            if (f[25] != null) {
+                escribirValoracion(gen, f);
+                suma += (Byte) f[27];
+                valoraciones++;
+            }
+        }
+        if (actual != null) {
+            cerrarProducto(gen, suma, valoraciones);
+        }
+        return productos;
+    }
+
+    private static void abrirProducto(JsonGenerator gen, Object[] f) throws IOException {
+        gen.writeStartObject();
+        numero(gen, "id", f[0]);
+        texto(gen, "nombre", f[1]);
+        texto(gen, "descripcion", f[2]);
+        decimal(gen, "precio", f[3]);
+        decimal(gen, "precioOriginal", f[4]);
+        numero(gen, "stock", f[5]);
+        texto(gen, "imagenUrl", f[6]);
+        numero(gen, "numeroCarta", f[7]);
+
+        gen.writeObjectFieldStart("categoria");
+        numero(gen, "id", f[8]);
+        texto(gen, "nombre", f[9]);
+        texto(gen, "descripcion", f[10]);
+        texto(gen, "imagenUrl", f[11]);
+        gen.writeEndObject();
+
+        gen.writeObjectFieldStart("coleccion");
+        numero(gen, "id", f[12]);
+        texto(gen, "nombre", f[13]);
+        fecha(gen, "fechaLanzamiento", (LocalDate) f[14]);
+        texto(gen, "imagenUrl", f[15]);
+        texto(gen, "descripcion", f[16]);
+        texto(gen, "codigo", f[17]);
+        gen.writeEndObject();
+
+        gen.writeObjectFieldStart("rareza");
+        numero(gen, "id", f[18]);
+        texto(gen, "nombre", f[19]);
+        texto(gen, "color", f[20]);
+        gen.writeEndObject();
+
+        gen.writeObjectFieldStart("estado");
+        numero(gen, "id", f[21]);
+        texto(gen, "codigo", f[22]);
+        texto(gen, "descripcion", f[23]);
+        gen.writeEndObject();
+
+        fecha(gen, "fechaCreacion", (LocalDate) f[24]);
+        gen.writeArrayFieldStart("valoraciones");
+    }
+
+    private static void escribirValoracion(JsonGenerator gen, Object[] f) throws IOException {
+        gen.writeStartObject();
+        numero(gen, "id", f[25]);
+        texto(gen, "nombreCliente", f[26]);
+        gen.writeNumberField("puntuacion", (Byte) f[27]);
+        texto(gen, "comentario", f[28]);
+        Instant fecha = (Instant) f[29];
+        if (fecha != null) {
+            // Mismo formato que InstantSerializer de Jackson con WRITE_DATES_AS_TIMESTAMPS desactivado (ISO_INSTANT)
+            gen.writeStringField("fecha", fecha.toString());
+        }
+        gen.writeEndObject();
+    }
+
+    /**
+     * Cierra las valoraciones y escribe la media como {@code Producto.getRatingPromedio()}.
+     */
+    private static void cerrarProducto(JsonGenerator gen, long suma, int valoraciones) throws IOException {
+        gen.writeEndArray();
+        gen.writeNumberField("ratingPromedio", valoraciones == 0 ? 0.0 : (double) suma / valoraciones);
+        gen.writeEndObject();
+    }
+
+    private static void numero(JsonGenerator gen, String campo, Object valor) throws IOException {
+        if (valor != null) {
+            gen.writeNumberField(campo, (Integer) valor);
+        }
+    }
+
+    private static void texto(JsonGenerator gen, String campo, Object valor) throws IOException {
+        if (valor != null) {
+            gen.writeStringField(campo, (String) valor);
+        }
+    }
+
+    private static void decimal(JsonGenerator gen, String campo, Object valor) throws IOException {
+        if (valor != null) {
+            gen.writeNumberField(campo, (BigDecimal) valor);
+        }
+    }
+
+    private static void fecha(JsonGenerator gen, String campo, LocalDate valor) throws IOException {
+        if (valor != null) {
+            gen.writeStringField(campo, valor.toString());
+        }
+    }
+}
@@ -1,23 +1,77 @@
 package com.github.dangelcrack.shopcard.repositories;
 
+import com.github.dangelcrack.shopcard.dto.ProductoResumen;
 import com.github.dangelcrack.shopcard.models.Producto;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Integer> {
+public interface ProductoRepository extends JpaRepository<Producto, Integer>, ProductoRepositoryCustom {
 
+    /**
+     * Catálogo completo con sus relaciones. Las valoraciones no se unen: se cargan en una segunda
+     * sentencia al acceder a ellas (ver {@link Producto#getValoraciones()}).
+     */
+    @Override
+    @EntityGraph(Producto.GRAFO_RELACIONES)
+    List<Producto> findAll();
+
+    @Override
+    @EntityGraph(Producto.GRAFO_COMPLETO)
+    Optional<Producto> findById(Integer id);
+
+    /**
+     * Mismo plan de carga que {@link #findById}, para varios ids en una sola consulta.
+     */
+    @EntityGraph(Producto.GRAFO_COMPLETO)
+    List<Producto> findByIdIn(Collection<Integer> ids);
+
+    @EntityGraph(Producto.GRAFO_COMPLETO)
     @Query("SELECT p FROM Producto p WHERE LOWER(p.nombre) LIKE LOWER(CONCAT('%', :nombre, '%'))")
     List<Producto> findByNombreContainingIgnoreCase(String nombre);
 
+    /**
+     * Ordenado por producto y valoración, igual que {@link ProductoJsonStream}, para que ambos
+     * caminos devuelvan el mismo JSON.
+     */
+    @EntityGraph(attributePaths = {"categoria", "coleccion", "rareza", "estado"})
+    @Query("SELECT p FROM Producto p LEFT JOIN FETCH p.valoraciones v WHERE p.categoria.id = :categoriaId ORDER BY p.id, v.id")
     List<Producto> findByCategoriaId(Integer categoriaId);
 
+    /**
+     * Ordenado por producto y valoración, igual que {@link ProductoJsonStream}.
+     */
+    @EntityGraph(attributePaths = {"categoria", "coleccion", "rareza", "estado"})
+    @Query("SELECT p FROM Producto p LEFT JOIN FETCH p.valoraciones v WHERE p.coleccion.id = :coleccionId ORDER BY p.id, v.id")
     List<Producto> findByColeccionId(Integer coleccionId);
 
+    @EntityGraph(Producto.GRAFO_COMPLETO)
     List<Producto> findByRarezaId(Integer rarezaId);
 
+    @EntityGraph(Producto.GRAFO_COMPLETO)
     List<Producto> findByEstadoId(Integer estadoId);
-}
\ No newline at end of file
+
+    @EntityGraph(attributePaths = {"categoria", "coleccion", "rareza", "estado"})
+    @Query("SELECT p FROM Producto p WHERE p.id = :id")
+    Optional<Producto> findDetalleById(Integer id);
+
+    @Query("SELECT AVG(v.puntuacion) FROM Valoracione v WHERE v.producto.id = :productoId")
+    Double findAverageRating(Integer productoId);
+
+    @Query("SELECT new com.github.dangelcrack.shopcard.dto.ProductoResumen(p.id, p.nombre, p.precio, p.imagenUrl, r.nombre) " +
+            "FROM Producto p JOIN p.rareza r WHERE p.id IN :ids")
+    List<ProductoResumen> findResumenByIdIn(Collection<Integer> ids);
+
+    @Query("SELECT new com.github.dangelcrack.shopcard.dto.ProductoResumen(p.id, p.nombre, p.precio, p.imagenUrl, r.nombre) " +
+            "FROM Producto p LEFT JOIN p.rareza r ORDER BY p.id")
+    List<ProductoResumen> findAllResumen();
+
+    @Query("SELECT p.imagenUrl FROM Producto p WHERE p.id = :id")
+    Optional<String> findImagenUrlById(Integer id);
+}
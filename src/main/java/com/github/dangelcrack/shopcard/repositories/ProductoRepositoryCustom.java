@@ -0,0 +1,22 @@
+package com.github.dangelcrack.shopcard.repositories;
+
+import com.github.dangelcrack.shopcard.models.Producto;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consultas de {@link ProductoRepository} que no se pueden expresar como métodos derivados.
+ */
+public interface ProductoRepositoryCustom {
+
+    /**
+     * Proyección de productos con solo los campos pedidos en {@code fields}.
+     *
+     * @param fields Campos separados por comas (ver {@link ProductoRepositoryCustomImpl#CAMPOS})
+     * @param filtro Condición de la consulta; {@code null} para todos los productos
+     * @return Un mapa por producto, ordenados por id
+     */
+    List<Map<String, Object>> findCampos(String fields, Specification<Producto> filtro);
+}
@@ -0,0 +1,48 @@
+package com.github.dangelcrack.shopcard.repositories;
+
+import com.github.dangelcrack.shopcard.models.Producto;
+import com.github.dangelcrack.shopcard.models.Valoracione;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementación de {@link ProductoRepositoryCustom}.
+ *
+ * <p>Las valoraciones no se pueden pedir como campo: para eso está
+ * {@code /valoraciones/producto/{id}}. La media se calcula en la propia consulta con una
+ * subconsulta correlacionada, sin cargar las valoraciones.</p>
+ */
+public class ProductoRepositoryCustomImpl implements ProductoRepositoryCustom {
+
+    /**
+     * Campos admitidos en {@code fields} para productos.
+     */
+    static final SparseFieldQuery<Producto> CAMPOS = SparseFieldQuery.builder(Producto.class)
+            .campos("id", "nombre", "descripcion", "precio", "precioOriginal", "stock", "imagenUrl",
+                    "numeroCarta", "fechaCreacion")
+            .relacion("categoria", "id", "nombre", "descripcion", "imagenUrl")
+            .relacion("coleccion", "id", "nombre", "codigo", "fechaLanzamiento", "imagenUrl", "descripcion")
+            .relacion("rareza", "id", "nombre", "color")
+            .relacion("estado", "id", "codigo", "descripcion")
+            .calculado("ratingPromedio", (root, query, cb) -> {
+                Subquery<Double> media = query.subquery(Double.class);
+                Root<Valoracione> v = media.from(Valoracione.class);
+                media.select(cb.avg(v.get("puntuacion"))).where(cb.equal(v.get("producto"), root));
+                return cb.coalesce(media, 0.0);
+            })
+            .build();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findCampos(String fields, Specification<Producto> filtro) {
+        return CAMPOS.find(entityManager, fields, filtro);
+    }
+}
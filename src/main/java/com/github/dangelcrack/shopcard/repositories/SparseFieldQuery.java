@@ -0,0 +1,219 @@
+package com.github.dangelcrack.shopcard.repositories;
+
+import com.github.dangelcrack.shopcard.exceptions.InvalidRequestException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Consulta de proyección dinámica para el parámetro {@code fields} (sparse fieldsets).
+ *
+ * <p>Cada campo admitido se declara una vez y se traduce a una columna de la consulta: solo se
+ * leen de la base de datos las columnas pedidas y las relaciones se unen con {@code LEFT JOIN}
+ * únicamente si se pide alguno de sus campos. El resultado son mapas con la misma forma que el
+ * JSON de la entidad completa ({@code rareza.nombre} se devuelve como
+ * {@code {"rareza": {"nombre": ...}}}), de modo que el cliente puede cambiar de una vista a otra
+ * sin adaptar el parseo. Como en el JSON completo ({@code default-property-inclusion=non_null}),
+ * los valores nulos no se incluyen, y una relación sin ningún valor (un {@code LEFT JOIN} sin
+ * fila) no aparece.</p>
+ *
+ * <p>El nombre de una relación sin atributo ({@code rareza}) equivale a todos sus campos
+ * declarados. El {@code id} se incluye siempre. Un campo desconocido produce
+ * {@link InvalidRequestException} (HTTP 400).</p>
+ *
+ * @param <T> Entidad raíz de la consulta
+ */
+public final class SparseFieldQuery<T> {
+
+    /**
+     * Expresión de un campo calculado a partir de la raíz de la consulta.
+     */
+    @FunctionalInterface
+    public interface Calculo<T> {
+        Expression<?> apply(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb);
+    }
+
+    private record Campo<T>(String relacion, String atributo, Calculo<T> calculo) {
+    }
+
+    private final Class<T> entidad;
+    private final Map<String, Campo<T>> campos;
+    private final Map<String, List<String>> relaciones;
+
+    private SparseFieldQuery(Class<T> entidad, Map<String, Campo<T>> campos, Map<String, List<String>> relaciones) {
+        this.entidad = entidad;
+        this.campos = Map.copyOf(campos);
+        this.relaciones = Map.copyOf(relaciones);
+    }
+
+    /**
+     * @param entidad Entidad raíz
+     * @return Constructor de la lista de campos admitidos
+     */
+    public static <T> Builder<T> builder(Class<T> entidad) {
+        return new Builder<>(entidad);
+    }
+
+    /**
+     * Valida y normaliza el valor del parámetro {@code fields}.
+     *
+     * @param fields Lista de campos separados por comas
+     * @return Campos en el orden pedido, con {@code id} primero y las relaciones expandidas
+     * @throws InvalidRequestException Si algún campo no está admitido
+     */
+    public List<String> parse(String fields) {
+        Set<String> resultado = new LinkedHashSet<>();
+        resultado.add("id");
+        if (fields != null) {
+            for (String campo : fields.split(",")) {
+                campo = campo.trim();
+                if (campo.isEmpty()) {
+                    continue;
+                }
+                if (relaciones.containsKey(campo)) {
+                    resultado.addAll(relaciones.get(campo));
+                } else if (campos.containsKey(campo)) {
+                    resultado.add(campo);
+                } else {
+                    throw new InvalidRequestException("Campo no admitido en fields: " + campo
+                            + ". Campos posibles: " + String.join(",", new TreeSet<>(campos.keySet())));
+                }
+            }
+        }
+        return List.copyOf(resultado);
+    }
+
+    /**
+     * Ejecuta la proyección en una única sentencia, ordenada por {@code id}.
+     *
+     * @param entityManager Gestor de entidades
+     * @param fields Valor del parámetro {@code fields}
+     * @param filtro Condición de la consulta; {@code null} para no filtrar
+     * @return Un mapa por fila con los campos pedidos
+     */
+    public List<Map<String, Object>> find(EntityManager entityManager, String fields, Specification<T> filtro) {
+        List<String> nombres = parse(fields);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(entidad);
+
+        Map<String, Join<T, ?>> joins = new HashMap<>();
+        List<Selection<?>> selecciones = new ArrayList<>(nombres.size());
+        for (String nombre : nombres) {
+            Campo<T> campo = campos.get(nombre);
+            Expression<?> expresion;
+            if (campo.calculo() != null) {
+                expresion = campo.calculo().apply(root, query, cb);
+            } else if (campo.relacion() != null) {
+                From<T, ?> join = joins.computeIfAbsent(campo.relacion(), r -> root.join(r, JoinType.LEFT));
+                expresion = join.get(campo.atributo());
+            } else {
+                expresion = root.get(campo.atributo());
+            }
+            selecciones.add(expresion.alias(nombre.replace('.', '_')));
+        }
+        query.multiselect(selecciones);
+        if (filtro != null) {
+            query.where(filtro.toPredicate(root, query, cb));
+        }
+        query.orderBy(cb.asc(root.get("id")));
+
+        List<Tuple> filas = entityManager.createQuery(query).getResultList();
+        List<Map<String, Object>> resultado = new ArrayList<>(filas.size());
+        for (Tuple fila : filas) {
+            Map<String, Object> objeto = new LinkedHashMap<>();
+            for (int i = 0; i < nombres.size(); i++) {
+                Campo<T> campo = campos.get(nombres.get(i));
+                Object valor = fila.get(i);
+                if (valor == null) {
+                    continue;
+                }
+                if (campo.relacion() != null) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> anidado = (Map<String, Object>) objeto.computeIfAbsent(
+                            campo.relacion(), r -> new LinkedHashMap<String, Object>());
+                    anidado.put(campo.atributo(), valor);
+                } else {
+                    objeto.put(nombres.get(i), valor);
+                }
+            }
+            resultado.add(objeto);
+        }
+        return resultado;
+    }
+
+    /**
+     * Declaración de los campos admitidos.
+     */
+    public static final class Builder<T> {
+
+        private final Class<T> entidad;
+        private final Map<String, Campo<T>> campos = new LinkedHashMap<>();
+        private final Map<String, List<String>> relaciones = new LinkedHashMap<>();
+
+        private Builder(Class<T> entidad) {
+            this.entidad = entidad;
+        }
+
+        /**
+         * Atributos simples de la entidad raíz.
+         */
+        public Builder<T> campos(String... atributos) {
+            for (String atributo : atributos) {
+                campos.put(atributo, new Campo<>(null, atributo, null));
+            }
+            return this;
+        }
+
+        /**
+         * Atributos de una relación, accesibles como {@code relacion.atributo} o todos a la vez
+         * con el nombre de la relación.
+         */
+        public Builder<T> relacion(String relacion, String... atributos) {
+            List<String> nombres = new ArrayList<>(atributos.length);
+            for (String atributo : atributos) {
+                String nombre = relacion + "." + atributo;
+                campos.put(nombre, new Campo<>(relacion, atributo, null));
+                nombres.add(nombre);
+            }
+            relaciones.put(relacion, List.copyOf(nombres));
+            return this;
+        }
+
+        /**
+         * Campo calculado en la propia consulta (por ejemplo, con una subconsulta).
+         */
+        public Builder<T> calculado(String nombre, Calculo<T> calculo) {
+            if (!StringUtils.hasText(nombre) || nombre.contains(".")) {
+                throw new IllegalArgumentException("Nombre de campo calculado no válido: " + nombre);
+            }
+            campos.put(nombre, new Campo<>(null, nombre, calculo));
+            return this;
+        }
+
+        public SparseFieldQuery<T> build() {
+            if (!campos.containsKey("id")) {
+                throw new IllegalStateException("La proyección de " + entidad.getSimpleName() + " debe admitir el campo id");
+            }
+            return new SparseFieldQuery<>(entidad, campos, relaciones);
+        }
+    }
+}
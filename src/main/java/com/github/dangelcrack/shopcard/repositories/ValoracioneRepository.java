@@ -1,12 +1,35 @@
 package com.github.dangelcrack.shopcard.repositories;
 
 import com.github.dangelcrack.shopcard.models.Valoracione;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
+import java.util.Optional;
 
-public interface ValoracioneRepository extends JpaRepository<Valoracione, Integer> {
+public interface ValoracioneRepository extends JpaRepository<Valoracione, Integer>, ValoracioneRepositoryCustom {
+    @Override
+    @EntityGraph(Valoracione.GRAFO_CON_PRODUCTO)
+    List<Valoracione> findAll();
+
+    @Override
+    @EntityGraph(Valoracione.GRAFO_CON_PRODUCTO)
+    Optional<Valoracione> findById(Integer id);
+
+    @EntityGraph(Valoracione.GRAFO_CON_PRODUCTO)
     List<Valoracione> findByProductoId(Integer productoId);
+
+    @EntityGraph(Valoracione.GRAFO_CON_PRODUCTO)
     List<Valoracione> findByPuntuacion(Byte puntuacion);
+
+    @EntityGraph(Valoracione.GRAFO_CON_PRODUCTO)
     List<Valoracione> findByNombreClienteContainingIgnoreCase(String nombreCliente);
+
+    Page<Valoracione> findByProductoId(Integer productoId, Pageable pageable);
+
+    @Query("SELECT v.puntuacion, COUNT(v) FROM Valoracione v WHERE v.producto.id = :productoId GROUP BY v.puntuacion")
+    List<Object[]> countByPuntuacionForProducto(Integer productoId);
 }
\ No newline at end of file
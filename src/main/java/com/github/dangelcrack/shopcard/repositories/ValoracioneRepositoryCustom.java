@@ -0,0 +1,22 @@
+package com.github.dangelcrack.shopcard.repositories;
+
+import com.github.dangelcrack.shopcard.models.Valoracione;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consultas de {@link ValoracioneRepository} que no se pueden expresar como métodos derivados.
+ */
+public interface ValoracioneRepositoryCustom {
+
+    /**
+     * Proyección de valoraciones con solo los campos pedidos en {@code fields}.
+     *
+     * @param fields Campos separados por comas (ver {@link ValoracioneRepositoryCustomImpl#CAMPOS})
+     * @param filtro Condición de la consulta; {@code null} para todas las valoraciones
+     * @return Un mapa por valoración, ordenadas por id
+     */
+    List<Map<String, Object>> findCampos(String fields, Specification<Valoracione> filtro);
+}
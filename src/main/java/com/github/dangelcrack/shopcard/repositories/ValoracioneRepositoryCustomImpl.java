@@ -0,0 +1,32 @@
+package com.github.dangelcrack.shopcard.repositories;
+
+import com.github.dangelcrack.shopcard.models.Valoracione;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementación de {@link ValoracioneRepositoryCustom}.
+ */
+public class ValoracioneRepositoryCustomImpl implements ValoracioneRepositoryCustom {
+
+    /**
+     * Campos admitidos en {@code fields} para valoraciones. Del producto solo se exponen los
+     * campos que necesita un listado.
+     */
+    static final SparseFieldQuery<Valoracione> CAMPOS = SparseFieldQuery.builder(Valoracione.class)
+            .campos("id", "nombreCliente", "puntuacion", "comentario", "fecha")
+            .relacion("producto", "id", "nombre", "precio", "imagenUrl")
+            .build();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findCampos(String fields, Specification<Valoracione> filtro) {
+        return CAMPOS.find(entityManager, fields, filtro);
+    }
+}
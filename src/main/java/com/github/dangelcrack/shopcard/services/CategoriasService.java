@@ -1,11 +1,14 @@
 package com.github.dangelcrack.shopcard.services;
 
+import com.github.dangelcrack.shopcard.dto.CatalogStats;
 import com.github.dangelcrack.shopcard.exceptions.RecordNotFoundException;
 import com.github.dangelcrack.shopcard.models.Categoria;
 import com.github.dangelcrack.shopcard.repositories.CategoriasRepository;
+import com.github.dangelcrack.shopcard.statistics.CatalogStatistics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -19,16 +22,19 @@ import java.util.List;
 public class CategoriasService {
 
     private final CategoriasRepository repository;
+    private final CatalogStatistics statistics;
 
     @Autowired
-    public CategoriasService(CategoriasRepository repository) {
+    public CategoriasService(CategoriasRepository repository, CatalogStatistics statistics) {
         this.repository = repository;
+        this.statistics = statistics;
     }
 
     /**
      * Obtiene todas las categorías existentes.
      * @return Lista de todas las categorías
      */
+    @Transactional(readOnly = true)
     public List<Categoria> getAllCategorias() {
         return repository.findAll();
     }
@@ -39,11 +45,28 @@ public class CategoriasService {
      * @return La categoría encontrada
      * @throws RecordNotFoundException Si no se encuentra la categoría
      */
+    @Transactional(readOnly = true)
     public Categoria getCategoriaById(Long id) throws RecordNotFoundException {
         return repository.findById(id)
                 .orElseThrow(() -> new RecordNotFoundException("No se encontró categoría con ID: " + id, id));
     }
 
+    /**
+     * Obtiene las estadísticas de los productos de una categoría. Se sirven desde memoria, sin
+     * abrir transacción.
+     * @param id ID de la categoría
+     * @return Estadísticas de la categoría
+     * @throws RecordNotFoundException si no existe la categoría
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CatalogStats getEstadisticas(Long id) throws RecordNotFoundException {
+        CatalogStats stats = statistics.get(CatalogStatistics.Ambito.CATEGORIA, Math.toIntExact(id));
+        if (stats == null) {
+            throw new RecordNotFoundException("No se encontró categoría con ID: " + id, id);
+        }
+        return stats;
+    }
+
     /**
      * Crea una nueva categoría.
      * @param categoria La categoría a crear
@@ -89,6 +112,7 @@ public class CategoriasService {
      * @param nombre Texto a buscar en los nombres de categoría
      * @return Lista de categorías que coinciden con el criterio
      */
+    @Transactional(readOnly = true)
     public List<Categoria> findByNombreContaining(String nombre) {
         return repository.findByNombreContaining(nombre);
     }
@@ -98,6 +122,7 @@ public class CategoriasService {
      * @param nombre Texto inicial para buscar
      * @return Lista de categorías que coinciden con el criterio
      */
+    @Transactional(readOnly = true)
     public List<Categoria> findByNombreStartingWith(String nombre) {
         return repository.findByNombreStartingWithIgnoreCase(nombre);
     }
@@ -107,6 +132,7 @@ public class CategoriasService {
      * @param id ID de la categoría a verificar
      * @return true si existe, false en caso contrario
      */
+    @Transactional(readOnly = true)
     public boolean existsById(Long id) {
         return repository.existsById(id);
     }
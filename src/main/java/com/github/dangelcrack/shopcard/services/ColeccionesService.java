@@ -1,12 +1,15 @@
 package com.github.dangelcrack.shopcard.services;
 
+import com.github.dangelcrack.shopcard.dto.CatalogStats;
 import com.github.dangelcrack.shopcard.exceptions.RecordNotFoundException;
 import com.github.dangelcrack.shopcard.models.Colecciones;
 import com.github.dangelcrack.shopcard.repositories.ColeccionesRepository;
+import com.github.dangelcrack.shopcard.statistics.CatalogStatistics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -19,12 +22,16 @@ public class ColeccionesService {
     @Autowired
     private ColeccionesRepository repository;
 
+    @Autowired
+    private CatalogStatistics statistics;
+
     /**
      * Obtiene todas las colecciones disponibles, con soporte para paginación.
      *
      * @param pageable Configuración de paginación.
      * @return Página de colecciones.
      */
+    @Transactional(readOnly = true)
     public Page<Colecciones> getAllColecciones(Pageable pageable) {
         return repository.findAll(pageable);
     }
@@ -36,17 +43,35 @@ public class ColeccionesService {
      * @return La colección correspondiente al ID proporcionado.
      * @throws RecordNotFoundException Si no se encuentra una colección con el ID especificado.
      */
+    @Transactional(readOnly = true)
     public Colecciones getColeccionById(Long id) {
         return repository.findById(id)
                 .orElseThrow(() -> new RecordNotFoundException("No existe colección para el ID: " + id, id));
     }
 
+    /**
+     * Obtiene las estadísticas de los productos de una colección (número de cartas, stock, rango
+     * de precios y puntuación media). Se sirven desde memoria, sin cargar los productos.
+     *
+     * @param id Identificador único de la colección.
+     * @return Estadísticas de la colección.
+     * @throws RecordNotFoundException Si no se encuentra una colección con el ID especificado.
+     */
+    public CatalogStats getEstadisticas(Long id) {
+        CatalogStats stats = statistics.get(CatalogStatistics.Ambito.COLECCION, Math.toIntExact(id));
+        if (stats == null) {
+            throw new RecordNotFoundException("No existe colección para el ID: " + id, id);
+        }
+        return stats;
+    }
+
     /**
      * Crea una nueva colección en el repositorio.
      *
      * @param coleccion Objeto de colección a crear.
      * @return La colección creada.
      */
+    @Transactional
     public Colecciones createColeccion(Colecciones coleccion) {
         return repository.save(coleccion);
     }
@@ -59,6 +84,7 @@ public class ColeccionesService {
      * @return La colección actualizada.
      * @throws RecordNotFoundException Si no se encuentra una colección con el ID especificado.
      */
+    @Transactional
     public Colecciones updateColeccion(Long id, Colecciones coleccionActualizada) {
         Colecciones coleccionExistente = repository.findById(id)
                 .orElseThrow(() -> new RecordNotFoundException("Colección no encontrada para el ID: " + id, id));
@@ -78,6 +104,7 @@ public class ColeccionesService {
      * @param id Identificador único de la colección a eliminar.
      * @throws RecordNotFoundException Si no se encuentra una colección con el ID especificado.
      */
+    @Transactional
     public void deleteColeccion(Long id) {
         Colecciones coleccion = repository.findById(id)
                 .orElseThrow(() -> new RecordNotFoundException("No existe colección para el ID: " + id, id));
@@ -90,6 +117,7 @@ public class ColeccionesService {
      * @param nombre Cadena a buscar dentro del nombre de las colecciones.
      * @return Lista de colecciones que contienen la cadena especificada en su nombre.
      */
+    @Transactional(readOnly = true)
     public List<Colecciones> findByNombreContaining(String nombre) {
         return repository.findByNombreContaining(nombre);
     }
@@ -100,6 +128,7 @@ public class ColeccionesService {
      * @param nombre Prefijo a buscar en el nombre de las colecciones.
      * @return Lista de colecciones cuyos nombres comienzan con el prefijo especificado.
      */
+    @Transactional(readOnly = true)
     public List<Colecciones> findByNombreStartingWith(String nombre) {
         return repository.findByNombreStartingWithIgnoreCase(nombre);
     }
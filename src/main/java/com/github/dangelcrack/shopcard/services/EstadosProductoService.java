@@ -5,6 +5,7 @@ import com.github.dangelcrack.shopcard.models.EstadosProducto;
 import com.github.dangelcrack.shopcard.repositories.EstadosProductoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
 /**
@@ -21,6 +22,7 @@ public class EstadosProductoService {
      *
      * @return Lista de objetos EstadosProducto.
      */
+    @Transactional(readOnly = true)
     public List<EstadosProducto> getAllEstados() {
         return repository.findAll();
     }
@@ -32,6 +34,7 @@ public class EstadosProductoService {
      * @return Objeto EstadosProducto correspondiente al ID proporcionado.
      * @throws RecordNotFoundException Si no se encuentra un estado con el ID especificado.
      */
+    @Transactional(readOnly = true)
     public EstadosProducto getEstadoById(Long id) throws RecordNotFoundException {
         return repository.findById(id)
                 .orElseThrow(() -> new RecordNotFoundException("No existe estado para el id: " + id, id));
@@ -43,6 +46,7 @@ public class EstadosProductoService {
      * @param estado Objeto EstadosProducto a crear.
      * @return El estado de producto creado.
      */
+    @Transactional
     public EstadosProducto createEstado(EstadosProducto estado) {
         return repository.save(estado);
     }
@@ -55,6 +59,7 @@ public class EstadosProductoService {
      * @return El estado de producto actualizado.
      * @throws RecordNotFoundException Si no se encuentra un estado con el ID especificado.
      */
+    @Transactional
     public EstadosProducto updateEstado(Long id, EstadosProducto estadoActualizado) throws RecordNotFoundException {
         EstadosProducto estadoExistente = repository.findById(id)
                 .orElseThrow(() -> new RecordNotFoundException("Estado no encontrado con el id ", id));
@@ -69,6 +74,7 @@ public class EstadosProductoService {
      * @param id Identificador único del estado de producto a eliminar.
      * @throws RecordNotFoundException Si no se encuentra un estado con el ID especificado.
      */
+    @Transactional
     public void deleteEstado(Long id) throws RecordNotFoundException {
         EstadosProducto estado = repository.findById(id)
                 .orElseThrow(() -> new RecordNotFoundException("No existe estado para el id: " + id, id));
@@ -81,6 +87,7 @@ public class EstadosProductoService {
      * @param descripcion Cadena a buscar dentro de las descripciones de los estados de producto.
      * @return Lista de objetos EstadosProducto que contienen la cadena especificada en su descripción.
      */
+    @Transactional(readOnly = true)
     public List<EstadosProducto> findByDescripcionContaining(String descripcion) {
         return repository.findByDescripcionContaining(descripcion);
     }
@@ -91,6 +98,7 @@ public class EstadosProductoService {
      * @param codigo Prefijo a buscar en los códigos de los estados de producto.
      * @return Lista de objetos EstadosProducto cuyos códigos comienzan con el prefijo especificado.
      */
+    @Transactional(readOnly = true)
     public List<EstadosProducto> findByCodigoStartingWith(String codigo) {
         return repository.findByCodigoStartingWithIgnoreCase(codigo);
     }
@@ -0,0 +1,237 @@
+package com.github.dangelcrack.shopcard.services;
+
+import com.github.dangelcrack.shopcard.datasource.ReadYourWritesTracker;
+import com.github.dangelcrack.shopcard.dto.ProductoDetalle;
+import com.github.dangelcrack.shopcard.dto.ProductoPage;
+import com.github.dangelcrack.shopcard.dto.ProductoResumen;
+import com.github.dangelcrack.shopcard.dto.RatingSummary;
+import com.github.dangelcrack.shopcard.dto.ReferenceData;
+import com.github.dangelcrack.shopcard.dto.ValoracionDto;
+import com.github.dangelcrack.shopcard.exceptions.InvalidRequestException;
+import com.github.dangelcrack.shopcard.exceptions.RecordNotFoundException;
+import com.github.dangelcrack.shopcard.repositories.CategoriasRepository;
+import com.github.dangelcrack.shopcard.repositories.EstadosProductoRepository;
+import com.github.dangelcrack.shopcard.repositories.ProductoRepository;
+import com.github.dangelcrack.shopcard.repositories.RarezaRepository;
+import com.github.dangelcrack.shopcard.repositories.ValoracioneRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.context.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Servicio que compone la página de detalle de un producto en una sola llamada.
+ *
+ * <p>Las cinco partes de la página (producto, resumen de valoraciones, página de valoraciones,
+ * cartas relacionadas y datos de referencia) se consultan en paralelo, cada una en su propio hilo
+ * virtual y en su propia transacción de solo lectura. La latencia total es aproximadamente la de
+ * la parte más lenta en lugar de la suma de todas.</p>
+ *
+ * <p>Las subtareas tienen un ámbito estructurado: se lanzan y se esperan dentro de
+ * {@link #getProductoPage}, y al salir de él las que sigan en marcha se interrumpen, de modo
+ * que ningún hilo sobrevive a la petición que lo creó. Cada parte tiene su propio tiempo
+ * máximo; si lo excede o falla, la página se devuelve igualmente sin esa parte.</p>
+ *
+ * <p>Cada parte ocupa una conexión del pool mientras dura su transacción, así que una página
+ * puede pedir hasta cinco a la vez. Entre todas las páginas en curso no se usan más de
+ * {@code shopcard.producto-page.max-connections}: las partes que no consiguen una esperan dentro
+ * de su propio plazo. Ese valor debe quedar por debajo del tamaño del pool
+ * ({@code spring.datasource.hikari.maximum-pool-size}, 10 por defecto) para que un pico de
+ * páginas de producto no deje sin conexiones al resto de endpoints.</p>
+ */
+@Service
+public class ProductoPageService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductoPageService.class);
+
+    /**
+     * Tamaño máximo de la página de valoraciones.
+     */
+    public static final int MAX_VALORACIONES = 50;
+
+    private static final ThreadFactory VIRTUAL_THREADS = Thread.ofVirtual().name("producto-page-", 0).factory();
+
+    private final ProductoRepository productoRepository;
+    private final ValoracioneRepository valoracioneRepository;
+    private final CategoriasRepository categoriasRepository;
+    private final RarezaRepository rarezaRepository;
+    private final EstadosProductoRepository estadosProductoRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ProductoService productoService;
+    private final Timer resumenTimer;
+    private final Semaphore conexiones;
+
+    private final long productoTimeoutMs;
+    private final long valoracionesTimeoutMs;
+    private final long relacionadosTimeoutMs;
+    private final long referenciaTimeoutMs;
+
+    public ProductoPageService(ProductoRepository productoRepository,
+                               ValoracioneRepository valoracioneRepository,
+                               CategoriasRepository categoriasRepository,
+                               RarezaRepository rarezaRepository,
+                               EstadosProductoRepository estadosProductoRepository,
+                               PlatformTransactionManager transactionManager,
+                               ProductoService productoService,
+                               MeterRegistry meterRegistry,
+                               @Value("${shopcard.producto-page.timeout.producto-ms:1000}") long productoTimeoutMs,
+                               @Value("${shopcard.producto-page.timeout.valoraciones-ms:500}") long valoracionesTimeoutMs,
+                               @Value("${shopcard.producto-page.timeout.relacionados-ms:300}") long relacionadosTimeoutMs,
+                               @Value("${shopcard.producto-page.timeout.referencia-ms:300}") long referenciaTimeoutMs,
+                               @Value("${shopcard.producto-page.max-connections:6}") int maxConexiones,
+                               @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.productoRepository = productoRepository;
+        this.valoracioneRepository = valoracioneRepository;
+        this.categoriasRepository = categoriasRepository;
+        this.rarezaRepository = rarezaRepository;
+        this.estadosProductoRepository = estadosProductoRepository;
+        this.transactionManager = transactionManager;
+        this.productoService = productoService;
+        this.resumenTimer = Timer.builder("shopcard.rating")
+                .description("Duración de los cálculos de valoración media")
+                .tag("calculo", "resumen")
+                .register(meterRegistry);
+        this.productoTimeoutMs = productoTimeoutMs;
+        this.valoracionesTimeoutMs = valoracionesTimeoutMs;
+        this.relacionadosTimeoutMs = relacionadosTimeoutMs;
+        this.referenciaTimeoutMs = referenciaTimeoutMs;
+        this.conexiones = new Semaphore(maxConexiones, true);
+        if (maxConexiones >= poolSize) {
+            log.warn("shopcard.producto-page.max-connections ({}) no deja conexiones libres en un pool de {}",
+                    maxConexiones, poolSize);
+        }
+    }
+
+    /**
+     * Obtiene la página completa de un producto.
+     *
+     * @param id Identificador del producto
+     * @param valoracionesPage Número de página de valoraciones (desde 0)
+     * @param valoracionesSize Tamaño de la página de valoraciones, entre 1 y {@value #MAX_VALORACIONES}
+     * @return Página compuesta, posiblemente con partes incompletas
+     * @throws InvalidRequestException Si la página o el tamaño de las valoraciones no son válidos
+     * @throws RecordNotFoundException Si el producto no existe
+     */
+    public ProductoPage getProductoPage(Integer id, int valoracionesPage, int valoracionesSize) {
+        if (valoracionesPage < 0) {
+            throw new InvalidRequestException("La página de valoraciones no puede ser negativa: " + valoracionesPage);
+        }
+        if (valoracionesSize < 1 || valoracionesSize > MAX_VALORACIONES) {
+            throw new InvalidRequestException("El tamaño de la página de valoraciones debe estar entre 1 y "
+                    + MAX_VALORACIONES + ": " + valoracionesSize);
+        }
+        PageRequest valoracionesRequest = PageRequest.of(valoracionesPage, valoracionesSize, Sort.by(Sort.Direction.DESC, "fecha"));
+        List<String> incompletas = new ArrayList<>();
+
+        // Las subtareas heredan el span actual para que sus spans cuelguen de esta página
+        ExecutorService scope = Context.taskWrapping(Executors.newThreadPerTaskExecutor(VIRTUAL_THREADS));
+        try {
+            long start = System.nanoTime();
+            Future<ProductoDetalle> producto = fork(scope, productoTimeoutMs, () -> productoRepository.findDetalleById(id)
+                    .map(ProductoDetalle::from)
+                    .orElseThrow(() -> new RecordNotFoundException("Producto no encontrado para el ID: " + id, id)));
+            Future<RatingSummary> resumen = fork(scope, valoracionesTimeoutMs,
+                    () -> resumenTimer.record(() -> RatingSummary.fromGroupedCounts(valoracioneRepository.countByPuntuacionForProducto(id))));
+            Future<List<ValoracionDto>> valoraciones = fork(scope, valoracionesTimeoutMs,
+                    () -> valoracioneRepository.findByProductoId(id, valoracionesRequest).map(ValoracionDto::from).getContent());
+            Future<List<ProductoResumen>> relacionados = fork(scope, relacionadosTimeoutMs,
+                    () -> productoService.findRelacionados(id));
+            Future<ReferenceData> referencia = fork(scope, referenciaTimeoutMs, () -> new ReferenceData(
+                    categoriasRepository.findAll(), rarezaRepository.findAll(), estadosProductoRepository.findAll()));
+
+            ProductoDetalle detalle = join(producto, "producto", start, productoTimeoutMs, incompletas);
+            if (detalle == null) {
+                // Sin el producto la página no tiene sentido: se distingue "no existe" de "no disponible"
+                rethrowIfNotFound(producto);
+            }
+            return new ProductoPage(
+                    detalle,
+                    join(resumen, "resumenValoraciones", start, valoracionesTimeoutMs, incompletas),
+                    join(valoraciones, "valoraciones", start, valoracionesTimeoutMs, incompletas),
+                    join(relacionados, "relacionados", start, relacionadosTimeoutMs, incompletas),
+                    join(referencia, "referencia", start, referenciaTimeoutMs, incompletas),
+                    incompletas);
+        } finally {
+            // Cierra el ámbito: las subtareas que sigan en marcha se interrumpen
+            scope.shutdownNow();
+        }
+    }
+
+    /**
+     * Lanza una parte de la página en un hilo virtual dentro de una transacción de solo lectura.
+     * Antes de abrir la transacción espera, como mucho hasta su plazo, a que haya una conexión
+     * disponible para las páginas. El tiempo máximo de la transacción se propaga a las consultas
+     * JDBC para que la base de datos también abandone el trabajo. La subtarea lleva el cliente
+     * de la petición, para que lea de la principal si acaba de escribir.
+     */
+    private <T> Future<T> fork(ExecutorService scope, long timeoutMs, Callable<T> task) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        tx.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeoutMs + 999)));
+        return scope.submit(ReadYourWritesTracker.conClienteActual(() -> {
+            if (!conexiones.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new TimeoutException("Sin conexión libre para la página de producto");
+            }
+            try {
+                return tx.execute(status -> {
+                    try {
+                        return task.call();
+                    } catch (RuntimeException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+            } finally {
+                conexiones.release();
+            }
+        }));
+    }
+
+    /**
+     * Espera el resultado de una parte hasta su plazo, medido desde el inicio de la página.
+     * Si falla o vence el plazo se anota como incompleta y se devuelve null.
+     */
+    private <T> T join(Future<T> future, String parte, long startNanos, long timeoutMs, List<String> incompletas) {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMs) - (System.nanoTime() - startNanos);
+        try {
+            return future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("Parte '{}' de la página de producto excedió {} ms", parte, timeoutMs);
+        } catch (ExecutionException e) {
+            if (!(e.getCause() instanceof RecordNotFoundException)) {
+                log.warn("Parte '{}' de la página de producto falló", parte, e.getCause());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        incompletas.add(parte);
+        return null;
+    }
+
+    private static void rethrowIfNotFound(Future<?> future) {
+        if (future.state() == Future.State.FAILED && future.exceptionNow() instanceof RecordNotFoundException notFound) {
+            throw notFound;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.github.dangelcrack.shopcard.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.dangelcrack.shopcard.events.CatalogChangedEvent;
+import com.github.dangelcrack.shopcard.exceptions.InvalidRequestException;
+import com.github.dangelcrack.shopcard.exceptions.RecordNotFoundException;
+import com.github.dangelcrack.shopcard.models.Categoria;
+import com.github.dangelcrack.shopcard.models.Colecciones;
+import com.github.dangelcrack.shopcard.models.EstadosProducto;
+import com.github.dangelcrack.shopcard.models.Producto;
+import com.github.dangelcrack.shopcard.models.Rareza;
+import com.github.dangelcrack.shopcard.models.Valoracione;
+import com.github.dangelcrack.shopcard.repositories.ProductoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Servicio de actualización parcial de productos con JSON Merge Patch (RFC 7396).
+ *
+ * <p>El parche se aplica sobre la entidad cargada: solo cambian los campos que trae, y un
+ * {@code null} borra el valor. Como {@link Producto} y {@link Valoracione} usan
+ * {@code @DynamicUpdate}, Hibernate escribe un {@code UPDATE} con las columnas que de verdad han
+ * cambiado; cambiar el precio cuesta una sentencia de una columna.</p>
+ *
+ * <p>Las relaciones se cambian con su id ({@code "rareza": {"id": 3}}). Las valoraciones siguen la
+ * semántica de la RFC (el array sustituye al anterior), pero se aplican como diferencias: las que
+ * traen un id existente se parchean, las que no traen id se insertan y solo se borran las que
+ * faltan. Las que no cambian no generan ninguna sentencia.</p>
+ */
+@Service
+public class ProductoPatchService {
+
+    /**
+     * Campos simples que admite el parche, con si pueden quedar a {@code null}.
+     */
+    private static final Map<String, Boolean> CAMPOS = Map.of(
+            "nombre", false,
+            "descripcion", true,
+            "precio", false,
+            "precioOriginal", false,
+            "stock", false,
+            "imagenUrl", true,
+            "numeroCarta", false);
+
+    private static final Set<String> RELACIONES = Set.of("categoria", "coleccion", "rareza", "estado");
+
+    private static final Map<String, Boolean> CAMPOS_VALORACION = Map.of(
+            "nombreCliente", false,
+            "puntuacion", false,
+            "comentario", true);
+
+    private final ProductoRepository productoRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Constructor para inyección de dependencias.
+     * @param productoRepository Repositorio de productos
+     * @param objectMapper ObjectMapper de la aplicación, para convertir los valores del parche
+     * @param eventPublisher Publicador de eventos de cambios en el catálogo
+     * @param validator Validador de Bean Validation, el mismo que aplica Hibernate al escribir
+     */
+    public ProductoPatchService(ProductoRepository productoRepository, ObjectMapper objectMapper,
+                                ApplicationEventPublisher eventPublisher, Validator validator) {
+        this.productoRepository = productoRepository;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+    }
+
+    /**
+     * Aplica un JSON Merge Patch a un producto.
+     *
+     * @param id ID del producto
+     * @param patch Documento del parche; debe ser un objeto
+     * @return Producto actualizado
+     * @throws RecordNotFoundException Si no existe el producto, una relación o una valoración del parche
+     * @throws InvalidRequestException Si el parche trae campos desconocidos o deja el producto no válido
+     */
+    @Transactional
+    public Producto patchProducto(Integer id, JsonNode patch) {
+        if (!(patch instanceof ObjectNode campos)) {
+            throw new InvalidRequestException("El parche debe ser un objeto JSON");
+        }
+        Producto producto = productoRepository.findById(id)
+                .orElseThrow(() -> new RecordNotFoundException("Producto no encontrado para el ID: " + id, id));
+        Integer coleccionAnterior = producto.getColeccion().getId();
+        Integer categoriaAnterior = producto.getCategoria().getId();
+
+        ObjectNode simples = objectMapper.createObjectNode();
+        Iterator<Map.Entry<String, JsonNode>> it = campos.fields();
+        while (it.hasNext()) {
+            Map.Entry<String, JsonNode> campo = it.next();
+            String nombre = campo.getKey();
+            JsonNode valor = campo.getValue();
+            if (CAMPOS.containsKey(nombre)) {
+                if (valor.isNull() && !CAMPOS.get(nombre)) {
+                    throw new InvalidRequestException("El campo " + nombre + " es obligatorio");
+                }
+                simples.set(nombre, valor);
+            } else if (RELACIONES.contains(nombre)) {
+                aplicarRelacion(producto, nombre, valor);
+            } else if ("valoraciones".equals(nombre)) {
+                aplicarValoraciones(producto, valor);
+            } else if (!"id".equals(nombre) || !valor.isNumber() || valor.intValue() != id) {
+                throw new InvalidRequestException("El campo " + nombre + " no se puede modificar");
+            }
+        }
+        actualizar(producto, simples);
+        validar(producto, campos.has("valoraciones"));
+
+        eventPublisher.publishEvent(CatalogChangedEvent.of(CatalogChangedEvent.Tipo.PRODUCTO_ACTUALIZADO, id,
+                coleccionAnterior, categoriaAnterior));
+        return producto;
+    }
+
+    private void aplicarRelacion(Producto producto, String nombre, JsonNode valor) {
+        JsonNode relacionId = valor.get("id");
+        if (relacionId == null || !relacionId.canConvertToInt()) {
+            throw new InvalidRequestException("La relación " + nombre + " se cambia con su id");
+        }
+        Integer id = relacionId.intValue();
+        switch (nombre) {
+            case "categoria" -> producto.setCategoria(buscar(Categoria.class, id));
+            case "coleccion" -> producto.setColeccion(buscar(Colecciones.class, id));
+            case "rareza" -> producto.setRareza(buscar(Rareza.class, id));
+            default -> producto.setEstado(buscar(EstadosProducto.class, id));
+        }
+    }
+
+    private <T> T buscar(Class<T> tipo, Integer id) {
+        T entidad = entityManager.find(tipo, id);
+        if (entidad == null) {
+            throw new RecordNotFoundException(tipo.getSimpleName() + " no encontrado para el ID: " + id, id);
+        }
+        return entidad;
+    }
+
+    /**
+     * Sustituye las valoraciones por las del parche aplicando solo las diferencias.
+     */
+    private void aplicarValoraciones(Producto producto, JsonNode valor) {
+        if (!valor.isNull() && !valor.isArray()) {
+            throw new InvalidRequestException("valoraciones debe ser un array");
+        }
+        Map<Integer, Valoracione> existentes = new HashMap<>();
+        for (Valoracione v : producto.getValoraciones()) {
+            existentes.put(v.getId(), v);
+        }
+        List<Valoracione> nuevas = new ArrayList<>();
+        Set<Integer> conservadas = new HashSet<>();
+        for (JsonNode elemento : valor.isNull() ? List.<JsonNode>of() : valor) {
+            if (!(elemento instanceof ObjectNode campos)) {
+                throw new InvalidRequestException("Cada valoración debe ser un objeto JSON");
+            }
+            JsonNode valoracionId = campos.remove("id");
+            if (valoracionId == null || valoracionId.isNull()) {
+                Valoracione nueva = new Valoracione();
+                nueva.setProducto(producto);
+                actualizarValoracion(nueva, campos, true);
+                nuevas.add(nueva);
+            } else {
+                Valoracione existente = existentes.get(valoracionId.asInt());
+                if (existente == null) {
+                    throw new RecordNotFoundException("Valoración no encontrada en el producto: " + valoracionId, valoracionId.asInt());
+                }
+                actualizarValoracion(existente, campos, false);
+                conservadas.add(existente.getId());
+            }
+        }
+        producto.getValoraciones().removeIf(v -> !conservadas.contains(v.getId()));
+        producto.getValoraciones().addAll(nuevas);
+    }
+
+    private void actualizarValoracion(Valoracione valoracion, ObjectNode campos, boolean nueva) {
+        Iterator<Map.Entry<String, JsonNode>> it = campos.fields();
+        while (it.hasNext()) {
+            Map.Entry<String, JsonNode> campo = it.next();
+            Boolean admiteNulo = CAMPOS_VALORACION.get(campo.getKey());
+            if (admiteNulo == null) {
+                throw new InvalidRequestException("El campo valoraciones." + campo.getKey() + " no se puede modificar");
+            }
+            if (campo.getValue().isNull() && !admiteNulo) {
+                throw new InvalidRequestException("El campo valoraciones." + campo.getKey() + " es obligatorio");
+            }
+        }
+        actualizar(valoracion, campos);
+        if (nueva && (valoracion.getNombreCliente() == null || valoracion.getPuntuacion() == null)) {
+            throw new InvalidRequestException("Una valoración nueva necesita nombreCliente y puntuacion");
+        }
+    }
+
+    /**
+     * Copia los campos del parche sobre la entidad con sus setters, de modo que Hibernate solo
+     * ve como modificados los que cambian de valor.
+     */
+    private void actualizar(Object entidad, ObjectNode campos) {
+        if (campos.isEmpty()) {
+            return;
+        }
+        try {
+            objectMapper.readerForUpdating(entidad).readValue(campos);
+        } catch (JsonProcessingException e) {
+            throw new InvalidRequestException("Valor no válido en el parche: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Comprueba el producto resultante con las mismas restricciones que Hibernate aplicará al
+     * escribirlo, para rechazar el parche con un 400 en lugar de fallar al hacer flush. Las
+     * valoraciones solo se comprueban si el parche las trae, para no cargarlas sin necesidad.
+     */
+    private void validar(Producto producto, boolean conValoraciones) {
+        List<String> mensajes = new ArrayList<>();
+        for (ConstraintViolation<Producto> v : validator.validate(producto)) {
+            mensajes.add(v.getPropertyPath() + ": " + v.getMessage());
+        }
+        if (conValoraciones) {
+            for (Valoracione valoracion : producto.getValoraciones()) {
+                for (ConstraintViolation<Valoracione> v : validator.validate(valoracion)) {
+                    mensajes.add("valoraciones." + v.getPropertyPath() + ": " + v.getMessage());
+                }
+            }
+        }
+        if (!mensajes.isEmpty()) {
+            mensajes.sort(null);
+            throw new InvalidRequestException("El producto no es válido: " + String.join("; ", mensajes));
+        }
+    }
+}
@@ -1,31 +1,92 @@
 package com.github.dangelcrack.shopcard.services;
 
+import com.github.dangelcrack.shopcard.dto.ProductoBatch;
+import com.github.dangelcrack.shopcard.dto.ProductoResumen;
+import com.github.dangelcrack.shopcard.events.CatalogChangedEvent;
+import com.github.dangelcrack.shopcard.exceptions.InvalidRequestException;
 import com.github.dangelcrack.shopcard.exceptions.RecordNotFoundException;
 import com.github.dangelcrack.shopcard.models.Producto;
 import com.github.dangelcrack.shopcard.models.Valoracione;
+import com.github.dangelcrack.shopcard.recommendations.RelatedProductsIndex;
 import com.github.dangelcrack.shopcard.repositories.ProductoRepository;
+import com.github.dangelcrack.shopcard.tracing.Spans;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * Servicio para gestionar las operaciones relacionadas con los productos.
+ *
+ * <p>Cada método público declara su transacción. Las lecturas son {@code readOnly}: Spring pone la
+ * sesión de Hibernate en {@code FlushMode.MANUAL} y en modo solo lectura, así que no hay
+ * comprobación de cambios al terminar. Como open-session-in-view está desactivado, las entidades
+ * devueltas ya traen cargado todo lo que se serializa: por {@link Producto#GRAFO_COMPLETO} o, en
+ * los listados del catálogo completo, por {@link Producto#GRAFO_RELACIONES} más la carga de las
+ * valoraciones antes de salir de la transacción.</p>
+ *
+ * <p>El filtrado y los cálculos de valoración media se miden con los temporizadores
+ * {@code shopcard.productos.filtro} y {@code shopcard.rating} (etiqueta {@code calculo}).</p>
  */
 @Service
 public class ProductoService {
 
+    /**
+     * Máximo de ids distintos en {@link #getProductosByIds(List)}.
+     */
+    public static final int MAX_BATCH = 500;
+
     private final ProductoRepository productoRepository;
+    private final RelatedProductsIndex relatedProductsIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Timer filtroTimer;
+    private final Timer ratingFiltroTimer;
+    private final Timer ratingPromedioTimer;
+    private final Tracer tracer;
 
     /**
      * Constructor que permite la inyección del repositorio de productos.
      *
      * @param productoRepository Repositorio de productos a utilizar.
+     * @param relatedProductsIndex Índice en memoria de cartas relacionadas.
+     * @param eventPublisher Publicador de eventos de cambios en el catálogo.
+     * @param meterRegistry Registro de métricas.
+     * @param tracer Trazador para el span del filtrado en memoria.
      */
-    public ProductoService(ProductoRepository productoRepository) {
+    public ProductoService(ProductoRepository productoRepository, RelatedProductsIndex relatedProductsIndex,
+                           ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry, Tracer tracer) {
         this.productoRepository = productoRepository;
+        this.tracer = tracer;
+        this.relatedProductsIndex = relatedProductsIndex;
+        this.eventPublisher = eventPublisher;
+        this.filtroTimer = Timer.builder("shopcard.productos.filtro")
+                .description("Duración de filterProductos, consulta incluida")
+                .register(meterRegistry);
+        this.ratingFiltroTimer = Timer.builder("shopcard.rating")
+                .description("Duración de los cálculos de valoración media")
+                .tag("calculo", "filtro")
+                .register(meterRegistry);
+        this.ratingPromedioTimer = Timer.builder("shopcard.rating")
+                .description("Duración de los cálculos de valoración media")
+                .tag("calculo", "promedio")
+                .register(meterRegistry);
     }
 
     /**
@@ -33,8 +94,9 @@ public class ProductoService {
      *
      * @return Lista de objetos Producto.
      */
+    @Transactional(readOnly = true)
     public List<Producto> getAllProductos() {
-        return productoRepository.findAll();
+        return conValoraciones(productoRepository.findAll());
     }
 
     /**
@@ -44,20 +106,49 @@ public class ProductoService {
      * @return Objeto Producto correspondiente al ID proporcionado.
      * @throws RecordNotFoundException Si no se encuentra un producto con el ID especificado.
      */
+    @Transactional(readOnly = true)
     public Producto getProductoById(Integer id) {
         return productoRepository.findById(id)
                 .orElseThrow(() -> new RecordNotFoundException("Producto no encontrado para el ID: " + id, id));
     }
 
+    /**
+     * Obtiene varios productos por su ID con una sola consulta y el mismo plan de carga que
+     * {@link #getProductoById(Integer)}. Los ids repetidos se devuelven una vez.
+     *
+     * @param ids IDs de los productos, en el orden en que se quieren recibir.
+     * @return Productos encontrados en ese orden e IDs que no existen.
+     * @throws InvalidRequestException Si se piden más de {@link #MAX_BATCH} ids distintos.
+     */
+    @Transactional(readOnly = true)
+    public ProductoBatch getProductosByIds(List<Integer> ids) {
+        Set<Integer> pedidos = new LinkedHashSet<>(ids);
+        pedidos.remove(null);
+        if (pedidos.size() > MAX_BATCH) {
+            throw new InvalidRequestException("Se pueden pedir como máximo " + MAX_BATCH + " productos a la vez");
+        }
+        if (pedidos.isEmpty()) {
+            return new ProductoBatch(List.of(), List.of());
+        }
+        Map<Integer, Producto> porId = productoRepository.findByIdIn(pedidos).stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
+        List<Producto> productos = pedidos.stream().map(porId::get).filter(Objects::nonNull).toList();
+        List<Integer> noEncontrados = pedidos.stream().filter(id -> !porId.containsKey(id)).toList();
+        return new ProductoBatch(productos, noEncontrados);
+    }
+
     /**
      * Crea un nuevo producto en el repositorio.
      *
      * @param producto Objeto Producto a crear.
      * @return El producto creado.
      */
+    @Transactional
     public Producto createProducto(Producto producto) {
         validateProducto(producto);
-        return productoRepository.save(producto);
+        Producto saved = productoRepository.save(producto);
+        eventPublisher.publishEvent(CatalogChangedEvent.of(CatalogChangedEvent.Tipo.PRODUCTO_CREADO, saved.getId()));
+        return saved;
     }
 
     /**
@@ -67,9 +158,12 @@ public class ProductoService {
      * @param productoDetails Objeto Producto con los datos actualizados.
      * @return El producto actualizado.
      */
+    @Transactional
     public Producto updateProducto(Integer id, Producto productoDetails) {
         Producto producto = getProductoById(id);
         validateProducto(productoDetails);
+        Integer coleccionAnterior = producto.getColeccion().getId();
+        Integer categoriaAnterior = producto.getCategoria().getId();
 
         // Actualizar campos básicos
         producto.setNombre(productoDetails.getNombre());
@@ -97,7 +191,10 @@ public class ProductoService {
         // Manejar las valoraciones del producto
         updateValoraciones(producto, productoDetails.getValoraciones());
 
-        return productoRepository.save(producto);
+        Producto saved = productoRepository.save(producto);
+        eventPublisher.publishEvent(CatalogChangedEvent.of(CatalogChangedEvent.Tipo.PRODUCTO_ACTUALIZADO, id,
+                coleccionAnterior, categoriaAnterior));
+        return saved;
     }
 
     /**
@@ -109,11 +206,30 @@ public class ProductoService {
     private void updateValoraciones(Producto producto, List<Valoracione> nuevasValoraciones) {
         if (nuevasValoraciones == null) return;
 
-        // Limpiar valoraciones existentes y agregar las nuevas
-        producto.getValoraciones().clear();
+        // Aplicar solo las diferencias: las que ya existen se actualizan en su sitio, las nuevas se
+        // añaden y se eliminan las que faltan. Vaciar la lista y volver a llenarla borraría y
+        // reinsertaría todas las valoraciones aunque no hubieran cambiado.
+        Map<Integer, Valoracione> existentes = producto.getValoraciones().stream()
+                .collect(Collectors.toMap(Valoracione::getId, Function.identity()));
+        List<Valoracione> resultado = new ArrayList<>(nuevasValoraciones.size());
         for (Valoracione valoracion : nuevasValoraciones) {
-            valoracion.setProducto(producto); // Establecer relación bidireccional
-            producto.getValoraciones().add(valoracion);
+            Valoracione existente = valoracion.getId() == null ? null : existentes.get(valoracion.getId());
+            if (existente != null) {
+                existente.setNombreCliente(valoracion.getNombreCliente());
+                existente.setPuntuacion(valoracion.getPuntuacion());
+                existente.setComentario(valoracion.getComentario());
+                resultado.add(existente);
+            } else {
+                valoracion.setId(null);
+                valoracion.setProducto(producto); // Establecer relación bidireccional
+                resultado.add(valoracion);
+            }
+        }
+        producto.getValoraciones().retainAll(resultado);
+        for (Valoracione valoracion : resultado) {
+            if (valoracion.getId() == null) {
+                producto.getValoraciones().add(valoracion);
+            }
         }
     }
 
@@ -123,11 +239,45 @@ public class ProductoService {
      * @param id Identificador único del producto.
      * @throws RecordNotFoundException Si no se encuentra el producto con el ID especificado.
      */
+    @Transactional
     public void deleteProducto(Integer id) {
-        if (!productoRepository.existsById(id)) {
-            throw new RecordNotFoundException("Producto no encontrado para el ID: " + id, id);
+        // Se carga el producto (deleteById también lo haría) para avisar de su colección y categoría
+        Producto producto = getProductoById(id);
+        productoRepository.delete(producto);
+        eventPublisher.publishEvent(CatalogChangedEvent.of(CatalogChangedEvent.Tipo.PRODUCTO_ELIMINADO, id,
+                producto.getColeccion().getId(), producto.getCategoria().getId()));
+    }
+
+    /**
+     * Obtiene las cartas relacionadas con un producto a partir del índice en memoria.
+     * Los ids se resuelven con una única consulta y se devuelven en el orden del índice.
+     *
+     * @param id Identificador único del producto.
+     * @return Lista de cartas relacionadas, de más a menos parecida.
+     * @throws RecordNotFoundException Si no se encuentra el producto con el ID especificado.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductoResumen> findRelacionados(Integer id) {
+        int[] ids = relatedProductsIndex.getRelated(id);
+        if (ids.length == 0) {
+            if (!productoRepository.existsById(id)) {
+                throw new RecordNotFoundException("Producto no encontrado para el ID: " + id, id);
+            }
+            // Aún no calculado: se devuelve vacío y se calcula en el siguiente refresco del índice
+            relatedProductsIndex.programarSiFalta(id);
+            return List.of();
+        }
+        List<Integer> idList = Arrays.stream(ids).boxed().toList();
+        Map<Integer, ProductoResumen> porId = productoRepository.findResumenByIdIn(idList).stream()
+                .collect(Collectors.toMap(ProductoResumen::id, Function.identity()));
+        List<ProductoResumen> result = new ArrayList<>(ids.length);
+        for (int relacionado : ids) {
+            ProductoResumen resumen = porId.get(relacionado);
+            if (resumen != null) {
+                result.add(resumen);
+            }
         }
-        productoRepository.deleteById(id);
+        return result;
     }
 
     /**
@@ -136,6 +286,7 @@ public class ProductoService {
      * @param nombre Cadena a buscar en los nombres de los productos.
      * @return Lista de productos que coincidan con el criterio.
      */
+    @Transactional(readOnly = true)
     public List<Producto> findByNombreContaining(String nombre) {
         if (!StringUtils.hasText(nombre)) {
             throw new IllegalArgumentException("El término de búsqueda no puede estar vacío");
@@ -149,6 +300,7 @@ public class ProductoService {
      * @param categoriaId ID de la categoría.
      * @return Lista de productos que pertenecen a la categoría especificada.
      */
+    @Transactional(readOnly = true)
     public List<Producto> findByCategoriaId(Integer categoriaId) {
         return productoRepository.findByCategoriaId(categoriaId);
     }
@@ -159,6 +311,7 @@ public class ProductoService {
      * @param coleccionId ID de la colección.
      * @return Lista de productos que pertenecen a la colección especificada.
      */
+    @Transactional(readOnly = true)
     public List<Producto> findByColeccionId(Integer coleccionId) {
         return productoRepository.findByColeccionId(coleccionId);
     }
@@ -169,6 +322,7 @@ public class ProductoService {
      * @param rarezaId ID de la rareza.
      * @return Lista de productos que tienen la rareza especificada.
      */
+    @Transactional(readOnly = true)
     public List<Producto> findByRarezaId(Integer rarezaId) {
         return productoRepository.findByRarezaId(rarezaId);
     }
@@ -179,10 +333,79 @@ public class ProductoService {
      * @param estadoId ID del estado.
      * @return Lista de productos que tienen el estado especificado.
      */
+    @Transactional(readOnly = true)
     public List<Producto> findByEstadoId(Integer estadoId) {
         return productoRepository.findByEstadoId(estadoId);
     }
 
+    /**
+     * Lista de tarjetas del catálogo: proyección {@link ProductoResumen} leída directamente de la
+     * consulta, sin descripción ni valoraciones.
+     *
+     * @return Resumen de todos los productos, ordenados por id.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductoResumen> getResumenProductos() {
+        return productoRepository.findAllResumen();
+    }
+
+    /**
+     * Obtiene todos los productos con solo los campos pedidos.
+     *
+     * @param fields Campos separados por comas.
+     * @return Un mapa por producto con los campos pedidos.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllProductos(String fields) {
+        return productoRepository.findCampos(fields, null);
+    }
+
+    /**
+     * Obtiene un producto con solo los campos pedidos.
+     *
+     * @param id Identificador único del producto.
+     * @param fields Campos separados por comas.
+     * @return Mapa con los campos pedidos.
+     * @throws RecordNotFoundException Si no se encuentra un producto con el ID especificado.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getProductoById(Integer id, String fields) {
+        return productoRepository.findCampos(fields, (root, query, cb) -> cb.equal(root.get("id"), id)).stream()
+                .findFirst()
+                .orElseThrow(() -> new RecordNotFoundException("Producto no encontrado para el ID: " + id, id));
+    }
+
+    /**
+     * Busca productos por nombre con solo los campos pedidos.
+     *
+     * @param nombre Cadena a buscar en los nombres de los productos.
+     * @param fields Campos separados por comas.
+     * @return Un mapa por producto coincidente.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findByNombreContaining(String nombre, String fields) {
+        if (!StringUtils.hasText(nombre)) {
+            throw new IllegalArgumentException("El término de búsqueda no puede estar vacío");
+        }
+        String patron = "%" + nombre.toLowerCase() + "%";
+        return productoRepository.findCampos(fields, (root, query, cb) -> cb.like(cb.lower(root.get("nombre")), patron));
+    }
+
+    /**
+     * Busca productos de una relación (categoría, colección, rareza o estado) con solo los campos
+     * pedidos.
+     *
+     * @param relacion Nombre del atributo de la relación en {@link Producto}.
+     * @param relacionId ID de la entidad relacionada.
+     * @param fields Campos separados por comas.
+     * @return Un mapa por producto de la relación.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findByRelacion(String relacion, Integer relacionId, String fields) {
+        return productoRepository.findCampos(fields,
+                (root, query, cb) -> cb.equal(root.get(relacion).get("id"), relacionId));
+    }
+
     /**
      * Filtra productos basándose en múltiples criterios.
      *
@@ -196,6 +419,7 @@ public class ProductoService {
      * @param nombre Cadena a buscar en los nombres de los productos.
      * @return Lista de productos que coinciden con los criterios.
      */
+    @Transactional(readOnly = true)
     public List<Producto> filterProductos(
             List<Integer> categorias,
             List<Integer> colecciones,
@@ -206,9 +430,27 @@ public class ProductoService {
             Double maxPrice,
             String nombre) {
 
-        List<Producto> productos = productoRepository.findAll();
+        return conValoraciones(filtroTimer.record(() -> {
+            List<Producto> productos = productoRepository.findAll();
 
-        return productos.stream()
+            // El filtrado en memoria lleva su propio span para separarlo de la consulta en las trazas
+            Span span = Spans.start(tracer, "ProductoService.filtrar", "service");
+            if (span == null) {
+                return filtrar(productos, categorias, colecciones, rarezas, estados, ratings, minPrice, maxPrice, nombre);
+            }
+            span.tag("shopcard.items", productos.size());
+            try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+                return filtrar(productos, categorias, colecciones, rarezas, estados, ratings, minPrice, maxPrice, nombre);
+            } finally {
+                span.end();
+            }
+        }));
+    }
+
+    private List<Producto> filtrar(List<Producto> productos, List<Integer> categorias, List<Integer> colecciones,
+                                   List<Integer> rarezas, List<Integer> estados, List<Integer> ratings,
+                                   Double minPrice, Double maxPrice, String nombre) {
+        List<Producto> candidatos = productos.stream()
                 .filter(p -> categorias == null || categorias.isEmpty() ||
                         (p.getCategoria() != null && categorias.contains(p.getCategoria().getId())))
                 .filter(p -> colecciones == null || colecciones.isEmpty() ||
@@ -217,23 +459,41 @@ public class ProductoService {
                         (p.getRareza() != null && rarezas.contains(p.getRareza().getId())))
                 .filter(p -> estados == null || estados.isEmpty() ||
                         (p.getEstado() != null && estados.contains(p.getEstado().getId())))
-                .filter(p -> ratings == null || ratings.isEmpty() ||
-                        (p.getValoraciones() != null && hasMatchingRating(p.getValoraciones(), ratings)))
                 .filter(p -> minPrice == null || (p.getPrecio() != null && p.getPrecio().doubleValue() >= minPrice))
                 .filter(p -> maxPrice == null || (p.getPrecio() != null && p.getPrecio().doubleValue() <= maxPrice))
                 .filter(p -> nombre == null || nombre.isEmpty() ||
                         (p.getNombre() != null && p.getNombre().toLowerCase().contains(nombre.toLowerCase())))
                 .collect(Collectors.toList());
+        if (ratings == null || ratings.isEmpty()) {
+            return candidatos;
+        }
+        // La media de valoraciones es el criterio más caro: se calcula solo sobre los que pasan
+        // el resto de filtros, y se mide en bloque para no cronometrar cada producto
+        return ratingFiltroTimer.record(() -> candidatos.stream()
+                .filter(p -> p.getValoraciones() != null && hasMatchingRating(p.getValoraciones(), ratings))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Carga las valoraciones de los productos leídos con {@link Producto#GRAFO_RELACIONES} para
+     * serializarlas fuera de la transacción. La primera carga trae en una sentencia las de todos
+     * los productos de la consulta; el resto ya están cargadas.
+     */
+    private static List<Producto> conValoraciones(List<Producto> productos) {
+        productos.forEach(p -> Hibernate.initialize(p.getValoraciones()));
+        return productos;
     }
 
     /**
      * Comprueba si las valoraciones promedio coinciden con las puntuaciones especificadas.
+     * Es el criterio por producto del filtro {@code ratings} de {@link #filterProductos}; es
+     * público para medirlo por separado en {@code RatingBenchmark}.
      *
      * @param valoraciones Lista de valoraciones.
      * @param ratings Lista de puntuaciones a comparar.
      * @return True si coincide, False en caso contrario.
      */
-    private boolean hasMatchingRating(List<Valoracione> valoraciones, List<Integer> ratings) {
+    public static boolean hasMatchingRating(List<Valoracione> valoraciones, List<Integer> ratings) {
         if (valoraciones == null || valoraciones.isEmpty()) return false;
 
         double promedio = valoraciones.stream()
@@ -272,15 +532,17 @@ public class ProductoService {
      * @param productoId Identificador único del producto.
      * @return Promedio de las valoraciones o 0.0 si no hay valoraciones.
      */
+    @Transactional(readOnly = true)
     public Double getAverageRatingByProductoId(Integer productoId) {
-        Producto producto = getProductoById(productoId);
-        if (producto.getValoraciones() == null || producto.getValoraciones().isEmpty()) {
+        return ratingPromedioTimer.record((Supplier<Double>) () -> {
+            Double promedio = productoRepository.findAverageRating(productoId);
+            if (promedio != null) {
+                return promedio;
+            }
+            if (!productoRepository.existsById(productoId)) {
+                throw new RecordNotFoundException("Producto no encontrado para el ID: " + productoId, productoId);
+            }
             return 0.0;
-        }
-
-        return producto.getValoraciones().stream()
-                .mapToInt(Valoracione::getPuntuacion)
-                .average()
-                .orElse(0.0);
+        });
     }
 }
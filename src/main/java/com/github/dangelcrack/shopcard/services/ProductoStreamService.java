@@ -0,0 +1,117 @@
+package com.github.dangelcrack.shopcard.services;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dangelcrack.shopcard.repositories.ProductoJsonStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Servicio de los listados de productos por categoría y por colección en JSON, escritos
+ * directamente desde la consulta a la respuesta.
+ *
+ * <p>Son los listados más pedidos del catálogo y devuelven productos completos con sus
+ * valoraciones. En lugar de cargar las entidades y serializarlas después, {@link ProductoJsonStream}
+ * escribe cada fila en cuanto llega, así que ni se crean entidades ni se guarda la lista entera en
+ * memoria. El resultado es el mismo JSON que {@link ProductoService#findByCategoriaId} y
+ * {@link ProductoService#findByColeccionId}, que siguen atendiendo los demás formatos.</p>
+ *
+ * <p>El listado se lee por páginas de {@code shopcard.stream.page-size} productos, por id, cada
+ * una en su propia transacción de solo lectura con un tiempo máximo
+ * ({@code shopcard.stream.timeout-seconds}). La página se escribe fuera de la transacción, así
+ * que un cliente lento no retiene la conexión del pool: como mucho se guarda en memoria una
+ * página.</p>
+ *
+ * <p>Si falla una página después de haber escrito la primera, la excepción se propaga sin cerrar
+ * el array JSON. La respuesta ya se ha enviado, así que el contenedor corta la conexión sin
+ * terminarla y el cliente ve una respuesta incompleta, nunca un JSON válido con parte de los
+ * productos. Un fallo en la primera página responde con el error habitual.</p>
+ */
+@Service
+public class ProductoStreamService {
+
+    private final ProductoJsonStream productoJsonStream;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int pageSize;
+
+    /**
+     * Constructor para inyección de dependencias.
+     * @param productoJsonStream Escritor de listados de productos
+     * @param objectMapper ObjectMapper de la aplicación, del que se toma la fábrica de generadores
+     * @param transactionManager Gestor de las transacciones de cada página
+     * @param pageSize Productos por página
+     * @param timeoutSeconds Tiempo máximo de la lectura de cada página
+     */
+    public ProductoStreamService(ProductoJsonStream productoJsonStream, ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${shopcard.stream.page-size:200}") int pageSize,
+                                 @Value("${shopcard.stream.timeout-seconds:5}") int timeoutSeconds) {
+        this.productoJsonStream = productoJsonStream;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setTimeout(timeoutSeconds);
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Escribe en JSON los productos de una categoría.
+     *
+     * @param categoriaId ID de la categoría
+     * @param out Salida; no se cierra
+     * @throws IOException Si falla la escritura
+     * @throws org.springframework.dao.DataAccessException Si falla la lectura de una página
+     */
+    public void escribirPorCategoria(Integer categoriaId, OutputStream out) throws IOException {
+        escribir(ProductoJsonStream.Filtro.CATEGORIA, categoriaId, out);
+    }
+
+    /**
+     * Escribe en JSON los productos de una colección.
+     *
+     * @param coleccionId ID de la colección
+     * @param out Salida; no se cierra
+     * @throws IOException Si falla la escritura
+     * @throws org.springframework.dao.DataAccessException Si falla la lectura de una página
+     */
+    public void escribirPorColeccion(Integer coleccionId, OutputStream out) throws IOException {
+        escribir(ProductoJsonStream.Filtro.COLECCION, coleccionId, out);
+    }
+
+    private void escribir(ProductoJsonStream.Filtro filtro, Integer id, OutputStream out) throws IOException {
+        // Sin AUTO_CLOSE_JSON_CONTENT: al cerrar tras un fallo no se completa el array
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)) {
+            int ultimo = 0;
+            boolean primera = true;
+            while (true) {
+                int despuesDe = ultimo;
+                List<Object[]> filas = transactionTemplate.execute(
+                        status -> productoJsonStream.leerPagina(filtro, id, despuesDe, pageSize));
+                if (primera) {
+                    gen.writeStartArray();
+                    primera = false;
+                }
+                if (filas == null || filas.isEmpty()) {
+                    break;
+                }
+                int productos = ProductoJsonStream.escribirPagina(gen, filas);
+                gen.flush();
+                if (productos < pageSize) {
+                    break;
+                }
+                ultimo = (Integer) filas.get(filas.size() - 1)[0];
+            }
+            gen.writeEndArray();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.github.dangelcrack.shopcard.models.Rareza;
 import com.github.dangelcrack.shopcard.repositories.RarezaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
 /**
@@ -21,6 +22,7 @@ public class RarezaService {
      *
      * @return Lista de objetos Rareza.
      */
+    @Transactional(readOnly = true)
     public List<Rareza> getAllRarezas() {
         return repository.findAll();
     }
@@ -32,6 +34,7 @@ public class RarezaService {
      * @return Objeto Rareza correspondiente al ID proporcionado.
      * @throws RecordNotFoundException Si no se encuentra una rareza con el ID especificado.
      */
+    @Transactional(readOnly = true)
     public Rareza getRarezaById(Long id) throws RecordNotFoundException {
         return repository.findById(id)
                 .orElseThrow(() -> new RecordNotFoundException("No existe rareza para el id: " + id, id));
@@ -43,6 +46,7 @@ public class RarezaService {
      * @param rareza Objeto Rareza a crear.
      * @return La rareza creada.
      */
+    @Transactional
     public Rareza createRareza(Rareza rareza) {
         return repository.save(rareza);
     }
@@ -55,6 +59,7 @@ public class RarezaService {
      * @return La rareza actualizada.
      * @throws RecordNotFoundException Si no se encuentra una rareza con el ID especificado.
      */
+    @Transactional
     public Rareza updateRareza(Long id, Rareza rarezaActualizada) throws RecordNotFoundException {
         Rareza rarezaExistente = repository.findById(id)
                 .orElseThrow(() -> new RecordNotFoundException("Rareza no encontrada con el id ", id));
@@ -71,6 +76,7 @@ public class RarezaService {
      * @param id Identificador único de la rareza.
      * @throws RecordNotFoundException Si no se encuentra una rareza con el ID especificado.
      */
+    @Transactional
     public void deleteRareza(Long id) throws RecordNotFoundException {
         Rareza rareza = repository.findById(id)
                 .orElseThrow(() -> new RecordNotFoundException("No existe rareza para el id: " + id, id));
@@ -83,6 +89,7 @@ public class RarezaService {
      * @param nombre Cadena a buscar en los nombres de las rarezas.
      * @return Lista de rarezas que coincidan con el criterio.
      */
+    @Transactional(readOnly = true)
     public List<Rareza> findByNombreContaining(String nombre) {
         return repository.findByNombreContaining(nombre);
     }
@@ -93,6 +100,7 @@ public class RarezaService {
      * @param color Prefijo del color a buscar.
      * @return Lista de rarezas que coincidan con el criterio.
      */
+    @Transactional(readOnly = true)
     public List<Rareza> findByColorStartingWith(String color) {
         return repository.findByColorStartingWithIgnoreCase(color);
     }
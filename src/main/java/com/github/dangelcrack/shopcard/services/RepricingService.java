@@ -0,0 +1,310 @@
+package com.github.dangelcrack.shopcard.services;
+
+import com.github.dangelcrack.shopcard.dto.RepricingResult;
+import com.github.dangelcrack.shopcard.dto.RepricingRule;
+import com.github.dangelcrack.shopcard.events.CatalogChangedEvent;
+import com.github.dangelcrack.shopcard.exceptions.ConflictException;
+import com.github.dangelcrack.shopcard.exceptions.InvalidRequestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Servicio de cambio de precio masivo.
+ *
+ * <p>Los precios se recalculan en la base de datos con sentencias {@code UPDATE} por lotes de
+ * ids consecutivos, sin cargar entidades. Cada lote va en su propia transacción, de modo que los
+ * bloqueos duran poco aunque la regla afecte a miles de cartas, y tras el commit de cada lote se
+ * publica un {@link CatalogChangedEvent} para que índices y cachés refresquen esos productos.</p>
+ *
+ * <p>Cada cambio real es un trabajo con un identificador elegido por el cliente, guardado en
+ * {@code trabajos_cambio_precio}. La transacción de cada lote avanza también el último id
+ * aplicado del trabajo, así que si el trabajo falla a mitad los lotes confirmados quedan
+ * anotados: repetir la petición con el mismo identificador continúa desde el lote siguiente, y
+ * repetirla tras terminar devuelve el resultado sin tocar ningún precio. Ningún producto recibe
+ * la regla dos veces.</p>
+ *
+ * <p>La vista previa ({@code simulacion}) ejecuta las mismas expresiones en un {@code SELECT},
+ * así que los precios que muestra son exactamente los que se guardarían.</p>
+ */
+@Service
+public class RepricingService {
+
+    private static final Logger log = LoggerFactory.getLogger(RepricingService.class);
+
+    private static final BigDecimal CIEN = BigDecimal.valueOf(100);
+    private static final int TAMANO_MUESTRA = 50;
+    private static final int MAX_TRABAJO = 64;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    public RepricingService(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            ApplicationEventPublisher eventPublisher,
+                            @Value("${shopcard.repricing.chunk-size:500}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Aplica una regla de cambio de precio, o calcula su resultado sin aplicarla.
+     *
+     * @param rule Regla a aplicar
+     * @param simulacion true para obtener solo la vista previa
+     * @param trabajo Identificador del trabajo, obligatorio si no es una simulación. Repetir la
+     *                petición con el mismo identificador reanuda o devuelve el mismo trabajo
+     * @return Productos cambiados por el trabajo y una muestra de los cambios pendientes
+     * @throws InvalidRequestException Si la regla o el identificador no son válidos
+     * @throws ConflictException Si el identificador ya se usó con otra regla, o si otra petición
+     *                           está aplicando el mismo trabajo
+     */
+    public RepricingResult reprice(RepricingRule rule, boolean simulacion, String trabajo) {
+        validate(rule);
+        Sql ambito = ambito(rule);
+        Sql precio = nuevoPrecio(rule);
+        Sql precioOriginal = nuevoPrecioOriginal(rule, precio);
+
+        if (simulacion) {
+            Long afectados = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM productos WHERE " + ambito.sql, Long.class, ambito.args());
+            return new RepricingResult(true, null, afectados != null ? afectados : 0, 0,
+                    preview(ambito, precio, precioOriginal, 0));
+        }
+        if (trabajo == null || trabajo.isBlank() || trabajo.length() > MAX_TRABAJO) {
+            throw new InvalidRequestException("Un cambio de precio real necesita un identificador de trabajo de hasta "
+                    + MAX_TRABAJO + " caracteres");
+        }
+
+        Trabajo estado = transactionTemplate.execute(status -> abrir(trabajo, huella(rule)));
+        if (estado.completado) {
+            return new RepricingResult(false, trabajo, estado.aplicados, estado.lotes, List.of());
+        }
+        if (estado.ultimoId > 0) {
+            log.info("Reanudando el cambio de precio {} tras el producto {}", trabajo, estado.ultimoId);
+        }
+        List<RepricingResult.Cambio> muestra = preview(ambito, precio, precioOriginal, estado.ultimoId);
+
+        while (!estado.completado) {
+            Trabajo anterior = estado;
+            estado = transactionTemplate.execute(status -> updateChunk(trabajo, anterior, ambito, precio, precioOriginal));
+        }
+        log.info("Cambio de precio {} {} {} aplicado a {} productos en {} lotes",
+                trabajo, rule.tipo(), rule.valor(), estado.aplicados, estado.lotes);
+        return new RepricingResult(false, trabajo, estado.aplicados, estado.lotes, muestra);
+    }
+
+    /**
+     * Crea el trabajo o, si ya existe con la misma regla, devuelve su progreso.
+     */
+    private Trabajo abrir(String trabajo, String huella) {
+        List<Trabajo> existente = jdbcTemplate.query(
+                "SELECT huella, ultimo_id, aplicados, lotes, completado FROM trabajos_cambio_precio WHERE id = ?",
+                (rs, i) -> {
+                    if (!huella.equals(rs.getString(1))) {
+                        throw new ConflictException("El trabajo " + trabajo + " ya existe con otra regla");
+                    }
+                    return new Trabajo(rs.getInt(2), rs.getLong(3), rs.getInt(4), rs.getBoolean(5));
+                },
+                trabajo);
+        if (!existente.isEmpty()) {
+            return existente.getFirst();
+        }
+        Timestamp ahora = Timestamp.from(Instant.now());
+        try {
+            jdbcTemplate.update("INSERT INTO trabajos_cambio_precio (id, huella, ultimo_id, aplicados, lotes, completado, creado, actualizado) " +
+                    "VALUES (?, ?, 0, 0, 0, FALSE, ?, ?)", trabajo, huella, ahora, ahora);
+        } catch (DuplicateKeyException e) {
+            throw new ConflictException("El trabajo " + trabajo + " se está creando en otra petición");
+        }
+        return new Trabajo(0, 0, 0, false);
+    }
+
+    /**
+     * Actualiza el siguiente lote de productos del ámbito con id mayor que el último aplicado y
+     * avanza el trabajo en la misma transacción. Si no quedan productos marca el trabajo como
+     * completado.
+     *
+     * @return Progreso del trabajo tras el lote
+     * @throws ConflictException Si otra petición ha avanzado el trabajo entretanto
+     */
+    private Trabajo updateChunk(String trabajo, Trabajo anterior, Sql ambito, Sql precio, Sql precioOriginal) {
+        List<Integer> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM productos WHERE " + ambito.sql + " AND id > ? ORDER BY id LIMIT ?",
+                Integer.class, concat(ambito.args(), anterior.ultimoId, chunkSize));
+        Timestamp ahora = Timestamp.from(Instant.now());
+        if (ids.isEmpty()) {
+            avanzar("UPDATE trabajos_cambio_precio SET completado = TRUE, actualizado = ? WHERE id = ? AND ultimo_id = ?",
+                    trabajo, ahora, trabajo, anterior.ultimoId);
+            return new Trabajo(anterior.ultimoId, anterior.aplicados, anterior.lotes, true);
+        }
+
+        // El precio original se asigna primero: MySQL evalúa las asignaciones de izquierda a derecha,
+        // y así ambas expresiones parten del precio anterior en cualquier base de datos
+        StringBuilder set = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+        if (precioOriginal != null) {
+            set.append("precio_original = ").append(precioOriginal.sql).append(", ");
+            args.addAll(precioOriginal.params);
+        }
+        set.append("precio = ").append(precio.sql);
+        args.addAll(precio.params);
+        args.addAll(ids);
+
+        int actualizados = jdbcTemplate.update("UPDATE productos SET " + set + " WHERE id IN (" + placeholders(ids.size()) + ")",
+                args.toArray());
+        int ultimoId = ids.get(ids.size() - 1);
+        // Solo avanza si nadie lo ha hecho antes: dos peticiones con el mismo trabajo no aplican el mismo lote
+        avanzar("UPDATE trabajos_cambio_precio SET ultimo_id = ?, aplicados = aplicados + ?, lotes = lotes + 1, actualizado = ? " +
+                "WHERE id = ? AND ultimo_id = ? AND completado = FALSE", trabajo, ultimoId, actualizados, ahora, trabajo, anterior.ultimoId);
+        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Tipo.PRODUCTO_ACTUALIZADO, new LinkedHashSet<>(ids)));
+        return new Trabajo(ultimoId, anterior.aplicados + actualizados, anterior.lotes + 1, false);
+    }
+
+    private void avanzar(String sql, String trabajo, Object... args) {
+        if (jdbcTemplate.update(sql, args) != 1) {
+            throw new ConflictException("El trabajo " + trabajo + " se está aplicando en otra petición");
+        }
+    }
+
+    /**
+     * Primeros cambios de los productos del ámbito con id mayor que {@code desde}, los que aún no
+     * ha aplicado el trabajo.
+     */
+    private List<RepricingResult.Cambio> preview(Sql ambito, Sql precio, Sql precioOriginal, int desde) {
+        Sql original = precioOriginal != null ? precioOriginal : new Sql("precio_original", List.of());
+        List<Object> args = new ArrayList<>(precio.params);
+        args.addAll(original.params);
+        args.addAll(ambito.params);
+        args.add(desde);
+        args.add(TAMANO_MUESTRA);
+        return jdbcTemplate.query(
+                "SELECT id, nombre, precio, " + precio.sql + ", precio_original, " + original.sql +
+                        " FROM productos WHERE " + ambito.sql + " AND id > ? ORDER BY id LIMIT ?",
+                (rs, i) -> new RepricingResult.Cambio(rs.getInt(1), rs.getString(2), rs.getBigDecimal(3),
+                        scale(rs.getBigDecimal(4)), rs.getBigDecimal(5), scale(rs.getBigDecimal(6))),
+                args.toArray());
+    }
+
+    private static void validate(RepricingRule rule) {
+        if (rule == null || rule.tipo() == null || rule.valor() == null) {
+            throw new InvalidRequestException("La regla debe indicar el tipo y el valor del cambio");
+        }
+        if (isEmpty(rule.colecciones()) && isEmpty(rule.rarezas()) && isEmpty(rule.categorias()) && isEmpty(rule.estados())) {
+            throw new InvalidRequestException("La regla debe limitarse al menos a una colección, rareza, categoría o estado");
+        }
+        if (rule.tipo() == RepricingRule.Tipo.PORCENTAJE && rule.valor().compareTo(CIEN.negate()) <= 0) {
+            throw new InvalidRequestException("Una rebaja porcentual debe ser menor del 100 %");
+        }
+    }
+
+    private static Sql ambito(RepricingRule rule) {
+        List<String> condiciones = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        in("coleccion_id", rule.colecciones(), condiciones, params);
+        in("rareza_id", rule.rarezas(), condiciones, params);
+        in("categoria_id", rule.categorias(), condiciones, params);
+        in("estado_id", rule.estados(), condiciones, params);
+        return new Sql(String.join(" AND ", condiciones), params);
+    }
+
+    private static void in(String columna, List<Integer> ids, List<String> condiciones, List<Object> params) {
+        if (!isEmpty(ids)) {
+            condiciones.add(columna + " IN (" + placeholders(ids.size()) + ")");
+            params.addAll(ids);
+        }
+    }
+
+    /**
+     * Expresión del nuevo precio, redondeada a céntimos y nunca por debajo del mínimo de la entidad.
+     */
+    private static Sql nuevoPrecio(RepricingRule rule) {
+        return switch (rule.tipo()) {
+            case PORCENTAJE -> new Sql("GREATEST(0.01, ROUND(precio * ?, 2))",
+                    List.of(BigDecimal.ONE.add(rule.valor().divide(CIEN, MathContext.DECIMAL64))));
+            case ABSOLUTO -> new Sql("GREATEST(0.01, ROUND(precio + ?, 2))", List.of(rule.valor()));
+        };
+    }
+
+    /**
+     * Expresión del nuevo precio original, o null si no se modifica.
+     */
+    private static Sql nuevoPrecioOriginal(RepricingRule rule, Sql precio) {
+        RepricingRule.PrecioOriginal modo = rule.precioOriginal() != null ? rule.precioOriginal() : RepricingRule.PrecioOriginal.MANTENER;
+        return switch (modo) {
+            case MANTENER -> null;
+            case IGUALAR -> precio;
+            case GUARDAR_ANTERIOR -> new Sql("precio", List.of());
+        };
+    }
+
+    /**
+     * Huella de la regla: dos reglas con los mismos campos tienen la misma.
+     */
+    private static String huella(RepricingRule rule) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rule.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static BigDecimal scale(BigDecimal value) {
+        return value != null ? value.setScale(2, RoundingMode.HALF_UP) : null;
+    }
+
+    private static boolean isEmpty(List<?> list) {
+        return list == null || list.isEmpty();
+    }
+
+    private static String placeholders(int n) {
+        return String.join(",", Collections.nCopies(n, "?"));
+    }
+
+    private static Object[] concat(Object[] args, Object... extra) {
+        Object[] result = new Object[args.length + extra.length];
+        System.arraycopy(args, 0, result, 0, args.length);
+        System.arraycopy(extra, 0, result, args.length, extra.length);
+        return result;
+    }
+
+    /**
+     * Fragmento SQL con sus parámetros posicionales.
+     */
+    private record Sql(String sql, List<Object> params) {
+        Object[] args() {
+            return params.toArray();
+        }
+    }
+
+    /**
+     * Progreso de un trabajo: último id aplicado, productos cambiados y lotes confirmados.
+     */
+    private record Trabajo(int ultimoId, long aplicados, int lotes, boolean completado) {
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.dangelcrack.shopcard.services;
+
+import com.github.dangelcrack.shopcard.exceptions.InvalidRequestException;
+import com.github.dangelcrack.shopcard.exceptions.RecordNotFoundException;
+import com.github.dangelcrack.shopcard.repositories.CategoriasRepository;
+import com.github.dangelcrack.shopcard.repositories.ColeccionesRepository;
+import com.github.dangelcrack.shopcard.repositories.ProductoRepository;
+import com.github.dangelcrack.shopcard.thumbnails.ImageOrigin;
+import com.github.dangelcrack.shopcard.thumbnails.ThumbnailCache;
+import com.github.dangelcrack.shopcard.thumbnails.ThumbnailProperties;
+import com.github.dangelcrack.shopcard.thumbnails.ThumbnailRenderer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Servicio de miniaturas de las imágenes de productos, categorías y colecciones.
+ *
+ * <p>La URL de la imagen se lee de la base de datos; la miniatura se busca en
+ * {@link ThumbnailCache} y, si no está, se genera a partir del {@link ImageOrigin} configurado.
+ * El ancho pedido se redondea al tamaño configurado inmediatamente superior.</p>
+ */
+@Service
+public class ThumbnailService {
+
+    /**
+     * Entidades con imagen.
+     */
+    public enum Tipo {
+        PRODUCTOS,
+        CATEGORIAS,
+        COLECCIONES
+    }
+
+    private final ProductoRepository productoRepository;
+    private final CategoriasRepository categoriasRepository;
+    private final ColeccionesRepository coleccionesRepository;
+    private final ImageOrigin origin;
+    private final ThumbnailRenderer renderer;
+    private final ThumbnailCache cache;
+    private final List<Integer> anchos;
+    private final Timer generacion;
+
+    /**
+     * Constructor para inyección de dependencias.
+     */
+    public ThumbnailService(ProductoRepository productoRepository, CategoriasRepository categoriasRepository,
+                            ColeccionesRepository coleccionesRepository, ImageOrigin origin, ThumbnailRenderer renderer,
+                            ThumbnailCache cache, ThumbnailProperties properties, MeterRegistry registry) {
+        this.productoRepository = productoRepository;
+        this.categoriasRepository = categoriasRepository;
+        this.coleccionesRepository = coleccionesRepository;
+        this.origin = origin;
+        this.renderer = renderer;
+        this.cache = cache;
+        this.anchos = properties.getWidths().stream().sorted().toList();
+        this.generacion = Timer.builder("shopcard.thumbnails.render")
+                .description("Lectura de la imagen original y generación de la miniatura")
+                .register(registry);
+    }
+
+    /**
+     * Obtiene la URL de la imagen de una entidad.
+     *
+     * @param tipo Tipo de entidad
+     * @param id Identificador de la entidad
+     * @return Valor de {@code imagenUrl}
+     * @throws RecordNotFoundException Si la entidad no existe o no tiene imagen
+     */
+    @Transactional(readOnly = true)
+    public String getImagenUrl(Tipo tipo, Integer id) throws RecordNotFoundException {
+        Optional<String> url = switch (tipo) {
+            case PRODUCTOS -> productoRepository.findImagenUrlById(id);
+            case CATEGORIAS -> categoriasRepository.findImagenUrlById(id.longValue());
+            case COLECCIONES -> coleccionesRepository.findImagenUrlById(id.longValue());
+        };
+        return url.filter(u -> !u.isBlank())
+                .orElseThrow(() -> new RecordNotFoundException("No hay imagen para " + tipo.name().toLowerCase() + " con el id", id));
+    }
+
+    /**
+     * Obtiene la miniatura de una imagen, generándola si no está en la caché. Se llama fuera de
+     * una transacción para no retener una conexión mientras se descarga y reduce la imagen.
+     *
+     * @param imagenUrl URL de la imagen original
+     * @param ancho Ancho pedido, o {@code null} para el mayor configurado
+     * @return Miniatura en disco
+     * @throws InvalidRequestException Si el ancho no es positivo
+     */
+    public ThumbnailCache.Miniatura getMiniatura(String imagenUrl, Integer ancho) {
+        int bucket = bucket(ancho);
+        return cache.obtener(imagenUrl, bucket,
+                () -> generacion.record(() -> renderer.renderizar(origin.leer(imagenUrl), bucket)));
+    }
+
+    /**
+     * @param ancho Ancho pedido, o {@code null}
+     * @return Menor ancho configurado que lo cubre, o el mayor si ninguno lo cubre
+     */
+    private int bucket(Integer ancho) {
+        if (ancho == null) {
+            return anchos.get(anchos.size() - 1);
+        }
+        if (ancho <= 0) {
+            throw new InvalidRequestException("El ancho debe ser positivo: " + ancho);
+        }
+        for (int bucket : anchos) {
+            if (bucket >= ancho) {
+                return bucket;
+            }
+        }
+        return anchos.get(anchos.size() - 1);
+    }
+}
@@ -1,11 +1,21 @@
 package com.github.dangelcrack.shopcard.services;
 
+import com.github.dangelcrack.shopcard.events.CatalogChangedEvent;
 import com.github.dangelcrack.shopcard.exceptions.RecordNotFoundException;
+import com.github.dangelcrack.shopcard.models.Producto;
 import com.github.dangelcrack.shopcard.models.Valoracione;
 import com.github.dangelcrack.shopcard.repositories.ValoracioneRepository;
+import jakarta.persistence.criteria.Predicate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Servicio para gestionar las operaciones relacionadas con las valoraciones.
@@ -16,11 +26,15 @@ public class ValoracioneService {
     @Autowired
     private ValoracioneRepository repository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Obtiene todas las valoraciones disponibles.
      *
      * @return Lista de objetos Valoracione.
      */
+    @Transactional(readOnly = true)
     public List<Valoracione> getAllValoraciones() {
         return repository.findAll();
     }
@@ -32,6 +46,7 @@ public class ValoracioneService {
      * @return Objeto Valoracione correspondiente al ID proporcionado.
      * @throws RecordNotFoundException Si no se encuentra una valoración con el ID especificado.
      */
+    @Transactional(readOnly = true)
     public Valoracione getValoracionById(Integer id) throws RecordNotFoundException {
         return repository.findById(id)
                 .orElseThrow(() -> new RecordNotFoundException("No existe valoración para el id: " + id, id));
@@ -43,8 +58,11 @@ public class ValoracioneService {
      * @param valoracion Objeto Valoracione a crear.
      * @return La valoración creada.
      */
+    @Transactional
     public Valoracione createValoracion(Valoracione valoracion) {
-        return repository.save(valoracion);
+        Valoracione saved = repository.save(valoracion);
+        publishChange(saved.getProducto());
+        return saved;
     }
 
     /**
@@ -55,17 +73,22 @@ public class ValoracioneService {
      * @return La valoración actualizada.
      * @throws RecordNotFoundException Si no se encuentra una valoración con el ID especificado.
      */
+    @Transactional
     public Valoracione updateValoracion(Integer id, Valoracione valoracionActualizada) throws RecordNotFoundException {
         Valoracione valoracionExistente = repository.findById(id)
                 .orElseThrow(() -> new RecordNotFoundException("Valoración no encontrada con el id ", id));
 
+        Producto productoAnterior = valoracionExistente.getProducto();
+
         // Actualizar campos de la valoración
         valoracionExistente.setNombreCliente(valoracionActualizada.getNombreCliente());
         valoracionExistente.setProducto(valoracionActualizada.getProducto());
         valoracionExistente.setPuntuacion(valoracionActualizada.getPuntuacion());
         valoracionExistente.setComentario(valoracionActualizada.getComentario());
 
-        return repository.save(valoracionExistente);
+        Valoracione saved = repository.save(valoracionExistente);
+        publishChange(productoAnterior, saved.getProducto());
+        return saved;
     }
 
     /**
@@ -74,10 +97,30 @@ public class ValoracioneService {
      * @param id Identificador único de la valoración.
      * @throws RecordNotFoundException Si no se encuentra una valoración con el ID especificado.
      */
+    @Transactional
     public void deleteValoracion(Integer id) throws RecordNotFoundException {
         Valoracione valoracion = repository.findById(id)
                 .orElseThrow(() -> new RecordNotFoundException("No existe valoración para el id: " + id, id));
         repository.delete(valoracion);
+        publishChange(valoracion.getProducto());
+    }
+
+    /**
+     * Notifica que han cambiado las valoraciones de los productos indicados,
+     * para que se refresquen los datos derivados (índices, estadísticas...).
+     *
+     * @param productos Productos afectados (se ignoran los nulos).
+     */
+    private void publishChange(Producto... productos) {
+        Set<Integer> ids = new HashSet<>();
+        for (Producto producto : productos) {
+            if (producto != null && producto.getId() != null) {
+                ids.add(producto.getId());
+            }
+        }
+        if (!ids.isEmpty()) {
+            eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Tipo.VALORACION_CAMBIADA, ids));
+        }
     }
 
     /**
@@ -86,6 +129,7 @@ public class ValoracioneService {
      * @param productoId Identificador único del producto.
      * @return Lista de valoraciones asociadas al producto.
      */
+    @Transactional(readOnly = true)
     public List<Valoracione> findByProductoId(Integer productoId) {
         return repository.findByProductoId(productoId);
     }
@@ -96,6 +140,7 @@ public class ValoracioneService {
      * @param puntuacion Puntuación exacta a buscar.
      * @return Lista de valoraciones con la puntuación especificada.
      */
+    @Transactional(readOnly = true)
     public List<Valoracione> findByPuntuacion(Byte puntuacion) {
         return repository.findByPuntuacion(puntuacion);
     }
@@ -106,7 +151,50 @@ public class ValoracioneService {
      * @param nombreCliente Cadena a buscar en los nombres de los clientes.
      * @return Lista de valoraciones que coincidan con el criterio.
      */
+    @Transactional(readOnly = true)
     public List<Valoracione> findByNombreCliente(String nombreCliente) {
         return repository.findByNombreClienteContainingIgnoreCase(nombreCliente);
     }
+
+    /**
+     * Obtiene valoraciones con solo los campos pedidos, filtradas opcionalmente por producto,
+     * puntuación o nombre de cliente (los tres criterios se combinan).
+     *
+     * @param fields Campos separados por comas.
+     * @param productoId ID del producto, o {@code null}.
+     * @param puntuacion Puntuación exacta, o {@code null}.
+     * @param nombreCliente Cadena a buscar en los nombres de los clientes, o {@code null}.
+     * @return Un mapa por valoración con los campos pedidos.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findCampos(String fields, Integer productoId, Byte puntuacion, String nombreCliente) {
+        return repository.findCampos(fields, (root, query, cb) -> {
+            List<Predicate> condiciones = new ArrayList<>();
+            if (productoId != null) {
+                condiciones.add(cb.equal(root.get("producto").get("id"), productoId));
+            }
+            if (puntuacion != null) {
+                condiciones.add(cb.equal(root.get("puntuacion"), puntuacion));
+            }
+            if (nombreCliente != null) {
+                condiciones.add(cb.like(cb.lower(root.get("nombreCliente")), "%" + nombreCliente.toLowerCase() + "%"));
+            }
+            return cb.and(condiciones.toArray(Predicate[]::new));
+        });
+    }
+
+    /**
+     * Obtiene una valoración con solo los campos pedidos.
+     *
+     * @param id Identificador único de la valoración.
+     * @param fields Campos separados por comas.
+     * @return Mapa con los campos pedidos.
+     * @throws RecordNotFoundException Si no se encuentra una valoración con el ID especificado.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getValoracionById(Integer id, String fields) {
+        return repository.findCampos(fields, (root, query, cb) -> cb.equal(root.get("id"), id)).stream()
+                .findFirst()
+                .orElseThrow(() -> new RecordNotFoundException("No existe valoración para el id: " + id, id));
+    }
 }
@@ -0,0 +1,31 @@
+package com.github.dangelcrack.shopcard.slowquery;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Anota en {@link SlowQueryContext} qué método de repositorio se está ejecutando, para
+ * atribuirle las consultas lentas. Se añade a los proxies que ya crea Spring Data, así que no
+ * hace falta AspectJ; solo guarda una cadena en un {@code ThreadLocal}.
+ */
+public class RepositoryCallInterceptor implements MethodInterceptor {
+
+    private final String repositorio;
+
+    /**
+     * @param repositorio Nombre simple de la interfaz del repositorio
+     */
+    public RepositoryCallInterceptor(String repositorio) {
+        this.repositorio = repositorio;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        String anterior = SlowQueryContext.enterRepository(repositorio + "." + invocation.getMethod().getName());
+        try {
+            return invocation.proceed();
+        } finally {
+            SlowQueryContext.exitRepository(anterior);
+        }
+    }
+}
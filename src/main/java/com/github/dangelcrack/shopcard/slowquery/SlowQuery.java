@@ -0,0 +1,51 @@
+package com.github.dangelcrack.shopcard.slowquery;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Una sentencia lenta. El plan de ejecución se rellena más tarde, en segundo plano.
+ */
+public final class SlowQuery {
+
+    private final long id;
+    private final Instant fecha;
+    private final double millis;
+    private final String sql;
+    private final List<String> parametros;
+    private final int lote;
+    private final String repositorio;
+    private final String ruta;
+    private final String hilo;
+    private volatile String plan;
+
+    SlowQuery(long id, Instant fecha, double millis, String sql, List<String> parametros, int lote,
+              String repositorio, String ruta, String hilo) {
+        this.id = id;
+        this.fecha = fecha;
+        this.millis = millis;
+        this.sql = sql;
+        this.parametros = parametros;
+        this.lote = lote;
+        this.repositorio = repositorio;
+        this.ruta = ruta;
+        this.hilo = hilo;
+    }
+
+    void setPlan(String plan) {
+        this.plan = plan;
+    }
+
+    public long getId() { return id; }
+    public Instant getFecha() { return fecha; }
+    public double getMillis() { return millis; }
+    public String getSql() { return sql; }
+    /** Parámetros por posición (el primero es el {@code ?} número 1); en un lote, los de la última fila. */
+    public List<String> getParametros() { return parametros; }
+    /** Filas del lote, o 0 si no es un lote. */
+    public int getLote() { return lote; }
+    public String getRepositorio() { return repositorio; }
+    public String getRuta() { return ruta; }
+    public String getHilo() { return hilo; }
+    public String getPlan() { return plan; }
+}
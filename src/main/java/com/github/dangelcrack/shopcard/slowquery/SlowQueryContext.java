@@ -0,0 +1,49 @@
+package com.github.dangelcrack.shopcard.slowquery;
+
+/**
+ * Contexto de la sentencia en curso: el método de repositorio que la lanza y la petición HTTP
+ * que la originó. Solo se consulta cuando una sentencia resulta lenta.
+ */
+public final class SlowQueryContext {
+
+    private static final ThreadLocal<String> REPOSITORIO = new ThreadLocal<>();
+    /** Heredable para que cuenten las subtareas en hilos virtuales de la petición. */
+    private static final InheritableThreadLocal<String> RUTA = new InheritableThreadLocal<>();
+
+    private SlowQueryContext() {
+    }
+
+    /**
+     * @param metodo Método en curso ({@code ProductoRepository.findById}), o null
+     * @return Método que había antes, para restaurarlo
+     */
+    static String enterRepository(String metodo) {
+        String anterior = REPOSITORIO.get();
+        REPOSITORIO.set(metodo);
+        return anterior;
+    }
+
+    static void exitRepository(String anterior) {
+        if (anterior == null) {
+            REPOSITORIO.remove();
+        } else {
+            REPOSITORIO.set(anterior);
+        }
+    }
+
+    static void enterRoute(String ruta) {
+        RUTA.set(ruta);
+    }
+
+    static void exitRoute() {
+        RUTA.remove();
+    }
+
+    static String repository() {
+        return REPOSITORIO.get();
+    }
+
+    static String route() {
+        return RUTA.get();
+    }
+}
@@ -0,0 +1,179 @@
+package com.github.dangelcrack.shopcard.slowquery;
+
+import com.github.dangelcrack.shopcard.profiling.JdbcStatementEvent;
+import com.github.dangelcrack.shopcard.tracing.Spans;
+import io.micrometer.tracing.Tracer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * DataSource que mide cada sentencia JDBC y pasa las que superan el umbral al {@link SlowQueryLog}.
+ *
+ * <p>Las conexiones y sentencias se envuelven en proxies. En las {@code PreparedStatement} se
+ * guardan los parámetros que se van fijando con {@code setXxx} (solo la referencia, sin
+ * formatearlos), y cada {@code execute*} se cronometra con dos llamadas a {@code nanoTime}. Solo
+ * las sentencias lentas se copian al registro, así que el coste para las rápidas es el de los
+ * proxies.</p>
+ *
+ * <p>Como ya mide todas las sentencias, también las anota como spans de la capa {@code jdbc} cuando
+ * la petición forma parte de una traza muestreada ({@link Spans}) y emite un
+ * {@link JdbcStatementEvent} cuando hay una grabación JFR con el perfil {@code jdbc}.</p>
+ */
+public class SlowQueryDataSource extends DelegatingDataSource {
+
+    private final SlowQueryLog slowQueryLog;
+    private final Supplier<Tracer> tracer;
+
+    /**
+     * @param targetDataSource DataSource real
+     * @param slowQueryLog Registro de consultas lentas
+     * @param tracer Trazador, resuelto la primera vez que se usa
+     */
+    public SlowQueryDataSource(DataSource targetDataSource, SlowQueryLog slowQueryLog, Supplier<Tracer> tracer) {
+        super(targetDataSource);
+        this.slowQueryLog = slowQueryLog;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection wrap(Connection target) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    return switch (method.getName()) {
+                        case "createStatement" -> wrapStatement((Statement) result, method.getReturnType(), null);
+                        case "prepareStatement", "prepareCall" ->
+                                wrapStatement((Statement) result, method.getReturnType(), (String) args[0]);
+                        default -> result;
+                    };
+                });
+    }
+
+    /**
+     * @param sql Sentencia preparada, o null para un {@code Statement} simple (la sentencia llega
+     *            en cada {@code execute})
+     */
+    private Object wrapStatement(Statement target, Class<?> tipo, String sql) {
+        StatementState state = new StatementState(sql);
+        return Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                JdbcStatementEvent event = new JdbcStatementEvent();
+                event.begin();
+                long start = System.nanoTime();
+                try {
+                    return invoke(target, method, args);
+                } finally {
+                    long nanos = System.nanoTime() - start;
+                    event.end();
+                    boolean lote = name.endsWith("Batch");
+                    boolean lenta = nanos >= slowQueryLog.getThresholdNanos();
+                    boolean jfr = event.shouldCommit();
+                    Tracer actual = tracer.get();
+                    boolean traza = Spans.muestreado(actual);
+                    if (lenta || jfr || traza) {
+                        String texto = sql != null ? sql : lote ? state.lotes() : args != null && args.length > 0 ? (String) args[0] : "?";
+                        if (traza) {
+                            Spans.recordStatement(actual, texto, start, nanos);
+                        }
+                        if (jfr) {
+                            event.sql = texto;
+                            event.lote = lote ? state.filas : 0;
+                            event.repositorio = SlowQueryContext.repository();
+                            event.ruta = SlowQueryContext.route();
+                            event.commit();
+                        }
+                        if (lenta) {
+                            slowQueryLog.record(texto, sql != null ? state.binds() : new Object[0], lote ? state.filas : 0, nanos);
+                        }
+                    }
+                    if (lote) {
+                        state.filas = 0;
+                        state.sqlLote = null;
+                    }
+                }
+            }
+            if (sql != null && name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                state.bind(index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                state.clear();
+            } else if (name.equals("addBatch")) {
+                state.filas++;
+                if (sql == null && args != null && args.length == 1) {
+                    state.addSql((String) args[0]);
+                }
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * Parámetros y lote de una sentencia. Una sentencia JDBC no se usa desde varios hilos a la vez.
+     */
+    private static final class StatementState {
+        private final String sql;
+        private Object[] binds = new Object[8];
+        private int maxIndex;
+        private int filas;
+        private StringBuilder sqlLote;
+
+        StatementState(String sql) {
+            this.sql = sql;
+        }
+
+        void bind(int index, Object value) {
+            if (index > binds.length) {
+                binds = Arrays.copyOf(binds, Math.max(index, binds.length * 2));
+            }
+            binds[index - 1] = value;
+            maxIndex = Math.max(maxIndex, index);
+        }
+
+        void clear() {
+            Arrays.fill(binds, null);
+            maxIndex = 0;
+        }
+
+        Object[] binds() {
+            return Arrays.copyOf(binds, maxIndex);
+        }
+
+        void addSql(String s) {
+            if (sqlLote == null) {
+                sqlLote = new StringBuilder(s);
+            } else if (sqlLote.length() < 2000) {
+                sqlLote.append(";\n").append(s);
+            }
+        }
+
+        String lotes() {
+            return sqlLote != null ? sqlLote.toString() : "?";
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.github.dangelcrack.shopcard.slowquery;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Búfer circular con las últimas consultas lentas y sus planes de ejecución.
+ *
+ * <p>Anotar una consulta lenta solo copia sus datos al búfer; el {@code EXPLAIN} se lanza en un
+ * hilo aparte con una cola acotada (si está llena, la consulta se queda sin plan). Ese hilo
+ * mantiene abierta una conexión propia, fuera del pool y del medidor: cuando el pool está agotado,
+ * que es cuando más consultas lentas hay, el {@code EXPLAIN} no espera por una conexión ni quita
+ * una a las peticiones. Los planes se guardan por texto SQL para no repetir el {@code EXPLAIN} de
+ * una misma sentencia.</p>
+ *
+ * <p>Por defecto los parámetros se guardan solo con su tipo ({@code mask-binds}).</p>
+ */
+public class SlowQueryLog implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+    private static final int MAX_PLANES = 256;
+
+    private final SlowQueryProperties properties;
+    private final SlowQuery[] buffer;
+    private final AtomicLong secuencia = new AtomicLong();
+    private final Counter contador;
+    private final ThreadPoolExecutor explainExecutor;
+    private final Map<String, String> planes = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_PLANES;
+        }
+    };
+    private volatile DataSource explainDataSource;
+    /** Conexión del {@code EXPLAIN}; solo la usa el hilo del ejecutor. */
+    private Connection explainConnection;
+
+    /**
+     * @param properties Propiedades {@code shopcard.slow-query}
+     * @param registry Registro de métricas
+     */
+    public SlowQueryLog(SlowQueryProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.buffer = new SlowQuery[Math.max(1, properties.getCapacity())];
+        this.contador = Counter.builder("shopcard.sql.slow")
+                .description("Sentencias más lentas que shopcard.slow-query.threshold-ms")
+                .register(registry);
+        this.explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(32),
+                Thread.ofPlatform().name("slow-query-explain").daemon().factory(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * @param dataSource DataSource sin pool ni medidor del que se abre la conexión de los {@code EXPLAIN}
+     */
+    public void setExplainDataSource(DataSource dataSource) {
+        this.explainDataSource = dataSource;
+    }
+
+    long getThresholdNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(properties.getThresholdMs());
+    }
+
+    /**
+     * Anota una sentencia lenta.
+     *
+     * @param sql Sentencia
+     * @param binds Parámetros por posición (índice 0 = parámetro 1), posiblemente con huecos
+     * @param lote Filas del lote, o 0
+     * @param nanos Duración
+     */
+    void record(String sql, Object[] binds, int lote, long nanos) {
+        contador.increment();
+        List<String> parametros = new ArrayList<>(binds.length);
+        for (Object b : binds) {
+            parametros.add(format(b));
+        }
+        long id = secuencia.incrementAndGet();
+        SlowQuery query = new SlowQuery(id, Instant.now(), nanos / 1_000_000.0, sql, parametros, lote,
+                SlowQueryContext.repository(), SlowQueryContext.route(), Thread.currentThread().getName());
+        buffer[(int) ((id - 1) % buffer.length)] = query;
+
+        if (properties.isExplain() && lote == 0 && sql.stripLeading().regionMatches(true, 0, "select", 0, 6)) {
+            explain(query, binds);
+        }
+    }
+
+    /**
+     * @return Consultas lentas conservadas, de la más reciente a la más antigua
+     */
+    public List<SlowQuery> getRecientes() {
+        long ultimo = secuencia.get();
+        List<SlowQuery> result = new ArrayList<>(buffer.length);
+        for (long id = ultimo; id > 0 && id > ultimo - buffer.length; id--) {
+            SlowQuery q = buffer[(int) ((id - 1) % buffer.length)];
+            // Una escritura concurrente puede haber sustituido la posición por otra más reciente
+            if (q != null && q.getId() == id) {
+                result.add(q);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return Número total de consultas lentas desde el arranque o el último vaciado
+     */
+    public long getTotal() {
+        return secuencia.get();
+    }
+
+    /**
+     * Vacía el búfer y los planes guardados.
+     */
+    public synchronized void clear() {
+        Arrays.fill(buffer, null);
+        secuencia.set(0);
+        synchronized (planes) {
+            planes.clear();
+        }
+    }
+
+    private void explain(SlowQuery query, Object[] binds) {
+        String plan;
+        synchronized (planes) {
+            plan = planes.get(query.getSql());
+        }
+        if (plan != null) {
+            query.setPlan(plan);
+            return;
+        }
+        DataSource dataSource = explainDataSource;
+        if (dataSource == null) {
+            return;
+        }
+        Object[] copia = binds.clone();
+        try {
+            explainExecutor.execute(() -> {
+                String resultado = runExplain(dataSource, query.getSql(), copia);
+                synchronized (planes) {
+                    planes.put(query.getSql(), resultado);
+                }
+                query.setPlan(resultado);
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Cola de EXPLAIN llena; la consulta {} queda sin plan", query.getId());
+        }
+    }
+
+    private String runExplain(DataSource dataSource, String sql, Object[] binds) {
+        int timeout = properties.getExplainTimeoutSeconds();
+        try {
+            if (explainConnection == null || !explainConnection.isValid(timeout)) {
+                cerrarConexion();
+                explainConnection = dataSource.getConnection();
+                explainConnection.setReadOnly(true);
+            }
+            return explain(explainConnection, sql, binds, timeout);
+        } catch (Exception e) {
+            cerrarConexion();
+            return "EXPLAIN no disponible: " + e.getMessage();
+        }
+    }
+
+    private void cerrarConexion() {
+        Connection connection = explainConnection;
+        explainConnection = null;
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.debug("No se pudo cerrar la conexión del EXPLAIN", e);
+            }
+        }
+    }
+
+    private static String explain(Connection connection, String sql, Object[] binds, int timeout) throws Exception {
+        try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + sql)) {
+            ps.setQueryTimeout(timeout);
+            for (int i = 0; i < binds.length; i++) {
+                ps.setObject(i + 1, binds[i]);
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = ps.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                while (rs.next()) {
+                    if (!plan.isEmpty()) {
+                        plan.append('\n');
+                    }
+                    for (int c = 1; c <= meta.getColumnCount(); c++) {
+                        if (meta.getColumnCount() > 1) {
+                            plan.append(c > 1 ? ", " : "").append(meta.getColumnLabel(c)).append('=');
+                        }
+                        plan.append(rs.getString(c));
+                    }
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    private String format(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof byte[] bytes) {
+            return "<" + bytes.length + " bytes>";
+        }
+        if (properties.isMaskBinds()) {
+            return "<" + value.getClass().getSimpleName() + ">";
+        }
+        String s = value.toString();
+        return s.length() > properties.getMaxBindLength() ? s.substring(0, properties.getMaxBindLength()) + "…" : s;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        explainExecutor.shutdownNow();
+        if (explainExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+            cerrarConexion();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.dangelcrack.shopcard.slowquery;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Registro de consultas lentas (prefijo {@code shopcard.slow-query}).
+ */
+@ConfigurationProperties(prefix = "shopcard.slow-query")
+public class SlowQueryProperties {
+
+    /**
+     * Si es false no se envuelve el DataSource y no se mide nada.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Duración a partir de la cual una sentencia se considera lenta.
+     */
+    private long thresholdMs = 200;
+
+    /**
+     * Número de consultas lentas que se conservan; al llenarse se descartan las más antiguas.
+     */
+    private int capacity = 100;
+
+    /**
+     * Si es true se obtiene en segundo plano el plan de ejecución ({@code EXPLAIN}) de cada
+     * {@code SELECT} lenta. El plan de una misma sentencia se calcula una sola vez.
+     */
+    private boolean explain = true;
+
+    /**
+     * Longitud máxima con la que se guarda cada parámetro.
+     */
+    private int maxBindLength = 200;
+
+    /**
+     * Si es true los parámetros se guardan solo con su tipo ({@code <String>}), sin el valor:
+     * pueden llevar datos personales. El {@code EXPLAIN} se lanza igualmente con los valores reales.
+     */
+    private boolean maskBinds = true;
+
+    /**
+     * Tiempo máximo para abrir la conexión del {@code EXPLAIN} y para ejecutarlo.
+     */
+    private int explainTimeoutSeconds = 5;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public long getThresholdMs() { return thresholdMs; }
+    public void setThresholdMs(long thresholdMs) { this.thresholdMs = thresholdMs; }
+    public int getCapacity() { return capacity; }
+    public void setCapacity(int capacity) { this.capacity = capacity; }
+    public boolean isExplain() { return explain; }
+    public void setExplain(boolean explain) { this.explain = explain; }
+    public int getMaxBindLength() { return maxBindLength; }
+    public void setMaxBindLength(int maxBindLength) { this.maxBindLength = maxBindLength; }
+    public boolean isMaskBinds() { return maskBinds; }
+    public void setMaskBinds(boolean maskBinds) { this.maskBinds = maskBinds; }
+    public int getExplainTimeoutSeconds() { return explainTimeoutSeconds; }
+    public void setExplainTimeoutSeconds(int explainTimeoutSeconds) { this.explainTimeoutSeconds = explainTimeoutSeconds; }
+}
@@ -0,0 +1,26 @@
+package com.github.dangelcrack.shopcard.slowquery;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Guarda el método y la ruta de la petición en {@link SlowQueryContext}.
+ */
+public class SlowQueryRouteFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SlowQueryContext.enterRoute(request.getMethod() + " " + request.getRequestURI());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            SlowQueryContext.exitRoute();
+        }
+    }
+}
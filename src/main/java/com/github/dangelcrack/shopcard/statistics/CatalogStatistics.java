@@ -0,0 +1,405 @@
+package com.github.dangelcrack.shopcard.statistics;
+
+import com.github.dangelcrack.shopcard.dto.CatalogStats;
+import com.github.dangelcrack.shopcard.events.CatalogChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Estadísticas materializadas por colección y por categoría: número de productos, productos y
+ * unidades en stock, valor del stock, rango de precios y puntuación media.
+ *
+ * <p>Se guardan en memoria como {@link CatalogStats} inmutables, así que servirlas es leer un
+ * mapa. Las tablas {@code estadisticas_colecciones} y {@code estadisticas_categorias} tienen la
+ * misma información para cargarla al arrancar sin recorrer el catálogo.</p>
+ *
+ * <p>Se mantienen de dos formas:</p>
+ * <ul>
+ *     <li><b>Refresco incremental</b>: los grupos afectados por un {@link CatalogChangedEvent}
+ *     (los actuales de los productos y los anteriores que trae el evento) se marcan como
+ *     pendientes y cada segundo se recalculan con una consulta agrupada que solo lee sus filas.</li>
+ *     <li><b>Reconciliación</b> al arrancar y periódicamente: se recalculan todos los grupos, lo
+ *     que también corrige los cambios que no pasan por los servicios (cargas por JDBC, otras
+ *     instancias) y elimina los grupos que ya no existen.</li>
+ * </ul>
+ *
+ * <p>No se aplican diferencias sobre los contadores: el precio mínimo y el máximo no se pueden
+ * restar, y varios caminos de escritura (el cambio de precio masivo, el PATCH) no conocen los
+ * valores anteriores. Recalcular un grupo desde sus filas sale exacto y va por índice.</p>
+ */
+@Component
+public class CatalogStatistics {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogStatistics.class);
+
+    private static final int TAMANO_LOTE = 500;
+
+    /**
+     * Agrupación de las estadísticas.
+     */
+    public enum Ambito {
+        COLECCION("colecciones", "coleccion_id", "estadisticas_colecciones"),
+        CATEGORIA("categorias", "categoria_id", "estadisticas_categorias");
+
+        private final String tablaGrupos;
+        private final String columna;
+        private final String tablaEstadisticas;
+
+        Ambito(String tablaGrupos, String columna, String tablaEstadisticas) {
+            this.tablaGrupos = tablaGrupos;
+            this.columna = columna;
+            this.tablaEstadisticas = tablaEstadisticas;
+        }
+    }
+
+    /**
+     * Fila de las tablas de estadísticas; a diferencia de {@link CatalogStats} guarda la suma de
+     * puntuaciones en lugar de la media.
+     */
+    private static final class Fila {
+        final int id;
+        long productos;
+        long productosEnStock;
+        long unidadesEnStock;
+        BigDecimal valorStock = BigDecimal.ZERO;
+        BigDecimal precioMinimo;
+        BigDecimal precioMaximo;
+        long valoraciones;
+        long sumaPuntuaciones;
+        Instant actualizado;
+
+        Fila(int id) {
+            this.id = id;
+        }
+
+        CatalogStats toStats() {
+            return new CatalogStats(id, productos, productosEnStock, unidadesEnStock, valorStock,
+                    precioMinimo, precioMaximo, valoraciones,
+                    valoraciones == 0 ? 0.0 : (double) sumaPuntuaciones / valoraciones, actualizado);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Ambito, ConcurrentHashMap<Integer, CatalogStats>> estadisticas = new EnumMap<>(Ambito.class);
+    private final Map<Ambito, Set<Integer>> gruposPendientes = new EnumMap<>(Ambito.class);
+    private final Set<Integer> productosPendientes = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile boolean reconciliado;
+
+    /**
+     * Constructor para inyección de dependencias.
+     * @param jdbcTemplate Acceso a la base de datos
+     * @param transactionManager Gestor de transacciones, para reescribir las tablas de una vez
+     */
+    public CatalogStatistics(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        for (Ambito ambito : Ambito.values()) {
+            estadisticas.put(ambito, new ConcurrentHashMap<>());
+            gruposPendientes.put(ambito, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    /**
+     * Obtiene las estadísticas de una colección o categoría.
+     * Si aún no están en memoria (grupo nuevo o reconciliación en curso) se calculan en el momento.
+     *
+     * @param ambito Colección o categoría
+     * @param id ID del grupo
+     * @return Estadísticas, o null si el grupo no existe
+     */
+    public CatalogStats get(Ambito ambito, Integer id) {
+        CatalogStats result = estadisticas.get(ambito).get(id);
+        if (result == null) {
+            Fila fila = calcular(ambito, Set.of(id)).get(id);
+            if (fila == null) {
+                return null;
+            }
+            result = fila.toStats();
+            CatalogStats anterior = estadisticas.get(ambito).putIfAbsent(id, result);
+            if (anterior != null) {
+                result = anterior;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return true si ya ha terminado al menos una reconciliación
+     */
+    public boolean isReconciliado() {
+        return reconciliado;
+    }
+
+    /**
+     * Marca como pendientes los productos y grupos afectados por un cambio en el catálogo.
+     * Se ejecuta tras el commit para no recalcular a partir de datos que podrían deshacerse.
+     *
+     * @param event Cambio en el catálogo
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        productosPendientes.addAll(event.productoIds());
+        gruposPendientes.get(Ambito.COLECCION).addAll(event.coleccionIds());
+        gruposPendientes.get(Ambito.CATEGORIA).addAll(event.categoriaIds());
+    }
+
+    /**
+     * Carga las tablas y lanza la primera reconciliación en segundo plano para no retrasar el arranque.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        Thread.ofPlatform().daemon().name("catalog-stats-load").start(() -> {
+            lock.lock();
+            try {
+                for (Ambito ambito : Ambito.values()) {
+                    cargar(ambito);
+                }
+            } catch (RuntimeException e) {
+                log.warn("No se pudieron cargar las estadísticas guardadas", e);
+            } finally {
+                lock.unlock();
+            }
+            reconcile();
+        });
+    }
+
+    /**
+     * Recalcula todos los grupos y reescribe las tablas.
+     */
+    @Scheduled(cron = "${shopcard.stats.reconcile-cron:0 0 * * * *}")
+    public void reconcile() {
+        lock.lock();
+        try {
+            long start = System.nanoTime();
+            int grupos = 0;
+            int corregidos = 0;
+            for (Ambito ambito : Ambito.values()) {
+                Map<Integer, Fila> filas = calcular(ambito, null);
+                guardar(ambito, null, filas);
+                Map<Integer, CatalogStats> memoria = estadisticas.get(ambito);
+                for (Fila fila : filas.values()) {
+                    if (!mismosDatos(memoria.put(fila.id, fila.toStats()), fila)) {
+                        corregidos++;
+                    }
+                }
+                int antes = memoria.size();
+                memoria.keySet().retainAll(filas.keySet());
+                corregidos += antes - memoria.size();
+                grupos += filas.size();
+            }
+            log.info("Estadísticas reconciliadas: {} grupos, {} corregidos, en {} ms",
+                    grupos, corregidos, (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.error("No se pudieron reconciliar las estadísticas", e);
+            return;
+        } finally {
+            lock.unlock();
+        }
+        reconciliado = true;
+    }
+
+    /**
+     * Recalcula los grupos pendientes.
+     */
+    @Scheduled(fixedDelayString = "${shopcard.stats.refresh-delay-ms:1000}")
+    public void refreshPending() {
+        if (!hayPendientes() || !lock.tryLock()) {
+            return;
+        }
+        Set<Integer> productos = new HashSet<>();
+        Map<Ambito, Set<Integer>> grupos = new EnumMap<>(Ambito.class);
+        try {
+            productos.addAll(productosPendientes);
+            productosPendientes.removeAll(productos);
+            for (Ambito ambito : Ambito.values()) {
+                Set<Integer> lote = new HashSet<>(gruposPendientes.get(ambito));
+                gruposPendientes.get(ambito).removeAll(lote);
+                grupos.put(ambito, lote);
+            }
+
+            List<Integer> ids = new ArrayList<>(productos);
+            for (int i = 0; i < ids.size(); i += TAMANO_LOTE) {
+                List<Integer> lote = ids.subList(i, Math.min(i + TAMANO_LOTE, ids.size()));
+                jdbcTemplate.query("SELECT coleccion_id, categoria_id FROM productos WHERE id IN (" +
+                        placeholders(lote.size()) + ")", rs -> {
+                    grupos.get(Ambito.COLECCION).add(rs.getInt(1));
+                    grupos.get(Ambito.CATEGORIA).add(rs.getInt(2));
+                }, lote.toArray());
+            }
+            for (Ambito ambito : Ambito.values()) {
+                Set<Integer> afectados = grupos.get(ambito);
+                if (afectados.isEmpty()) {
+                    continue;
+                }
+                Map<Integer, Fila> filas = calcular(ambito, afectados);
+                guardar(ambito, afectados, filas);
+                Map<Integer, CatalogStats> memoria = estadisticas.get(ambito);
+                for (Integer id : afectados) {
+                    Fila fila = filas.get(id);
+                    if (fila == null) {
+                        memoria.remove(id);
+                    } else {
+                        memoria.put(id, fila.toStats());
+                    }
+                }
+            }
+            log.debug("Estadísticas: {} colecciones y {} categorías recalculadas",
+                    grupos.get(Ambito.COLECCION).size(), grupos.get(Ambito.CATEGORIA).size());
+        } catch (RuntimeException e) {
+            log.warn("Fallo en el refresco incremental de estadísticas", e);
+            productosPendientes.addAll(productos);
+            grupos.forEach((ambito, ids) -> gruposPendientes.get(ambito).addAll(ids));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean hayPendientes() {
+        return !productosPendientes.isEmpty()
+                || gruposPendientes.values().stream().anyMatch(ids -> !ids.isEmpty());
+    }
+
+    /**
+     * Calcula las estadísticas de los grupos indicados, o de todos si {@code ids} es null.
+     * Los grupos que no existen no aparecen en el resultado.
+     */
+    private Map<Integer, Fila> calcular(Ambito ambito, Set<Integer> ids) {
+        Object[] args = ids == null ? new Object[0] : ids.toArray();
+        String enGrupos = ids == null ? "" : " IN (" + placeholders(ids.size()) + ")";
+        Instant ahora = Instant.now();
+
+        Map<Integer, Fila> filas = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT g.id, COUNT(p.id), " +
+                        "SUM(CASE WHEN p.stock > 0 THEN 1 ELSE 0 END), " +
+                        "SUM(CASE WHEN p.stock > 0 THEN p.stock ELSE 0 END), " +
+                        "SUM(CASE WHEN p.stock > 0 THEN p.precio * p.stock ELSE 0 END), " +
+                        "MIN(p.precio), MAX(p.precio) " +
+                        "FROM " + ambito.tablaGrupos + " g LEFT JOIN productos p ON p." + ambito.columna + " = g.id" +
+                        (ids == null ? "" : " WHERE g.id" + enGrupos) + " GROUP BY g.id",
+                rs -> {
+                    Fila fila = new Fila(rs.getInt(1));
+                    fila.productos = rs.getLong(2);
+                    fila.productosEnStock = rs.getLong(3);
+                    fila.unidadesEnStock = rs.getLong(4);
+                    fila.valorStock = rs.getBigDecimal(5).setScale(2, RoundingMode.HALF_UP);
+                    fila.precioMinimo = rs.getBigDecimal(6);
+                    fila.precioMaximo = rs.getBigDecimal(7);
+                    fila.actualizado = ahora;
+                    filas.put(fila.id, fila);
+                }, args);
+        jdbcTemplate.query("SELECT p." + ambito.columna + ", COUNT(*), SUM(v.puntuacion) " +
+                        "FROM productos p JOIN valoraciones v ON v.producto_id = p.id" +
+                        (ids == null ? "" : " WHERE p." + ambito.columna + enGrupos) +
+                        " GROUP BY p." + ambito.columna,
+                rs -> {
+                    Fila fila = filas.get(rs.getInt(1));
+                    if (fila != null) {
+                        fila.valoraciones = rs.getLong(2);
+                        fila.sumaPuntuaciones = rs.getLong(3);
+                    }
+                }, args);
+        return filas;
+    }
+
+    /**
+     * Sustituye en la tabla las filas de los grupos indicados, o todas si {@code ids} es null.
+     */
+    private void guardar(Ambito ambito, Set<Integer> ids, Map<Integer, Fila> filas) {
+        String tabla = ambito.tablaEstadisticas;
+        transactionTemplate.executeWithoutResult(status -> {
+            if (ids == null) {
+                jdbcTemplate.update("DELETE FROM " + tabla);
+            } else {
+                jdbcTemplate.update("DELETE FROM " + tabla + " WHERE " + ambito.columna +
+                        " IN (" + placeholders(ids.size()) + ")", ids.toArray());
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO " + tabla + " (" + ambito.columna + ", productos, " +
+                            "productos_en_stock, unidades_en_stock, valor_stock, precio_minimo, precio_maximo, " +
+                            "valoraciones, suma_puntuaciones, actualizado) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    filas.values(), TAMANO_LOTE, (ps, fila) -> {
+                        ps.setInt(1, fila.id);
+                        ps.setLong(2, fila.productos);
+                        ps.setLong(3, fila.productosEnStock);
+                        ps.setLong(4, fila.unidadesEnStock);
+                        ps.setBigDecimal(5, fila.valorStock);
+                        ps.setBigDecimal(6, fila.precioMinimo);
+                        ps.setBigDecimal(7, fila.precioMaximo);
+                        ps.setLong(8, fila.valoraciones);
+                        ps.setLong(9, fila.sumaPuntuaciones);
+                        ps.setTimestamp(10, Timestamp.from(fila.actualizado));
+                    });
+        });
+    }
+
+    /**
+     * Carga en memoria las estadísticas guardadas en la tabla.
+     */
+    private void cargar(Ambito ambito) {
+        Map<Integer, CatalogStats> memoria = estadisticas.get(ambito);
+        jdbcTemplate.query("SELECT " + ambito.columna + ", productos, productos_en_stock, unidades_en_stock, " +
+                "valor_stock, precio_minimo, precio_maximo, valoraciones, suma_puntuaciones, actualizado FROM " +
+                ambito.tablaEstadisticas, rs -> {
+            Fila fila = new Fila(rs.getInt(1));
+            fila.productos = rs.getLong(2);
+            fila.productosEnStock = rs.getLong(3);
+            fila.unidadesEnStock = rs.getLong(4);
+            fila.valorStock = rs.getBigDecimal(5);
+            fila.precioMinimo = rs.getBigDecimal(6);
+            fila.precioMaximo = rs.getBigDecimal(7);
+            fila.valoraciones = rs.getLong(8);
+            fila.sumaPuntuaciones = rs.getLong(9);
+            fila.actualizado = rs.getTimestamp(10).toInstant();
+            memoria.putIfAbsent(fila.id, fila.toStats());
+        });
+    }
+
+    /**
+     * @return true si las estadísticas en memoria coinciden con la fila, sin contar cuándo se calcularon
+     */
+    private static boolean mismosDatos(CatalogStats stats, Fila fila) {
+        return stats != null
+                && stats.productos() == fila.productos
+                && stats.productosEnStock() == fila.productosEnStock
+                && stats.unidadesEnStock() == fila.unidadesEnStock
+                && stats.valorStock().compareTo(fila.valorStock) == 0
+                && mismoPrecio(stats.precioMinimo(), fila.precioMinimo)
+                && mismoPrecio(stats.precioMaximo(), fila.precioMaximo)
+                && stats.valoraciones() == fila.valoraciones
+                && stats.puntuacionMedia() == fila.toStats().puntuacionMedia();
+    }
+
+    private static boolean mismoPrecio(BigDecimal a, BigDecimal b) {
+        return a == null || b == null ? Objects.equals(a, b) : a.compareTo(b) == 0;
+    }
+
+    private static String placeholders(int n) {
+        return String.join(",", Collections.nCopies(n, "?"));
+    }
+}
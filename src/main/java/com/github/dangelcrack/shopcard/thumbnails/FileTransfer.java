@@ -0,0 +1,55 @@
+package com.github.dangelcrack.shopcard.thumbnails;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Envía un fichero como cuerpo de la respuesta sin copiarlo al heap.
+ *
+ * <p>Con Tomcat y el conector NIO se delega en {@code sendfile}: el fichero pasa del page cache
+ * del sistema al socket sin entrar en la JVM. Si el contenedor no lo admite (o en los tests con
+ * MockMvc), el fichero se proyecta en memoria y se escribe desde el {@link MappedByteBuffer}.</p>
+ */
+public final class FileTransfer {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private FileTransfer() {
+    }
+
+    /**
+     * Escribe {@code fichero} en la respuesta con su {@code Content-Length}. Las cabeceras deben
+     * estar ya puestas.
+     *
+     * @param fichero Fichero a enviar
+     * @param tamano Tamaño del fichero
+     */
+    public static void enviar(Path fichero, long tamano, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        response.setContentLengthLong(tamano);
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, fichero.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, tamano);
+            return;
+        }
+        try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.READ)) {
+            MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamano);
+            WritableByteChannel salida = Channels.newChannel(response.getOutputStream());
+            while (mapa.hasRemaining()) {
+                salida.write(mapa);
+            }
+        }
+    }
+}
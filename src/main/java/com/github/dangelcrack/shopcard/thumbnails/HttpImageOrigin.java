@@ -0,0 +1,141 @@
+package com.github.dangelcrack.shopcard.thumbnails;
+
+import com.github.dangelcrack.shopcard.exceptions.ImageOriginException;
+import com.github.dangelcrack.shopcard.exceptions.RecordNotFoundException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Descarga las imágenes de su {@code imagenUrl} por HTTP(S).
+ *
+ * <p>Las URLs las escribe quien edita el catálogo, así que no se confía en ellas: solo se piden a
+ * los hosts de {@code shopcard.thumbnails.origin-allowed-hosts} (un {@code *.} inicial admite sus
+ * subdominios) y se rechazan los que resuelven a direcciones de loopback, privadas, de enlace
+ * local o multicast. No se siguen redirecciones, para que un host permitido no lleve a otro que
+ * no lo está. Las URLs rechazadas responden 404, igual que una imagen que no existe.</p>
+ *
+ * <p>El cuerpo se lee como mucho hasta el tamaño máximo; si la cabecera {@code Content-Length}
+ * ya lo supera, no se lee.</p>
+ */
+public class HttpImageOrigin implements ImageOrigin {
+
+    private final HttpClient client;
+    private final Duration timeout;
+    private final long maxBytes;
+    private final List<String> hostsPermitidos;
+
+    /**
+     * @param timeoutMs Tiempo máximo de conexión y de descarga
+     * @param maxBytes Tamaño máximo de una imagen
+     * @param hostsPermitidos Hosts de los que se descargan imágenes; vacío no permite ninguno
+     */
+    public HttpImageOrigin(int timeoutMs, long maxBytes, List<String> hostsPermitidos) {
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.maxBytes = maxBytes;
+        this.hostsPermitidos = hostsPermitidos.stream()
+                .map(h -> h.trim().toLowerCase(Locale.ROOT))
+                .filter(h -> !h.isEmpty())
+                .toList();
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    @Override
+    public byte[] leer(String imagenUrl) {
+        URI uri = validar(imagenUrl);
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(timeout).GET().build();
+        try {
+            HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream cuerpo = response.body()) {
+                if (response.statusCode() == 404 || response.statusCode() == 410) {
+                    throw new RecordNotFoundException("No existe la imagen en el origen", imagenUrl);
+                }
+                if (response.statusCode() / 100 != 2) {
+                    throw new ImageOriginException("El origen respondió " + response.statusCode() + " para " + imagenUrl, null);
+                }
+                if (response.headers().firstValueAsLong("Content-Length").orElse(0) > maxBytes) {
+                    throw new ImageOriginException("La imagen supera el tamaño máximo: " + imagenUrl, null);
+                }
+                byte[] datos = cuerpo.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, maxBytes + 1));
+                if (datos.length > maxBytes) {
+                    throw new ImageOriginException("La imagen supera el tamaño máximo: " + imagenUrl, null);
+                }
+                return datos;
+            }
+        } catch (IOException e) {
+            throw new ImageOriginException("No se pudo descargar la imagen " + imagenUrl, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImageOriginException("Descarga interrumpida: " + imagenUrl, e);
+        }
+    }
+
+    private URI validar(String imagenUrl) {
+        URI uri;
+        try {
+            uri = URI.create(imagenUrl.trim());
+        } catch (IllegalArgumentException e) {
+            throw new RecordNotFoundException("URL de imagen no válida", imagenUrl);
+        }
+        if (!"http".equalsIgnoreCase(uri.getScheme()) && !"https".equalsIgnoreCase(uri.getScheme())) {
+            throw new RecordNotFoundException("URL de imagen no válida", imagenUrl);
+        }
+        String host = uri.getHost();
+        if (host == null || uri.getUserInfo() != null || !permitido(host.toLowerCase(Locale.ROOT))) {
+            throw new RecordNotFoundException("Host de imagen no permitido", imagenUrl);
+        }
+        InetAddress[] direcciones;
+        try {
+            direcciones = InetAddress.getAllByName(host);
+        } catch (UnknownHostException e) {
+            throw new ImageOriginException("No se pudo resolver el host de " + imagenUrl, e);
+        }
+        for (InetAddress direccion : direcciones) {
+            if (interna(direccion)) {
+                throw new RecordNotFoundException("Host de imagen no permitido", imagenUrl);
+            }
+        }
+        return uri;
+    }
+
+    private boolean permitido(String host) {
+        for (String permitido : hostsPermitidos) {
+            if (permitido.startsWith("*.")
+                    ? host.endsWith(permitido.substring(1))
+                    : host.equals(permitido)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param direccion Dirección resuelta
+     * @return true si no es una dirección pública de unicast
+     */
+    static boolean interna(InetAddress direccion) {
+        if (direccion.isAnyLocalAddress() || direccion.isLoopbackAddress() || direccion.isLinkLocalAddress()
+                || direccion.isSiteLocalAddress() || direccion.isMulticastAddress()) {
+            return true;
+        }
+        byte[] b = direccion.getAddress();
+        if (b.length == 4) {
+            // 100.64.0.0/10 (CGNAT) y 0.0.0.0/8
+            return (b[0] & 0xff) == 100 && (b[1] & 0xc0) == 64 || b[0] == 0;
+        }
+        // fc00::/7: direcciones locales únicas de IPv6
+        return (b[0] & 0xfe) == 0xfc;
+    }
+}
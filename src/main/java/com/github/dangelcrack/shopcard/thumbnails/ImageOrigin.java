@@ -0,0 +1,19 @@
+package com.github.dangelcrack.shopcard.thumbnails;
+
+import com.github.dangelcrack.shopcard.exceptions.ImageOriginException;
+import com.github.dangelcrack.shopcard.exceptions.RecordNotFoundException;
+
+/**
+ * Fuente de las imágenes originales del catálogo. La configuración elige una según
+ * {@code shopcard.thumbnails.origin}; definir otro bean de este tipo la sustituye.
+ */
+public interface ImageOrigin {
+
+    /**
+     * @param imagenUrl Valor de {@code imagenUrl} de un producto, categoría o colección
+     * @return Bytes de la imagen original
+     * @throws RecordNotFoundException Si el origen no tiene esa imagen
+     * @throws ImageOriginException Si el origen falla o la imagen supera el tamaño máximo
+     */
+    byte[] leer(String imagenUrl);
+}
@@ -0,0 +1,62 @@
+package com.github.dangelcrack.shopcard.thumbnails;
+
+import com.github.dangelcrack.shopcard.exceptions.ImageOriginException;
+import com.github.dangelcrack.shopcard.exceptions.RecordNotFoundException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+/**
+ * Lee las imágenes de un directorio local. De la {@code imagenUrl} se usa solo la ruta, así que
+ * {@code https://cdn.ejemplo.com/cartas/base/4.png} se busca en {@code <directorio>/cartas/base/4.png}.
+ * Sirve para los tests y para despliegues que tienen las imágenes en un volumen compartido.
+ */
+public class LocalDirectoryImageOrigin implements ImageOrigin {
+
+    private final Path directorio;
+    private final long maxBytes;
+
+    /**
+     * @param directorio Directorio raíz de las imágenes
+     * @param maxBytes Tamaño máximo de una imagen
+     */
+    public LocalDirectoryImageOrigin(Path directorio, long maxBytes) {
+        this.directorio = directorio.toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public byte[] leer(String imagenUrl) {
+        Path fichero = resolver(imagenUrl);
+        try {
+            if (Files.size(fichero) > maxBytes) {
+                throw new ImageOriginException("La imagen supera el tamaño máximo: " + imagenUrl, null);
+            }
+            return Files.readAllBytes(fichero);
+        } catch (NoSuchFileException e) {
+            throw new RecordNotFoundException("No existe la imagen en el origen", imagenUrl);
+        } catch (IOException e) {
+            throw new ImageOriginException("No se pudo leer la imagen " + imagenUrl, e);
+        }
+    }
+
+    private Path resolver(String imagenUrl) {
+        String ruta;
+        try {
+            ruta = URI.create(imagenUrl.trim()).getPath();
+        } catch (IllegalArgumentException e) {
+            ruta = imagenUrl;
+        }
+        if (ruta == null) {
+            throw new RecordNotFoundException("No existe la imagen en el origen", imagenUrl);
+        }
+        Path fichero = directorio.resolve(ruta.replaceFirst("^/+", "")).normalize();
+        if (!fichero.startsWith(directorio)) {
+            throw new RecordNotFoundException("No existe la imagen en el origen", imagenUrl);
+        }
+        return fichero;
+    }
+}
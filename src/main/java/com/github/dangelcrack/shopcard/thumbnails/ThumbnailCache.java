@@ -0,0 +1,263 @@
+package com.github.dangelcrack.shopcard.thumbnails;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Caché en disco de miniaturas con tamaño acotado.
+ *
+ * <p>Cada miniatura es un fichero {@code <hash de la URL>-<ancho>.<jpg|png>} en el directorio de
+ * la caché. Al arrancar se recorre el directorio, así que lo generado sobrevive a los reinicios.
+ * Un índice en memoria ordenado por uso decide qué ficheros borrar cuando se supera el tamaño
+ * máximo. Como la clave incluye la URL, cambiar la imagen de un producto genera miniaturas
+ * nuevas y las antiguas acaban saliendo por antigüedad.</p>
+ *
+ * <p>Las peticiones simultáneas de una miniatura que no está en disco esperan a la misma
+ * generación en lugar de repetirla. Los ficheros se escriben con otro nombre y se renombran al
+ * terminar, de modo que nunca se sirve uno a medias.</p>
+ *
+ * <p>Métricas: {@code shopcard.thumbnails} (etiqueta {@code resultado}: {@code acierto},
+ * {@code fallo}, {@code espera}) y {@code shopcard.thumbnails.cache.bytes}.</p>
+ */
+public class ThumbnailCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailCache.class);
+    private static final Pattern NOMBRE = Pattern.compile("([0-9a-f]{32})-(\\d+)\\.(jpg|png)");
+
+    /**
+     * Miniatura guardada en disco.
+     *
+     * @param fichero Ruta del fichero
+     * @param tamano Tamaño en bytes
+     * @param tipo Tipo de contenido
+     * @param etag Identificador para {@code ETag}; cambia si cambia la URL o el ancho
+     */
+    public record Miniatura(Path fichero, long tamano, MediaType tipo, String etag) {
+    }
+
+    private final Path directorio;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Miniatura> indice = new LinkedHashMap<>(256, 0.75f, true);
+    private final ConcurrentHashMap<String, CompletableFuture<Miniatura>> enCurso = new ConcurrentHashMap<>();
+    private long bytes;
+    private final Counter aciertos;
+    private final Counter fallos;
+    private final Counter esperas;
+
+    /**
+     * @param directorio Directorio de la caché; se crea si no existe
+     * @param maxBytes Espacio máximo en disco
+     * @param registry Registro de métricas
+     */
+    public ThumbnailCache(Path directorio, long maxBytes, MeterRegistry registry) {
+        this.directorio = directorio.toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+        this.aciertos = contador(registry, "acierto");
+        this.fallos = contador(registry, "fallo");
+        this.esperas = contador(registry, "espera");
+        Gauge.builder("shopcard.thumbnails.cache.bytes", this, ThumbnailCache::getBytes)
+                .description("Espacio en disco ocupado por las miniaturas")
+                .baseUnit("bytes")
+                .register(registry);
+        cargar();
+    }
+
+    private static Counter contador(MeterRegistry registry, String resultado) {
+        return Counter.builder("shopcard.thumbnails")
+                .description("Peticiones de miniaturas según se sirvan del disco, se generen o esperen a otra generación")
+                .tag("resultado", resultado)
+                .register(registry);
+    }
+
+    /**
+     * Devuelve la miniatura de {@code imagenUrl} con el ancho dado, generándola con
+     * {@code generar} si no está en disco. Si otra petición ya la está generando, espera a esa.
+     *
+     * @param imagenUrl URL de la imagen original
+     * @param ancho Ancho de la miniatura
+     * @param generar Genera la miniatura; solo se llama en un fallo
+     * @return Miniatura en disco
+     */
+    public Miniatura obtener(String imagenUrl, int ancho, Supplier<ThumbnailRenderer.Imagen> generar) {
+        String clave = hash(imagenUrl) + "-" + ancho;
+        Miniatura miniatura = buscar(clave);
+        if (miniatura != null) {
+            aciertos.increment();
+            return miniatura;
+        }
+        CompletableFuture<Miniatura> nueva = new CompletableFuture<>();
+        CompletableFuture<Miniatura> existente = enCurso.putIfAbsent(clave, nueva);
+        if (existente != null) {
+            esperas.increment();
+            return esperar(existente);
+        }
+        try {
+            // Puede haberse terminado otra generación entre la búsqueda y el registro
+            miniatura = buscar(clave);
+            if (miniatura == null) {
+                fallos.increment();
+                miniatura = guardar(clave, generar.get());
+            } else {
+                aciertos.increment();
+            }
+            nueva.complete(miniatura);
+            return miniatura;
+        } catch (RuntimeException e) {
+            nueva.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(clave, nueva);
+        }
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized int size() {
+        return indice.size();
+    }
+
+    private synchronized Miniatura buscar(String clave) {
+        Miniatura miniatura = indice.get(clave);
+        if (miniatura != null && !Files.exists(miniatura.fichero())) {
+            indice.remove(clave);
+            bytes -= miniatura.tamano();
+            return null;
+        }
+        return miniatura;
+    }
+
+    private Miniatura guardar(String clave, ThumbnailRenderer.Imagen imagen) {
+        Path fichero = directorio.resolve(clave + "." + imagen.extension());
+        try {
+            Path temporal = Files.createTempFile(directorio, clave, ".tmp");
+            Files.write(temporal, imagen.datos());
+            Files.move(temporal, fichero, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Miniatura miniatura = miniatura(clave, fichero, imagen.datos().length, imagen.extension());
+        synchronized (this) {
+            Miniatura anterior = indice.put(clave, miniatura);
+            if (anterior != null) {
+                bytes -= anterior.tamano();
+            }
+            bytes += miniatura.tamano();
+            ajustar(clave);
+        }
+        return miniatura;
+    }
+
+    /**
+     * Borra las miniaturas usadas hace más tiempo hasta volver al tamaño máximo. Nunca borra la
+     * que se acaba de guardar. Un fichero borrado mientras se envía se sigue leyendo hasta el final.
+     */
+    private void ajustar(String conservar) {
+        Iterator<Miniatura> it = indice.values().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Miniatura miniatura = it.next();
+            if (miniatura.fichero().getFileName().toString().startsWith(conservar + ".")) {
+                continue;
+            }
+            it.remove();
+            bytes -= miniatura.tamano();
+            try {
+                Files.deleteIfExists(miniatura.fichero());
+            } catch (IOException e) {
+                log.warn("No se pudo borrar la miniatura {}: {}", miniatura.fichero(), e.toString());
+            }
+        }
+    }
+
+    private static Miniatura esperar(CompletableFuture<Miniatura> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    private void cargar() {
+        try {
+            Files.createDirectories(directorio);
+            List<Path> ficheros;
+            try (Stream<Path> lista = Files.list(directorio)) {
+                ficheros = lista.filter(Files::isRegularFile).toList();
+            }
+            List<Path> ordenados = ficheros.stream()
+                    .sorted(Comparator.comparing(ThumbnailCache::modificado))
+                    .toList();
+            synchronized (this) {
+                for (Path fichero : ordenados) {
+                    String nombre = fichero.getFileName().toString();
+                    Matcher m = NOMBRE.matcher(nombre);
+                    if (!m.matches()) {
+                        if (nombre.endsWith(".tmp")) {
+                            Files.deleteIfExists(fichero);
+                        }
+                        continue;
+                    }
+                    String clave = m.group(1) + "-" + m.group(2);
+                    Miniatura miniatura = miniatura(clave, fichero, Files.size(fichero), m.group(3));
+                    indice.put(clave, miniatura);
+                    bytes += miniatura.tamano();
+                }
+                ajustar("");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo preparar el directorio de miniaturas " + directorio, e);
+        }
+    }
+
+    private static FileTime modificado(Path fichero) {
+        try {
+            return Files.getLastModifiedTime(fichero);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static Miniatura miniatura(String clave, Path fichero, long tamano, String extension) {
+        MediaType tipo = "png".equals(extension) ? MediaType.IMAGE_PNG : MediaType.IMAGE_JPEG;
+        return new Miniatura(fichero, tamano, tipo, "\"" + clave + "\"");
+    }
+
+    private static String hash(String imagenUrl) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(imagenUrl.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
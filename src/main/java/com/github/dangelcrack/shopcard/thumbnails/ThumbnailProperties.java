@@ -0,0 +1,104 @@
+package com.github.dangelcrack.shopcard.thumbnails;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Miniaturas de las imágenes del catálogo (prefijo {@code shopcard.thumbnails}).
+ */
+@ConfigurationProperties(prefix = "shopcard.thumbnails")
+public class ThumbnailProperties {
+
+    /**
+     * De dónde se leen las imágenes originales.
+     */
+    public enum Origin {
+        /** Se descargan de su {@code imagenUrl}. */
+        HTTP,
+        /** Se leen de {@code origin-directory}, usando la ruta de su {@code imagenUrl}. */
+        LOCAL
+    }
+
+    /**
+     * Origen de las imágenes originales.
+     */
+    private Origin origin = Origin.HTTP;
+
+    /**
+     * Directorio de las imágenes originales con {@code origin=local}.
+     */
+    private String originDirectory = "images";
+
+    /**
+     * Hosts de los que se descargan las imágenes con {@code origin=http}. Un {@code *.} inicial
+     * admite todos los subdominios ({@code *.cdn.ejemplo.com}). Vacío no permite ninguno.
+     */
+    private List<String> originAllowedHosts = new ArrayList<>();
+
+    /**
+     * Tiempo máximo de descarga de una imagen original con {@code origin=http}.
+     */
+    private int originTimeoutMs = 5000;
+
+    /**
+     * Tamaño máximo de una imagen original; las mayores se rechazan sin decodificarlas.
+     */
+    private long maxSourceBytes = 20L * 1024 * 1024;
+
+    /**
+     * Píxeles máximos (ancho por alto) de una imagen original. Se comprueban en la cabecera, antes
+     * de decodificarla; 25 millones ocupan unos 100 MB ya decodificados.
+     */
+    private long maxSourcePixels = 25_000_000L;
+
+    /**
+     * Anchos que se generan. Se sirve el menor que cubra el ancho pedido, o el mayor si no hay
+     * ninguno, para que el número de ficheros por imagen esté acotado.
+     */
+    private List<Integer> widths = new ArrayList<>(List.of(64, 128, 256, 512));
+
+    /**
+     * Calidad de las miniaturas JPEG (0-1). Las imágenes con transparencia se guardan en PNG.
+     */
+    private float jpegQuality = 0.85f;
+
+    /**
+     * Directorio de la caché de miniaturas.
+     */
+    private String cacheDirectory = "thumbnails";
+
+    /**
+     * Espacio máximo en disco de la caché; al superarse se borran las usadas hace más tiempo.
+     */
+    private long maxCacheBytes = 256L * 1024 * 1024;
+
+    /**
+     * Valor de {@code Cache-Control: max-age} de las respuestas.
+     */
+    private long maxAgeSeconds = 86400;
+
+    public Origin getOrigin() { return origin; }
+    public void setOrigin(Origin origin) { this.origin = origin; }
+    public String getOriginDirectory() { return originDirectory; }
+    public void setOriginDirectory(String originDirectory) { this.originDirectory = originDirectory; }
+    public List<String> getOriginAllowedHosts() { return originAllowedHosts; }
+    public void setOriginAllowedHosts(List<String> originAllowedHosts) { this.originAllowedHosts = originAllowedHosts; }
+    public int getOriginTimeoutMs() { return originTimeoutMs; }
+    public void setOriginTimeoutMs(int originTimeoutMs) { this.originTimeoutMs = originTimeoutMs; }
+    public long getMaxSourceBytes() { return maxSourceBytes; }
+    public void setMaxSourceBytes(long maxSourceBytes) { this.maxSourceBytes = maxSourceBytes; }
+    public long getMaxSourcePixels() { return maxSourcePixels; }
+    public void setMaxSourcePixels(long maxSourcePixels) { this.maxSourcePixels = maxSourcePixels; }
+    public List<Integer> getWidths() { return widths; }
+    public void setWidths(List<Integer> widths) { this.widths = widths; }
+    public float getJpegQuality() { return jpegQuality; }
+    public void setJpegQuality(float jpegQuality) { this.jpegQuality = jpegQuality; }
+    public String getCacheDirectory() { return cacheDirectory; }
+    public void setCacheDirectory(String cacheDirectory) { this.cacheDirectory = cacheDirectory; }
+    public long getMaxCacheBytes() { return maxCacheBytes; }
+    public void setMaxCacheBytes(long maxCacheBytes) { this.maxCacheBytes = maxCacheBytes; }
+    public long getMaxAgeSeconds() { return maxAgeSeconds; }
+    public void setMaxAgeSeconds(long maxAgeSeconds) { this.maxAgeSeconds = maxAgeSeconds; }
+}
@@ -0,0 +1,142 @@
+package com.github.dangelcrack.shopcard.thumbnails;
+
+import com.github.dangelcrack.shopcard.exceptions.ImageOriginException;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+
+/**
+ * Reduce una imagen a un ancho dado con Java2D, sin dependencias nativas.
+ *
+ * <p>La reducción se hace a la mitad en cada paso con interpolación bilineal hasta llegar al
+ * ancho final, que da un resultado parecido al bicúbico sin su coste. Las imágenes no se amplían:
+ * si la original es más estrecha se conserva su ancho. Las opacas se guardan en JPEG y las que
+ * tienen transparencia en PNG.</p>
+ *
+ * <p>Antes de decodificar se leen las dimensiones de la cabecera y se rechazan las imágenes con
+ * más píxeles de los permitidos: un PNG de pocos KB puede declarar 50000×50000 píxeles y
+ * decodificarlo reservaría gigas de memoria.</p>
+ */
+public class ThumbnailRenderer {
+
+    /**
+     * Miniatura codificada.
+     *
+     * @param datos Bytes del fichero
+     * @param extension {@code jpg} o {@code png}
+     */
+    public record Imagen(byte[] datos, String extension) {
+    }
+
+    private final float calidadJpeg;
+    private final long maxPixeles;
+
+    /**
+     * @param calidadJpeg Calidad de las miniaturas JPEG (0-1)
+     * @param maxPixeles Píxeles máximos (ancho por alto) de una imagen original
+     */
+    public ThumbnailRenderer(float calidadJpeg, long maxPixeles) {
+        this.calidadJpeg = calidadJpeg;
+        this.maxPixeles = maxPixeles;
+    }
+
+    /**
+     * @param original Bytes de la imagen original (cualquier formato que lea {@link ImageIO})
+     * @param ancho Ancho de la miniatura
+     * @return Miniatura codificada
+     * @throws ImageOriginException Si la imagen no se puede decodificar o supera los píxeles máximos
+     */
+    public Imagen renderizar(byte[] original, int ancho) {
+        BufferedImage imagen = decodificar(original);
+        boolean transparente = imagen.getColorModel().hasAlpha();
+        BufferedImage miniatura = reducir(imagen, Math.min(ancho, imagen.getWidth()), transparente);
+        try {
+            return transparente ? new Imagen(png(miniatura), "png") : new Imagen(jpeg(miniatura), "jpg");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private BufferedImage decodificar(byte[] original) {
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(new ByteArrayInputStream(original))) {
+            Iterator<ImageReader> readers = entrada != null ? ImageIO.getImageReaders(entrada) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new ImageOriginException("Formato de imagen no admitido", null);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(entrada, true, true);
+                long pixeles = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixeles > maxPixeles) {
+                    throw new ImageOriginException("La imagen original tiene demasiados píxeles: "
+                            + reader.getWidth(0) + "x" + reader.getHeight(0), null);
+                }
+                return reader.read(0, reader.getDefaultReadParam());
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            if (e instanceof ImageOriginException origen) {
+                throw origen;
+            }
+            throw new ImageOriginException("La imagen original no es válida", e);
+        }
+    }
+
+    private static BufferedImage reducir(BufferedImage imagen, int anchoFinal, boolean transparente) {
+        int altoFinal = Math.max(1, Math.round((float) imagen.getHeight() * anchoFinal / imagen.getWidth()));
+        int tipo = transparente ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage actual = imagen;
+        int ancho = imagen.getWidth();
+        int alto = imagen.getHeight();
+        do {
+            ancho = Math.max(anchoFinal, ancho / 2);
+            alto = Math.max(altoFinal, alto / 2);
+            BufferedImage paso = new BufferedImage(ancho, alto, tipo);
+            Graphics2D g = paso.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(actual, 0, 0, ancho, alto, null);
+            } finally {
+                g.dispose();
+            }
+            actual = paso;
+        } while (ancho != anchoFinal || alto != altoFinal);
+        return actual;
+    }
+
+    private static byte[] png(BufferedImage imagen) throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        ImageIO.write(imagen, "png", salida);
+        return salida.toByteArray();
+    }
+
+    private byte[] jpeg(BufferedImage imagen) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(salida)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(calidadJpeg);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(imagen, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return salida.toByteArray();
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.dangelcrack.shopcard.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Utilidades para abrir spans propios con Micrometer Tracing.
+ *
+ * <p>Todas comprueban primero que el span actual se muestrea: fuera de una traza muestreada solo
+ * cuestan la lectura del contexto actual y no crean spans que luego se descartarían.</p>
+ */
+public final class Spans {
+
+    private Spans() {
+    }
+
+    /**
+     * @param tracer Trazador de la aplicación
+     * @return true si el hilo está dentro de una traza muestreada
+     */
+    public static boolean muestreado(Tracer tracer) {
+        Span actual = tracer.currentSpan();
+        return actual != null && !actual.isNoop();
+    }
+
+    /**
+     * Abre un span hijo del actual. Hay que ponerlo en ámbito con {@link Tracer#withSpan} y
+     * terminarlo con {@link Span#end()}.
+     *
+     * @param tracer Trazador de la aplicación
+     * @param name Nombre del span, por ejemplo {@code ProductoService.filtrar}
+     * @param layer Capa de la aplicación: controller, service, repository, serialization...
+     * @return Span iniciado, o null si el hilo no está dentro de una traza muestreada
+     */
+    public static Span start(Tracer tracer, String name, String layer) {
+        if (!muestreado(tracer)) {
+            return null;
+        }
+        return tracer.nextSpan().name(name).tag("shopcard.layer", layer).start();
+    }
+
+    /**
+     * Registra una sentencia SQL ya ejecutada como span hijo del actual.
+     *
+     * @param tracer Trazador de la aplicación
+     * @param sql Texto de la sentencia
+     * @param startNanos Inicio según {@link System#nanoTime()}
+     * @param durationNanos Duración
+     */
+    public static void recordStatement(Tracer tracer, String sql, long startNanos, long durationNanos) {
+        Span padre = tracer.currentSpan();
+        if (padre == null || padre.isNoop()) {
+            return;
+        }
+        // Los spans llevan marcas de tiempo de reloj: se traslada el nanoTime al instante actual
+        Instant ahora = Instant.now();
+        long finEpoch = TimeUnit.SECONDS.toNanos(ahora.getEpochSecond()) + ahora.getNano()
+                - (System.nanoTime() - startNanos - durationNanos);
+        int espacio = sql.indexOf(' ');
+        Span span = tracer.spanBuilder()
+                .setParent(padre.context())
+                .name("SQL " + (espacio > 0 ? sql.substring(0, espacio) : sql).toUpperCase(Locale.ROOT))
+                .tag("shopcard.layer", "jdbc")
+                .tag("db.statement", sql)
+                .startTimestamp(finEpoch - durationNanos, TimeUnit.NANOSECONDS)
+                .start();
+        span.end(finEpoch, TimeUnit.NANOSECONDS);
+    }
+}
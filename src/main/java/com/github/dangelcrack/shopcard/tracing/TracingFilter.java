@@ -0,0 +1,46 @@
+package com.github.dangelcrack.shopcard.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.TraceContext;
+import io.micrometer.tracing.Tracer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Devuelve en la cabecera {@code traceparent} de la respuesta el contexto del span de la petición,
+ * también cuando no se muestrea, para que el cliente pueda correlacionar sus propios logs. El span
+ * lo abre antes el filtro de observación de Spring Boot.
+ */
+public class TracingFilter extends OncePerRequestFilter {
+
+    /**
+     * Cabecera W3C en la que viaja el contexto de traza.
+     */
+    public static final String HEADER = "traceparent";
+
+    private final Tracer tracer;
+
+    /**
+     * @param tracer Trazador de la aplicación
+     */
+    public TracingFilter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Span span = tracer.currentSpan();
+        if (span != null) {
+            TraceContext context = span.context();
+            response.setHeader(HEADER, "00-" + context.traceId() + "-" + context.spanId()
+                    + (Boolean.TRUE.equals(context.sampled()) ? "-01" : "-00"));
+        }
+        chain.doFilter(request, response);
+    }
+}
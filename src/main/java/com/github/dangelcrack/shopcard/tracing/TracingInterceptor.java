@@ -0,0 +1,47 @@
+package com.github.dangelcrack.shopcard.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.util.function.Supplier;
+
+/**
+ * Abre un span por cada llamada a un bean de la aplicación (controlador, servicio o repositorio).
+ * Fuera de una traza muestreada solo cuesta la lectura del span actual.
+ */
+public class TracingInterceptor implements MethodInterceptor {
+
+    private final Supplier<Tracer> tracer;
+    private final String nombre;
+    private final String layer;
+
+    /**
+     * @param tracer Trazador, resuelto la primera vez que se usa
+     * @param nombre Nombre simple del bean, que precede al del método en el span
+     * @param layer Capa de la aplicación
+     */
+    public TracingInterceptor(Supplier<Tracer> tracer, String nombre, String layer) {
+        this.tracer = tracer;
+        this.nombre = nombre;
+        this.layer = layer;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Tracer actual = tracer.get();
+        Span span = Spans.start(actual, nombre + "." + invocation.getMethod().getName(), layer);
+        if (span == null) {
+            return invocation.proceed();
+        }
+        try (Tracer.SpanInScope ignored = actual.withSpan(span)) {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.dangelcrack.shopcard.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+/**
+ * Conversor JSON que mide la escritura del cuerpo de la respuesta en un span de la capa
+ * {@code serialization}. Como no hay open-session-in-view, el tiempo del span es solo Jackson y
+ * la escritura en el socket.
+ */
+public class TracingJacksonConverter extends MappingJackson2HttpMessageConverter {
+
+    private final Tracer tracer;
+
+    /**
+     * @param objectMapper ObjectMapper configurado por Spring Boot
+     * @param tracer Trazador de la aplicación
+     */
+    public TracingJacksonConverter(ObjectMapper objectMapper, Tracer tracer) {
+        super(objectMapper);
+        this.tracer = tracer;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        Span span = Spans.start(tracer, "serialize " + object.getClass().getSimpleName(), "serialization");
+        if (span == null) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        if (object instanceof Collection<?> elementos) {
+            span.tag("shopcard.items", elementos.size());
+        }
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            super.writeInternal(object, type, outputMessage);
+        } catch (IOException | RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
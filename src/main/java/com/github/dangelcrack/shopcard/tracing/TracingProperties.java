@@ -0,0 +1,31 @@
+package com.github.dangelcrack.shopcard.tracing;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Spans propios de la aplicación (prefijo {@code shopcard.tracing}). El muestreo y la exportación
+ * son los de Micrometer Tracing: {@code management.tracing.sampling.probability} y
+ * {@code management.otlp.tracing.*}.
+ */
+@ConfigurationProperties(prefix = "shopcard.tracing")
+public class TracingProperties {
+
+    /**
+     * Si es false no se instalan los interceptores ni el conversor JSON: solo queda el span de la
+     * petición HTTP de Spring Boot.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Si es true se respeta la decisión de muestreo que llega en {@code traceparent}. Por defecto
+     * se aplica siempre la probabilidad local: cualquier cliente puede mandar la cabecera con el
+     * indicador de muestreo y forzar que se trace y exporte cada una de sus peticiones. Solo debe
+     * activarse si todas las peticiones llegan de servicios propios.
+     */
+    private boolean trustRemoteSampling = false;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public boolean isTrustRemoteSampling() { return trustRemoteSampling; }
+    public void setTrustRemoteSampling(boolean trustRemoteSampling) { this.trustRemoteSampling = trustRemoteSampling; }
+}
@@ -0,0 +1,68 @@
+-- Esquema de partida: el mismo que generaba Hibernate con ddl-auto=update a partir de las
+-- entidades. Las bases de datos que ya existían se marcan en esta versión sin ejecutarla
+-- (spring.flyway.baseline-on-migrate) y continúan desde V2.
+
+CREATE TABLE categorias (
+    id          INT          NOT NULL AUTO_INCREMENT,
+    nombre      VARCHAR(50)  NOT NULL,
+    imagen_url  VARCHAR(255),
+    descripcion LONGTEXT,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE colecciones (
+    id                INT          NOT NULL AUTO_INCREMENT,
+    nombre            VARCHAR(100) NOT NULL,
+    fecha_lanzamiento DATE,
+    imagen_url        VARCHAR(255),
+    descripcion       LONGTEXT,
+    codigo            VARCHAR(10),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE rarezas (
+    id     INT         NOT NULL AUTO_INCREMENT,
+    nombre VARCHAR(30) NOT NULL,
+    color  VARCHAR(20) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE estados_producto (
+    id          INT         NOT NULL AUTO_INCREMENT,
+    codigo      VARCHAR(5)  NOT NULL,
+    descripcion VARCHAR(50) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_estados_producto_codigo UNIQUE (codigo)
+) ENGINE = InnoDB;
+
+CREATE TABLE productos (
+    id              INT            NOT NULL AUTO_INCREMENT,
+    nombre          VARCHAR(100)   NOT NULL,
+    descripcion     VARCHAR(500),
+    precio          DECIMAL(10, 2) NOT NULL,
+    precio_original DECIMAL(10, 2) NOT NULL,
+    stock           INT            NOT NULL,
+    imagen_url      VARCHAR(255),
+    numero_carta    INT            NOT NULL,
+    categoria_id    INT            NOT NULL,
+    coleccion_id    INT            NOT NULL,
+    rareza_id       INT            NOT NULL,
+    estado_id       INT            NOT NULL,
+    fecha_creacion  DATE           NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_productos_categoria FOREIGN KEY (categoria_id) REFERENCES categorias (id),
+    CONSTRAINT fk_productos_coleccion FOREIGN KEY (coleccion_id) REFERENCES colecciones (id),
+    CONSTRAINT fk_productos_rareza FOREIGN KEY (rareza_id) REFERENCES rarezas (id),
+    CONSTRAINT fk_productos_estado FOREIGN KEY (estado_id) REFERENCES estados_producto (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE valoraciones (
+    id             INT          NOT NULL AUTO_INCREMENT,
+    producto_id    INT          NOT NULL,
+    nombre_cliente VARCHAR(100) NOT NULL,
+    puntuacion     TINYINT      NOT NULL,
+    comentario     TEXT,
+    fecha          DATETIME(6)  NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_valoraciones_producto FOREIGN KEY (producto_id) REFERENCES productos (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,27 @@
+-- Índices para las consultas que lanza de verdad la aplicación; cada uno indica a cuál sirve.
+-- QueryPlanTest comprueba con EXPLAIN que ninguna consulta por clave recorre la tabla entera.
+-- Las claves foráneas ya tienen su propio índice (InnoDB lo crea si no hay otro que empiece por
+-- la columna), que basta para los ámbitos de RepricingService. No se añade nada para
+-- findByRarezaId ni findByEstadoId: con tan pocos valores distintos el optimizador recorre la
+-- tabla igualmente. Tampoco para fecha_creacion, que ninguna consulta filtra ni ordena.
+
+-- Relacionados por colección ordenados por cercanía de precio (RelatedProductsIndex) y listados
+-- por colección: el índice lleva el precio y el id, así que no hace falta leer la fila.
+CREATE INDEX idx_productos_coleccion_precio ON productos (coleccion_id, precio);
+
+-- Relacionados por categoría y rareza (RelatedProductsIndex) y listados por categoría.
+CREATE INDEX idx_productos_categoria_rareza_precio ON productos (categoria_id, rareza_id, precio);
+
+-- Media y reparto de puntuaciones de un producto (findAverageRating, countByPuntuacionForProducto)
+-- y filtro de valoraciones por producto y puntuación, resueltos solo con el índice.
+CREATE INDEX idx_valoraciones_producto_puntuacion ON valoraciones (producto_id, puntuacion);
+
+-- Valoraciones de un producto de la más reciente a la más antigua (ProductoPageService).
+CREATE INDEX idx_valoraciones_producto_fecha ON valoraciones (producto_id, fecha);
+
+-- Valoraciones con una puntuación dada (findByPuntuacion).
+CREATE INDEX idx_valoraciones_puntuacion ON valoraciones (puntuacion);
+
+-- Productos valorados por los mismos clientes (RelatedProductsIndex): la autounión por
+-- nombre_cliente devuelve producto_id desde el índice.
+CREATE INDEX idx_valoraciones_cliente_producto ON valoraciones (nombre_cliente, producto_id);
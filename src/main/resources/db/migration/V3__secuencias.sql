@@ -0,0 +1,21 @@
+-- Ids reservados por bloques en lugar de AUTO_INCREMENT (GenerationType.TABLE con el optimizador
+-- pooled-lo): cada fila guarda el siguiente id libre de una tabla y Hibernate la avanza de una vez
+-- el tamaño del bloque. Así conoce los ids antes del INSERT y puede enviarlos en lotes JDBC.
+--
+-- Cada contador empieza después del mayor id existente, así que los ids nuevos continúan donde
+-- los dejó AUTO_INCREMENT. Las columnas id lo conservan solo para inserciones manuales; la
+-- aplicación ya no lo usa. Durante el despliegue no debe quedar ninguna instancia anterior
+-- insertando con AUTO_INCREMENT.
+
+CREATE TABLE secuencias (
+    nombre    VARCHAR(50) NOT NULL,
+    siguiente BIGINT      NOT NULL,
+    PRIMARY KEY (nombre)
+) ENGINE = InnoDB;
+
+INSERT INTO secuencias (nombre, siguiente) SELECT 'categorias', COALESCE(MAX(id), 0) + 1 FROM categorias;
+INSERT INTO secuencias (nombre, siguiente) SELECT 'colecciones', COALESCE(MAX(id), 0) + 1 FROM colecciones;
+INSERT INTO secuencias (nombre, siguiente) SELECT 'rarezas', COALESCE(MAX(id), 0) + 1 FROM rarezas;
+INSERT INTO secuencias (nombre, siguiente) SELECT 'estados_producto', COALESCE(MAX(id), 0) + 1 FROM estados_producto;
+INSERT INTO secuencias (nombre, siguiente) SELECT 'productos', COALESCE(MAX(id), 0) + 1 FROM productos;
+INSERT INTO secuencias (nombre, siguiente) SELECT 'valoraciones', COALESCE(MAX(id), 0) + 1 FROM valoraciones;
@@ -0,0 +1,36 @@
+-- Estadísticas materializadas por colección y por categoría (CatalogStatistics): número de
+-- productos, productos y unidades en stock, valor del stock, rango de precios y valoraciones.
+-- Se recalculan los grupos afectados tras cada escritura de productos o valoraciones y todos
+-- periódicamente. La aplicación las sirve desde memoria; las tablas permiten cargarlas al
+-- arrancar sin recorrer el catálogo y consultarlas por SQL.
+--
+-- Sin clave foránea: borrar una colección o categoría vacía no debe depender de sus
+-- estadísticas, y la reconciliación periódica elimina las filas huérfanas.
+
+CREATE TABLE estadisticas_colecciones (
+    coleccion_id       INT            NOT NULL,
+    productos          INT            NOT NULL,
+    productos_en_stock INT            NOT NULL,
+    unidades_en_stock  BIGINT         NOT NULL,
+    valor_stock        DECIMAL(18, 2) NOT NULL,
+    precio_minimo      DECIMAL(10, 2),
+    precio_maximo      DECIMAL(10, 2),
+    valoraciones       INT            NOT NULL,
+    suma_puntuaciones  BIGINT         NOT NULL,
+    actualizado        DATETIME(6)    NOT NULL,
+    PRIMARY KEY (coleccion_id)
+) ENGINE = InnoDB;
+
+CREATE TABLE estadisticas_categorias (
+    categoria_id       INT            NOT NULL,
+    productos          INT            NOT NULL,
+    productos_en_stock INT            NOT NULL,
+    unidades_en_stock  BIGINT         NOT NULL,
+    valor_stock        DECIMAL(18, 2) NOT NULL,
+    precio_minimo      DECIMAL(10, 2),
+    precio_maximo      DECIMAL(10, 2),
+    valoraciones       INT            NOT NULL,
+    suma_puntuaciones  BIGINT         NOT NULL,
+    actualizado        DATETIME(6)    NOT NULL,
+    PRIMARY KEY (categoria_id)
+) ENGINE = InnoDB;
@@ -0,0 +1,18 @@
+-- Trabajos de cambio de precio masivo (RepricingService). Cada lote actualiza los productos y
+-- avanza aquí el último id aplicado en la misma transacción, de modo que un trabajo que falla a
+-- mitad se reanuda desde el lote siguiente al repetir la petición con el mismo identificador, sin
+-- aplicar dos veces la regla a ningún producto.
+--
+-- huella: SHA-256 de la regla, para rechazar que se reutilice el identificador con otra regla.
+
+CREATE TABLE trabajos_cambio_precio (
+    id          VARCHAR(64) NOT NULL,
+    huella      CHAR(64)    NOT NULL,
+    ultimo_id   INT         NOT NULL,
+    aplicados   BIGINT      NOT NULL,
+    lotes       INT         NOT NULL,
+    completado  BOOLEAN     NOT NULL,
+    creado      DATETIME(6) NOT NULL,
+    actualizado DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,245 @@
+package com.github.dangelcrack.shopcard.startup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mide el tiempo hasta la primera petición servida con cada forma de arrancar la aplicación.
+ *
+ * <p>Lanza la aplicación empaquetada ({@code mvn -Pstartup package}) en un proceso nuevo por cada
+ * repetición y consulta una ruta cada 10 ms hasta recibir un 2xx. El tiempo se mide desde que se
+ * crea el proceso, así que incluye el arranque de la JVM. Variantes:</p>
+ * <ul>
+ *     <li>{@code fatjar}: {@code java -jar} del jar ejecutable, como se despliega hoy.</li>
+ *     <li>{@code extraido}: el jar extraído en {@code target/startup}, sin más cambios.</li>
+ *     <li>{@code optimizado}: jar extraído, archivo AppCDS, código AOT y perfil {@code startup}.</li>
+ *     <li>{@code optimizado-lazy}: lo anterior con inicialización perezosa de beans.</li>
+ * </ul>
+ *
+ * <p>Opciones: {@code --variantes}, {@code --repeticiones} (5), {@code --ruta} ({@code /rarezas}),
+ * {@code --timeout} (segundos, 120) y {@code --h2}, que arranca todas las variantes contra una H2 en
+ * memoria con el esquema creado por Hibernate, para medir sin MySQL (en ese caso no hay
+ * {@code fatjar}, que no admite añadir el driver al classpath). Las opciones {@code --spring.*},
+ * {@code --shopcard.*} y {@code --logging.*} se pasan a la aplicación. El informe queda en
+ * {@code target/startup/report.json} y la salida de cada arranque en {@code target/startup/logs}.</p>
+ */
+public final class StartupBenchmark {
+
+    private static final Path TARGET = Path.of("target");
+    private static final Path EXTRAIDO = TARGET.resolve("startup");
+    private static final String MAIN = "com.github.dangelcrack.shopcard.ShopCardApplication";
+    private static final Pattern STARTED = Pattern.compile("Started \\S+ in ([0-9.]+) seconds");
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opciones = new LinkedHashMap<>();
+        List<String> appArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--spring.") || arg.startsWith("--shopcard.") || arg.startsWith("--logging.")) {
+                appArgs.add(arg);
+                continue;
+            }
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Argumento no reconocido: " + arg);
+            }
+            int igual = arg.indexOf('=');
+            opciones.put(igual < 0 ? arg.substring(2) : arg.substring(2, igual), igual < 0 ? "true" : arg.substring(igual + 1));
+        }
+        boolean h2 = opciones.containsKey("h2");
+        List<String> variantes = Arrays.asList(opciones.getOrDefault("variantes",
+                (h2 ? "" : "fatjar,") + "extraido,optimizado,optimizado-lazy").split(","));
+        int repeticiones = Integer.parseInt(opciones.getOrDefault("repeticiones", "5"));
+        String ruta = opciones.getOrDefault("ruta", "/rarezas");
+        Duration timeout = Duration.ofSeconds(Long.parseLong(opciones.getOrDefault("timeout", "120")));
+
+        String jar = findJar();
+        String classpathExtra = "";
+        if (h2) {
+            classpathExtra = File.pathSeparator + Path.of(Class.forName("org.h2.Driver")
+                    .getProtectionDomain().getCodeSource().getLocation().toURI());
+            appArgs.addAll(0, List.of(
+                    "--spring.datasource.url=jdbc:h2:mem:shopcard;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                    "--spring.jpa.hibernate.ddl-auto=create"));
+        }
+        Files.createDirectories(EXTRAIDO.resolve("logs"));
+
+        Map<String, List<Medida>> resultados = new LinkedHashMap<>();
+        for (int i = 0; i < repeticiones; i++) {
+            // Se alternan las variantes para que el estado de la caché de disco no favorezca a ninguna
+            for (String variante : variantes) {
+                List<String> comando = command(variante.trim(), jar, classpathExtra);
+                Medida medida = run(variante.trim(), i, comando, appArgs, ruta, timeout);
+                resultados.computeIfAbsent(variante.trim(), k -> new ArrayList<>()).add(medida);
+                System.out.printf(Locale.ROOT, "%-16s #%d  primera petición %6d ms  (Spring: %s s)%n",
+                        variante.trim(), i + 1, medida.primeraPeticionMs(),
+                        medida.springSegundos() != null ? medida.springSegundos() : "?");
+            }
+        }
+        print(resultados);
+        Path informe = EXTRAIDO.resolve("report.json");
+        Files.writeString(informe, json(resultados, ruta));
+        System.out.println("Informe: " + informe.toAbsolutePath());
+    }
+
+    private static List<String> command(String variante, String jar, String classpathExtra) {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        Path extraido = EXTRAIDO.resolve(jar);
+        Path cds = EXTRAIDO.resolve("application.jsa");
+        List<String> comando = new ArrayList<>(List.of(java));
+        switch (variante) {
+            case "fatjar" -> comando.addAll(List.of("-jar", TARGET.resolve(jar).toString()));
+            case "extraido" -> comando.addAll(List.of("-cp", extraido + classpathExtra, MAIN));
+            case "optimizado", "optimizado-lazy" -> {
+                if (!Files.exists(cds)) {
+                    throw new IllegalStateException("Falta " + cds + ": ejecuta antes mvn -Pstartup -DskipTests package");
+                }
+                comando.addAll(List.of("-XX:SharedArchiveFile=" + cds, "-Xlog:cds=off", "-Xlog:class+path=off",
+                        "-Dspring.aot.enabled=true", "-cp", extraido + classpathExtra, MAIN,
+                        "--spring.profiles.active=startup"));
+                if (variante.equals("optimizado-lazy")) {
+                    comando.add("--spring.main.lazy-initialization=true");
+                }
+            }
+            default -> throw new IllegalArgumentException("Variante desconocida: " + variante);
+        }
+        return comando;
+    }
+
+    private static Medida run(String variante, int repeticion, List<String> comando, List<String> appArgs,
+                              String ruta, Duration timeout) throws Exception {
+        int puerto = freePort();
+        List<String> completo = new ArrayList<>(comando);
+        completo.add("--server.port=" + puerto);
+        completo.add("--spring.devtools.restart.enabled=false");
+        completo.addAll(appArgs);
+        Path log = EXTRAIDO.resolve("logs").resolve(variante + "-" + (repeticion + 1) + ".log");
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + ruta))
+                .timeout(Duration.ofSeconds(10)).GET().build();
+        long inicio = System.nanoTime();
+        Process proceso = new ProcessBuilder(completo).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            long limite = inicio + timeout.toNanos();
+            while (System.nanoTime() < limite) {
+                if (!proceso.isAlive()) {
+                    throw new IllegalStateException(variante + " ha terminado con código " + proceso.exitValue() + ", ver " + log);
+                }
+                try {
+                    int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    if (status >= 200 && status < 300) {
+                        long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+                        return new Medida(ms, springSeconds(log));
+                    }
+                    if (status >= 500) {
+                        throw new IllegalStateException(variante + " ha respondido " + status + " a " + ruta + ", ver " + log);
+                    }
+                } catch (IOException e) {
+                    // Aún no escucha
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException(variante + " no ha respondido en " + timeout.toSeconds() + " s, ver " + log);
+        } finally {
+            proceso.destroy();
+            if (!proceso.waitFor(10, TimeUnit.SECONDS)) {
+                proceso.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static String springSeconds(Path log) throws IOException {
+        // El mensaje se escribe justo antes de aceptar peticiones; se espera un poco a que llegue al fichero
+        for (int i = 0; i < 50; i++) {
+            Matcher m = STARTED.matcher(Files.readString(log));
+            if (m.find()) {
+                return m.group(1);
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static void print(Map<String, List<Medida>> resultados) {
+        System.out.printf("%n%-16s %8s %8s %8s%n", "variante", "mín ms", "mediana", "máx ms");
+        Long base = null;
+        for (Map.Entry<String, List<Medida>> e : resultados.entrySet()) {
+            long[] ms = e.getValue().stream().mapToLong(Medida::primeraPeticionMs).sorted().toArray();
+            long mediana = ms[ms.length / 2];
+            String delta = "";
+            if (base == null) {
+                base = mediana;
+            } else {
+                delta = String.format(Locale.ROOT, "  %+.1f%%", 100.0 * (mediana - base) / base);
+            }
+            System.out.printf(Locale.ROOT, "%-16s %8d %8d %8d%s%n", e.getKey(), ms[0], mediana, ms[ms.length - 1], delta);
+        }
+    }
+
+    private static String json(Map<String, List<Medida>> resultados, String ruta) {
+        StringBuilder out = new StringBuilder("{\n  \"ruta\": \"").append(ruta).append("\",\n  \"variantes\": {");
+        String separador = "\n";
+        for (Map.Entry<String, List<Medida>> e : resultados.entrySet()) {
+            long[] ms = e.getValue().stream().mapToLong(Medida::primeraPeticionMs).sorted().toArray();
+            out.append(separador).append("    \"").append(e.getKey()).append("\": {\"medianaMs\": ").append(ms[ms.length / 2])
+                    .append(", \"minMs\": ").append(ms[0]).append(", \"maxMs\": ").append(ms[ms.length - 1])
+                    .append(", \"primeraPeticionMs\": ").append(Arrays.toString(e.getValue().stream()
+                            .mapToLong(Medida::primeraPeticionMs).toArray()))
+                    .append("}");
+            separador = ",\n";
+        }
+        return out.append("\n  }\n}\n").toString();
+    }
+
+    private static String findJar() throws IOException {
+        try (var ficheros = Files.list(EXTRAIDO)) {
+            return ficheros.map(p -> p.getFileName().toString())
+                    .filter(n -> n.endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No hay jar extraído en " + EXTRAIDO
+                            + ": ejecuta antes mvn -Pstartup -DskipTests package"));
+        } catch (NoSuchFileException e) {
+            throw new IllegalStateException("No existe " + EXTRAIDO + ": ejecuta antes mvn -Pstartup -DskipTests package");
+        }
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Medida(long primeraPeticionMs, String springSegundos) {
+    }
+}
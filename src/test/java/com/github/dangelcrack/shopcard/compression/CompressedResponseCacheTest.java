@@ -0,0 +1,175 @@
+package com.github.dangelcrack.shopcard.compression;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static com.github.dangelcrack.shopcard.querycount.QueryCountAssertions.assertQueryCount;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba que el detalle de producto y los datos de referencia se sirven comprimidos desde la
+ * caché según {@code Accept-Encoding}, que la clave no depende de cómo se escribe {@code Accept}
+ * ni de parámetros desconocidos, y que las escrituras y la caducidad invalidan lo guardado.
+ */
+@SpringBootTest(properties = {
+        "shopcard.compression-cache.enabled=true",
+        "shopcard.compression-cache.min-size-bytes=256",
+        "shopcard.compression-cache.codecs=gzip,deflate"})
+@AutoConfigureMockMvc
+class CompressedResponseCacheTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private CompressedResponseCache cache;
+
+    @BeforeEach
+    void seed() {
+        jdbc.update("DELETE FROM valoraciones");
+        jdbc.update("DELETE FROM productos");
+        jdbc.update("DELETE FROM categorias");
+        jdbc.update("DELETE FROM colecciones");
+        jdbc.update("DELETE FROM rarezas");
+        jdbc.update("DELETE FROM estados_producto");
+        jdbc.update("INSERT INTO categorias (id, nombre) VALUES (1, 'Pokemon')");
+        jdbc.update("INSERT INTO colecciones (id, nombre, codigo, descripcion) VALUES (1, 'Base', 'BS', ?)",
+                "Primera expansión del juego de cartas coleccionables, publicada en 1999 con 102 cartas.");
+        jdbc.update("INSERT INTO rarezas (id, nombre, color) VALUES (1, 'Rara', 'oro')");
+        jdbc.update("INSERT INTO estados_producto (id, codigo, descripcion) VALUES (1, 'NM', 'Near mint')");
+        jdbc.update("INSERT INTO productos (id, nombre, descripcion, precio, precio_original, stock, numero_carta, " +
+                "categoria_id, coleccion_id, rareza_id, estado_id, fecha_creacion) " +
+                "VALUES (1, 'Charizard', ?, 250.00, 300, 1, 4, 1, 1, 1, 1, DATE '2024-06-11')",
+                "Carta holográfica de la colección Base en estado casi perfecto, con las esquinas intactas.");
+        jdbc.update("INSERT INTO valoraciones (id, nombre_cliente, producto_id, puntuacion, comentario, fecha) " +
+                "VALUES (1, 'ana', 1, 5, 'Llegó en perfecto estado y muy bien protegida', TIMESTAMP '2024-06-11 10:00:00')");
+        cache.invalidarTodo();
+    }
+
+    @Test
+    void productDetailIsServedCompressedFromTheCache() throws Exception {
+        byte[] identidad = mvc.perform(get("/api/productos/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(identidad.length).isGreaterThanOrEqualTo(256);
+
+        MockHttpServletResponse[] gzip = new MockHttpServletResponse[1];
+        assertQueryCount(0, () -> gzip[0] = mvc.perform(get("/api/productos/1").header("Accept-Encoding", "br, gzip;q=0.8, deflate;q=0.5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", containsString("Accept-Encoding")))
+                .andReturn().getResponse());
+        assertThat(gzip[0].getContentType()).startsWith(MediaType.APPLICATION_JSON_VALUE);
+        assertThat(gzip[0].getContentLength()).isEqualTo(gzip[0].getContentAsByteArray().length).isLessThan(identidad.length);
+        assertThat(new GZIPInputStream(new ByteArrayInputStream(gzip[0].getContentAsByteArray())).readAllBytes())
+                .isEqualTo(identidad);
+
+        byte[] deflate = mvc.perform(get("/api/productos/1").header("Accept-Encoding", "gzip;q=0, *"))
+                .andExpect(header().string("Content-Encoding", "deflate"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(new InflaterInputStream(new ByteArrayInputStream(deflate)).readAllBytes()).isEqualTo(identidad);
+
+        mvc.perform(get("/api/productos/1").header("Accept-Encoding", "identity"))
+                .andExpect(header().doesNotExist("Content-Encoding"));
+    }
+
+    @Test
+    void eachAcceptedFormatIsCachedSeparately() throws Exception {
+        mvc.perform(get("/api/productos/1").header("Accept-Encoding", "gzip"));
+        mvc.perform(get("/api/productos/1").accept("application/cbor").header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/cbor"))
+                .andExpect(header().string("Content-Encoding", "gzip"));
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void acceptSpellingsAndUnknownParamsShareTheJsonEntry() throws Exception {
+        mvc.perform(get("/api/productos/1")).andExpect(status().isOk());
+
+        assertQueryCount(0, () -> {
+            mvc.perform(get("/api/productos/1").accept("*/*")).andExpect(status().isOk());
+            mvc.perform(get("/api/productos/1").accept("application/json")).andExpect(status().isOk());
+            mvc.perform(get("/api/productos/1").header("Accept", "application/cbor;q=0.5, application/*"))
+                    .andExpect(header().string("Content-Type", containsString("application/json")));
+            mvc.perform(get("/api/productos/1?_=1718100000")).andExpect(status().isOk());
+        });
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void unsupportedAcceptBypassesTheCache() throws Exception {
+        mvc.perform(get("/api/productos/1").accept("application/xml"))
+                .andExpect(status().isNotAcceptable());
+        // Spring MVC responde igualmente con JSON, pero no es lo que ha pedido el cliente
+        mvc.perform(get("/api/productos/1").header("Accept", "*/*, application/json;q=0, application/cbor;q=0, " +
+                "application/x-jackson-smile;q=0, application/x-protobuf;q=0, application/protobuf;q=0"));
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void entriesExpireAfterMaxAge() {
+        CompressionCacheProperties properties = new CompressionCacheProperties();
+        properties.setMaxAge(Duration.ofMinutes(10));
+        AtomicLong reloj = new AtomicLong();
+        CompressedResponseCache cache = new CompressedResponseCache(properties, new SimpleMeterRegistry(), reloj::get);
+
+        cache.guardar("/rarezas json", CompressedResponseCache.Grupo.REFERENCIA, null, "application/json",
+                new byte[512], cache.generacion());
+        reloj.addAndGet(Duration.ofMinutes(10).toNanos() - 1);
+        assertThat(cache.buscar("/rarezas json")).isNotNull();
+
+        reloj.incrementAndGet();
+        assertThat(cache.buscar("/rarezas json")).isNull();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getBytes()).isZero();
+    }
+
+    @Test
+    void smallBodiesAreNotCached() throws Exception {
+        mvc.perform(get("/estados-producto/1").header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"));
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void writesRefreshTheCachedDetail() throws Exception {
+        mvc.perform(get("/api/productos/1").header("Accept-Encoding", "gzip"));
+
+        mvc.perform(put("/valoraciones/1").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombreCliente\":\"ana\",\"producto\":{\"id\":1},\"puntuacion\":2,\"comentario\":\"Ha llegado doblada por una esquina\"}"))
+                .andExpect(status().isOk());
+        assertThat(mvc.perform(get("/api/productos/1")).andReturn().getResponse().getContentAsString())
+                .contains("doblada");
+
+        mvc.perform(put("/rarezas/1").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombre\":\"Holo rara\",\"color\":\"plata\"}"))
+                .andExpect(status().isOk());
+        assertThat(mvc.perform(get("/api/productos/1")).andReturn().getResponse().getContentAsString())
+                .contains("Holo rara");
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.dangelcrack.shopcard.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba que {@code /actuator/prometheus} expone los histogramas por endpoint, los temporizadores
+ * propios, las estadísticas de Hibernate y el estado del pool, y que las métricas y el estado de la
+ * protección frente a sobrecarga solo los ve el administrador.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void seed() {
+        jdbc.update("DELETE FROM valoraciones");
+        jdbc.update("DELETE FROM productos");
+        jdbc.update("DELETE FROM categorias");
+        jdbc.update("DELETE FROM colecciones");
+        jdbc.update("DELETE FROM rarezas");
+        jdbc.update("DELETE FROM estados_producto");
+        jdbc.update("INSERT INTO categorias (id, nombre) VALUES (1, 'Pokemon')");
+        jdbc.update("INSERT INTO colecciones (id, nombre, codigo) VALUES (1, 'Base', 'BS')");
+        jdbc.update("INSERT INTO rarezas (id, nombre, color) VALUES (1, 'Rara', 'oro')");
+        jdbc.update("INSERT INTO estados_producto (id, codigo, descripcion) VALUES (1, 'NM', 'Near mint')");
+        jdbc.update("INSERT INTO productos (id, nombre, precio, precio_original, stock, numero_carta, categoria_id, " +
+                "coleccion_id, rareza_id, estado_id, fecha_creacion) VALUES (1, 'Charizard', 10, 20, 3, 4, 1, 1, 1, 1, CURRENT_DATE)");
+        jdbc.update("INSERT INTO valoraciones (id, nombre_cliente, producto_id, puntuacion, fecha) VALUES (1, 'ana', 1, 4, CURRENT_TIMESTAMP)");
+    }
+
+    @Test
+    void prometheusScrapeContainsApiJpaAndPoolMetrics() throws Exception {
+        mvc.perform(get("/api/productos/filter").param("ratings", "4")).andExpect(status().isOk());
+        mvc.perform(get("/api/productos/1/rating")).andExpect(status().isOk());
+
+        String scrape = mvc.perform(get("/actuator/prometheus").with(user("admin").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape)
+                .contains("http_server_requests_seconds_bucket{")
+                .contains("uri=\"/api/productos/filter\"")
+                .contains("uri=\"/api/productos/{productoId}/rating\"")
+                .contains("shopcard_productos_filtro_seconds_count{application=\"ShopCard\"} 1")
+                .contains("shopcard_rating_seconds_count{application=\"ShopCard\",calculo=\"filtro\"} 1")
+                .contains("shopcard_rating_seconds_count{application=\"ShopCard\",calculo=\"promedio\"} 1")
+                .contains("hibernate_query_executions_total")
+                .contains("hibernate_entities_loads_total")
+                .contains("hibernate_cache_query_requests_total")
+                .contains("hikaricp_connections_pending")
+                .contains("shopcard_connection_hold_count_total")
+                .contains("shopcard_load_shedding_inflight");
+    }
+
+    @Test
+    void actuatorRequiresTheAdminRoleExceptHealth() throws Exception {
+        mvc.perform(get("/actuator/health")).andExpect(status().isOk());
+        for (String endpoint : new String[]{"/actuator/prometheus", "/actuator/metrics", "/actuator/info"}) {
+            mvc.perform(get(endpoint)).andExpect(status().isUnauthorized());
+            mvc.perform(get(endpoint).with(user("cliente"))).andExpect(status().isForbidden());
+        }
+        mvc.perform(get("/actuator/metrics").with(user("admin").roles("ADMIN"))).andExpect(status().isOk());
+    }
+
+    @Test
+    void loadSheddingStatusRequiresTheAdminRole() throws Exception {
+        mvc.perform(get("/api/admin/load-shedding")).andExpect(status().isUnauthorized());
+        mvc.perform(get("/api/admin/load-shedding").with(user("cliente"))).andExpect(status().isForbidden());
+        mvc.perform(get("/api/admin/load-shedding").with(user("admin").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.groups.catalogo.limit").isNumber());
+    }
+}
@@ -0,0 +1,166 @@
+package com.github.dangelcrack.shopcard.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.dangelcrack.shopcard.encoding.proto.ColeccionLista;
+import com.github.dangelcrack.shopcard.encoding.proto.Producto;
+import com.github.dangelcrack.shopcard.encoding.proto.ProductoLista;
+import com.github.dangelcrack.shopcard.encoding.proto.Valoracion;
+import com.github.dangelcrack.shopcard.encoding.proto.ValoracionLista;
+import com.google.protobuf.Message;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba que los endpoints del catálogo responden en CBOR, Smile y Protobuf según la
+ * cabecera {@code Accept}, con el mismo contenido que en JSON. Las respuestas Protobuf se leen con
+ * las clases generadas de {@code catalogo.proto}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ContentNegotiationTest {
+
+    private static final String CBOR = "application/cbor";
+    private static final String SMILE = "application/x-jackson-smile";
+    private static final String PROTOBUF = "application/x-protobuf";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void seed() {
+        jdbc.update("DELETE FROM valoraciones");
+        jdbc.update("DELETE FROM productos");
+        jdbc.update("DELETE FROM categorias");
+        jdbc.update("DELETE FROM colecciones");
+        jdbc.update("DELETE FROM rarezas");
+        jdbc.update("DELETE FROM estados_producto");
+        jdbc.update("INSERT INTO categorias (id, nombre) VALUES (1, 'Pokemon')");
+        jdbc.update("INSERT INTO colecciones (id, nombre, codigo, fecha_lanzamiento) VALUES (1, 'Base', 'BS', DATE '1999-01-09'), (2, 'Jungla', 'JU', NULL)");
+        jdbc.update("INSERT INTO rarezas (id, nombre, color) VALUES (1, 'Rara', 'oro')");
+        jdbc.update("INSERT INTO estados_producto (id, codigo, descripcion) VALUES (1, 'NM', 'Near mint')");
+        for (int i = 1; i <= 10; i++) {
+            jdbc.update("INSERT INTO productos (id, nombre, descripcion, precio, precio_original, stock, numero_carta, " +
+                    "categoria_id, coleccion_id, rareza_id, estado_id, fecha_creacion) " +
+                    "VALUES (?, ?, 'Carta de prueba', 12.50, 20, 3, ?, 1, 1, 1, 1, DATE '2024-06-11')", i, "Carta " + i, i);
+            jdbc.update("INSERT INTO valoraciones (id, nombre_cliente, producto_id, puntuacion, comentario, fecha) " +
+                    "VALUES (?, 'ana', ?, 4, 'Muy buena', TIMESTAMP '2024-06-11 10:00:00')", i, i);
+        }
+    }
+
+    @Test
+    void cborAndSmileCarryTheSameTreeAsJson() throws Exception {
+        ObjectMapper json = new ObjectMapper();
+        for (String ruta : List.of("/api/productos", "/api/colecciones", "/valoraciones/producto/3")) {
+            JsonNode esperado = json.readTree(mvc.perform(get(ruta)).andReturn().getResponse().getContentAsByteArray());
+
+            byte[] cbor = mvc.perform(get(ruta).accept(CBOR))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(CBOR))
+                    .andReturn().getResponse().getContentAsByteArray();
+            assertThat(comoJson(json, new ObjectMapper(new CBORFactory()).readTree(cbor))).as(ruta).isEqualTo(esperado);
+
+            byte[] smile = mvc.perform(get(ruta).accept(SMILE))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsByteArray();
+            assertThat(comoJson(json, new ObjectMapper(new SmileFactory()).readTree(smile))).as(ruta).isEqualTo(esperado);
+        }
+    }
+
+    /**
+     * CBOR y Smile conservan los {@code BigDecimal} como decimales; se pasan por JSON para
+     * compararlos con el árbol leído del JSON.
+     */
+    private static JsonNode comoJson(ObjectMapper json, JsonNode arbol) throws Exception {
+        return json.readTree(json.writeValueAsBytes(arbol));
+    }
+
+    @Test
+    void productListsAreEncodedWithTheProtobufSchema() throws Exception {
+        byte[] json = mvc.perform(get("/api/productos")).andReturn().getResponse().getContentAsByteArray();
+        byte[] cuerpo = mvc.perform(get("/api/productos").accept(PROTOBUF))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(PROTOBUF))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        ProductoLista lista = ProductoLista.parseFrom(cuerpo);
+        assertSinCamposDesconocidos(lista);
+        assertThat(lista.getItemsList()).hasSize(10);
+        assertThat(lista.hasPagina()).isFalse();
+        Producto primero = lista.getItems(0);
+        assertThat(primero.getId()).isEqualTo(1);
+        assertThat(primero.getNombre()).isEqualTo("Carta 1");
+        assertThat(primero.getPrecio()).isEqualTo("12.50");
+        assertThat(primero.getFechaCreacion()).isEqualTo("2024-06-11");
+        assertThat(primero.getRareza().getNombre()).isEqualTo("Rara");
+        Valoracion valoracion = primero.getValoraciones(0);
+        assertThat(valoracion.getPuntuacion()).isEqualTo(4);
+        assertThat(valoracion.hasProducto()).isFalse();
+        assertThat(primero.getRatingPromedio()).isEqualTo(4.0);
+
+        assertThat(cuerpo.length).isLessThan(json.length / 2);
+    }
+
+    @Test
+    void pagesAndReviewsIncludeTheirExtraFields() throws Exception {
+        byte[] colecciones = mvc.perform(get("/api/colecciones").param("size", "1").accept(PROTOBUF))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        ColeccionLista lista = ColeccionLista.parseFrom(colecciones);
+        assertSinCamposDesconocidos(lista);
+        assertThat(lista.getItemsList()).hasSize(1);
+        assertThat(lista.getPagina().getTotalElementos()).isEqualTo(2);
+
+        byte[] valoraciones = mvc.perform(get("/valoraciones/producto/2").accept(PROTOBUF))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        ValoracionLista resenas = ValoracionLista.parseFrom(valoraciones);
+        assertSinCamposDesconocidos(resenas);
+        Valoracion valoracion = resenas.getItems(0);
+        assertThat(valoracion.getFecha()).startsWith("2024-06-11T");
+        assertThat(valoracion.getProducto().getId()).isEqualTo(2);
+        assertThat(valoracion.getProducto().getValoracionesList()).isEmpty();
+    }
+
+    /**
+     * Un campo que el codificador escribe y el esquema no declara llegaría a los clientes como
+     * desconocido; se recorre el mensaje entero buscándolos.
+     */
+    private static void assertSinCamposDesconocidos(Message mensaje) {
+        assertThat(mensaje.getUnknownFields().asMap()).as(mensaje.getDescriptorForType().getFullName()).isEmpty();
+        mensaje.getAllFields().values().forEach(valor -> {
+            if (valor instanceof Message hijo) {
+                assertSinCamposDesconocidos(hijo);
+            } else if (valor instanceof List<?> lista) {
+                lista.stream().filter(Message.class::isInstance).forEach(e -> assertSinCamposDesconocidos((Message) e));
+            }
+        });
+    }
+
+    @Test
+    void protobufIsOnlyOfferedForCatalogLists() throws Exception {
+        mvc.perform(get("/api/productos/1").accept(PROTOBUF)).andExpect(status().isNotAcceptable());
+        mvc.perform(get("/api/productos").accept(PROTOBUF + ", application/json;q=0.5"))
+                .andExpect(content().contentType(PROTOBUF));
+        mvc.perform(get("/api/productos/1").accept(PROTOBUF + ", application/json;q=0.5"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/json"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.github.dangelcrack.shopcard.controllers;
+
+import com.github.dangelcrack.shopcard.querycount.QueryCounts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.github.dangelcrack.shopcard.querycount.QueryCountAssertions.assertQueryCount;
+import static com.github.dangelcrack.shopcard.querycount.QueryCountAssertions.countQueries;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Fija el número de sentencias SQL de cada endpoint de lectura. Un cambio en las relaciones o en
+ * las consultas que añada sentencias (por ejemplo, una relación perezosa que se serializa fuera
+ * del grafo de entidad) hace fallar el test del endpoint afectado.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ControllerQueryCountTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void seed() {
+        jdbc.update("DELETE FROM valoraciones");
+        jdbc.update("DELETE FROM productos");
+        jdbc.update("DELETE FROM categorias");
+        jdbc.update("DELETE FROM colecciones");
+        jdbc.update("DELETE FROM rarezas");
+        jdbc.update("DELETE FROM estados_producto");
+        jdbc.update("INSERT INTO categorias (id, nombre) VALUES (1, 'Pokemon'), (2, 'Entrenador')");
+        jdbc.update("INSERT INTO colecciones (id, nombre, codigo) VALUES (1, 'Base', 'BS'), (2, 'Jungla', 'JU')");
+        jdbc.update("INSERT INTO rarezas (id, nombre, color) VALUES (1, 'Rara', 'oro'), (2, 'Comun', 'negro')");
+        jdbc.update("INSERT INTO estados_producto (id, codigo, descripcion) VALUES (1, 'NM', 'Near mint'), (2, 'EX', 'Excelente')");
+        for (int i = 1; i <= 4; i++) {
+            int a = i % 2 + 1;
+            int b = (i + 1) / 2;
+            jdbc.update("INSERT INTO productos (id, nombre, precio, precio_original, stock, numero_carta, categoria_id, " +
+                    "coleccion_id, rareza_id, estado_id, fecha_creacion) VALUES (?, ?, 10, 20, 3, ?, ?, ?, ?, ?, CURRENT_DATE)",
+                    i, "Carta " + i, i, a, b, a, b);
+        }
+        int id = 1;
+        for (int producto = 1; producto <= 3; producto++) {
+            for (int v = producto; v <= 3; v++) {
+                jdbc.update("INSERT INTO valoraciones (id, nombre_cliente, producto_id, puntuacion, fecha) " +
+                        "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP)", id++, v == 3 ? "ana" : "bob", producto, v + 2);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            // Catálogo completo: productos con sus relaciones y, aparte, todas sus valoraciones
+            "/api/productos, 2",
+            "/api/productos/1, 1",
+            "/api/productos/batch?ids=3&ids=1&ids=9, 1",
+            "/api/productos/1/page, 7",
+            "/api/productos/1/related, 1",
+            "/api/productos/1/rating, 1",
+            "/api/productos/search?nombre=carta, 1",
+            // Listados por páginas: ids de la página y filas de la página
+            "/api/productos/categoria/1, 2",
+            "/api/productos/coleccion/1, 2",
+            "/api/productos/rareza/1, 1",
+            "/api/productos/estado/1, 1",
+            "/api/productos/filter?ratings=4, 2",
+            "/valoraciones, 1",
+            "/valoraciones/1, 1",
+            "/valoraciones/producto/1, 1",
+            "/valoraciones/puntuacion/5, 1",
+            "/valoraciones/cliente/ana, 1",
+            "/categorias, 1",
+            "/categorias/1, 1",
+            "/api/colecciones, 1",
+            "/api/colecciones/1, 1",
+            "/rarezas, 1",
+            "/rarezas/1, 1",
+            "/estados-producto, 1",
+            "/estados-producto/1, 1",
+    })
+    void statementCountIsPinned(String url, int esperadas) throws Exception {
+        assertQueryCount(esperadas, () -> mvc.perform(get(url)).andExpect(status().isOk()));
+    }
+
+    @Test
+    void listingStatementsDoNotGrowWithTheCatalog() throws Exception {
+        QueryCounts pocos = countQueries(() -> mvc.perform(get("/api/productos")).andExpect(status().isOk()));
+        for (int i = 5; i <= 40; i++) {
+            jdbc.update("INSERT INTO productos (id, nombre, precio, precio_original, stock, numero_carta, categoria_id, " +
+                    "coleccion_id, rareza_id, estado_id, fecha_creacion) VALUES (?, ?, 10, 20, 3, ?, 1, 2, 1, 2, CURRENT_DATE)",
+                    i, "Carta " + i, i);
+            jdbc.update("INSERT INTO valoraciones (id, nombre_cliente, producto_id, puntuacion, fecha) " +
+                    "VALUES (?, 'carla', ?, 4, CURRENT_TIMESTAMP)", 100 + i, i);
+        }
+
+        QueryCounts muchos = assertQueryCount(pocos.statements(),
+                () -> mvc.perform(get("/api/productos")).andExpect(status().isOk()));
+        assertThat(muchos.entityLoads()).isGreaterThan(pocos.entityLoads());
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.dangelcrack.shopcard.controllers;
+
+import com.github.dangelcrack.shopcard.services.ProductoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba que {@code /api/productos/batch} devuelve los productos en el orden pedido, sin
+ * repetidos, e informa de los ids que no existen.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProductoBatchTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void seed() {
+        jdbc.update("DELETE FROM valoraciones");
+        jdbc.update("DELETE FROM productos");
+        jdbc.update("DELETE FROM categorias");
+        jdbc.update("DELETE FROM colecciones");
+        jdbc.update("DELETE FROM rarezas");
+        jdbc.update("DELETE FROM estados_producto");
+        jdbc.update("INSERT INTO categorias (id, nombre) VALUES (1, 'Pokemon')");
+        jdbc.update("INSERT INTO colecciones (id, nombre, codigo) VALUES (1, 'Base', 'BS')");
+        jdbc.update("INSERT INTO rarezas (id, nombre, color) VALUES (1, 'Rara', 'oro')");
+        jdbc.update("INSERT INTO estados_producto (id, codigo, descripcion) VALUES (1, 'NM', 'Near mint')");
+        for (int i = 1; i <= 5; i++) {
+            jdbc.update("INSERT INTO productos (id, nombre, precio, precio_original, stock, numero_carta, categoria_id, " +
+                    "coleccion_id, rareza_id, estado_id, fecha_creacion) VALUES (?, ?, 10, 20, 3, ?, 1, 1, 1, 1, CURRENT_DATE)",
+                    i, "Carta " + i, i);
+        }
+        for (int v = 1; v <= 3; v++) {
+            jdbc.update("INSERT INTO valoraciones (id, nombre_cliente, producto_id, puntuacion, fecha) " +
+                    "VALUES (?, 'ana', 4, ?, CURRENT_TIMESTAMP)", v, v + 2);
+        }
+    }
+
+    @Test
+    void keepsRequestOrderAndReportsMissingIds() throws Exception {
+        mvc.perform(get("/api/productos/batch").param("ids", "4,99,2,4,5,7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productos[*].id", contains(4, 2, 5)))
+                .andExpect(jsonPath("$.productos[0].valoraciones.length()").value(3))
+                .andExpect(jsonPath("$.productos[0].rareza.nombre").value("Rara"))
+                .andExpect(jsonPath("$.noEncontrados", contains(99, 7)));
+    }
+
+    @Test
+    void postAcceptsIdsInTheBody() throws Exception {
+        mvc.perform(post("/api/productos/batch").contentType(MediaType.APPLICATION_JSON).content("[3, 1, 42]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productos[*].id", contains(3, 1)))
+                .andExpect(jsonPath("$.noEncontrados", contains(42)));
+        mvc.perform(post("/api/productos/batch").contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productos", empty()));
+    }
+
+    @Test
+    void rejectsTooManyIds() throws Exception {
+        String ids = IntStream.rangeClosed(1, ProductoService.MAX_BATCH + 1).mapToObj(Integer::toString)
+                .collect(Collectors.joining(",", "[", "]"));
+        mvc.perform(post("/api/productos/batch").contentType(MediaType.APPLICATION_JSON).content(ids))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/productos/batch").param("ids", "1,x")).andExpect(status().isBadRequest());
+    }
+}
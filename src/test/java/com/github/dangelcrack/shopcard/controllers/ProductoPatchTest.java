@@ -0,0 +1,160 @@
+package com.github.dangelcrack.shopcard.controllers;
+
+import com.github.dangelcrack.shopcard.querycount.QueryCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba que {@code PATCH /api/productos/{id}} solo escribe las columnas que cambian y que las
+ * valoraciones se actualizan por diferencias, tanto en PATCH como en PUT.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProductoPatchTest {
+
+    private static final String MERGE_PATCH = "application/merge-patch+json";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void seed() {
+        jdbc.update("DELETE FROM valoraciones");
+        jdbc.update("DELETE FROM productos");
+        jdbc.update("DELETE FROM categorias");
+        jdbc.update("DELETE FROM colecciones");
+        jdbc.update("DELETE FROM rarezas");
+        jdbc.update("DELETE FROM estados_producto");
+        jdbc.update("INSERT INTO categorias (id, nombre) VALUES (1, 'Pokemon')");
+        jdbc.update("INSERT INTO colecciones (id, nombre, codigo) VALUES (1, 'Base', 'BS')");
+        jdbc.update("INSERT INTO rarezas (id, nombre, color) VALUES (1, 'Rara', 'oro'), (2, 'Comun', 'negro')");
+        jdbc.update("INSERT INTO estados_producto (id, codigo, descripcion) VALUES (1, 'NM', 'Near mint')");
+        jdbc.update("INSERT INTO productos (id, nombre, descripcion, precio, precio_original, stock, numero_carta, " +
+                "categoria_id, coleccion_id, rareza_id, estado_id, fecha_creacion) " +
+                "VALUES (1, 'Charizard', 'Holo', 250, 300, 1, 4, 1, 1, 1, 1, DATE '2024-06-11')");
+        for (int v = 1; v <= 3; v++) {
+            jdbc.update("INSERT INTO valoraciones (id, nombre_cliente, producto_id, puntuacion, comentario, fecha) " +
+                    "VALUES (?, ?, 1, ?, 'ok', CURRENT_TIMESTAMP)", v, "cliente" + v, v + 2);
+        }
+    }
+
+    @Test
+    void priceEditIsOneNarrowUpdate() throws Exception {
+        List<String> sentencias = ejecutar(() -> mvc.perform(patch("/api/productos/1").contentType(MERGE_PATCH)
+                        .content("{\"precio\": 199.99, \"stock\": 1}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.precio").value(199.99))
+                .andExpect(jsonPath("$.valoraciones.length()").value(3)));
+
+        List<String> escrituras = sentencias.stream().filter(sql -> !sql.startsWith("select")).toList();
+        assertThat(escrituras).hasSize(1);
+        assertThat(escrituras.get(0)).startsWith("update productos set precio=? where id=?");
+        assertThat(jdbc.queryForObject("SELECT precio FROM productos WHERE id = 1", BigDecimal.class))
+                .isEqualByComparingTo("199.99");
+    }
+
+    @Test
+    void nullClearsOptionalFieldsAndRelationsChangeById() throws Exception {
+        mvc.perform(patch("/api/productos/1").contentType(MERGE_PATCH)
+                        .content("{\"descripcion\": null, \"rareza\": {\"id\": 2}}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.descripcion").doesNotExist())
+                .andExpect(jsonPath("$.rareza.nombre").value("Comun"));
+
+        mvc.perform(patch("/api/productos/1").contentType(MERGE_PATCH).content("{\"precio\": null}"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(patch("/api/productos/1").contentType(MERGE_PATCH).content("{\"precio\": -1}"))
+                .andExpect(status().isBadRequest());
+        // Todas las restricciones de la entidad, no solo las de precio, nombre y stock
+        mvc.perform(patch("/api/productos/1").contentType(MERGE_PATCH).content("{\"precioOriginal\": 0}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(r -> assertThat(r.getResolvedException()).hasMessageContaining("precioOriginal"));
+        mvc.perform(patch("/api/productos/1").contentType(MERGE_PATCH).content("{\"nombre\": \"" + "x".repeat(101) + "\"}"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(patch("/api/productos/1").contentType(MERGE_PATCH).content("{\"fechaCreacion\": \"2020-01-01\"}"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(patch("/api/productos/1").contentType(MERGE_PATCH).content("{\"rareza\": {\"id\": 9}}"))
+                .andExpect(status().isNotFound());
+        mvc.perform(patch("/api/productos/9").contentType(MERGE_PATCH).content("{\"stock\": 2}"))
+                .andExpect(status().isNotFound());
+        assertThat(jdbc.queryForObject("SELECT rareza_id FROM productos WHERE id = 1", Integer.class)).isEqualTo(2);
+    }
+
+    @Test
+    void reviewsArePatchedAsDiffs() throws Exception {
+        List<String> sentencias = ejecutar(() -> mvc.perform(patch("/api/productos/1").contentType(MERGE_PATCH)
+                        .content("{\"valoraciones\": [{\"id\": 1}, {\"id\": 3, \"puntuacion\": 1}, " +
+                                "{\"nombreCliente\": \"nuevo\", \"puntuacion\": 5}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.valoraciones[*].nombreCliente", contains("cliente1", "cliente3", "nuevo"))));
+
+        List<String> escrituras = sentencias.stream().filter(sql -> !sql.startsWith("select")).toList();
+        assertThat(escrituras).hasSize(3);
+        assertThat(escrituras).contains(
+                "update valoraciones set puntuacion=? where id=?",
+                "delete from valoraciones where id=?");
+        assertThat(escrituras).anyMatch(sql -> sql.startsWith("insert into valoraciones"));
+        assertThat(jdbc.queryForList("SELECT id, puntuacion FROM valoraciones ORDER BY id"))
+                .extracting(fila -> ((Number) fila.get("ID")).intValue() + ":" + ((Number) fila.get("PUNTUACION")).intValue())
+                .startsWith("1:3", "3:1")
+                .hasSize(3);
+    }
+
+    @Test
+    void putKeepsUnchangedReviews() throws Exception {
+        String cuerpo = """
+                {"nombre": "Charizard", "descripcion": "Holo", "precio": 250, "precioOriginal": 300, "stock": 1,
+                 "numeroCarta": 4, "valoraciones": [
+                   {"id": 1, "nombreCliente": "cliente1", "puntuacion": 3, "comentario": "ok"},
+                   {"id": 2, "nombreCliente": "cliente2", "puntuacion": 4, "comentario": "mejor"}]}
+                """;
+        List<String> sentencias = ejecutar(() -> mvc.perform(put("/api/productos/1")
+                        .contentType("application/json").content(cuerpo))
+                .andExpect(status().isOk()));
+
+        assertThat(sentencias.stream().filter(sql -> !sql.startsWith("select")))
+                .containsExactlyInAnyOrder(
+                        "update valoraciones set comentario=? where id=?",
+                        "delete from valoraciones where id=?");
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM valoraciones", Integer.class)).isEqualTo(2);
+    }
+
+    /**
+     * Ejecuta la acción y devuelve las sentencias SQL distintas que ha preparado Hibernate, en
+     * minúsculas y sin alias ni espacios repetidos.
+     */
+    private static List<String> ejecutar(Action action) throws Exception {
+        try (QueryCounter.Scope scope = QueryCounter.begin()) {
+            action.run();
+            return scope.repetidas(1).stream()
+                    .map(Map.Entry::getKey)
+                    .map(sql -> sql.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").trim())
+                    .toList();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Action {
+        void run() throws Exception;
+    }
+}
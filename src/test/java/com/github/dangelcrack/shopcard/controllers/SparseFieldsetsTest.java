@@ -0,0 +1,142 @@
+package com.github.dangelcrack.shopcard.controllers;
+
+import com.github.dangelcrack.shopcard.services.ProductoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.json.JsonCompareMode;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static com.github.dangelcrack.shopcard.querycount.QueryCountAssertions.assertQueryCount;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba el parámetro {@code fields} y la proyección de resumen: forma de la respuesta, una
+ * sola sentencia por petición y una reducción de tamaño de al menos un orden de magnitud en el
+ * listado del catálogo.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class SparseFieldsetsTest {
+
+    private static final String GRID = "nombre,precio,imagenUrl,rareza.nombre";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @BeforeEach
+    void seed() {
+        jdbc.update("DELETE FROM valoraciones");
+        jdbc.update("DELETE FROM productos");
+        jdbc.update("DELETE FROM categorias");
+        jdbc.update("DELETE FROM colecciones");
+        jdbc.update("DELETE FROM rarezas");
+        jdbc.update("DELETE FROM estados_producto");
+        jdbc.update("INSERT INTO categorias (id, nombre, descripcion) VALUES (1, 'Pokemon', 'Cartas de Pokémon')");
+        jdbc.update("INSERT INTO colecciones (id, nombre, codigo, descripcion) VALUES (1, 'Base', 'BS', 'Primera edición')");
+        jdbc.update("INSERT INTO rarezas (id, nombre, color) VALUES (1, 'Rara', 'oro')");
+        jdbc.update("INSERT INTO estados_producto (id, codigo, descripcion) VALUES (1, 'NM', 'Near mint')");
+        String descripcion = "d".repeat(500);
+        String comentario = "c".repeat(300);
+        int valoracion = 1;
+        for (int i = 1; i <= 20; i++) {
+            jdbc.update("INSERT INTO productos (id, nombre, descripcion, precio, precio_original, stock, imagen_url, " +
+                    "numero_carta, categoria_id, coleccion_id, rareza_id, estado_id, fecha_creacion) " +
+                    "VALUES (?, ?, ?, 10, 20, 3, ?, ?, 1, 1, 1, 1, CURRENT_DATE)",
+                    i, "Carta " + i, descripcion, "/img/" + i + ".png", i);
+            for (int v = 0; v < 3; v++) {
+                jdbc.update("INSERT INTO valoraciones (id, nombre_cliente, producto_id, puntuacion, comentario, fecha) " +
+                        "VALUES (?, 'ana', ?, ?, ?, CURRENT_TIMESTAMP)", valoracion++, i, v + 3, comentario);
+            }
+        }
+    }
+
+    @Test
+    void sparseListIsAnOrderOfMagnitudeSmaller() throws Exception {
+        int completo = mvc.perform(get("/api/productos")).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray().length;
+
+        byte[][] sparse = new byte[1][];
+        assertQueryCount(1, () -> sparse[0] = mvc.perform(get("/api/productos").param("fields", GRID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(20)))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].nombre").value("Carta 1"))
+                .andExpect(jsonPath("$[0].rareza.nombre").value("Rara"))
+                .andExpect(jsonPath("$[0].rareza.color").doesNotExist())
+                .andExpect(jsonPath("$[0].descripcion").doesNotExist())
+                .andExpect(jsonPath("$[0].valoraciones").doesNotExist())
+                .andReturn().getResponse().getContentAsByteArray());
+
+        assertThat(sparse[0].length * 10).isLessThan(completo);
+    }
+
+    @Test
+    void detailAndFilteredListsHonourFields() throws Exception {
+        assertQueryCount(1, () -> mvc.perform(get("/api/productos/2").param("fields", "precio,ratingPromedio,estado"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"id\":2,\"precio\":10.00,\"ratingPromedio\":4.0," +
+                        "\"estado\":{\"id\":1,\"codigo\":\"NM\",\"descripcion\":\"Near mint\"}}", JsonCompareMode.STRICT)));
+
+        mvc.perform(get("/api/productos/categoria/1").param("fields", "nombre"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(20)));
+        mvc.perform(get("/api/productos/search").param("nombre", "carta 1").param("fields", "nombre"))
+                .andExpect(jsonPath("$", hasSize(11)));
+        mvc.perform(get("/api/productos/resumen"))
+                .andExpect(jsonPath("$", hasSize(20)))
+                .andExpect(jsonPath("$[0].rareza").value("Rara"));
+    }
+
+    @Test
+    void nullValuesAreLeftOutLikeInTheFullJson() throws Exception {
+        jdbc.update("UPDATE productos SET imagen_url = NULL WHERE id = 2");
+        jdbc.update("UPDATE categorias SET descripcion = NULL WHERE id = 1");
+
+        Map<String, Object> producto = productoService.getProductoById(2, "nombre,imagenUrl,categoria");
+        assertThat(producto).containsOnlyKeys("id", "nombre", "categoria");
+        assertThat(producto.get("categoria")).isEqualTo(Map.of("id", 1, "nombre", "Pokemon"));
+
+        mvc.perform(get("/api/productos/2").param("fields", "imagenUrl,categoria.descripcion"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"id\":2}", JsonCompareMode.STRICT));
+    }
+
+    @Test
+    void reviewListsHonourFields() throws Exception {
+        assertQueryCount(1, () -> mvc.perform(get("/valoraciones/producto/3").param("fields", "puntuacion,producto.nombre"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].puntuacion").value(3))
+                .andExpect(jsonPath("$[0].producto.nombre").value("Carta 3"))
+                .andExpect(jsonPath("$[0].comentario").doesNotExist()));
+
+        mvc.perform(get("/valoraciones/puntuacion/5").param("fields", "nombreCliente"))
+                .andExpect(jsonPath("$", hasSize(20)));
+        mvc.perform(get("/valoraciones/1").param("fields", "nombreCliente"))
+                .andExpect(content().json("{\"id\":1,\"nombreCliente\":\"ana\"}", JsonCompareMode.STRICT));
+    }
+
+    @Test
+    void rejectsUnknownFieldsAndMissingIds() throws Exception {
+        mvc.perform(get("/api/productos").param("fields", "nombre,valoraciones")).andExpect(status().isBadRequest());
+        mvc.perform(get("/api/productos/999").param("fields", "nombre")).andExpect(status().isNotFound());
+        mvc.perform(get("/valoraciones/999").param("fields", "puntuacion")).andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.dangelcrack.shopcard.datagen;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Comprueba que el generador es determinista, que respeta el esquema de la aplicación, que
+ * las valoraciones quedan concentradas en pocas cartas y que una carga fallida no deja rastro.
+ */
+@SpringBootTest
+class CatalogGeneratorTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void sameSeedProducesSameCatalog() {
+        CatalogSpec spec = new CatalogSpec(7L, 2000, 5.0, 1.07, 300, true);
+        CatalogGenerator generator = new CatalogGenerator(dataSource);
+
+        CatalogGenerator.Result primera = generator.generate(spec);
+        List<Object> huella = huella();
+        CatalogGenerator.Result segunda = generator.generate(spec);
+
+        assertThat(segunda.productos()).isEqualTo(2000);
+        assertThat(segunda.valoraciones()).isEqualTo(primera.valoraciones());
+        assertThat(huella()).isEqualTo(huella);
+
+        generator.generate(spec.withSemilla(8L));
+        assertThat(huella()).isNotEqualTo(huella);
+    }
+
+    @Test
+    void reviewCountsAreSkewed() {
+        CatalogGenerator.Result result = new CatalogGenerator(dataSource).generate(new CatalogSpec(7L, 2000, 5.0, 1.07, 300, true));
+
+        assertThat(result.valoraciones()).isBetween(9_000L, 11_000L);
+        Long top20 = jdbc.queryForObject("SELECT SUM(c) FROM (SELECT COUNT(*) c FROM valoraciones " +
+                "GROUP BY producto_id ORDER BY c DESC LIMIT 20) t", Long.class);
+        assertThat(top20).isGreaterThan(result.valoraciones() / 3);
+        assertThat(jdbc.queryForObject("SELECT MIN(precio) FROM productos WHERE rareza_id = 6", Double.class))
+                .isGreaterThan(jdbc.queryForObject("SELECT AVG(precio) FROM productos WHERE rareza_id = 1", Double.class));
+    }
+
+    @Test
+    void identitiesContinueAfterGeneratedIds() {
+        new CatalogGenerator(dataSource).generate(new CatalogSpec(7L, 50, 1.0, 1.07, 20, true));
+
+        jdbc.update("INSERT INTO categorias (nombre) VALUES ('Nueva')");
+        assertThat(jdbc.queryForObject("SELECT MAX(id) FROM categorias", Integer.class)).isEqualTo(5);
+    }
+
+    @Test
+    void refusesToMixWithExistingData() {
+        CatalogSpec spec = new CatalogSpec(7L, 50, 1.0, 1.07, 20, true);
+        new CatalogGenerator(dataSource).generate(spec);
+
+        assertThatThrownBy(() -> new CatalogGenerator(dataSource)
+                .generate(new CatalogSpec(7L, 50, 1.0, 1.07, 20, false)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void failedLoadLeavesThePreviousCatalog() {
+        new CatalogGenerator(dataSource).generate(new CatalogSpec(7L, 50, 1.0, 1.07, 20, true));
+        List<Object> huella = huella();
+
+        // Falla al empezar las valoraciones, con el borrado y los productos ya enviados
+        assertThatThrownBy(() -> new CatalogGenerator(fallaAlPreparar("INSERT INTO valoraciones"))
+                .generate(new CatalogSpec(8L, 80, 1.0, 1.07, 20, true)))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM productos", Integer.class)).isEqualTo(50);
+        assertThat(huella()).isEqualTo(huella);
+    }
+
+    /**
+     * @return El DataSource de la aplicación, con conexiones que fallan al preparar la sentencia indicada
+     */
+    private DataSource fallaAlPreparar(String prefijo) {
+        return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DataSource.class},
+                (ds, metodo, args) -> {
+                    Object resultado = invocar(dataSource, metodo, args);
+                    if (!(resultado instanceof Connection connection)) {
+                        return resultado;
+                    }
+                    return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                            (c, m, a) -> {
+                                if (m.getName().equals("prepareStatement") && ((String) a[0]).startsWith(prefijo)) {
+                                    throw new SQLException("fallo provocado en " + prefijo);
+                                }
+                                return invocar(connection, m, a);
+                            });
+                });
+    }
+
+    private static Object invocar(Object destino, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private List<Object> huella() {
+        return List.of(
+                jdbc.queryForObject("SELECT SUM(precio * id) FROM productos", Double.class),
+                jdbc.queryForObject("SELECT SUM(puntuacion * id + producto_id) FROM valoraciones", Long.class),
+                jdbc.queryForList("SELECT nombre_cliente FROM valoraciones WHERE id IN (1, 100, 1000)", String.class),
+                jdbc.queryForList("SELECT fecha_lanzamiento FROM colecciones ORDER BY id", Object.class).toString());
+    }
+}
@@ -0,0 +1,141 @@
+package com.github.dangelcrack.shopcard.datasource;
+
+import com.github.dangelcrack.shopcard.models.Categoria;
+import com.github.dangelcrack.shopcard.dto.ProductoPage;
+import com.github.dangelcrack.shopcard.services.CategoriasService;
+import com.github.dangelcrack.shopcard.services.ProductoPageService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comprueba el enrutado lectura/escritura con dos bases de datos H2 embebidas: una hace de
+ * principal y otra de réplica. La réplica no recibe los datos de la principal, así que el
+ * contenido de cada lectura delata de qué base de datos viene.
+ */
+@SpringBootTest(properties = {
+        "shopcard.datasource.routing.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:routing_primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "shopcard.datasource.replicas[0].name=replica-test",
+        "shopcard.datasource.replicas[0].url=jdbc:h2:mem:routing_replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "shopcard.datasource.replicas[0].username=sa",
+        "shopcard.datasource.sticky-window-ms=60000",
+        "shopcard.producto-page.timeout.referencia-ms=5000"
+})
+class ReadWriteRoutingTest {
+
+    @Autowired
+    private CategoriasService categoriasService;
+
+    @Autowired
+    private ProductoPageService productoPageService;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    private ReplicaSelectingDataSource replicaSelectingDataSource;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void copySchemaToReplica() {
+        // El contexto de test asocia una petición simulada al hilo; cada test elige su cliente
+        RequestContextHolder.resetRequestAttributes();
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaSelectingDataSource.getReplicas().get(0).dataSource());
+        for (String tabla : new String[]{"valoraciones", "productos", "colecciones", "categorias", "rarezas", "estados_producto"}) {
+            primary.update("DELETE FROM " + tabla);
+        }
+        replica.execute("DROP ALL OBJECTS");
+        primary.queryForList("SCRIPT NODATA", String.class).stream()
+                .filter(sql -> !sql.startsWith("--"))
+                .forEach(replica::execute);
+        replicaSelectingDataSource.checkHealth();
+    }
+
+    @AfterEach
+    void clearRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readOnlyTransactionsAreServedByTheReplica() {
+        categoriasService.createCategoria(categoria("Principal"));
+        assertThat(categoriasService.getAllCategorias()).isEmpty();
+
+        replica.update("INSERT INTO categorias (id, nombre) VALUES (100, 'Replica')");
+        assertThat(categoriasService.getAllCategorias()).extracting(Categoria::getNombre).containsExactly("Replica");
+    }
+
+    @Test
+    void clientReadsItsOwnWritesFromThePrimary() {
+        actAs("10.0.0.1");
+        categoriasService.createCategoria(categoria("Principal"));
+        assertThat(categoriasService.getAllCategorias()).extracting(Categoria::getNombre).containsExactly("Principal");
+
+        actAs("10.0.0.2");
+        assertThat(categoriasService.getAllCategorias()).isEmpty();
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhenNoReplicaIsHealthy() {
+        categoriasService.createCategoria(categoria("Principal"));
+        replicaSelectingDataSource.getReplicas().get(0).markDown(null);
+
+        assertThat(categoriasService.getAllCategorias()).extracting(Categoria::getNombre).containsExactly("Principal");
+
+        replicaSelectingDataSource.checkHealth();
+        assertThat(categoriasService.getAllCategorias()).isEmpty();
+    }
+
+    @Test
+    void productPageSubtasksReadTheClientsOwnWritesFromThePrimary() {
+        // El mismo producto en las dos; solo la principal tendrá la categoría nueva
+        for (JdbcTemplate db : List.of(primary, replica)) {
+            db.update("INSERT INTO categorias (id, nombre) VALUES (1, 'Pokemon')");
+            db.update("INSERT INTO colecciones (id, nombre, codigo) VALUES (1, 'Base', 'BS')");
+            db.update("INSERT INTO rarezas (id, nombre, color) VALUES (1, 'Rara', 'oro')");
+            db.update("INSERT INTO estados_producto (id, codigo, descripcion) VALUES (1, 'NM', 'Near mint')");
+            db.update("INSERT INTO productos (id, nombre, precio, precio_original, stock, numero_carta, categoria_id, coleccion_id, " +
+                    "rareza_id, estado_id, fecha_creacion) VALUES (1, 'Pikachu', 10, 10, 1, 1, 1, 1, 1, 1, CURRENT_DATE)");
+        }
+
+        actAs("10.0.0.1");
+        categoriasService.createCategoria(categoria("Principal"));
+        // Las partes de la página se consultan en hilos virtuales, fuera de la petición
+        assertThat(categorias(productoPageService.getProductoPage(1, 0, 5))).contains("Principal");
+
+        actAs("10.0.0.2");
+        assertThat(categorias(productoPageService.getProductoPage(1, 0, 5))).containsExactly("Pokemon");
+    }
+
+    private static List<String> categorias(ProductoPage page) {
+        assertThat(page.partesIncompletas()).doesNotContain("referencia");
+        return page.referencia().categorias().stream().map(Categoria::getNombre).toList();
+    }
+
+    private static Categoria categoria(String nombre) {
+        Categoria categoria = new Categoria();
+        categoria.setNombre(nombre);
+        return categoria;
+    }
+
+    private static void actAs(String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddr);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+}
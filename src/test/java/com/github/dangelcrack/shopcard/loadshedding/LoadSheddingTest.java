@@ -0,0 +1,118 @@
+package com.github.dangelcrack.shopcard.loadshedding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comprueba los limitadores con un reloj manual: la ráfaga y la recarga del {@link TokenBucket},
+ * el rechazo por cliente del {@link ClientRateLimiter} y el crecimiento y la reducción del límite
+ * del {@link AdaptiveConcurrencyLimiter}.
+ */
+class LoadSheddingTest {
+
+    private static final long SEGUNDO = TimeUnit.SECONDS.toNanos(1);
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void tokenBucketAllowsTheBurstAndRefillsAtTheConfiguredRate() {
+        long t0 = 1_000;
+        TokenBucket bucket = new TokenBucket(3, 1.0, t0);
+
+        assertThat(bucket.tryConsume(1, t0)).isZero();
+        assertThat(bucket.tryConsume(1, t0)).isZero();
+        assertThat(bucket.tryConsume(1, t0)).isZero();
+        // Ráfaga agotada: indica cuánto falta para el siguiente token
+        assertThat(bucket.tryConsume(1, t0)).isEqualTo(SEGUNDO);
+        assertThat(bucket.tryConsume(1, t0 + SEGUNDO / 2)).isEqualTo(SEGUNDO / 2);
+        assertThat(bucket.tryConsume(1, t0 + SEGUNDO)).isZero();
+
+        assertThat(bucket.isFull(t0 + 3 * SEGUNDO)).isFalse();
+        assertThat(bucket.isFull(t0 + 4 * SEGUNDO)).isTrue();
+
+        // Tras mucho tiempo sin uso no se acumulan más tokens que la capacidad
+        long despues = t0 + 100 * SEGUNDO;
+        assertThat(bucket.tryConsume(3, despues)).isZero();
+        assertThat(bucket.tryConsume(1, despues)).isEqualTo(SEGUNDO);
+    }
+
+    @Test
+    void tokenBucketRejectsACostAboveItsCapacity() {
+        TokenBucket bucket = new TokenBucket(3, 1.0, 0);
+        assertThat(bucket.tryConsume(4, 0)).isEqualTo(SEGUNDO);
+        assertThat(bucket.tryConsume(3, 0)).isZero();
+    }
+
+    @Test
+    void clientRateLimiterRejectsPerClientAndDropsIdleBuckets() {
+        AtomicLong reloj = new AtomicLong(0);
+        ClientRateLimiter limiter = new ClientRateLimiter(2, 1.0, 100, 1_000, reloj::get);
+
+        assertThat(limiter.tryAcquire("a", 1)).isZero();
+        assertThat(limiter.tryAcquire("a", 1)).isZero();
+        assertThat(limiter.tryAcquire("a", 1)).isEqualTo(SEGUNDO);
+        assertThat(limiter.tryAcquire("b", 1)).isZero();
+        assertThat(limiter.getAccepted()).isEqualTo(3);
+        assertThat(limiter.getRejected()).isEqualTo(1);
+        assertThat(limiter.getTrackedClients()).isEqualTo(2);
+
+        // Al segundo "a" ha recuperado un token y el cubo de "b" vuelve a estar lleno: la
+        // limpieza, que ya toca, lo descarta
+        reloj.set(SEGUNDO);
+        assertThat(limiter.tryAcquire("a", 1)).isZero();
+        assertThat(limiter.getTrackedClients()).isEqualTo(1);
+
+        reloj.set(10 * SEGUNDO);
+        limiter.tryAcquire("c", 1);
+        assertThat(limiter.getTrackedClients()).isEqualTo(1);
+    }
+
+    @Test
+    void adaptiveLimiterRejectsAboveTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("catalogo", 4, 2, 16, 2.0, 1.0);
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getInflight()).isEqualTo(4);
+        assertThat(limiter.getAccepted()).isEqualTo(4);
+        assertThat(limiter.getRejected()).isEqualTo(1);
+
+        limiter.release(10 * MS, false);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void adaptiveLimiterGrowsWhenUsedAndShrinksOnLatencyOrErrors() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("catalogo", 4, 2, 16, 2.0, 1.0);
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire();
+        }
+        // La primera muestra solo fija la latencia de referencia
+        limiter.release(10 * MS, false);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+
+        // Latencia estable con el límite en uso (3 de 4 en vuelo): crece en sqrt(4)
+        limiter.release(10 * MS, false);
+        assertThat(limiter.getLimit()).isEqualTo(6);
+
+        // Con pocas peticiones en vuelo no crece
+        limiter.release(10 * MS, false);
+        assertThat(limiter.getLimit()).isEqualTo(6);
+
+        // La latencia se dispara: el gradiente se queda en 0.5
+        limiter.release(100 * MS, false);
+        assertThat(limiter.getLimit()).isEqualTo(3);
+        assertThat(limiter.getInflight()).isZero();
+
+        // Los errores lo reducen un 10 % cada vez, sin bajar del mínimo
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+            limiter.release(10 * MS, true);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.dangelcrack.shopcard.profiling;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dangelcrack.shopcard.exceptions.RecordNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithAnonymousUser;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Graba con el perfil {@code jdbc} mientras se atiende una petición y comprueba que el resumen
+ * atribuye la sentencia al código de la aplicación y que el fichero se puede descargar. El
+ * endpoint pide el rol de administración y, con el perfilado desactivado, no existe.
+ */
+@SpringBootTest
+@WithMockUser(roles = "ADMIN")
+@AutoConfigureMockMvc
+class ProfilingControllerTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @BeforeEach
+    void seed() {
+        jdbc.update("DELETE FROM valoraciones");
+        jdbc.update("DELETE FROM productos");
+        jdbc.update("DELETE FROM categorias");
+        jdbc.update("INSERT INTO categorias (id, nombre) VALUES (1, 'Pokemon')");
+    }
+
+    @Test
+    void jdbcRecordingSummarizesStatementsByApplicationFrame() throws Exception {
+        mvc.perform(post("/api/admin/profiling").param("profile", "cuántico")).andExpect(status().isBadRequest());
+        mvc.perform(post("/api/admin/profiling").param("profile", "jdbc").param("duration", "100000"))
+                .andExpect(status().isBadRequest());
+
+        String inicio = mvc.perform(post("/api/admin/profiling").param("profile", "jdbc").param("duration", "60"))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        long id = mapper.readTree(inicio).path("id").asLong();
+        mvc.perform(post("/api/admin/profiling").param("profile", "cpu")).andExpect(status().isConflict());
+        mvc.perform(get("/api/admin/profiling/{id}/summary", id)).andExpect(status().isConflict());
+
+        mvc.perform(get("/categorias/1")).andExpect(status().isOk());
+        JsonNode detenida = mapper.readTree(mvc.perform(post("/api/admin/profiling/stop"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+        assertThat(detenida.path("estado").asText()).isEqualTo("CLOSED");
+        assertThat(detenida.path("bytes").asLong()).isPositive();
+
+        String resumen = mvc.perform(get("/api/admin/profiling/{id}/summary", id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(resumen).startsWith("Perfil: jdbc")
+                .contains("Sentencias JDBC por texto")
+                .contains("from categorias")
+                .contains("CategoriasRepository.findById")
+                .contains("GET /categorias/1");
+
+        byte[] fichero = mvc.perform(get("/api/admin/profiling/{id}/recording", id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(new String(fichero, 0, 4)).isEqualTo("FLR\0");
+        mvc.perform(get("/api/admin/profiling/999")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithAnonymousUser
+    void requiresTheAdminRole() throws Exception {
+        mvc.perform(post("/api/admin/profiling").param("profile", "cpu")).andExpect(status().isUnauthorized());
+        mvc.perform(get("/api/admin/profiling")).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void disabledProfilingIsNotFound() {
+        ProfilingProperties properties = new ProfilingProperties();
+        properties.setEnabled(false);
+        JfrProfiler desactivado = new JfrProfiler(properties);
+        assertThatThrownBy(() -> desactivado.start("cpu", 10)).isInstanceOf(RecordNotFoundException.class);
+        assertThatThrownBy(desactivado::list).isInstanceOf(RecordNotFoundException.class);
+    }
+}
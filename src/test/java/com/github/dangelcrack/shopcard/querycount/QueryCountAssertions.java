@@ -0,0 +1,60 @@
+package com.github.dangelcrack.shopcard.querycount;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * API de test para fijar cuántas sentencias SQL puede ejecutar una operación.
+ *
+ * <pre>
+ * assertQueryCount(2, () -&gt; mvc.perform(get("/api/productos/1")).andExpect(status().isOk()));
+ * </pre>
+ *
+ * <p>Cuenta las sentencias que Hibernate prepara en el hilo del test y en los que este lance
+ * (las peticiones de MockMvc se ejecutan en el mismo hilo).</p>
+ */
+public final class QueryCountAssertions {
+
+    private QueryCountAssertions() {
+    }
+
+    /**
+     * Acción que puede lanzar excepciones comprobadas, como las de MockMvc.
+     */
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    /**
+     * @param action Operación a medir
+     * @return Sentencias y cargas de entidades de la operación
+     */
+    public static QueryCounts countQueries(Action action) throws Exception {
+        try (QueryCounter.Scope scope = QueryCounter.begin()) {
+            action.run();
+            return scope.counts();
+        }
+    }
+
+    /**
+     * Comprueba que la operación ejecuta exactamente {@code expected} sentencias.
+     */
+    public static QueryCounts assertQueryCount(int expected, Action action) throws Exception {
+        QueryCounts counts = countQueries(action);
+        assertThat(counts.statements())
+                .as("sentencias SQL ejecutadas (%s)", counts)
+                .isEqualTo(expected);
+        return counts;
+    }
+
+    /**
+     * Comprueba que la operación no ejecuta más de {@code max} sentencias.
+     */
+    public static QueryCounts assertMaxQueryCount(int max, Action action) throws Exception {
+        QueryCounts counts = countQueries(action);
+        assertThat(counts.statements())
+                .as("sentencias SQL ejecutadas (%s)", counts)
+                .isLessThanOrEqualTo(max);
+        return counts;
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.dangelcrack.shopcard.recommendations;
+
+import com.github.dangelcrack.shopcard.events.CatalogChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comprueba la fotografía del catálogo (grupos por precio y relación producto-cliente en CSR) y la
+ * puntuación de las cartas relacionadas sobre un catálogo pequeño calculado a mano.
+ */
+class RelatedProductsTest {
+
+    /**
+     * Cuatro productos en dos colecciones y dos clientes; el par del producto 99 no está en la
+     * fotografía y se ignora.
+     */
+    private static CatalogSnapshot catalogo() {
+        return new CatalogSnapshot(
+                new int[]{10, 20, 30, 40},
+                new int[]{1, 1, 2, 1},
+                new int[]{1, 2, 1, 1},
+                new int[]{1, 1, 1, 2},
+                new double[]{10, 11, 10, 100},
+                new int[]{10, 20, 20, 30, 99},
+                new int[]{0, 0, 1, 1, 0},
+                2);
+    }
+
+    @Test
+    void snapshotBuildsCsrInBothDirections() {
+        CatalogSnapshot s = catalogo();
+
+        assertThat(s.clientesOffsets).containsExactly(0, 1, 3, 4, 4);
+        assertThat(s.clientes).containsExactly(0, 0, 1, 1);
+        assertThat(s.productosOffsets).containsExactly(0, 2, 4);
+        assertThat(s.productos).containsExactly(0, 1, 1, 2);
+        assertThat(s.positionOf(30)).isEqualTo(2);
+        assertThat(s.positionOf(99)).isEqualTo(-1);
+    }
+
+    @Test
+    void snapshotGroupsByCollectionAndPrice() {
+        CatalogSnapshot s = catalogo();
+
+        assertThat(s.porColeccion).containsExactly(0, 1, 3, 2);
+        assertThat(s.rankColeccion[3]).isEqualTo(2);
+        assertThat(s.inicioColeccion[3]).isZero();
+        assertThat(s.finColeccion[3]).isEqualTo(3);
+        assertThat(s.inicioColeccion[2]).isEqualTo(3);
+        assertThat(s.finColeccion[2]).isEqualTo(4);
+        // Categoría 1 y rareza 1: productos 10 y 30
+        assertThat(s.finCategoriaRareza[0] - s.inicioCategoriaRareza[0]).isEqualTo(2);
+        assertThat(s.inicioCategoriaRareza[2]).isEqualTo(s.inicioCategoriaRareza[0]);
+    }
+
+    @Test
+    void scoresCollectionPriceAndCoRatings() {
+        // Para el 10: el 20 comparte colección, categoría y un cliente (6,58); el 40 colección y
+        // rareza con precio lejano (4,61); el 30 categoría, rareza y precio exacto (4,0)
+        assertThat(new RelatedProductsCalculator(catalogo(), 3).compute(0)).containsExactly(20, 40, 30);
+        assertThat(new RelatedProductsCalculator(catalogo(), 2).compute(0)).containsExactly(20, 40);
+    }
+
+    @Test
+    void tiesGoToTheLowerIdAndCalculatorIsReusable() {
+        CatalogSnapshot s = new CatalogSnapshot(
+                new int[]{1, 5, 3},
+                new int[]{1, 1, 1},
+                new int[]{1, 1, 1},
+                new int[]{1, 1, 1},
+                new double[]{10, 10, 10},
+                new int[0], new int[0], 0);
+        RelatedProductsCalculator calculator = new RelatedProductsCalculator(s, 5);
+
+        assertThat(calculator.compute(0)).containsExactly(3, 5);
+        assertThat(calculator.compute(1)).containsExactly(1, 3);
+        assertThat(calculator.compute(0)).containsExactly(3, 5);
+    }
+
+    @Test
+    void missReturnsEmptyWithoutQuerying() {
+        // Sin JdbcTemplate: cualquier consulta fallaría
+        RelatedProductsIndex index = new RelatedProductsIndex(null, 12, 200, 5000, 1);
+
+        assertThat(index.getRelated(7)).isEmpty();
+        index.programarSiFalta(7);
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void neighboursCountTowardsTheFullRebuildLimit() {
+        // Cada producto tiene diez vecinos de colección; el cálculo de uno solo no debe llegar a hacerse
+        AtomicInteger busquedasVecinos = new AtomicInteger();
+        AtomicInteger cargasCompletas = new AtomicInteger();
+        JdbcTemplate jdbc = new JdbcTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+                busquedasVecinos.incrementAndGet();
+                int id = (Integer) args[0];
+                return (List<T>) IntStream.rangeClosed(1, 10).mapToObj(i -> id * 100 + i).toList();
+            }
+
+            @Override
+            public List<Map<String, Object>> queryForList(String sql, Object... args) {
+                throw new AssertionError("cálculo incremental: " + sql);
+            }
+
+            @Override
+            public void query(String sql, RowCallbackHandler rch) {
+                cargasCompletas.incrementAndGet();
+            }
+        };
+        RelatedProductsIndex index = new RelatedProductsIndex(jdbc, 12, 10, 25, 1);
+        index.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Tipo.PRODUCTO_ACTUALIZADO, Set.of(1, 2, 3, 4, 5)));
+
+        index.refreshPending();
+
+        // Tres búsquedas bastan para pasar de 25 afectados; el resto ya no se consulta
+        assertThat(busquedasVecinos).hasValue(3);
+        assertThat(cargasCompletas).hasValue(2);
+        assertThat(index.isConstruido()).isTrue();
+    }
+}
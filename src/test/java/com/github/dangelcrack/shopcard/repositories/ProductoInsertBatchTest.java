@@ -0,0 +1,100 @@
+package com.github.dangelcrack.shopcard.repositories;
+
+import com.github.dangelcrack.shopcard.models.Categoria;
+import com.github.dangelcrack.shopcard.models.Colecciones;
+import com.github.dangelcrack.shopcard.models.EstadosProducto;
+import com.github.dangelcrack.shopcard.models.Producto;
+import com.github.dangelcrack.shopcard.models.Rareza;
+import com.github.dangelcrack.shopcard.querycount.QueryCounts;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.dangelcrack.shopcard.querycount.QueryCountAssertions.countQueries;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Con los ids reservados por bloques, Hibernate agrupa los INSERT en lotes JDBC: guardar muchos
+ * productos en una transacción prepara el INSERT una vez y no una por fila.
+ */
+@SpringBootTest
+class ProductoInsertBatchTest {
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void seed() {
+        jdbc.update("DELETE FROM valoraciones");
+        jdbc.update("DELETE FROM productos");
+        jdbc.update("DELETE FROM categorias");
+        jdbc.update("DELETE FROM colecciones");
+        jdbc.update("DELETE FROM rarezas");
+        jdbc.update("DELETE FROM estados_producto");
+        jdbc.update("INSERT INTO categorias (id, nombre) VALUES (1, 'Pokemon')");
+        jdbc.update("INSERT INTO colecciones (id, nombre, codigo) VALUES (1, 'Base', 'BS')");
+        jdbc.update("INSERT INTO rarezas (id, nombre, color) VALUES (1, 'Rara', 'oro')");
+        jdbc.update("INSERT INTO estados_producto (id, codigo, descripcion) VALUES (1, 'NM', 'Near mint')");
+    }
+
+    @Test
+    void bulkInsertsAreBatched() throws Exception {
+        List<Producto> guardados = new ArrayList<>();
+        QueryCounts counts = countQueries(() -> transactionTemplate.executeWithoutResult(status -> {
+            List<Producto> productos = new ArrayList<>();
+            for (int i = 1; i <= 45; i++) {
+                productos.add(producto("Carta " + i, i));
+            }
+            guardados.addAll(productoRepository.saveAll(productos));
+        }));
+
+        // Un solo INSERT preparado, que se reutiliza para los tres lotes de 20; con IDENTITY eran 45
+        assertThat(counts.statements()).isEqualTo(1);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM productos", Integer.class)).isEqualTo(45);
+        List<Integer> ids = guardados.stream().map(Producto::getId).toList();
+        assertThat(ids).doesNotHaveDuplicates();
+        assertThat(ids.get(44) - ids.get(0)).isEqualTo(44);
+    }
+
+    @Test
+    void reservedBlocksStayAheadOfTheSequenceTable() {
+        Integer id = transactionTemplate.execute(status -> productoRepository.save(producto("Carta", 1)).getId());
+
+        Long siguiente = jdbc.queryForObject("SELECT siguiente FROM secuencias WHERE nombre = 'productos'", Long.class);
+        assertThat(siguiente).isGreaterThan(id.longValue());
+        assertThat(siguiente - id).isLessThanOrEqualTo(50);
+    }
+
+    private Producto producto(String nombre, int numero) {
+        Producto producto = new Producto();
+        producto.setNombre(nombre);
+        producto.setPrecio(new BigDecimal("10.00"));
+        producto.setPrecioOriginal(new BigDecimal("12.00"));
+        producto.setStock(1);
+        producto.setNumeroCarta(numero);
+        producto.setFechaCreacion(LocalDate.now());
+        producto.setCategoria(entityManager.getReference(Categoria.class, 1));
+        producto.setColeccion(entityManager.getReference(Colecciones.class, 1));
+        producto.setRareza(entityManager.getReference(Rareza.class, 1));
+        producto.setEstado(entityManager.getReference(EstadosProducto.class, 1));
+        return producto;
+    }
+}
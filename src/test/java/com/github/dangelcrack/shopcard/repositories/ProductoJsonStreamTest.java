@@ -0,0 +1,167 @@
+package com.github.dangelcrack.shopcard.repositories;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dangelcrack.shopcard.services.ProductoService;
+import com.github.dangelcrack.shopcard.services.ProductoStreamService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.method.HandlerMethod;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba que los listados por categoría y colección escritos desde la consulta producen el
+ * mismo JSON, byte a byte, que la serialización de las entidades. Con páginas de dos productos
+ * los listados ocupan varias páginas.
+ */
+@SpringBootTest(properties = "shopcard.stream.page-size=2")
+@AutoConfigureMockMvc
+class ProductoJsonStreamTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductoJsonStream productoJsonStream;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void seed() {
+        jdbc.update("DELETE FROM valoraciones");
+        jdbc.update("DELETE FROM productos");
+        jdbc.update("DELETE FROM categorias");
+        jdbc.update("DELETE FROM colecciones");
+        jdbc.update("DELETE FROM rarezas");
+        jdbc.update("DELETE FROM estados_producto");
+        jdbc.update("INSERT INTO categorias (id, nombre, descripcion, imagen_url) VALUES (1, 'Pokemon', 'Cartas \"TCG\"', '/c/p.png'), (2, 'Magic', NULL, NULL)");
+        jdbc.update("INSERT INTO colecciones (id, nombre, codigo, fecha_lanzamiento, descripcion) VALUES (1, 'Base', 'BS', DATE '1999-01-09', 'Primera'), (2, 'Jungla', 'JU', NULL, NULL)");
+        jdbc.update("INSERT INTO rarezas (id, nombre, color) VALUES (1, 'Rara', 'oro'), (2, 'Común', 'gris')");
+        jdbc.update("INSERT INTO estados_producto (id, codigo, descripcion) VALUES (1, 'NM', 'Near mint')");
+        producto(3, "Charizard", "Holo 1ª edición", "250.00", "/img/3.png", 1, 1, 1);
+        producto(1, "Pikachu", null, "12.50", null, 1, 2, 2);
+        producto(2, "Ñandú \\ raro", "Línea\nnueva", "0.99", "/img/2.png", 2, 1, 2);
+        producto(4, "Mewtwo", null, "1000", null, 1, 1, 1);
+        valoracion(7, 3, 5, "Perfecta ✨", "2024-06-11 10:00:00.123456");
+        valoracion(2, 3, 4, null, "2024-06-12 00:00:00");
+        valoracion(5, 3, 3, "Regular", "2024-06-13 23:59:59.5");
+        valoracion(1, 2, 1, "Mala", "2024-01-01 08:30:00");
+        valoracion(3, 4, 4, "Bien", "2024-02-01 08:30:00");
+        valoracion(4, 4, 5, "Muy bien", "2024-02-02 08:30:00");
+        // Comentario largo y de varias líneas: la columna es TEXT y las dos rutas la leen igual
+        valoracion(6, 4, 2, "Llegó doblada.\n" + "Embalaje mejorable, ".repeat(40), "2024-02-03 08:30:00");
+    }
+
+    @Test
+    void streamedListsMatchEntitySerializationByteForByte() throws Exception {
+        for (int id = 1; id <= 3; id++) {
+            assertThat(stream("/api/productos/categoria/" + id))
+                    .as("categoria %d", id)
+                    .isEqualTo(new String(objectMapper.writeValueAsBytes(productoService.findByCategoriaId(id)), StandardCharsets.UTF_8));
+            assertThat(stream("/api/productos/coleccion/" + id))
+                    .as("coleccion %d", id)
+                    .isEqualTo(new String(objectMapper.writeValueAsBytes(productoService.findByColeccionId(id)), StandardCharsets.UTF_8));
+        }
+        mvc.perform(get("/api/productos/categoria/1").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"));
+    }
+
+    @Test
+    void streamedListKeepsRowOrderAndAveragesRatings() throws Exception {
+        JsonNode lista = objectMapper.readTree(stream("/api/productos/categoria/1"));
+        assertThat(lista.findParents("numeroCarta")).extracting(p -> p.get("id").asInt())
+                .containsExactly(1, 3, 4);
+        assertThat(lista.get(1).get("valoraciones").findValuesAsText("id")).containsExactly("2", "5", "7");
+        assertThat(lista.get(1).get("ratingPromedio").asDouble()).isEqualTo(4.0);
+        assertThat(lista.get(0).get("valoraciones").isEmpty()).isTrue();
+        assertThat(lista.get(0).get("ratingPromedio").asDouble()).isEqualTo(0.0);
+    }
+
+    @Test
+    void failureAfterFirstPageLeavesTheArrayOpen() {
+        ProductoJsonStream fallaTrasLaPrimera = new ProductoJsonStream() {
+            @Override
+            public List<Object[]> leerPagina(Filtro filtro, Integer id, int despuesDe, int productos) {
+                if (despuesDe > 0) {
+                    throw new QueryTimeoutException("timeout");
+                }
+                return productoJsonStream.leerPagina(filtro, id, despuesDe, productos);
+            }
+        };
+        ProductoStreamService service = new ProductoStreamService(fallaTrasLaPrimera, objectMapper, transactionManager, 2, 5);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThatThrownBy(() -> service.escribirPorCategoria(1, out)).isInstanceOf(QueryTimeoutException.class);
+        String escrito = out.toString(StandardCharsets.UTF_8);
+        assertThat(escrito).startsWith("[{\"id\":1,").doesNotEndWith("]");
+        assertThatThrownBy(() -> objectMapper.readTree(escrito)).isInstanceOf(JsonProcessingException.class);
+    }
+
+    @Test
+    void failureOnFirstPageWritesNothing() {
+        ProductoJsonStream falla = new ProductoJsonStream() {
+            @Override
+            public List<Object[]> leerPagina(Filtro filtro, Integer id, int despuesDe, int productos) {
+                throw new QueryTimeoutException("timeout");
+            }
+        };
+        ProductoStreamService service = new ProductoStreamService(falla, objectMapper, transactionManager, 2, 5);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThatThrownBy(() -> service.escribirPorColeccion(1, out)).isInstanceOf(QueryTimeoutException.class);
+        assertThat(out.size()).isZero();
+    }
+
+    private String stream(String ruta) throws Exception {
+        MvcResult result = mvc.perform(get(ruta))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/json"))
+                .andReturn();
+        assertThat(((HandlerMethod) result.getHandler()).getMethod().getName()).startsWith("stream");
+        return result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    private void producto(int id, String nombre, String descripcion, String precio, String imagenUrl,
+                          int categoria, int coleccion, int rareza) {
+        jdbc.update("INSERT INTO productos (id, nombre, descripcion, precio, precio_original, stock, numero_carta, " +
+                        "categoria_id, coleccion_id, rareza_id, estado_id, fecha_creacion, imagen_url) " +
+                        "VALUES (?, ?, ?, ?, ?, 2, ?, ?, ?, ?, 1, DATE '2024-06-11', ?)",
+                id, nombre, descripcion, new BigDecimal(precio), new BigDecimal(precio), id,
+                categoria, coleccion, rareza, imagenUrl);
+    }
+
+    private void valoracion(int id, int producto, int puntuacion, String comentario, String fecha) {
+        jdbc.update("INSERT INTO valoraciones (id, nombre_cliente, producto_id, puntuacion, comentario, fecha) " +
+                "VALUES (?, 'ana', ?, ?, ?, TIMESTAMP '" + fecha + "')", id, producto, puntuacion, comentario);
+    }
+}
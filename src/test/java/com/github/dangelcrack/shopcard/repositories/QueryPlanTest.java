@@ -0,0 +1,167 @@
+package com.github.dangelcrack.shopcard.repositories;
+
+import com.github.dangelcrack.shopcard.datagen.CatalogGenerator;
+import com.github.dangelcrack.shopcard.datagen.CatalogSpec;
+import com.github.dangelcrack.shopcard.dto.RepricingRule;
+import com.github.dangelcrack.shopcard.events.CatalogChangedEvent;
+import com.github.dangelcrack.shopcard.recommendations.RelatedProductsIndex;
+import com.github.dangelcrack.shopcard.services.ProductoStreamService;
+import com.github.dangelcrack.shopcard.services.RepricingService;
+import com.github.dangelcrack.shopcard.services.ValoracioneService;
+import com.github.dangelcrack.shopcard.slowquery.SlowQuery;
+import com.github.dangelcrack.shopcard.slowquery.SlowQueryLog;
+import com.github.dangelcrack.shopcard.statistics.CatalogStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import javax.sql.DataSource;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Prueba de humo de los índices sobre H2: lanza cada consulta por clave de la aplicación sobre un
+ * catálogo generado y comprueba con el EXPLAIN que recoge {@link SlowQueryLog} que ninguna recorre
+ * entera {@code productos} ni {@code valoraciones}; si falla, falta un índice en las migraciones.
+ *
+ * <p>El plan es el del optimizador de H2, no el de MySQL: detecta una consulta sin ningún índice
+ * utilizable, pero no garantiza que MySQL elija ese índice, ni el orden de las columnas de un
+ * índice compuesto, ni el coste real. Para eso hay que revisar el EXPLAIN en MySQL (el registro
+ * de consultas lentas lo guarda en producción).</p>
+ *
+ * <p>No se incluyen las consultas que leen la tabla completa por diseño: los {@code findAll},
+ * {@code findAllResumen}, la carga del índice de relacionados, la reconciliación de estadísticas
+ * y las búsquedas por subcadena ({@code LIKE '%texto%'}), que ningún índice B-tree puede resolver. Tampoco {@code findByRarezaId}
+ * ni {@code findByEstadoId}: hay pocas rarezas y estados, cada uno abarca una parte grande del
+ * catálogo y recorrer la tabla es más barato que ir por el índice. Las tablas de referencia tienen
+ * unas pocas filas y no se comprueban.</p>
+ */
+@SpringBootTest(properties = {
+        "shopcard.slow-query.threshold-ms=0",
+        "shopcard.slow-query.capacity=1000",
+        "shopcard.related.refresh-delay-ms=3600000",
+        "shopcard.related.incremental-collection-limit=2",
+        "shopcard.stats.refresh-delay-ms=3600000"})
+class QueryPlanTest {
+
+    private static final Pattern RECORRIDO_COMPLETO =
+            Pattern.compile("\"?(productos|valoraciones)\"?\\.tableScan", Pattern.CASE_INSENSITIVE);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ValoracioneRepository valoracioneRepository;
+
+    @Autowired
+    private CategoriasRepository categoriasRepository;
+
+    @Autowired
+    private ColeccionesRepository coleccionesRepository;
+
+    @Autowired
+    private ValoracioneService valoracioneService;
+
+    @Autowired
+    private ProductoStreamService productoStreamService;
+
+    @Autowired
+    private RepricingService repricingService;
+
+    @Autowired
+    private RelatedProductsIndex relatedProductsIndex;
+
+    @Autowired
+    private CatalogStatistics catalogStatistics;
+
+    @BeforeEach
+    void seed() {
+        new CatalogGenerator(dataSource).generate(CatalogSpec.of(2000));
+        // La reconstrucción inicial del índice corre en otro hilo; el refresco incremental no
+        // arranca mientras dura
+        await().atMost(Duration.ofSeconds(30)).until(relatedProductsIndex::isConstruido);
+        await().atMost(Duration.ofSeconds(30)).until(catalogStatistics::isReconciliado);
+    }
+
+    @TestFactory
+    Stream<DynamicTest> keyedQueriesUseIndexes() {
+        return Stream.of(
+                consulta("ProductoRepository.findById", () -> productoRepository.findById(10)),
+                consulta("ProductoRepository.findByIdIn", () -> productoRepository.findByIdIn(List.of(3, 1, 9))),
+                consulta("ProductoRepository.findByCategoriaId", () -> productoRepository.findByCategoriaId(2)),
+                consulta("ProductoRepository.findByColeccionId", () -> productoRepository.findByColeccionId(3)),
+                consulta("ProductoRepository.findDetalleById", () -> productoRepository.findDetalleById(10)),
+                consulta("ProductoRepository.findAverageRating", () -> productoRepository.findAverageRating(10)),
+                consulta("ProductoRepository.findResumenByIdIn", () -> productoRepository.findResumenByIdIn(List.of(3, 1, 9))),
+                consulta("ProductoRepository.findImagenUrlById", () -> productoRepository.findImagenUrlById(10)),
+                consulta("CategoriasRepository.findImagenUrlById", () -> categoriasRepository.findImagenUrlById(1L)),
+                consulta("ColeccionesRepository.findImagenUrlById", () -> coleccionesRepository.findImagenUrlById(1L)),
+                consulta("ValoracioneRepository.findById", () -> valoracioneRepository.findById(10)),
+                consulta("ValoracioneRepository.findByProductoId", () -> valoracioneRepository.findByProductoId(10)),
+                consulta("ValoracioneRepository.findByProductoId paginado", () -> valoracioneRepository.findByProductoId(10,
+                        PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "fecha")))),
+                consulta("ValoracioneRepository.findByPuntuacion", () -> valoracioneRepository.findByPuntuacion((byte) 1)),
+                consulta("ValoracioneRepository.countByPuntuacionForProducto",
+                        () -> valoracioneRepository.countByPuntuacionForProducto(10)),
+                consulta("ValoracioneService.findCampos", () -> valoracioneService.findCampos("id,puntuacion", 10, (byte) 5, null)),
+                consulta("ProductoJsonStream por categoría",
+                        () -> productoStreamService.escribirPorCategoria(2, OutputStream.nullOutputStream())),
+                consulta("ProductoJsonStream por colección",
+                        () -> productoStreamService.escribirPorColeccion(3, OutputStream.nullOutputStream())),
+                consulta("RepricingService simulación", () -> repricingService.reprice(new RepricingRule(
+                        RepricingRule.Tipo.PORCENTAJE, BigDecimal.TEN, List.of(3), List.of(6), null, null,
+                        RepricingRule.PrecioOriginal.MANTENER), true, null)),
+                consulta("RelatedProductsIndex incremental", () -> {
+                    relatedProductsIndex.onCatalogChanged(CatalogChangedEvent.of(CatalogChangedEvent.Tipo.PRODUCTO_ACTUALIZADO, 10));
+                    relatedProductsIndex.refreshPending();
+                }),
+                consulta("CatalogStatistics incremental", () -> {
+                    catalogStatistics.onCatalogChanged(CatalogChangedEvent.of(CatalogChangedEvent.Tipo.PRODUCTO_ACTUALIZADO, 10, 3, 2));
+                    catalogStatistics.refreshPending();
+                }));
+    }
+
+    private DynamicTest consulta(String nombre, Llamada llamada) {
+        return DynamicTest.dynamicTest(nombre, () -> {
+            slowQueryLog.clear();
+            llamada.ejecutar();
+
+            String hilo = Thread.currentThread().getName();
+            // SlowQueryLog solo pide el EXPLAIN de las SELECT; las escrituras van por clave primaria
+            List<SlowQuery> sentencias = slowQueryLog.getRecientes().stream()
+                    .filter(q -> hilo.equals(q.getHilo()))
+                    .filter(q -> q.getSql().stripLeading().regionMatches(true, 0, "select", 0, 6))
+                    .toList();
+            assertThat(sentencias).as("sentencias de %s", nombre).isNotEmpty();
+            for (SlowQuery sentencia : sentencias) {
+                await().atMost(Duration.ofSeconds(10)).until(() -> sentencia.getPlan() != null);
+                assertThat(sentencia.getPlan())
+                        .as("plan de %s%n%s", nombre, sentencia.getSql())
+                        .doesNotContainPattern(RECORRIDO_COMPLETO)
+                        .doesNotStartWith("EXPLAIN no disponible");
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface Llamada {
+        void ejecutar() throws Exception;
+    }
+}
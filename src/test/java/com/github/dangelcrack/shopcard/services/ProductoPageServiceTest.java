@@ -0,0 +1,104 @@
+package com.github.dangelcrack.shopcard.services;
+
+import com.github.dangelcrack.shopcard.dto.ProductoPage;
+import com.github.dangelcrack.shopcard.dto.ValoracionDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba la composición de la página de producto y la validación de la página de
+ * valoraciones. Con una sola conexión para las páginas las cinco partes se obtienen una tras
+ * otra, y la página sigue llegando completa.
+ */
+@SpringBootTest(properties = {
+        "shopcard.producto-page.max-connections=1",
+        "shopcard.producto-page.timeout.producto-ms=5000",
+        "shopcard.producto-page.timeout.valoraciones-ms=5000",
+        "shopcard.producto-page.timeout.relacionados-ms=5000",
+        "shopcard.producto-page.timeout.referencia-ms=5000"
+})
+@AutoConfigureMockMvc
+class ProductoPageServiceTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ProductoPageService productoPageService;
+
+    @BeforeEach
+    void seed() {
+        jdbc.update("DELETE FROM valoraciones");
+        jdbc.update("DELETE FROM productos");
+        jdbc.update("DELETE FROM categorias");
+        jdbc.update("DELETE FROM colecciones");
+        jdbc.update("DELETE FROM rarezas");
+        jdbc.update("DELETE FROM estados_producto");
+        jdbc.update("INSERT INTO categorias (id, nombre) VALUES (1, 'Pokemon')");
+        jdbc.update("INSERT INTO colecciones (id, nombre, codigo) VALUES (1, 'Base', 'BS')");
+        jdbc.update("INSERT INTO rarezas (id, nombre, color) VALUES (1, 'Rara', 'oro')");
+        jdbc.update("INSERT INTO estados_producto (id, codigo, descripcion) VALUES (1, 'NM', 'Near mint')");
+        jdbc.update("INSERT INTO productos (id, nombre, precio, precio_original, stock, numero_carta, categoria_id, " +
+                "coleccion_id, rareza_id, estado_id, fecha_creacion) VALUES (1, 'Charizard', 10, 20, 3, 4, 1, 1, 1, 1, CURRENT_DATE)");
+        for (int i = 1; i <= 5; i++) {
+            jdbc.update("INSERT INTO valoraciones (id, nombre_cliente, producto_id, puntuacion, fecha) " +
+                    "VALUES (?, 'ana', 1, ?, TIMESTAMP '2024-06-0" + i + " 10:00:00')", i, i);
+        }
+    }
+
+    @Test
+    void composesEveryPartWithOneConnection() {
+        ProductoPage page = productoPageService.getProductoPage(1, 1, 2);
+
+        assertThat(page.partesIncompletas()).isEmpty();
+        assertThat(page.producto().nombre()).isEqualTo("Charizard");
+        assertThat(page.resumenValoraciones().total()).isEqualTo(5);
+        assertThat(page.resumenValoraciones().promedio()).isEqualTo(3.0);
+        // Las más recientes primero: la segunda página de dos son las valoraciones 3 y 2
+        assertThat(page.valoraciones()).extracting(ValoracionDto::id).containsExactly(3, 2);
+        assertThat(page.relacionados()).isNotNull();
+        assertThat(page.referencia().categorias()).hasSize(1);
+    }
+
+    @Test
+    void unknownProductIsNotFound() throws Exception {
+        mvc.perform(get("/api/productos/99/page")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void defaultsToTheFirstTenRatings() throws Exception {
+        mvc.perform(get("/api/productos/1/page"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.valoraciones.length()").value(5))
+                .andExpect(jsonPath("$.partesIncompletas").isEmpty());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "0, 0",
+            "0, -1",
+            "0, 51",
+            "-1, 10"
+    })
+    void invalidRatingsPageIsBadRequest(int page, int size) throws Exception {
+        mvc.perform(get("/api/productos/1/page")
+                        .param("valoracionesPage", String.valueOf(page))
+                        .param("valoracionesSize", String.valueOf(size)))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,214 @@
+package com.github.dangelcrack.shopcard.services;
+
+import com.github.dangelcrack.shopcard.dto.RepricingResult;
+import com.github.dangelcrack.shopcard.dto.RepricingRule;
+import com.github.dangelcrack.shopcard.events.CatalogChangedEvent;
+import com.github.dangelcrack.shopcard.exceptions.ConflictException;
+import com.github.dangelcrack.shopcard.exceptions.InvalidRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba los cambios de precio masivos con lotes de dos productos: la simulación, los límites
+ * de los lotes, el precio original, la reanudación de un trabajo que falla a mitad y que el
+ * endpoint solo lo puede usar el administrador.
+ */
+@SpringBootTest(properties = "shopcard.repricing.chunk-size=2")
+@AutoConfigureMockMvc
+class RepricingServiceTest {
+
+    /**
+     * Hace fallar el lote indicado desde dentro de su transacción, al publicar su evento.
+     */
+    @TestConfiguration
+    static class FalloEnLote {
+        static final AtomicInteger lote = new AtomicInteger();
+        static volatile int fallarEn = 0;
+
+        @Bean
+        Object falloEnLoteListener() {
+            return new Object() {
+                @EventListener
+                void onCatalogChanged(CatalogChangedEvent event) {
+                    if (lote.incrementAndGet() == fallarEn) {
+                        throw new IllegalStateException("fallo en el lote " + fallarEn);
+                    }
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private RepricingService repricingService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @BeforeEach
+    void seed() {
+        jdbc.update("DELETE FROM valoraciones");
+        jdbc.update("DELETE FROM productos");
+        jdbc.update("DELETE FROM categorias");
+        jdbc.update("DELETE FROM colecciones");
+        jdbc.update("DELETE FROM rarezas");
+        jdbc.update("DELETE FROM estados_producto");
+        jdbc.update("INSERT INTO categorias (id, nombre) VALUES (1, 'Pokemon')");
+        jdbc.update("INSERT INTO colecciones (id, nombre, codigo) VALUES (1, 'Base', 'BS'), (2, 'Jungla', 'JU')");
+        jdbc.update("INSERT INTO rarezas (id, nombre, color) VALUES (1, 'Rara', 'oro')");
+        jdbc.update("INSERT INTO estados_producto (id, codigo, descripcion) VALUES (1, 'NM', 'Near mint')");
+        // Cinco productos en la colección 1 (tres lotes) y uno fuera del ámbito
+        for (int id = 1; id <= 6; id++) {
+            jdbc.update("INSERT INTO productos (id, nombre, precio, precio_original, stock, numero_carta, categoria_id, " +
+                    "coleccion_id, rareza_id, estado_id, fecha_creacion) VALUES (?, ?, 10, 20, 3, ?, 1, ?, 1, 1, CURRENT_DATE)",
+                    id, "Carta " + id, id, id == 6 ? 2 : 1);
+        }
+        FalloEnLote.lote.set(0);
+        FalloEnLote.fallarEn = 0;
+    }
+
+    @AfterEach
+    void reset() {
+        FalloEnLote.fallarEn = 0;
+    }
+
+    @Test
+    void dryRunCountsAndPreviewsWithoutChanging() {
+        RepricingResult result = repricingService.reprice(rebaja(RepricingRule.PrecioOriginal.MANTENER), true, null);
+
+        assertThat(result.simulacion()).isTrue();
+        assertThat(result.trabajo()).isNull();
+        assertThat(result.afectados()).isEqualTo(5);
+        assertThat(result.lotes()).isZero();
+        assertThat(result.muestra()).hasSize(5).allSatisfy(c ->
+                assertThat(c.precioNuevo()).isEqualByComparingTo("9.00"));
+        assertThat(precios().values()).allSatisfy(p -> assertThat(p).isEqualByComparingTo("10"));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "5, 3",
+            "4, 2",
+            "1, 1"
+    })
+    void appliesEveryProductOnceAcrossChunkBoundaries(int productos, int lotes) {
+        jdbc.update("UPDATE productos SET coleccion_id = 2 WHERE id > ?", productos);
+
+        RepricingResult result = repricingService.reprice(rebaja(RepricingRule.PrecioOriginal.MANTENER), false, trabajo());
+
+        assertThat(result.afectados()).isEqualTo(productos);
+        assertThat(result.lotes()).isEqualTo(lotes);
+        precios().forEach((id, precio) -> assertThat(precio)
+                .as("producto %d", id)
+                .isEqualByComparingTo(id <= productos ? "9.00" : "10"));
+    }
+
+    @Test
+    void guardarAnteriorKeepsThePreviousPriceAsOriginal() {
+        repricingService.reprice(rebaja(RepricingRule.PrecioOriginal.GUARDAR_ANTERIOR), false, trabajo());
+
+        List<Map<String, Object>> filas = jdbc.queryForList("SELECT precio, precio_original FROM productos WHERE coleccion_id = 1");
+        assertThat(filas).hasSize(5).allSatisfy(f -> {
+            assertThat((BigDecimal) f.get("precio")).isEqualByComparingTo("9.00");
+            assertThat((BigDecimal) f.get("precio_original")).isEqualByComparingTo("10");
+        });
+        assertThat(jdbc.queryForObject("SELECT precio_original FROM productos WHERE id = 6", BigDecimal.class))
+                .isEqualByComparingTo("20");
+    }
+
+    @Test
+    void retryAfterFailureResumesWithoutReapplying() {
+        String trabajo = trabajo();
+        RepricingRule rule = rebaja(RepricingRule.PrecioOriginal.MANTENER);
+        FalloEnLote.fallarEn = 2;
+
+        assertThatThrownBy(() -> repricingService.reprice(rule, false, trabajo)).hasMessageContaining("fallo en el lote 2");
+        // El primer lote quedó confirmado; el segundo se deshizo
+        assertThat(precios().entrySet().stream().filter(e -> e.getValue().compareTo(new BigDecimal("9")) == 0)
+                .map(Map.Entry::getKey)).containsExactlyInAnyOrder(1, 2);
+
+        FalloEnLote.fallarEn = 0;
+        RepricingResult reanudado = repricingService.reprice(rule, false, trabajo);
+        assertThat(reanudado.afectados()).isEqualTo(5);
+        assertThat(reanudado.lotes()).isEqualTo(3);
+        assertThat(reanudado.muestra()).extracting(RepricingResult.Cambio::id).containsExactly(3, 4, 5);
+
+        RepricingResult repetido = repricingService.reprice(rule, false, trabajo);
+        assertThat(repetido.afectados()).isEqualTo(5);
+        assertThat(repetido.muestra()).isEmpty();
+        precios().forEach((id, precio) -> assertThat(precio)
+                .as("producto %d", id)
+                .isEqualByComparingTo(id <= 5 ? "9.00" : "10"));
+    }
+
+    @Test
+    void jobIdIsRequiredAndBoundToItsRule() {
+        assertThatThrownBy(() -> repricingService.reprice(rebaja(RepricingRule.PrecioOriginal.MANTENER), false, null))
+                .isInstanceOf(InvalidRequestException.class);
+
+        String trabajo = trabajo();
+        repricingService.reprice(rebaja(RepricingRule.PrecioOriginal.MANTENER), false, trabajo);
+        assertThatThrownBy(() -> repricingService.reprice(rebaja(RepricingRule.PrecioOriginal.IGUALAR), false, trabajo))
+                .isInstanceOf(ConflictException.class);
+    }
+
+    @Test
+    void endpointRequiresTheAdminRole() throws Exception {
+        String regla = "{\"tipo\": \"PORCENTAJE\", \"valor\": -10, \"colecciones\": [1]}";
+
+        mvc.perform(post("/api/admin/repricing").param("trabajo", trabajo())
+                        .contentType(MediaType.APPLICATION_JSON).content(regla))
+                .andExpect(status().isUnauthorized());
+        mvc.perform(post("/api/admin/repricing").param("trabajo", trabajo()).with(user("cliente"))
+                        .contentType(MediaType.APPLICATION_JSON).content(regla))
+                .andExpect(status().isForbidden());
+        assertThat(precios().values()).allSatisfy(p -> assertThat(p).isEqualByComparingTo("10"));
+
+        mvc.perform(post("/api/admin/repricing").param("simulacion", "true").with(user("admin").roles("ADMIN"))
+                        .contentType(MediaType.APPLICATION_JSON).content(regla))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.afectados").value(5));
+    }
+
+    private static RepricingRule rebaja(RepricingRule.PrecioOriginal precioOriginal) {
+        return new RepricingRule(RepricingRule.Tipo.PORCENTAJE, BigDecimal.valueOf(-10), List.of(1), null, null, null,
+                precioOriginal);
+    }
+
+    private static String trabajo() {
+        return UUID.randomUUID().toString();
+    }
+
+    private Map<Integer, BigDecimal> precios() {
+        return jdbc.queryForList("SELECT id, precio FROM productos").stream()
+                .collect(Collectors.toMap(f -> ((Number) f.get("id")).intValue(), f -> (BigDecimal) f.get("precio")));
+    }
+}
@@ -0,0 +1,192 @@
+package com.github.dangelcrack.shopcard.services;
+
+import com.github.dangelcrack.shopcard.datasource.ConnectionHoldTimeRecorder;
+import com.github.dangelcrack.shopcard.models.Producto;
+import com.github.dangelcrack.shopcard.repositories.ProductoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba que, sin open-session-in-view, las respuestas con entidades se serializan sin cargas
+ * perezosas fuera de la transacción y que las lecturas usan transacciones de solo lectura: un
+ * cambio en una entidad cargada dentro de ellas no llega a la base de datos.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class TransactionBoundariesTest {
+
+    /**
+     * Cambia los productos que devuelve el repositorio, dentro de la transacción del servicio que
+     * lo llama, mientras {@link #activo} está a true.
+     */
+    @TestConfiguration
+    static class CambiosAlCargar {
+        static volatile boolean activo;
+
+        @Bean
+        static BeanPostProcessor cambiosAlCargarPostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof ProductoRepository)) {
+                        return bean;
+                    }
+                    ProxyFactory factory = new ProxyFactory();
+                    factory.setTarget(bean);
+                    factory.addInterface(ProductoRepository.class);
+                    factory.addAdvice((MethodInterceptor) invocation -> {
+                        Object resultado = invocation.proceed();
+                        if (activo) {
+                            cambiar(resultado);
+                        }
+                        return resultado;
+                    });
+                    return factory.getProxy();
+                }
+            };
+        }
+
+        private static void cambiar(Object resultado) {
+            if (resultado instanceof Optional<?> optional) {
+                optional.ifPresent(CambiosAlCargar::cambiar);
+            } else if (resultado instanceof List<?> lista) {
+                lista.forEach(CambiosAlCargar::cambiar);
+            } else if (resultado instanceof Producto producto) {
+                producto.setNombre("Cambiado");
+                producto.setStock(0);
+            }
+        }
+    }
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ConnectionHoldTimeRecorder recorder;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void seed() {
+        jdbc.update("DELETE FROM valoraciones");
+        jdbc.update("DELETE FROM productos");
+        jdbc.update("DELETE FROM categorias");
+        jdbc.update("DELETE FROM colecciones");
+        jdbc.update("DELETE FROM rarezas");
+        jdbc.update("DELETE FROM estados_producto");
+        jdbc.update("INSERT INTO categorias (id, nombre) VALUES (1, 'Pokemon')");
+        jdbc.update("INSERT INTO colecciones (id, nombre, codigo) VALUES (1, 'Base', 'BS')");
+        jdbc.update("INSERT INTO rarezas (id, nombre, color) VALUES (1, 'Rara', 'oro')");
+        jdbc.update("INSERT INTO estados_producto (id, codigo, descripcion) VALUES (1, 'NM', 'Near mint')");
+        jdbc.update("INSERT INTO productos (id, nombre, precio, precio_original, stock, numero_carta, categoria_id, " +
+                "coleccion_id, rareza_id, estado_id, fecha_creacion) VALUES (1, 'Charizard', 10, 20, 3, 4, 1, 1, 1, 1, CURRENT_DATE)");
+        jdbc.update("INSERT INTO valoraciones (id, nombre_cliente, producto_id, puntuacion, fecha) VALUES (1, 'ana', 1, 5, CURRENT_TIMESTAMP)");
+        jdbc.update("INSERT INTO valoraciones (id, nombre_cliente, producto_id, puntuacion, fecha) VALUES (2, 'bob', 1, 3, CURRENT_TIMESTAMP)");
+    }
+
+    @AfterEach
+    void reset() {
+        CambiosAlCargar.activo = false;
+    }
+
+    @Test
+    void productoIsSerializedWithItsRelationsAndReviews() throws Exception {
+        long peticiones = recorder.getPorPeticion().getCount();
+
+        mvc.perform(get("/api/productos/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.categoria.nombre").value("Pokemon"))
+                .andExpect(jsonPath("$.rareza.nombre").value("Rara"))
+                .andExpect(jsonPath("$.valoraciones.length()").value(2))
+                .andExpect(jsonPath("$.valoraciones[0].producto").doesNotExist())
+                .andExpect(jsonPath("$.ratingPromedio").value(4.0))
+                .andExpect(jsonPath("$.hibernateLazyInitializer").doesNotExist());
+
+        mvc.perform(get("/api/productos/filter").param("ratings", "4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].coleccion.codigo").value("BS"));
+
+        mvc.perform(get("/api/productos/1/rating"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(4.0));
+
+        assertThat(recorder.getPorPeticion().getCount()).isGreaterThan(peticiones);
+    }
+
+    @Test
+    void valoracionIsSerializedWithItsProductoButNotTheOtherReviews() throws Exception {
+        mvc.perform(get("/valoraciones/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.producto.nombre").value("Charizard"))
+                .andExpect(jsonPath("$.producto.estado.codigo").value("NM"))
+                .andExpect(jsonPath("$.producto.valoraciones").doesNotExist());
+    }
+
+    @Test
+    void readOnlyTransactionsDoNotFlush() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        FlushMode flushMode = tx.execute(status -> entityManager.unwrap(Session.class).getHibernateFlushMode());
+        assertThat(flushMode).isEqualTo(FlushMode.MANUAL);
+    }
+
+    @Test
+    void readOnlyServiceMethodsDoNotFlushChangesToLoadedEntities() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long flushes = statistics.getFlushCount();
+        long actualizaciones = statistics.getEntityUpdateCount();
+        CambiosAlCargar.activo = true;
+
+        assertThat(productoService.getProductoById(1).getNombre()).isEqualTo("Cambiado");
+        assertThat(productoService.filterProductos(null, null, null, null, List.of(4), null, null, null))
+                .singleElement().extracting(Producto::getNombre).isEqualTo("Cambiado");
+        assertThat(productoService.getAllProductos()).singleElement().extracting(Producto::getStock).isEqualTo(0);
+        CambiosAlCargar.activo = false;
+
+        assertThat(statistics.getFlushCount()).isEqualTo(flushes);
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(actualizaciones);
+        assertThat(jdbc.queryForMap("SELECT nombre, stock FROM productos WHERE id = 1"))
+                .containsEntry("nombre", "Charizard")
+                .containsEntry("stock", 3);
+    }
+}
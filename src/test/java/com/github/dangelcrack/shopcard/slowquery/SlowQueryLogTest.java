@@ -0,0 +1,113 @@
+package com.github.dangelcrack.shopcard.slowquery;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Con umbral 0 todas las sentencias son lentas: comprueba que se guardan con sus parámetros, el
+ * método de repositorio y la ruta que las lanzaron, que el plan se obtiene en segundo plano y que
+ * el endpoint pide el rol de administración. Los parámetros se guardan sin enmascarar para poder
+ * comprobarlos.
+ */
+@SpringBootTest(properties = {
+        "shopcard.slow-query.threshold-ms=0",
+        "shopcard.slow-query.capacity=8",
+        "shopcard.slow-query.mask-binds=false"})
+@AutoConfigureMockMvc
+class SlowQueryLogTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+
+    @BeforeEach
+    void seed() {
+        jdbc.update("DELETE FROM valoraciones");
+        jdbc.update("DELETE FROM productos");
+        jdbc.update("DELETE FROM categorias");
+        jdbc.update("DELETE FROM colecciones");
+        jdbc.update("DELETE FROM rarezas");
+        jdbc.update("DELETE FROM estados_producto");
+        jdbc.update("INSERT INTO categorias (id, nombre) VALUES (1, 'Pokemon')");
+        jdbc.update("INSERT INTO colecciones (id, nombre, codigo) VALUES (1, 'Base', 'BS')");
+        jdbc.update("INSERT INTO rarezas (id, nombre, color) VALUES (1, 'Rara', 'oro')");
+        jdbc.update("INSERT INTO estados_producto (id, codigo, descripcion) VALUES (1, 'NM', 'Near mint')");
+        jdbc.update("INSERT INTO productos (id, nombre, precio, precio_original, stock, numero_carta, categoria_id, " +
+                "coleccion_id, rareza_id, estado_id, fecha_creacion) VALUES (1, 'Carta 1', 10, 20, 3, 1, 1, 1, 1, 1, CURRENT_DATE)");
+        slowQueryLog.clear();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void recordsBindsRepositoryRouteAndPlan() throws Exception {
+        mvc.perform(get("/api/productos/1")).andExpect(status().isOk());
+
+        List<SlowQuery> consultas = slowQueryLog.getRecientes();
+        assertThat(consultas).hasSize(1);
+        SlowQuery consulta = consultas.get(0);
+        assertThat(consulta.getSql()).startsWith("select").contains("productos");
+        assertThat(consulta.getParametros()).containsExactly("1");
+        assertThat(consulta.getRepositorio()).isEqualTo("ProductoRepository.findById");
+        assertThat(consulta.getRuta()).isEqualTo("GET /api/productos/1");
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(consulta.getPlan()).isNotBlank());
+
+        mvc.perform(get("/api/admin/slow-queries"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.consultas[0].repositorio").value("ProductoRepository.findById"));
+        mvc.perform(delete("/api/admin/slow-queries")).andExpect(status().isNoContent());
+        assertThat(slowQueryLog.getTotal()).isZero();
+    }
+
+    @Test
+    void keepsOnlyTheMostRecent() {
+        for (int i = 0; i < 20; i++) {
+            jdbc.queryForObject("SELECT COUNT(*) FROM productos WHERE id > ?", Long.class, i);
+        }
+
+        List<SlowQuery> consultas = slowQueryLog.getRecientes();
+        assertThat(slowQueryLog.getTotal()).isEqualTo(20);
+        assertThat(consultas).hasSize(8);
+        assertThat(consultas.get(0).getParametros()).containsExactly("19");
+        assertThat(consultas.get(0).getRepositorio()).isNull();
+    }
+
+    @Test
+    void adminEndpointRequiresTheAdminRole() throws Exception {
+        mvc.perform(get("/api/admin/slow-queries")).andExpect(status().isUnauthorized());
+        mvc.perform(delete("/api/admin/slow-queries")).andExpect(status().isUnauthorized());
+        mvc.perform(get("/api/admin/slow-queries").with(user("cliente")))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void masksBindsByDefault() {
+        SlowQueryLog enmascarado = new SlowQueryLog(new SlowQueryProperties(), new SimpleMeterRegistry());
+        enmascarado.record("SELECT * FROM valoraciones WHERE nombre_cliente = ? AND puntuacion > ?",
+                new Object[]{"ana", 3}, 1, 1_000_000);
+        assertThat(enmascarado.getRecientes().get(0).getParametros()).containsExactly("<String>", "<Integer>");
+    }
+}
@@ -0,0 +1,181 @@
+package com.github.dangelcrack.shopcard.statistics;
+
+import com.github.dangelcrack.shopcard.slowquery.SlowQueryLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba que las estadísticas por colección y categoría coinciden con sus productos, que se
+ * sirven sin consultar la base de datos y que las escrituras y la reconciliación las mantienen.
+ * El refresco incremental se lanza a mano para no depender del intervalo programado.
+ */
+@SpringBootTest(properties = {
+        "shopcard.stats.refresh-delay-ms=3600000",
+        "shopcard.slow-query.threshold-ms=0"})
+@AutoConfigureMockMvc
+class CatalogStatisticsTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private CatalogStatistics statistics;
+
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+
+    @BeforeEach
+    void seed() {
+        // La reconciliación del arranque no debe cruzarse con los datos de cada test
+        await().atMost(Duration.ofSeconds(30)).until(statistics::isReconciliado);
+        jdbc.update("DELETE FROM valoraciones");
+        jdbc.update("DELETE FROM productos");
+        jdbc.update("DELETE FROM categorias");
+        jdbc.update("DELETE FROM colecciones");
+        jdbc.update("DELETE FROM rarezas");
+        jdbc.update("DELETE FROM estados_producto");
+        jdbc.update("INSERT INTO categorias (id, nombre) VALUES (1, 'Pokemon'), (2, 'Magic')");
+        jdbc.update("INSERT INTO colecciones (id, nombre, codigo) VALUES (1, 'Base', 'BS'), (2, 'Jungla', 'JU')");
+        jdbc.update("INSERT INTO rarezas (id, nombre, color) VALUES (1, 'Rara', 'oro')");
+        jdbc.update("INSERT INTO estados_producto (id, codigo, descripcion) VALUES (1, 'NM', 'Near mint')");
+        producto(1, "Charizard", "250.00", 2, 1, 1);
+        producto(2, "Blastoise", "80.50", 0, 1, 1);
+        producto(3, "Venusaur", "40.00", 3, 1, 2);
+        producto(4, "Pikachu", "5.00", 10, 2, 1);
+        valoracion(1, 1, 5);
+        valoracion(2, 1, 4);
+        valoracion(3, 2, 3);
+        valoracion(4, 4, 1);
+        statistics.reconcile();
+    }
+
+    @Test
+    void statsMatchTheProductsAndAreServedFromMemory() throws Exception {
+        slowQueryLog.clear();
+        mvc.perform(get("/api/colecciones/1/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.productos").value(3))
+                .andExpect(jsonPath("$.productosEnStock").value(2))
+                .andExpect(jsonPath("$.unidadesEnStock").value(5))
+                .andExpect(jsonPath("$.valorStock").value(620.00))
+                .andExpect(jsonPath("$.precioMinimo").value(40.00))
+                .andExpect(jsonPath("$.precioMaximo").value(250.00))
+                .andExpect(jsonPath("$.valoraciones").value(3))
+                .andExpect(jsonPath("$.puntuacionMedia").value(4.0));
+        mvc.perform(get("/categorias/1/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productos").value(3))
+                .andExpect(jsonPath("$.unidadesEnStock").value(12))
+                .andExpect(jsonPath("$.valoraciones").value(4))
+                .andExpect(jsonPath("$.puntuacionMedia").value(3.25));
+
+        String hilo = Thread.currentThread().getName();
+        assertThat(slowQueryLog.getRecientes()).noneMatch(q -> hilo.equals(q.getHilo()));
+        assertThat(jdbc.queryForMap("SELECT productos, unidades_en_stock, suma_puntuaciones " +
+                "FROM estadisticas_colecciones WHERE coleccion_id = 1"))
+                .containsEntry("productos", 3).containsEntry("unidades_en_stock", 5L).containsEntry("suma_puntuaciones", 12L);
+    }
+
+    @Test
+    void unknownGroupsAreNotFoundAndEmptyOnesHaveZeroes() throws Exception {
+        mvc.perform(get("/api/colecciones/99/stats")).andExpect(status().isNotFound());
+        mvc.perform(get("/categorias/99/stats")).andExpect(status().isNotFound());
+
+        // Creada después de la reconciliación: se calcula al pedirla
+        jdbc.update("INSERT INTO colecciones (id, nombre, codigo) VALUES (3, 'Fósil', 'FO')");
+        mvc.perform(get("/api/colecciones/3/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productos").value(0))
+                .andExpect(jsonPath("$.valorStock").value(0))
+                .andExpect(jsonPath("$.precioMinimo").doesNotExist())
+                .andExpect(jsonPath("$.puntuacionMedia").value(0.0));
+    }
+
+    @Test
+    void writesRefreshTheOldAndNewGroups() throws Exception {
+        // Charizard pasa de la colección 1 a la 2 y cambia de precio
+        mvc.perform(patch("/api/productos/1").contentType("application/merge-patch+json")
+                        .content("{\"precio\": 300.00, \"coleccion\": {\"id\": 2}}"))
+                .andExpect(status().isOk());
+        mvc.perform(post("/valoraciones").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nombreCliente\": \"ana\", \"puntuacion\": 2, \"producto\": {\"id\": 3}}"))
+                .andExpect(status().isCreated());
+        statistics.refreshPending();
+
+        mvc.perform(get("/api/colecciones/1/stats"))
+                .andExpect(jsonPath("$.productos").value(2))
+                .andExpect(jsonPath("$.valorStock").value(120.00))
+                .andExpect(jsonPath("$.precioMaximo").value(80.50))
+                .andExpect(jsonPath("$.valoraciones").value(2))
+                .andExpect(jsonPath("$.puntuacionMedia").value(2.5));
+        mvc.perform(get("/api/colecciones/2/stats"))
+                .andExpect(jsonPath("$.productos").value(2))
+                .andExpect(jsonPath("$.valorStock").value(650.00))
+                .andExpect(jsonPath("$.precioMaximo").value(300.00))
+                .andExpect(jsonPath("$.valoraciones").value(3));
+
+        // Al eliminarlo ya no se puede consultar su colección: la trae el evento
+        jdbc.update("DELETE FROM valoraciones WHERE producto_id = 1");
+        mvc.perform(delete("/api/productos/1")).andExpect(status().isNoContent());
+        statistics.refreshPending();
+
+        mvc.perform(get("/api/colecciones/2/stats"))
+                .andExpect(jsonPath("$.productos").value(1))
+                .andExpect(jsonPath("$.precioMaximo").value(5.00))
+                .andExpect(jsonPath("$.valoraciones").value(1));
+        mvc.perform(get("/categorias/1/stats"))
+                .andExpect(jsonPath("$.productos").value(2))
+                .andExpect(jsonPath("$.valoraciones").value(2));
+        assertThat(jdbc.queryForObject("SELECT productos FROM estadisticas_colecciones WHERE coleccion_id = 2", Integer.class))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void reconciliationFixesChangesMadeOutsideTheServices() throws Exception {
+        jdbc.update("UPDATE productos SET stock = 0 WHERE coleccion_id = 1");
+        mvc.perform(get("/api/colecciones/1/stats")).andExpect(jsonPath("$.productosEnStock").value(2));
+
+        statistics.reconcile();
+
+        mvc.perform(get("/api/colecciones/1/stats"))
+                .andExpect(jsonPath("$.productosEnStock").value(0))
+                .andExpect(jsonPath("$.valorStock").value(0));
+        Map<String, Object> fila = jdbc.queryForMap(
+                "SELECT productos_en_stock, valor_stock FROM estadisticas_colecciones WHERE coleccion_id = 1");
+        assertThat(fila).containsEntry("productos_en_stock", 0);
+    }
+
+    private void producto(int id, String nombre, String precio, int stock, int coleccion, int categoria) {
+        jdbc.update("INSERT INTO productos (id, nombre, precio, precio_original, stock, numero_carta, categoria_id, " +
+                        "coleccion_id, rareza_id, estado_id, fecha_creacion) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 1, 1, CURRENT_DATE)",
+                id, nombre, new BigDecimal(precio), new BigDecimal(precio), stock, id, categoria, coleccion);
+    }
+
+    private void valoracion(int id, int productoId, int puntuacion) {
+        jdbc.update("INSERT INTO valoraciones (id, nombre_cliente, producto_id, puntuacion, fecha) " +
+                "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP)", id, "cliente" + id, productoId, puntuacion);
+    }
+}
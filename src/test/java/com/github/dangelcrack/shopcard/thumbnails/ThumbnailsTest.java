@@ -0,0 +1,226 @@
+package com.github.dangelcrack.shopcard.thumbnails;
+
+import com.github.dangelcrack.shopcard.exceptions.ImageOriginException;
+import com.github.dangelcrack.shopcard.exceptions.RecordNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba la generación de miniaturas desde un directorio local, su caché en disco y que las
+ * peticiones simultáneas de la misma miniatura la generan una sola vez. Comprueba también que el
+ * origen HTTP solo descarga de hosts permitidos y públicos y que las imágenes con demasiados
+ * píxeles se rechazan sin decodificarlas.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ThumbnailsTest {
+
+    private static final Path IMAGENES = Path.of("target/test-images");
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void seed() throws Exception {
+        jdbc.update("DELETE FROM valoraciones");
+        jdbc.update("DELETE FROM productos");
+        jdbc.update("DELETE FROM categorias");
+        jdbc.update("DELETE FROM colecciones");
+        jdbc.update("DELETE FROM rarezas");
+        jdbc.update("DELETE FROM estados_producto");
+        jdbc.update("INSERT INTO categorias (id, nombre, imagen_url) VALUES (1, 'Pokemon', '/categorias/pokemon.png'), (2, 'Magic', NULL)");
+        jdbc.update("INSERT INTO colecciones (id, nombre, codigo, imagen_url) VALUES (1, 'Base', 'BS', 'https://cdn.test/no-existe.png')");
+        jdbc.update("INSERT INTO rarezas (id, nombre, color) VALUES (1, 'Rara', 'oro')");
+        jdbc.update("INSERT INTO estados_producto (id, codigo, descripcion) VALUES (1, 'NM', 'Near mint')");
+        jdbc.update("INSERT INTO productos (id, nombre, precio, precio_original, stock, numero_carta, categoria_id, " +
+                "coleccion_id, rareza_id, estado_id, fecha_creacion, imagen_url) " +
+                "VALUES (1, 'Charizard', 250, 300, 1, 4, 1, 1, 1, 1, DATE '2024-06-11', 'https://cdn.test/cartas/charizard.png')");
+        guardar(imagen(1000, 1400, false), "cartas/charizard.png");
+        guardar(imagen(40, 40, true), "categorias/pokemon.png");
+    }
+
+    @Test
+    void productThumbnailIsBucketedAndCached() throws Exception {
+        MockHttpServletResponse response = mvc.perform(get("/api/imagenes/productos/1").param("w", "100"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "image/jpeg"))
+                .andExpect(header().string("Cache-Control", "max-age=86400, public"))
+                .andReturn().getResponse();
+        BufferedImage miniatura = ImageIO.read(new ByteArrayInputStream(response.getContentAsByteArray()));
+        assertThat(miniatura.getWidth()).isEqualTo(128);
+        assertThat(miniatura.getHeight()).isEqualTo(179);
+        assertThat(response.getContentLength()).isEqualTo(response.getContentAsByteArray().length);
+
+        String etag = response.getHeader("ETag");
+        mvc.perform(get("/api/imagenes/productos/1").param("w", "128").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        Files.delete(IMAGENES.resolve("cartas/charizard.png"));
+        byte[] desdeDisco = mvc.perform(get("/api/imagenes/productos/1").param("w", "120"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(desdeDisco).isEqualTo(response.getContentAsByteArray());
+    }
+
+    @Test
+    void transparentImagesStayPngAndAreNeverUpscaled() throws Exception {
+        byte[] cuerpo = mvc.perform(get("/api/imagenes/categorias/1").param("w", "512"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "image/png"))
+                .andReturn().getResponse().getContentAsByteArray();
+        BufferedImage miniatura = ImageIO.read(new ByteArrayInputStream(cuerpo));
+        assertThat(miniatura.getWidth()).isEqualTo(40);
+        assertThat(miniatura.getColorModel().hasAlpha()).isTrue();
+    }
+
+    @Test
+    void missingImagesAndInvalidWidthsAreRejected() throws Exception {
+        mvc.perform(get("/api/imagenes/productos/99")).andExpect(status().isNotFound());
+        mvc.perform(get("/api/imagenes/categorias/2")).andExpect(status().isNotFound());
+        mvc.perform(get("/api/imagenes/colecciones/1")).andExpect(status().isNotFound());
+        mvc.perform(get("/api/imagenes/productos/1").param("w", "0")).andExpect(status().isBadRequest());
+        mvc.perform(get("/api/imagenes/rarezas/1")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void concurrentMissesRenderOnce(@TempDir Path directorio) throws Exception {
+        ThumbnailCache cache = new ThumbnailCache(directorio, 1 << 20, new SimpleMeterRegistry());
+        AtomicInteger generaciones = new AtomicInteger();
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ThumbnailCache.Miniatura>> resultados = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                resultados.add(pool.submit(() -> cache.obtener("https://cdn.test/a.png", 64, () -> {
+                    generaciones.incrementAndGet();
+                    try {
+                        liberar.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return new ThumbnailRenderer.Imagen(new byte[100], "jpg");
+                })));
+            }
+            Thread.sleep(200);
+            liberar.countDown();
+            for (Future<ThumbnailCache.Miniatura> resultado : resultados) {
+                assertThat(resultado.get(5, TimeUnit.SECONDS)).isEqualTo(resultados.get(0).get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(generaciones).hasValue(1);
+    }
+
+    @Test
+    void diskCacheEvictsLeastRecentlyUsedAndSurvivesRestarts(@TempDir Path directorio) {
+        ThumbnailCache cache = new ThumbnailCache(directorio, 2500, new SimpleMeterRegistry());
+        ThumbnailCache.Miniatura a = cache.obtener("a", 64, () -> new ThumbnailRenderer.Imagen(new byte[1000], "jpg"));
+        ThumbnailCache.Miniatura b = cache.obtener("b", 64, () -> new ThumbnailRenderer.Imagen(new byte[1000], "jpg"));
+        cache.obtener("a", 64, () -> {
+            throw new AssertionError("a ya está en disco");
+        });
+        ThumbnailCache.Miniatura c = cache.obtener("c", 64, () -> new ThumbnailRenderer.Imagen(new byte[1000], "png"));
+
+        assertThat(b.fichero()).doesNotExist();
+        assertThat(a.fichero()).exists();
+        assertThat(c.fichero()).exists();
+        assertThat(cache.getBytes()).isEqualTo(2000);
+
+        ThumbnailCache reiniciada = new ThumbnailCache(directorio, 2500, new SimpleMeterRegistry());
+        assertThat(reiniciada.size()).isEqualTo(2);
+        assertThat(reiniciada.obtener("c", 64, () -> {
+            throw new AssertionError("c ya está en disco");
+        })).isEqualTo(c);
+    }
+
+    @Test
+    void httpOriginRejectsHostsOutsideTheAllowlistAndInternalAddresses() throws Exception {
+        HttpImageOrigin origen = new HttpImageOrigin(1000, 1 << 20, List.of("cdn.test", "localhost", "*.ejemplo.com"));
+
+        assertThatThrownBy(() -> origen.leer("https://otro.test/a.png")).isInstanceOf(RecordNotFoundException.class);
+        assertThatThrownBy(() -> origen.leer("http://169.254.169.254/latest/meta-data/")).isInstanceOf(RecordNotFoundException.class);
+        assertThatThrownBy(() -> origen.leer("file:///etc/passwd")).isInstanceOf(RecordNotFoundException.class);
+        assertThatThrownBy(() -> origen.leer("https://user@cdn.test/a.png")).isInstanceOf(RecordNotFoundException.class);
+        // Permitido por nombre pero resuelve a loopback
+        assertThatThrownBy(() -> origen.leer("http://localhost:8080/a.png")).isInstanceOf(RecordNotFoundException.class);
+
+        assertThat(HttpImageOrigin.interna(InetAddress.getByName("10.1.2.3"))).isTrue();
+        assertThat(HttpImageOrigin.interna(InetAddress.getByName("192.168.0.10"))).isTrue();
+        assertThat(HttpImageOrigin.interna(InetAddress.getByName("169.254.169.254"))).isTrue();
+        assertThat(HttpImageOrigin.interna(InetAddress.getByName("224.0.0.1"))).isTrue();
+        assertThat(HttpImageOrigin.interna(InetAddress.getByName("100.64.0.1"))).isTrue();
+        assertThat(HttpImageOrigin.interna(InetAddress.getByName("::1"))).isTrue();
+        assertThat(HttpImageOrigin.interna(InetAddress.getByName("fd00::1"))).isTrue();
+        assertThat(HttpImageOrigin.interna(InetAddress.getByName("93.184.216.34"))).isFalse();
+        assertThat(HttpImageOrigin.interna(InetAddress.getByName("2606:2800:220:1::1"))).isFalse();
+    }
+
+    @Test
+    void imagesWithTooManyPixelsAreRejectedBeforeDecoding() throws Exception {
+        ThumbnailRenderer renderer = new ThumbnailRenderer(0.85f, 10_000);
+
+        assertThatThrownBy(() -> renderer.renderizar(png(imagen(200, 100, false)), 64))
+                .isInstanceOf(ImageOriginException.class)
+                .hasMessageContaining("200x100");
+        assertThatThrownBy(() -> renderer.renderizar("no es una imagen".getBytes(), 64))
+                .isInstanceOf(ImageOriginException.class);
+        assertThat(renderer.renderizar(png(imagen(100, 100, false)), 64).extension()).isEqualTo("jpg");
+    }
+
+    private static byte[] png(BufferedImage imagen) throws Exception {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        ImageIO.write(imagen, "png", salida);
+        return salida.toByteArray();
+    }
+
+    private static BufferedImage imagen(int ancho, int alto, boolean transparente) {
+        BufferedImage imagen = new BufferedImage(ancho, alto, transparente ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = imagen.createGraphics();
+        g.setColor(new Color(200, 60, 20, transparente ? 128 : 255));
+        g.fillRect(0, 0, ancho / 2, alto / 2);
+        g.dispose();
+        return imagen;
+    }
+
+    private static void guardar(BufferedImage imagen, String ruta) throws Exception {
+        Path fichero = IMAGENES.resolve(ruta);
+        Files.createDirectories(fichero.getParent());
+        ImageIO.write(imagen, "png", fichero.toFile());
+    }
+}
@@ -0,0 +1,179 @@
+package com.github.dangelcrack.shopcard.tracing;
+
+import com.github.dangelcrack.shopcard.config.TracingConfig;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba que una petición muestreada genera la jerarquía de spans esperada, exportada a un
+ * exportador en memoria en lugar del OTLP, y que el indicador de muestreo de {@code traceparent}
+ * solo se respeta si se confía en el llamante.
+ */
+@SpringBootTest(properties = "management.tracing.sampling.probability=1.0")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class TracingTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String PARENT_ID = "00f067aa0ba902b7";
+
+    @TestConfiguration
+    static class ExportadorEnMemoria {
+        @Bean
+        InMemorySpanExporter inMemorySpanExporter() {
+            return InMemorySpanExporter.create();
+        }
+    }
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private InMemorySpanExporter exporter;
+
+    @Autowired
+    private SdkTracerProvider tracerProvider;
+
+    @BeforeEach
+    void seed() {
+        jdbc.update("DELETE FROM valoraciones");
+        jdbc.update("DELETE FROM productos");
+        jdbc.update("DELETE FROM categorias");
+        jdbc.update("DELETE FROM colecciones");
+        jdbc.update("DELETE FROM rarezas");
+        jdbc.update("DELETE FROM estados_producto");
+        jdbc.update("INSERT INTO categorias (id, nombre) VALUES (1, 'Pokemon')");
+        jdbc.update("INSERT INTO colecciones (id, nombre, codigo) VALUES (1, 'Base', 'BS')");
+        jdbc.update("INSERT INTO rarezas (id, nombre, color) VALUES (1, 'Rara', 'oro')");
+        jdbc.update("INSERT INTO estados_producto (id, codigo, descripcion) VALUES (1, 'NM', 'Near mint')");
+        jdbc.update("INSERT INTO productos (id, nombre, precio, precio_original, stock, numero_carta, categoria_id, " +
+                "coleccion_id, rareza_id, estado_id, fecha_creacion) VALUES (1, 'Carta 1', 10, 20, 3, 1, 1, 1, 1, 1, CURRENT_DATE)");
+        jdbc.update("INSERT INTO valoraciones (id, nombre_cliente, producto_id, puntuacion, fecha) VALUES (1, 'ana', 1, 4, CURRENT_TIMESTAMP)");
+        tracerProvider.forceFlush().join(5, TimeUnit.SECONDS);
+        exporter.reset();
+    }
+
+    @Test
+    void filterRequestProducesNestedSpans() throws Exception {
+        String respuesta = mvc.perform(get("/api/productos/filter?ratings=4")
+                        .header(TracingFilter.HEADER, "00-" + TRACE_ID + "-" + PARENT_ID + "-01"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(TracingFilter.HEADER);
+        assertThat(respuesta).startsWith("00-" + TRACE_ID + "-").endsWith("-01");
+
+        List<SpanData> spans = spansDeLaTraza();
+        Map<String, SpanData> porNombre = spans.stream()
+                .collect(Collectors.toMap(SpanData::getName, Function.identity(), (a, b) -> a));
+        assertThat(porNombre).containsKeys("http get /api/productos/filter", "ProductoController.filterProductos",
+                "ProductoService.filterProductos", "ProductoRepository.findAll", "ProductoService.filtrar",
+                "SQL SELECT", "serialize ArrayList");
+
+        SpanData raiz = porNombre.get("http get /api/productos/filter");
+        assertThat(raiz.getParentSpanId()).isEqualTo(PARENT_ID);
+        assertThat(raiz.getKind()).isEqualTo(SpanKind.SERVER);
+        // Entre la raíz y el controlador quedan los spans de los filtros de Spring Security
+        assertAncestor(spans, porNombre, "ProductoController.filterProductos", "http get /api/productos/filter");
+        assertAncestor(spans, porNombre, "serialize ArrayList", "http get /api/productos/filter");
+        assertParent(porNombre, "ProductoService.filterProductos", "ProductoController.filterProductos");
+        assertParent(porNombre, "ProductoRepository.findAll", "ProductoService.filterProductos");
+        assertParent(porNombre, "ProductoService.filtrar", "ProductoService.filterProductos");
+        assertParent(porNombre, "SQL SELECT", "ProductoRepository.findAll");
+
+        SpanData sql = porNombre.get("SQL SELECT");
+        SpanData repositorio = porNombre.get("ProductoRepository.findAll");
+        assertThat(sql.getAttributes().get(AttributeKey.stringKey("db.statement"))).startsWith("select");
+        assertThat(sql.getStartEpochNanos()).isBetween(repositorio.getStartEpochNanos(), repositorio.getEndEpochNanos());
+    }
+
+    @Test
+    void unsampledRemoteParentIsSampledLocally() throws Exception {
+        String respuesta = mvc.perform(get("/api/productos/1")
+                        .header(TracingFilter.HEADER, "00-" + TRACE_ID + "-" + PARENT_ID + "-00"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(TracingFilter.HEADER);
+
+        // Con probabilidad 1 se muestrea aunque el llamante diga lo contrario, dentro de su traza
+        assertThat(respuesta).startsWith("00-" + TRACE_ID + "-").endsWith("-01");
+        assertThat(spansDeLaTraza()).extracting(SpanData::getName).contains("http get /api/productos/{id}");
+    }
+
+    @Test
+    void remoteSamplingFlagIsOnlyTrustedWhenConfigured() {
+        Context remoto = Context.root().with(io.opentelemetry.api.trace.Span.wrap(SpanContext.createFromRemoteParent(
+                TRACE_ID, PARENT_ID, TraceFlags.getSampled(), TraceState.getDefault())));
+        Context local = Context.root().with(io.opentelemetry.api.trace.Span.wrap(SpanContext.create(
+                TRACE_ID, PARENT_ID, TraceFlags.getSampled(), TraceState.getDefault())));
+
+        assertThat(decision(TracingConfig.sampler(0.0, false), remoto)).isEqualTo(SamplingDecision.DROP);
+        assertThat(decision(TracingConfig.sampler(0.0, true), remoto)).isEqualTo(SamplingDecision.RECORD_AND_SAMPLE);
+        // Los spans hijos dentro de la aplicación siguen siempre a su padre
+        assertThat(decision(TracingConfig.sampler(0.0, false), local)).isEqualTo(SamplingDecision.RECORD_AND_SAMPLE);
+    }
+
+    private static SamplingDecision decision(Sampler sampler, Context padre) {
+        return sampler.shouldSample(padre, TRACE_ID, "GET", SpanKind.SERVER, Attributes.empty(), List.of()).getDecision();
+    }
+
+    private void assertParent(Map<String, SpanData> porNombre, String hijo, String padre) {
+        assertThat(porNombre.get(hijo).getParentSpanId())
+                .as("padre de %s", hijo)
+                .isEqualTo(porNombre.get(padre).getSpanId());
+    }
+
+    /**
+     * Recorre la cadena de padres de {@code descendiente} hasta encontrar {@code ancestro}.
+     */
+    private void assertAncestor(List<SpanData> spans, Map<String, SpanData> porNombre, String descendiente, String ancestro) {
+        Map<String, String> padres = spans.stream()
+                .collect(Collectors.toMap(SpanData::getSpanId, SpanData::getParentSpanId));
+        String objetivo = porNombre.get(ancestro).getSpanId();
+        String actual = porNombre.get(descendiente).getParentSpanId();
+        while (actual != null && !actual.equals(objetivo)) {
+            actual = padres.get(actual);
+        }
+        assertThat(actual).as("%s desciende de %s", descendiente, ancestro).isEqualTo(objetivo);
+    }
+
+    /**
+     * Spans exportados de la traza del test; las tareas programadas abren trazas propias.
+     */
+    private List<SpanData> spansDeLaTraza() {
+        tracerProvider.forceFlush().join(5, TimeUnit.SECONDS);
+        return exporter.getFinishedSpanItems().stream()
+                .filter(s -> s.getTraceId().equals(TRACE_ID))
+                .toList();
+    }
+}
@@ -0,0 +1,4 @@
+-- Solo en los tests: los ids que reserva Hibernate empiezan en un millón, lejos de los ids fijos
+-- con los que los tests insertan sus datos por JDBC. Sin esto, un bloque reservado en un test
+-- podría repetir los ids que otro inserta después a mano.
+UPDATE secuencias SET siguiente = GREATEST(siguiente, 1000000);